@@ -75,6 +75,7 @@ import org.apache.activemq.artemis.core.persistence.impl.journal.JournalStorageM
 import org.apache.activemq.artemis.core.persistence.impl.journal.JournalStorageManager.CursorAckRecordEncoding;
 import org.apache.activemq.artemis.core.persistence.impl.journal.JournalStorageManager.PageUpdateTXEncoding;
 import org.apache.activemq.artemis.core.persistence.impl.journal.JournalStorageManager.PersistentQueueBindingEncoding;
+import org.apache.activemq.artemis.core.persistence.impl.journal.JournalStorageManager.PropertyKeyEncoding;
 import org.apache.activemq.artemis.core.server.ActiveMQServerLogger;
 import org.apache.activemq.artemis.core.server.JournalType;
 import org.apache.activemq.artemis.core.server.LargeServerMessage;
@@ -233,7 +234,7 @@ public final class XmlDataExporter extends LockAbstract {
          ActiveMQBuffer buff = ActiveMQBuffers.wrappedBuffer(data);
 
          Object o = DescribeJournal.newObjectEncoding(info, storageManager);
-         if (info.getUserRecordType() == JournalRecordIds.ADD_MESSAGE) {
+         if (info.getUserRecordType() == JournalRecordIds.ADD_MESSAGE || info.getUserRecordType() == JournalRecordIds.ADD_MESSAGE_DICTIONARY) {
             messages.put(info.id, ((MessageDescribe) o).getMsg());
          }
          else if (info.getUserRecordType() == JournalRecordIds.ADD_LARGE_MESSAGE) {
@@ -383,6 +384,10 @@ public final class XmlDataExporter extends LockAbstract {
             PersistentQueueBindingEncoding bindingEncoding = (PersistentQueueBindingEncoding) DescribeJournal.newObjectEncoding(info, null);
             queueBindings.put(bindingEncoding.getId(), bindingEncoding);
          }
+         else if (info.getUserRecordType() == JournalRecordIds.PROPERTY_KEY_RECORD) {
+            PropertyKeyEncoding keyEncoding = (PropertyKeyEncoding) DescribeJournal.newObjectEncoding(info, null);
+            storageManager.getPropertyKeys().addKey(keyEncoding.reference, keyEncoding.key);
+         }
       }
 
       bindingsJournal.stop();
@@ -18,9 +18,13 @@ package org.apache.activemq.artemis.api.core;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+import io.netty.buffer.ByteBuf;
+import org.apache.activemq.artemis.utils.CompactEncoding;
 import org.apache.activemq.artemis.utils.DataConstants;
+import org.apache.activemq.artemis.utils.UTF8Util;
 
 /**
  * A simple String class that can store all characters, and stores as simple {@code byte[]}, this
@@ -59,6 +63,114 @@ public final class SimpleString implements CharSequence, Serializable, Comparabl
       return new SimpleString(string);
    }
 
+   /**
+    * Writes a string as {@link ActiveMQBuffer#writeSimpleString(SimpleString)} writes its SimpleString, without
+    * creating it: the chars are encoded straight into the array of the buffer when it has one, and copied to it a
+    * chunk at a time otherwise.
+    */
+   public static void writeSimpleString(final ByteBuf buffer, final String string) {
+      int length = string.length();
+
+      buffer.ensureWritable(DataConstants.SIZE_INT + (length << 1));
+
+      buffer.writeInt(length << 1);
+
+      UTF8Util.StringUtilBuffer scratch = UTF8Util.getThreadLocalBuffer();
+
+      char[] chars = scratch.charBuffer;
+
+      scratch.resizeByteBuffer(chars.length << 1);
+
+      for (int start = 0; start < length; start += chars.length) {
+         int count = Math.min(chars.length, length - start);
+
+         string.getChars(start, start + count, chars, 0);
+
+         if (buffer.hasArray()) {
+            int writerIndex = buffer.writerIndex();
+
+            encodeChars(chars, count, buffer.array(), buffer.arrayOffset() + writerIndex);
+
+            buffer.writerIndex(writerIndex + (count << 1));
+         }
+         else {
+            encodeChars(chars, count, scratch.byteBuffer, 0);
+
+            buffer.writeBytes(scratch.byteBuffer, 0, count << 1);
+         }
+      }
+   }
+
+   /**
+    * Reads a string as {@link ActiveMQBuffer#readSimpleString()} reads a SimpleString, without creating it: the chars
+    * are decoded straight from the array of the buffer when it has one, and from a chunk copied from it at a time
+    * otherwise.
+    */
+   public static String readString(final ByteBuf buffer) {
+      int length = buffer.readInt();
+
+      if (length > buffer.readableBytes()) {
+         throw new IndexOutOfBoundsException("length=" + length + " readableBytes=" + buffer.readableBytes());
+      }
+
+      char[] chars = new char[length >> 1];
+
+      if (buffer.hasArray()) {
+         int readerIndex = buffer.readerIndex();
+
+         decodeChars(buffer.array(), buffer.arrayOffset() + readerIndex, chars, 0, chars.length);
+
+         buffer.readerIndex(readerIndex + length);
+      }
+      else {
+         UTF8Util.StringUtilBuffer scratch = UTF8Util.getThreadLocalBuffer();
+
+         byte[] bytes = scratch.byteBuffer;
+
+         int chunk = bytes.length >> 1;
+
+         for (int start = 0; start < chars.length; start += chunk) {
+            int count = Math.min(chunk, chars.length - start);
+
+            buffer.readBytes(bytes, 0, count << 1);
+
+            decodeChars(bytes, 0, chars, start, count);
+         }
+
+         buffer.skipBytes(length & 1);
+      }
+
+      return new String(chars);
+   }
+
+   private static void encodeChars(final char[] chars, final int count, final byte[] bytes, final int offset) {
+      int j = offset;
+
+      for (int i = 0; i < count; i++) {
+         char c = chars[i];
+
+         bytes[j++] = (byte) (c & 0xFF); // low byte
+
+         bytes[j++] = (byte) (c >> 8 & 0xFF); // high byte
+      }
+   }
+
+   private static void decodeChars(final byte[] bytes,
+                                   final int offset,
+                                   final char[] chars,
+                                   final int charOffset,
+                                   final int count) {
+      int j = offset;
+
+      for (int i = charOffset; i < charOffset + count; i++) {
+         int low = bytes[j++] & 0xFF;
+
+         int high = bytes[j++] << 8 & 0xFF00;
+
+         chars[i] = (char) (low | high);
+      }
+   }
+
    // Constructors
    // ----------------------------------------------------------------------
 
@@ -177,15 +289,7 @@ public final class SimpleString implements CharSequence, Serializable, Comparabl
 
          char[] chars = new char[len];
 
-         int j = 0;
-
-         for (int i = 0; i < len; i++) {
-            int low = data[j++] & 0xFF;
-
-            int high = data[j++] << 8 & 0xFF00;
-
-            chars[i] = (char) (low | high);
-         }
+         decodeChars(data, 0, chars, 0, len);
 
          str = new String(chars);
       }
@@ -388,16 +492,152 @@ public final class SimpleString implements CharSequence, Serializable, Comparabl
          throw new StringIndexOutOfBoundsException(srcEnd - srcBegin);
       }
 
-      int j = srcBegin * 2;
-      int d = dstPos;
-
-      for (int i = srcBegin; i < srcEnd; i++) {
-         int low = data[j++] & 0xFF;
+      decodeChars(data, srcBegin * 2, dst, dstPos, srcEnd - srcBegin);
+   }
 
-         int high = data[j++] << 8 & 0xFF00;
+   private boolean contentEquals(final ActiveMQBuffer buffer, final int position, final int length) {
+      if (data.length != length) {
+         return false;
+      }
 
-         dst[d++] = (char) (low | high);
+      for (int i = 0; i < length; i++) {
+         if (data[i] != buffer.getByte(position + i)) {
+            return false;
+         }
       }
+
+      return true;
    }
 
+   /**
+    * A bounded pool of SimpleStrings for the few distinct strings decoded over and over, e.g. addresses and property
+    * keys: reading one that is in the pool returns it without allocating.
+    * <p>
+    * The strings are kept in a table indexed by their hash code, a string replaces the one with the same index, so
+    * the pool never grows. It can be used by many threads without locking: the strings are immutable and at worst
+    * a string is allocated while another thread puts the same one in the pool.
+    */
+   public static final class Pool {
+
+      private final SimpleString[] entries;
+
+      private final int mask;
+
+      private final int maxLength;
+
+      /**
+       * @param capacity  the number of strings kept, a power of 2
+       * @param maxLength the length in bytes of the longest strings kept, longer ones being unlikely to repeat
+       */
+      public Pool(final int capacity, final int maxLength) {
+         if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of 2: " + capacity);
+         }
+
+         this.entries = new SimpleString[capacity];
+         this.mask = capacity - 1;
+         this.maxLength = maxLength;
+      }
+
+      /**
+       * Reads a SimpleString as {@link ActiveMQBuffer#readSimpleString()} does.
+       */
+      public SimpleString readSimpleString(final ActiveMQBuffer buffer) {
+         int length = buffer.readInt();
+
+         if (length > maxLength) {
+            byte[] data = new byte[length];
+            buffer.readBytes(data);
+            return new SimpleString(data);
+         }
+
+         int position = buffer.readerIndex();
+
+         int hash = 0;
+         for (int i = 0; i < length; i++) {
+            hash = (hash << 5) - hash + buffer.getByte(position + i);
+         }
+
+         int index = (hash ^ hash >>> 16) & mask;
+
+         SimpleString entry = entries[index];
+
+         if (entry != null && entry.hashCode() == hash && entry.contentEquals(buffer, position, length)) {
+            buffer.skipBytes(length);
+            return entry;
+         }
+
+         byte[] data = new byte[length];
+         buffer.readBytes(data);
+
+         entry = new SimpleString(data);
+         entry.hash = hash;
+         entries[index] = entry;
+
+         return entry;
+      }
+
+      /**
+       * Reads a SimpleString as {@link ActiveMQBuffer#readNullableSimpleString()} does.
+       */
+      public SimpleString readNullableSimpleString(final ActiveMQBuffer buffer) {
+         if (buffer.readByte() == DataConstants.NULL) {
+            return null;
+         }
+
+         return readSimpleString(buffer);
+      }
+
+      /**
+       * Reads a SimpleString as {@link CompactEncoding#readString(ActiveMQBuffer)} does.
+       */
+      public SimpleString readCompactString(final ActiveMQBuffer buffer) {
+         byte[] data = CompactEncoding.readStringData(buffer);
+
+         if (data.length > maxLength) {
+            return new SimpleString(data);
+         }
+
+         int hash = 0;
+         for (byte element : data) {
+            hash = (hash << 5) - hash + element;
+         }
+
+         int index = (hash ^ hash >>> 16) & mask;
+
+         SimpleString entry = entries[index];
+
+         if (entry != null && entry.hashCode() == hash && Arrays.equals(entry.data, data)) {
+            return entry;
+         }
+
+         entry = new SimpleString(data);
+         entry.hash = hash;
+         entries[index] = entry;
+
+         return entry;
+      }
+
+      /**
+       * @return the string of the pool equal to the given one, which is put in the pool if there is none
+       */
+      public SimpleString intern(final SimpleString string) {
+         if (string == null || string.data.length > maxLength) {
+            return string;
+         }
+
+         int hash = string.hashCode();
+         int index = (hash ^ hash >>> 16) & mask;
+
+         SimpleString entry = entries[index];
+
+         if (string.equals(entry)) {
+            return entry;
+         }
+
+         entries[index] = string;
+
+         return string;
+      }
+   }
 }
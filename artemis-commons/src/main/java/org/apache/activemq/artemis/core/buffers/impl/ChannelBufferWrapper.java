@@ -105,12 +105,12 @@ public class ChannelBufferWrapper implements ActiveMQBuffer {
          return readUTF();
       }
       else {
-         return readSimpleStringInternal().toString();
+         return SimpleString.readString(buffer);
       }
    }
 
    public String readUTF() {
-      return UTF8Util.readUTF(this);
+      return UTF8Util.readUTF(buffer);
    }
 
    public void writeBoolean(final boolean val) {
@@ -168,12 +168,12 @@ public class ChannelBufferWrapper implements ActiveMQBuffer {
       }
       else {
          // Store as SimpleString, since can't store utf > 0xffff in length
-         writeSimpleStringInternal(new SimpleString(val));
+         SimpleString.writeSimpleString(buffer, val);
       }
    }
 
    public void writeUTF(final String utf) {
-      UTF8Util.saveUTF(this, utf);
+      UTF8Util.saveUTF(buffer, utf);
    }
 
    public int capacity() {
@@ -45,4 +45,7 @@ public interface ActiveMQUtilBundle {
 
    @Message(id = 209003, value = "Error instantiating codec {0}", format = Message.Format.MESSAGE_FORMAT)
    IllegalArgumentException errorCreatingCodec(@Cause Exception e, String codecClassName);
+
+   @Message(id = 209004, value = "Invalid compact encoding: {0}", format = Message.Format.MESSAGE_FORMAT)
+   IllegalStateException invalidCompactEncoding(String reason);
 }
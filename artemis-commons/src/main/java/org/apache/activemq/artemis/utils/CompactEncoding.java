@@ -0,0 +1,300 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.logs.ActiveMQUtilBundle;
+
+/**
+ * The primitives of the compact encoding of the headers and properties of the messages: integers as variable-length
+ * quantities of 7 bits per byte, the least significant first, strings in UTF-8 after their length in bytes, and the
+ * names of the properties set by the broker and the JMS client as references to a fixed dictionary.
+ * <p>
+ * Each char of a string is encoded on its own as in CESU-8, surrogates included, so that any string round trips.
+ */
+public final class CompactEncoding {
+
+   // never reordered nor removed from, only appended to: the journals and the peers refer to the keys by position
+   private static final SimpleString[] KEYS = {
+      new SimpleString("_AMQ_DUPL_ID"),
+      new SimpleString("_AMQ_ROUTE_TO"),
+      new SimpleString("_AMQ_ACK_ROUTE_TO"),
+      new SimpleString("_AMQ_SCALEDOWN_TO"),
+      new SimpleString("_AMQ_BRIDGE_DUP"),
+      new SimpleString("_AMQ_ORIG_ADDRESS"),
+      new SimpleString("_AMQ_ORIG_QUEUE"),
+      new SimpleString("_AMQ_ORIG_MESSAGE_ID"),
+      new SimpleString("_AMQ_ACTUAL_EXPIRY"),
+      new SimpleString("_AMQ_GROUP_ID"),
+      new SimpleString("_AMQ_SCHED_DELIVERY"),
+      new SimpleString("_AMQ_LVQ_NAME"),
+      new SimpleString("_AMQ_CONTENT_TYPE"),
+      new SimpleString("_AMQ_LARGE_COMPRESSED"),
+      new SimpleString("_AMQ_LARGE_SIZE"),
+      new SimpleString("__AMQ_CID"),
+      new SimpleString("JMSCorrelationID"),
+      new SimpleString("JMSReplyTo"),
+      new SimpleString("JMSType"),
+      new SimpleString("JMSXGroupID"),
+      new SimpleString("JMSXGroupSeq"),
+      new SimpleString("JMSXUserID")};
+
+   private static final Map<SimpleString, Integer> KEY_REFERENCES = new HashMap<SimpleString, Integer>();
+
+   /**
+    * The fixed dictionary, used on the network and whenever no other dictionary is given.
+    */
+   public static final KeyDictionary FIXED_KEYS = new KeyDictionary() {
+      @Override
+      public int getKeyReference(final SimpleString key) {
+         return CompactEncoding.getKeyReference(key);
+      }
+
+      @Override
+      public SimpleString getKey(final int reference) {
+         return CompactEncoding.getKey(reference);
+      }
+   };
+
+   static {
+      for (int i = 0; i < KEYS.length; i++) {
+         KEY_REFERENCES.put(KEYS[i], i + 1);
+      }
+   }
+
+   private CompactEncoding() {
+   }
+
+   /**
+    * @return the number of keys in the fixed dictionary, the references above it are free for other dictionaries
+    */
+   public static int getKeyCount() {
+      return KEYS.length;
+   }
+
+   /**
+    * @return the reference to the key in the fixed dictionary, 0 if it isn't in it
+    */
+   public static int getKeyReference(final SimpleString key) {
+      Integer reference = KEY_REFERENCES.get(key);
+
+      return reference == null ? 0 : reference;
+   }
+
+   /**
+    * @return the key of a reference returned by {@link #getKeyReference(SimpleString)}
+    */
+   public static SimpleString getKey(final int reference) {
+      if (reference < 1 || reference > KEYS.length) {
+         throw ActiveMQUtilBundle.BUNDLE.invalidCompactEncoding("unknown key " + reference);
+      }
+
+      return KEYS[reference - 1];
+   }
+
+   public static void writeVarInt(final ActiveMQBuffer buffer, final int value) {
+      int remaining = value;
+
+      while ((remaining & ~0x7F) != 0) {
+         buffer.writeByte((byte) (remaining & 0x7F | 0x80));
+         remaining >>>= 7;
+      }
+
+      buffer.writeByte((byte) remaining);
+   }
+
+   public static int readVarInt(final ActiveMQBuffer buffer) {
+      int value = 0;
+
+      for (int shift = 0; shift < 35; shift += 7) {
+         byte b = buffer.readByte();
+
+         value |= (b & 0x7F) << shift;
+
+         if (b >= 0) {
+            return value;
+         }
+      }
+
+      throw ActiveMQUtilBundle.BUNDLE.invalidCompactEncoding("int longer than 5 bytes");
+   }
+
+   public static int sizeofVarInt(final int value) {
+      int size = 1;
+
+      for (int remaining = value >>> 7; remaining != 0; remaining >>>= 7) {
+         size++;
+      }
+
+      return size;
+   }
+
+   public static void writeVarLong(final ActiveMQBuffer buffer, final long value) {
+      long remaining = value;
+
+      while ((remaining & ~0x7FL) != 0) {
+         buffer.writeByte((byte) (remaining & 0x7F | 0x80));
+         remaining >>>= 7;
+      }
+
+      buffer.writeByte((byte) remaining);
+   }
+
+   public static long readVarLong(final ActiveMQBuffer buffer) {
+      long value = 0;
+
+      for (int shift = 0; shift < 70; shift += 7) {
+         byte b = buffer.readByte();
+
+         value |= (long) (b & 0x7F) << shift;
+
+         if (b >= 0) {
+            return value;
+         }
+      }
+
+      throw ActiveMQUtilBundle.BUNDLE.invalidCompactEncoding("long longer than 10 bytes");
+   }
+
+   public static int sizeofVarLong(final long value) {
+      int size = 1;
+
+      for (long remaining = value >>> 7; remaining != 0; remaining >>>= 7) {
+         size++;
+      }
+
+      return size;
+   }
+
+   /**
+    * @return the value with its sign moved to the lowest bit, so that small negative values are encoded in few bytes
+    */
+   public static int zigZag(final int value) {
+      return value << 1 ^ value >> 31;
+   }
+
+   public static int unZigZag(final int value) {
+      return value >>> 1 ^ -(value & 1);
+   }
+
+   public static long zigZag(final long value) {
+      return value << 1 ^ value >> 63;
+   }
+
+   public static long unZigZag(final long value) {
+      return value >>> 1 ^ -(value & 1);
+   }
+
+   /**
+    * @return the size of the string as written by {@link #writeString(ActiveMQBuffer, SimpleString)}
+    */
+   public static int sizeofString(final SimpleString string) {
+      int length = sizeofUTF8(string.getData());
+
+      return sizeofVarInt(length) + length;
+   }
+
+   public static void writeString(final ActiveMQBuffer buffer, final SimpleString string) {
+      byte[] data = string.getData();
+
+      writeVarInt(buffer, sizeofUTF8(data));
+
+      for (int i = 0; i < data.length; i += 2) {
+         int c = data[i] & 0xFF | (data[i + 1] & 0xFF) << 8;
+
+         if (c < 0x80) {
+            buffer.writeByte((byte) c);
+         }
+         else if (c < 0x800) {
+            buffer.writeByte((byte) (0xC0 | c >> 6));
+            buffer.writeByte((byte) (0x80 | c & 0x3F));
+         }
+         else {
+            buffer.writeByte((byte) (0xE0 | c >> 12));
+            buffer.writeByte((byte) (0x80 | c >> 6 & 0x3F));
+            buffer.writeByte((byte) (0x80 | c & 0x3F));
+         }
+      }
+   }
+
+   public static SimpleString readString(final ActiveMQBuffer buffer) {
+      return new SimpleString(readStringData(buffer));
+   }
+
+   /**
+    * Reads a string written by {@link #writeString(ActiveMQBuffer, SimpleString)}.
+    *
+    * @return the data of the string as in {@link SimpleString#getData()}
+    */
+   public static byte[] readStringData(final ActiveMQBuffer buffer) {
+      int length = readVarInt(buffer);
+      int position = buffer.readerIndex();
+      int end = position + length;
+
+      int chars = 0;
+      for (int i = position; i < end; i++) {
+         if ((buffer.getByte(i) & 0xC0) != 0x80) {
+            chars++;
+         }
+      }
+
+      byte[] data = new byte[chars << 1];
+
+      for (int j = 0; j < data.length; j += 2) {
+         int b = buffer.readByte() & 0xFF;
+         int c;
+
+         if (b < 0x80) {
+            c = b;
+         }
+         else if ((b & 0xE0) == 0xC0) {
+            c = (b & 0x1F) << 6 | buffer.readByte() & 0x3F;
+         }
+         else if ((b & 0xF0) == 0xE0) {
+            c = (b & 0x0F) << 12 | (buffer.readByte() & 0x3F) << 6 | buffer.readByte() & 0x3F;
+         }
+         else {
+            throw ActiveMQUtilBundle.BUNDLE.invalidCompactEncoding("string byte " + b);
+         }
+
+         data[j] = (byte) c;
+         data[j + 1] = (byte) (c >> 8);
+      }
+
+      if (buffer.readerIndex() != end) {
+         throw ActiveMQUtilBundle.BUNDLE.invalidCompactEncoding("string of " + length + " bytes");
+      }
+
+      return data;
+   }
+
+   private static int sizeofUTF8(final byte[] data) {
+      int size = 0;
+
+      for (int i = 0; i < data.length; i += 2) {
+         int c = data[i] & 0xFF | (data[i + 1] & 0xFF) << 8;
+
+         size += c < 0x80 ? 1 : c < 0x800 ? 2 : 3;
+      }
+
+      return size;
+   }
+}
@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.utils;
+
+import org.apache.activemq.artemis.api.core.SimpleString;
+
+/**
+ * The references to the keys of the properties in their compact encoding, see {@link CompactEncoding}.
+ * <p>
+ * A reference is never reused for another key: the journals and the peers refer to the keys by reference.
+ */
+public interface KeyDictionary {
+
+   /**
+    * @return the reference to the key, 0 if it isn't in the dictionary
+    */
+   int getKeyReference(SimpleString key);
+
+   /**
+    * @return the key of a reference returned by {@link #getKeyReference(SimpleString)}
+    */
+   SimpleString getKey(int reference);
+}
@@ -0,0 +1,223 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies in microseconds, cheap enough to be recorded on every message.
+ * <p>
+ * As in an HDR histogram, values below 8 have a bucket each and larger values share a bucket with the values within
+ * 1/8 of them, so any percentile is known within 12.5% from about 2KB of counts. Recording is an increment of the
+ * count of a bucket, the counts can be striped so that threads recording the same latency don't contend on it.
+ * <p>
+ * A histogram can have a parent that everything recorded is also recorded to, e.g. the histogram of a queue and
+ * the one of the whole server.
+ */
+public final class LatencyHistogram {
+
+   private static final int SUB_BUCKET_BITS = 3;
+
+   private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+   // about 71 minutes, larger values are counted as it
+   private static final long MAX_VALUE = (1L << 32) - 1;
+
+   private static final int BUCKETS = bucket(MAX_VALUE) + 1;
+
+   private final int stripeMask;
+
+   // the counts of the buckets, stripe after stripe
+   private final AtomicLongArray counts;
+
+   private final AtomicLong max = new AtomicLong();
+
+   private final LatencyHistogram parent;
+
+   public LatencyHistogram() {
+      this(1, null);
+   }
+
+   /**
+    * @param stripes the number of copies of the counts threads are spread on, a power of 2
+    * @param parent  the histogram everything recorded is also recorded to, null if none
+    */
+   public LatencyHistogram(final int stripes, final LatencyHistogram parent) {
+      if (stripes <= 0 || Integer.bitCount(stripes) != 1) {
+         throw new IllegalArgumentException("stripes must be a power of 2: " + stripes);
+      }
+
+      this.stripeMask = stripes - 1;
+      this.counts = new AtomicLongArray(stripes * BUCKETS);
+      this.parent = parent;
+   }
+
+   /**
+    * @return the smallest power of 2 not below the number of available processors, for histograms many threads record to
+    */
+   public static int defaultStripes() {
+      return Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1);
+   }
+
+   /**
+    * Records a latency measured in nanoseconds.
+    */
+   public void record(final long nanos) {
+      recordMicros(Math.min(MAX_VALUE, Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos))));
+   }
+
+   private void recordMicros(final long value) {
+      int stripe = (int) Thread.currentThread().getId() & stripeMask;
+
+      counts.incrementAndGet(stripe * BUCKETS + bucket(value));
+
+      long current = max.get();
+      while (value > current && !max.compareAndSet(current, value)) {
+         current = max.get();
+      }
+
+      if (parent != null) {
+         parent.recordMicros(value);
+      }
+   }
+
+   /**
+    * Forgets everything recorded so far, the parent is not reset.
+    */
+   public void reset() {
+      for (int i = 0; i < counts.length(); i++) {
+         counts.set(i, 0);
+      }
+
+      max.set(0);
+   }
+
+   /**
+    * @return the counts recorded so far, recording may go on while they are read
+    */
+   public Snapshot snapshot() {
+      long[] buckets = new long[BUCKETS];
+
+      for (int i = 0; i < counts.length(); i++) {
+         buckets[i % BUCKETS] += counts.get(i);
+      }
+
+      return new Snapshot(buckets, max.get());
+   }
+
+   static int bucket(final long value) {
+      if (value < SUB_BUCKETS) {
+         return (int) value;
+      }
+
+      int exponent = 63 - Long.numberOfLeadingZeros(value);
+
+      return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + (int) ((value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+   }
+
+   static long lowestValue(final int bucket) {
+      if (bucket < SUB_BUCKETS) {
+         return bucket;
+      }
+
+      int shift = (bucket >> SUB_BUCKET_BITS) - 1;
+
+      return (long) (SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1))) << shift;
+   }
+
+   static long highestValue(final int bucket) {
+      if (bucket < SUB_BUCKETS) {
+         return bucket;
+      }
+
+      return lowestValue(bucket) + (1L << ((bucket >> SUB_BUCKET_BITS) - 1)) - 1;
+   }
+
+   /**
+    * The counts of a histogram at some point, all values in microseconds.
+    */
+   public static final class Snapshot {
+
+      private final long[] buckets;
+
+      private final long count;
+
+      private final long max;
+
+      Snapshot(final long[] buckets, final long max) {
+         this.buckets = buckets;
+         this.max = max;
+
+         long total = 0;
+         for (long bucketCount : buckets) {
+            total += bucketCount;
+         }
+         this.count = total;
+      }
+
+      public long getCount() {
+         return count;
+      }
+
+      public long getMax() {
+         return max;
+      }
+
+      /**
+       * @return the mean of the latencies, from the middle of their buckets
+       */
+      public long getMean() {
+         if (count == 0) {
+            return 0;
+         }
+
+         double total = 0;
+
+         for (int i = 0; i < buckets.length; i++) {
+            total += buckets[i] * ((lowestValue(i) + highestValue(i)) / 2.0);
+         }
+
+         return Math.round(total / count);
+      }
+
+      /**
+       * @param percentile between 0 and 100
+       * @return the highest latency the given percent of the latencies are below or equal to, 0 if none was recorded
+       */
+      public long getValueAtPercentile(final double percentile) {
+         if (count == 0) {
+            return 0;
+         }
+
+         long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * count));
+
+         long seen = 0;
+
+         for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+
+            if (seen >= rank) {
+               return Math.min(highestValue(i), max);
+            }
+         }
+
+         return max;
+      }
+   }
+}
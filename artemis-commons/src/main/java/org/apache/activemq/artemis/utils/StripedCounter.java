@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter incremented by many threads at once, as on every message, without them contending on a single value.
+ * <p>
+ * Each thread adds to one of a few stripes, picked from its ID, which are summed when the counter is read. The
+ * stripes are spaced a cache line apart.
+ */
+public final class StripedCounter {
+
+   // 8 longs, a cache line
+   private static final int PADDING = 8;
+
+   private final int stripeMask;
+
+   private final AtomicLongArray counts;
+
+   public StripedCounter() {
+      this(LatencyHistogram.defaultStripes());
+   }
+
+   /**
+    * @param stripes the number of values the threads are spread on, a power of 2
+    */
+   public StripedCounter(final int stripes) {
+      if (stripes <= 0 || Integer.bitCount(stripes) != 1) {
+         throw new IllegalArgumentException("stripes must be a power of 2: " + stripes);
+      }
+
+      this.stripeMask = stripes - 1;
+      this.counts = new AtomicLongArray(stripes * PADDING);
+   }
+
+   public void increment() {
+      add(1);
+   }
+
+   public void add(final long delta) {
+      counts.addAndGet(((int) Thread.currentThread().getId() & stripeMask) * PADDING, delta);
+   }
+
+   /**
+    * @return the sum of the stripes, the increments made while they are read may be counted or not
+    */
+   public long get() {
+      long total = 0;
+
+      for (int i = 0; i < counts.length(); i += PADDING) {
+         total += counts.get(i);
+      }
+
+      return total;
+   }
+
+   public void reset() {
+      for (int i = 0; i < counts.length(); i += PADDING) {
+         counts.set(i, 0);
+      }
+   }
+}
@@ -25,6 +25,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 
 import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
+import org.apache.activemq.artemis.api.core.ActiveMQBuffers;
 import org.apache.activemq.artemis.api.core.ActiveMQPropertyConversionException;
 import org.apache.activemq.artemis.api.core.SimpleString;
 import org.apache.activemq.artemis.logs.ActiveMQUtilBundle;
@@ -47,18 +48,38 @@ import static org.apache.activemq.artemis.utils.DataConstants.STRING;
  * This implementation follows section 3.5.4 of the <i>Java Message Service</i> specification
  * (Version 1.1 April 12, 2002).
  * <p>
+ * Decoded properties are kept encoded until they are changed or all of them are needed: getting a property scans the
+ * encoded entries for its key and only decodes its value.
+ * <p>
  * TODO - should have typed property getters and do conversions herein
  */
 public final class TypedProperties {
 
    private static final SimpleString AMQ_PROPNAME = new SimpleString("_AMQ_");
 
+   // the keys decoded, the same few ones over and over
+   private static final SimpleString.Pool KEY_POOL = new SimpleString.Pool(1024, 256);
+
    private Map<SimpleString, PropertyValue> properties;
 
    private volatile int size;
 
    private boolean internalProperties;
 
+   // the entries as decoded, until they are put in properties; never changed so it can be shared by copies
+   private byte[] encoded;
+
+   private int encodedCount;
+
+   // the offsets of the entries of encoded, built on the first lookup
+   private int[] encodedOffsets;
+
+   // wraps encoded to decode its values
+   private ActiveMQBuffer encodedBuffer;
+
+   // the size of the compact encoding, -1 until it is computed again after a change
+   private int compactSize = -1;
+
    public TypedProperties() {
    }
 
@@ -67,12 +88,22 @@ public final class TypedProperties {
       // Note we don't include the attributes or anything else since they already included in the memory estimate
       // of the ServerMessage
 
+      if (encoded != null) {
+         return size + 2 * DataConstants.SIZE_INT * encodedCount;
+      }
+
       return properties == null ? 0 : size + 2 * DataConstants.SIZE_INT * properties.size();
    }
 
    public TypedProperties(final TypedProperties other) {
-      properties = other.properties == null ? null : new HashMap<SimpleString, PropertyValue>(other.properties);
-      size = other.size;
+      synchronized (other) {
+         properties = other.properties == null ? null : new HashMap<SimpleString, PropertyValue>(other.properties);
+         size = other.size;
+         encoded = other.encoded;
+         encodedCount = other.encodedCount;
+         encodedOffsets = other.encodedOffsets;
+         compactSize = other.compactSize;
+      }
    }
 
    public boolean hasInternalProperties() {
@@ -135,12 +166,18 @@ public final class TypedProperties {
    }
 
    public void putTypedProperties(final TypedProperties otherProps) {
-      if (otherProps == null || otherProps.properties == null) {
+      if (otherProps == null) {
+         return;
+      }
+
+      Map<SimpleString, PropertyValue> otherProperties = otherProps.decodedProperties();
+
+      if (otherProperties == null) {
          return;
       }
 
       checkCreateProperties();
-      Set<Entry<SimpleString, PropertyValue>> otherEntries = otherProps.properties.entrySet();
+      Set<Entry<SimpleString, PropertyValue>> otherEntries = otherProperties.entrySet();
       for (Entry<SimpleString, PropertyValue> otherEntry : otherEntries) {
          doPutValue(otherEntry.getKey(), otherEntry.getValue());
       }
@@ -348,11 +385,14 @@ public final class TypedProperties {
       return doRemoveProperty(key);
    }
 
-   public boolean containsProperty(final SimpleString key) {
+   public synchronized boolean containsProperty(final SimpleString key) {
       if (size == 0) {
          return false;
 
       }
+      else if (encoded != null) {
+         return findEncodedValue(key) >= 0;
+      }
       else {
          return properties.containsKey(key);
       }
@@ -363,98 +403,58 @@ public final class TypedProperties {
          return Collections.emptySet();
       }
       else {
-         return properties.keySet();
+         return decodedProperties().keySet();
       }
    }
 
+   /**
+    * Only skims through the entries of the buffer, they are decoded when needed.
+    */
    public synchronized void decode(final ActiveMQBuffer buffer) {
       byte b = buffer.readByte();
 
+      encodedOffsets = null;
+      encodedBuffer = null;
+      compactSize = -1;
+
       if (b == DataConstants.NULL) {
          properties = null;
+         encoded = null;
       }
       else {
          int numHeaders = buffer.readInt();
 
-         properties = new HashMap<SimpleString, PropertyValue>(numHeaders);
-         size = 0;
+         int start = buffer.readerIndex();
+         int position = start;
 
          for (int i = 0; i < numHeaders; i++) {
-            int len = buffer.readInt();
-            byte[] data = new byte[len];
-            buffer.readBytes(data);
-            SimpleString key = new SimpleString(data);
-
-            byte type = buffer.readByte();
+            int len = buffer.getInt(position);
+            position += DataConstants.SIZE_INT;
 
-            PropertyValue val;
-
-            switch (type) {
-               case NULL: {
-                  val = new NullValue();
-                  doPutValue(key, val);
-                  break;
-               }
-               case CHAR: {
-                  val = new CharValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               case BOOLEAN: {
-                  val = new BooleanValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               case BYTE: {
-                  val = new ByteValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               case BYTES: {
-                  val = new BytesValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               case SHORT: {
-                  val = new ShortValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               case INT: {
-                  val = new IntValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               case LONG: {
-                  val = new LongValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               case FLOAT: {
-                  val = new FloatValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               case DOUBLE: {
-                  val = new DoubleValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               case STRING: {
-                  val = new StringValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               default: {
-                  throw ActiveMQUtilBundle.BUNDLE.invalidType(type);
-               }
+            if (!internalProperties && startsWith(buffer, position, len, AMQ_PROPNAME)) {
+               internalProperties = true;
             }
+
+            position = skipValue(buffer, position + len);
          }
+
+         properties = null;
+         encoded = new byte[position - start];
+         encodedCount = numHeaders;
+         buffer.readBytes(encoded);
+         size = encoded.length;
       }
    }
 
    public synchronized void encode(final ActiveMQBuffer buffer) {
-      if (properties == null) {
+      if (encoded != null) {
+         buffer.writeByte(DataConstants.NOT_NULL);
+
+         buffer.writeInt(encodedCount);
+
+         buffer.writeBytes(encoded);
+      }
+      else if (properties == null) {
          buffer.writeByte(DataConstants.NULL);
       }
       else {
@@ -474,7 +474,7 @@ public final class TypedProperties {
    }
 
    public int getEncodeSize() {
-      if (properties == null) {
+      if (properties == null && encoded == null) {
          return DataConstants.SIZE_BYTE;
       }
       else {
@@ -482,19 +482,178 @@ public final class TypedProperties {
       }
    }
 
-   public void clear() {
-      if (properties != null) {
+   /**
+    * Decodes properties written by {@link #encodeCompact(ActiveMQBuffer)}. They are turned into the standard encoding
+    * and kept encoded until they are needed, as {@link #decode(ActiveMQBuffer)} does.
+    */
+   public void decodeCompact(final ActiveMQBuffer buffer) {
+      decodeCompact(buffer, CompactEncoding.FIXED_KEYS);
+   }
+
+   /**
+    * Decodes properties written by {@link #encodeCompact(ActiveMQBuffer, KeyDictionary)} with the same dictionary.
+    */
+   public synchronized void decodeCompact(final ActiveMQBuffer buffer, final KeyDictionary keys) {
+      int start = buffer.readerIndex();
+
+      int numHeaders = CompactEncoding.readVarInt(buffer);
+
+      properties = null;
+      encodedOffsets = null;
+      encodedBuffer = null;
+
+      if (numHeaders == 0) {
+         encoded = null;
+         size = 0;
+      }
+      else {
+         ActiveMQBuffer standard = ActiveMQBuffers.dynamicBuffer(256);
+
+         for (int i = 0; i < numHeaders; i++) {
+            int reference = CompactEncoding.readVarInt(buffer);
+
+            byte[] key = reference == 0 ? CompactEncoding.readStringData(buffer) : keys.getKey(reference).getData();
+
+            standard.writeInt(key.length);
+
+            int position = standard.writerIndex();
+
+            standard.writeBytes(key);
+
+            if (!internalProperties && startsWith(standard, position, key.length, AMQ_PROPNAME)) {
+               internalProperties = true;
+            }
+
+            decodeCompactValue(buffer.readByte(), buffer, standard);
+         }
+
+         encoded = new byte[standard.writerIndex()];
+         encodedCount = numHeaders;
+         standard.readBytes(encoded);
+         size = encoded.length;
+      }
+
+      // the size cached is the one with the fixed dictionary
+      compactSize = keys == CompactEncoding.FIXED_KEYS ? buffer.readerIndex() - start : -1;
+   }
+
+   /**
+    * Encodes the properties as described by {@link CompactEncoding}: the number of properties then for each one the
+    * reference to its key in the dictionary, or 0 and the key, its type and its value.
+    */
+   public void encodeCompact(final ActiveMQBuffer buffer) {
+      encodeCompact(buffer, CompactEncoding.FIXED_KEYS);
+   }
+
+   /**
+    * Encodes the properties compactly with the keys referring to another dictionary than the fixed one.
+    */
+   public synchronized void encodeCompact(final ActiveMQBuffer buffer, final KeyDictionary keys) {
+      int start = buffer.writerIndex();
+
+      if (encoded != null) {
+         if (encodedBuffer == null) {
+            encodedBuffer = ActiveMQBuffers.wrappedBuffer(encoded);
+         }
+
+         encodedBuffer.readerIndex(0);
+
+         CompactEncoding.writeVarInt(buffer, encodedCount);
+
+         for (int i = 0; i < encodedCount; i++) {
+            writeCompactKey(buffer, KEY_POOL.readSimpleString(encodedBuffer), keys);
+
+            decodeValue(encodedBuffer.readByte(), encodedBuffer).writeCompact(buffer);
+         }
+      }
+      else if (properties == null) {
+         CompactEncoding.writeVarInt(buffer, 0);
+      }
+      else {
+         CompactEncoding.writeVarInt(buffer, properties.size());
+
+         for (Map.Entry<SimpleString, PropertyValue> entry : properties.entrySet()) {
+            writeCompactKey(buffer, entry.getKey(), keys);
+
+            entry.getValue().writeCompact(buffer);
+         }
+      }
+
+      if (keys == CompactEncoding.FIXED_KEYS) {
+         compactSize = buffer.writerIndex() - start;
+      }
+   }
+
+   public synchronized int getCompactEncodeSize() {
+      if (compactSize < 0) {
+         compactSize = getCompactEncodeSize(CompactEncoding.FIXED_KEYS);
+      }
+
+      return compactSize;
+   }
+
+   /**
+    * @return the size of the properties encoded with the given dictionary, computed again on each call
+    */
+   public synchronized int getCompactEncodeSize(final KeyDictionary keys) {
+      if (keys == CompactEncoding.FIXED_KEYS && compactSize >= 0) {
+         return compactSize;
+      }
+
+      int entriesSize = 0;
+
+      if (encoded != null) {
+         if (encodedBuffer == null) {
+            encodedBuffer = ActiveMQBuffers.wrappedBuffer(encoded);
+         }
+
+         encodedBuffer.readerIndex(0);
+
+         for (int i = 0; i < encodedCount; i++) {
+            entriesSize += sizeofCompactKey(KEY_POOL.readSimpleString(encodedBuffer), keys);
+
+            entriesSize += decodeValue(encodedBuffer.readByte(), encodedBuffer).compactEncodeSize();
+         }
+
+         return CompactEncoding.sizeofVarInt(encodedCount) + entriesSize;
+      }
+      else if (properties == null) {
+         return CompactEncoding.sizeofVarInt(0);
+      }
+      else {
+         for (Map.Entry<SimpleString, PropertyValue> entry : properties.entrySet()) {
+            entriesSize += sizeofCompactKey(entry.getKey(), keys) + entry.getValue().compactEncodeSize();
+         }
+
+         return CompactEncoding.sizeofVarInt(properties.size()) + entriesSize;
+      }
+   }
+
+   public synchronized void clear() {
+      compactSize = -1;
+
+      if (encoded != null) {
+         properties = new HashMap<SimpleString, PropertyValue>();
+         encoded = null;
+         encodedOffsets = null;
+         encodedBuffer = null;
+      }
+      else if (properties != null) {
          properties.clear();
       }
+
+      size = 0;
    }
 
    @Override
    public String toString() {
       StringBuilder sb = new StringBuilder("TypedProperties[");
 
-      if (properties != null) {
+      Map<SimpleString, PropertyValue> entries = decodedProperties();
+
+      if (entries != null) {
 
-         Iterator<Entry<SimpleString, PropertyValue>> iter = properties.entrySet().iterator();
+         Iterator<Entry<SimpleString, PropertyValue>> iter = entries.entrySet().iterator();
 
          while (iter.hasNext()) {
             Entry<SimpleString, PropertyValue> iterItem = iter.next();
@@ -544,13 +703,225 @@ public final class TypedProperties {
 
    // Private ------------------------------------------------------------------------------------
 
-   private void checkCreateProperties() {
-      if (properties == null) {
+   private synchronized void checkCreateProperties() {
+      if (encoded != null) {
+         decodeEncoded();
+      }
+      else if (properties == null) {
          properties = new HashMap<SimpleString, PropertyValue>();
       }
    }
 
+   /**
+    * @return the properties, decoding them all first if they are still encoded
+    */
+   private synchronized Map<SimpleString, PropertyValue> decodedProperties() {
+      if (encoded != null) {
+         decodeEncoded();
+      }
+
+      return properties;
+   }
+
+   private void decodeEncoded() {
+      ActiveMQBuffer buffer = encodedBuffer == null ? ActiveMQBuffers.wrappedBuffer(encoded) : encodedBuffer;
+      int numHeaders = encodedCount;
+
+      buffer.readerIndex(0);
+
+      encoded = null;
+      encodedOffsets = null;
+      encodedBuffer = null;
+
+      properties = new HashMap<SimpleString, PropertyValue>(numHeaders);
+      size = 0;
+
+      for (int i = 0; i < numHeaders; i++) {
+         SimpleString key = KEY_POOL.readSimpleString(buffer);
+
+         doPutValue(key, decodeValue(buffer.readByte(), buffer));
+      }
+   }
+
+   /**
+    * @return the offset of the encoded value of the key, -1 if it has none
+    */
+   private int findEncodedValue(final SimpleString key) {
+      if (encodedBuffer == null) {
+         encodedBuffer = ActiveMQBuffers.wrappedBuffer(encoded);
+      }
+
+      if (encodedOffsets == null) {
+         encodedOffsets = new int[encodedCount];
+
+         int position = 0;
+
+         for (int i = 0; i < encodedCount; i++) {
+            encodedOffsets[i] = position;
+            position = skipValue(encodedBuffer, position + DataConstants.SIZE_INT + encodedBuffer.getInt(position));
+         }
+      }
+
+      byte[] data = key.getData();
+
+      for (int offset : encodedOffsets) {
+         if (encodedBuffer.getInt(offset) == data.length && startsWith(encodedBuffer, offset + DataConstants.SIZE_INT, data.length, key)) {
+            return offset + DataConstants.SIZE_INT + data.length;
+         }
+      }
+
+      return -1;
+   }
+
+   private Object getEncodedValue(final int offset) {
+      encodedBuffer.readerIndex(offset);
+
+      return decodeValue(encodedBuffer.readByte(), encodedBuffer).getValue();
+   }
+
+   private static boolean startsWith(final ActiveMQBuffer buffer,
+                                     final int position,
+                                     final int length,
+                                     final SimpleString prefix) {
+      byte[] data = prefix.getData();
+
+      if (length < data.length) {
+         return false;
+      }
+
+      for (int i = 0; i < data.length; i++) {
+         if (buffer.getByte(position + i) != data[i]) {
+            return false;
+         }
+      }
+
+      return true;
+   }
+
+   /**
+    * @return the position after the value encoded at the given position
+    */
+   private static int skipValue(final ActiveMQBuffer buffer, final int position) {
+      byte type = buffer.getByte(position);
+      int valuePosition = position + DataConstants.SIZE_BYTE;
+
+      switch (type) {
+         case NULL:
+            return valuePosition;
+         case BOOLEAN:
+         case BYTE:
+            return valuePosition + DataConstants.SIZE_BYTE;
+         case CHAR:
+         case SHORT:
+            return valuePosition + DataConstants.SIZE_SHORT;
+         case INT:
+         case FLOAT:
+            return valuePosition + DataConstants.SIZE_INT;
+         case LONG:
+         case DOUBLE:
+            return valuePosition + DataConstants.SIZE_LONG;
+         case BYTES:
+         case STRING:
+            return valuePosition + DataConstants.SIZE_INT + buffer.getInt(valuePosition);
+         default:
+            throw ActiveMQUtilBundle.BUNDLE.invalidType(type);
+      }
+   }
+
+   private static void writeCompactKey(final ActiveMQBuffer buffer, final SimpleString key, final KeyDictionary keys) {
+      int reference = keys.getKeyReference(key);
+
+      CompactEncoding.writeVarInt(buffer, reference);
+
+      if (reference == 0) {
+         CompactEncoding.writeString(buffer, key);
+      }
+   }
+
+   private static int sizeofCompactKey(final SimpleString key, final KeyDictionary keys) {
+      int reference = keys.getKeyReference(key);
+
+      return CompactEncoding.sizeofVarInt(reference) + (reference == 0 ? CompactEncoding.sizeofString(key) : 0);
+   }
+
+   /**
+    * Writes the standard encoding of a value written by {@link PropertyValue#writeCompact(ActiveMQBuffer)}.
+    */
+   private static void decodeCompactValue(final byte type, final ActiveMQBuffer buffer, final ActiveMQBuffer standard) {
+      standard.writeByte(type);
+
+      switch (type) {
+         case NULL:
+            break;
+         case BOOLEAN:
+         case BYTE:
+            standard.writeByte(buffer.readByte());
+            break;
+         case CHAR:
+            standard.writeShort((short) CompactEncoding.readVarInt(buffer));
+            break;
+         case SHORT:
+            standard.writeShort((short) CompactEncoding.unZigZag(CompactEncoding.readVarInt(buffer)));
+            break;
+         case INT:
+            standard.writeInt(CompactEncoding.unZigZag(CompactEncoding.readVarInt(buffer)));
+            break;
+         case LONG:
+            standard.writeLong(CompactEncoding.unZigZag(CompactEncoding.readVarLong(buffer)));
+            break;
+         case FLOAT:
+            standard.writeInt(buffer.readInt());
+            break;
+         case DOUBLE:
+            standard.writeLong(buffer.readLong());
+            break;
+         case BYTES:
+            int length = CompactEncoding.readVarInt(buffer);
+            standard.writeInt(length);
+            standard.writeBytes(buffer, length);
+            break;
+         case STRING:
+            byte[] data = CompactEncoding.readStringData(buffer);
+            standard.writeInt(data.length);
+            standard.writeBytes(data);
+            break;
+         default:
+            throw ActiveMQUtilBundle.BUNDLE.invalidType(type);
+      }
+   }
+
+   private static PropertyValue decodeValue(final byte type, final ActiveMQBuffer buffer) {
+      switch (type) {
+         case NULL:
+            return new NullValue();
+         case CHAR:
+            return new CharValue(buffer);
+         case BOOLEAN:
+            return new BooleanValue(buffer);
+         case BYTE:
+            return new ByteValue(buffer);
+         case BYTES:
+            return new BytesValue(buffer);
+         case SHORT:
+            return new ShortValue(buffer);
+         case INT:
+            return new IntValue(buffer);
+         case LONG:
+            return new LongValue(buffer);
+         case FLOAT:
+            return new FloatValue(buffer);
+         case DOUBLE:
+            return new DoubleValue(buffer);
+         case STRING:
+            return new StringValue(buffer);
+         default:
+            throw ActiveMQUtilBundle.BUNDLE.invalidType(type);
+      }
+   }
+
    private synchronized void doPutValue(final SimpleString key, final PropertyValue value) {
+      compactSize = -1;
+
       if (key.startsWith(AMQ_PROPNAME)) {
          internalProperties = true;
       }
@@ -565,6 +936,14 @@ public final class TypedProperties {
    }
 
    private synchronized Object doRemoveProperty(final SimpleString key) {
+      if (encoded != null) {
+         if (findEncodedValue(key) < 0) {
+            return null;
+         }
+
+         decodeEncoded();
+      }
+
       if (properties == null) {
          return null;
       }
@@ -577,15 +956,23 @@ public final class TypedProperties {
       else {
          size -= SimpleString.sizeofString(key) + val.encodeSize();
 
+         compactSize = -1;
+
          return val.getValue();
       }
    }
 
-   private synchronized Object doGetProperty(final Object key) {
+   private synchronized Object doGetProperty(final SimpleString key) {
       if (size == 0) {
          return null;
       }
 
+      if (encoded != null) {
+         int offset = findEncodedValue(key);
+
+         return offset < 0 ? null : getEncodedValue(offset);
+      }
+
       PropertyValue val = properties.get(key);
 
       if (val == null) {
@@ -606,6 +993,16 @@ public final class TypedProperties {
 
       abstract int encodeSize();
 
+      // the same as the standard encoding unless overridden
+
+      void writeCompact(final ActiveMQBuffer buffer) {
+         write(buffer);
+      }
+
+      int compactEncodeSize() {
+         return encodeSize();
+      }
+
       @Override
       public String toString() {
          return "" + getValue();
@@ -724,6 +1121,18 @@ public final class TypedProperties {
          return DataConstants.SIZE_BYTE + DataConstants.SIZE_INT + val.length;
       }
 
+      @Override
+      public void writeCompact(final ActiveMQBuffer buffer) {
+         buffer.writeByte(DataConstants.BYTES);
+         CompactEncoding.writeVarInt(buffer, val.length);
+         buffer.writeBytes(val);
+      }
+
+      @Override
+      public int compactEncodeSize() {
+         return DataConstants.SIZE_BYTE + CompactEncoding.sizeofVarInt(val.length) + val.length;
+      }
+
    }
 
    private static final class ShortValue extends PropertyValue {
@@ -753,6 +1162,17 @@ public final class TypedProperties {
       public int encodeSize() {
          return DataConstants.SIZE_BYTE + DataConstants.SIZE_SHORT;
       }
+
+      @Override
+      public void writeCompact(final ActiveMQBuffer buffer) {
+         buffer.writeByte(DataConstants.SHORT);
+         CompactEncoding.writeVarInt(buffer, CompactEncoding.zigZag((int) val));
+      }
+
+      @Override
+      public int compactEncodeSize() {
+         return DataConstants.SIZE_BYTE + CompactEncoding.sizeofVarInt(CompactEncoding.zigZag((int) val));
+      }
    }
 
    private static final class IntValue extends PropertyValue {
@@ -782,6 +1202,17 @@ public final class TypedProperties {
       public int encodeSize() {
          return DataConstants.SIZE_BYTE + DataConstants.SIZE_INT;
       }
+
+      @Override
+      public void writeCompact(final ActiveMQBuffer buffer) {
+         buffer.writeByte(DataConstants.INT);
+         CompactEncoding.writeVarInt(buffer, CompactEncoding.zigZag(val));
+      }
+
+      @Override
+      public int compactEncodeSize() {
+         return DataConstants.SIZE_BYTE + CompactEncoding.sizeofVarInt(CompactEncoding.zigZag(val));
+      }
    }
 
    private static final class LongValue extends PropertyValue {
@@ -811,6 +1242,17 @@ public final class TypedProperties {
       public int encodeSize() {
          return DataConstants.SIZE_BYTE + DataConstants.SIZE_LONG;
       }
+
+      @Override
+      public void writeCompact(final ActiveMQBuffer buffer) {
+         buffer.writeByte(DataConstants.LONG);
+         CompactEncoding.writeVarLong(buffer, CompactEncoding.zigZag(val));
+      }
+
+      @Override
+      public int compactEncodeSize() {
+         return DataConstants.SIZE_BYTE + CompactEncoding.sizeofVarLong(CompactEncoding.zigZag(val));
+      }
    }
 
    private static final class FloatValue extends PropertyValue {
@@ -899,6 +1341,17 @@ public final class TypedProperties {
       public int encodeSize() {
          return DataConstants.SIZE_BYTE + DataConstants.SIZE_CHAR;
       }
+
+      @Override
+      public void writeCompact(final ActiveMQBuffer buffer) {
+         buffer.writeByte(DataConstants.CHAR);
+         CompactEncoding.writeVarInt(buffer, val);
+      }
+
+      @Override
+      public int compactEncodeSize() {
+         return DataConstants.SIZE_BYTE + CompactEncoding.sizeofVarInt(val);
+      }
    }
 
    private static final class StringValue extends PropertyValue {
@@ -928,15 +1381,35 @@ public final class TypedProperties {
       public int encodeSize() {
          return DataConstants.SIZE_BYTE + SimpleString.sizeofString(val);
       }
+
+      @Override
+      public void writeCompact(final ActiveMQBuffer buffer) {
+         buffer.writeByte(DataConstants.STRING);
+         CompactEncoding.writeString(buffer, val);
+      }
+
+      @Override
+      public int compactEncodeSize() {
+         return DataConstants.SIZE_BYTE + CompactEncoding.sizeofString(val);
+      }
    }
 
-   public boolean isEmpty() {
-      return properties.isEmpty();
+   public synchronized boolean isEmpty() {
+      if (encoded != null) {
+         return encodedCount == 0;
+      }
+
+      // decoded without any property (NULL or an empty compact header block)
+      return properties == null || properties.isEmpty();
    }
 
    public Map<String, Object> getMap() {
       Map<String, Object> m = new HashMap<String, Object>();
-      for (Entry<SimpleString, PropertyValue> entry : properties.entrySet()) {
+      Map<SimpleString, PropertyValue> decoded = decodedProperties();
+      if (decoded == null) {
+         return m;
+      }
+      for (Entry<SimpleString, PropertyValue> entry : decoded.entrySet()) {
          Object val = entry.getValue().getValue();
          if (val instanceof SimpleString) {
             m.put(entry.getKey().toString(), ((SimpleString) val).toString());
@@ -18,6 +18,7 @@ package org.apache.activemq.artemis.utils;
 
 import java.lang.ref.SoftReference;
 
+import io.netty.buffer.ByteBuf;
 import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
 import org.apache.activemq.artemis.logs.ActiveMQUtilBundle;
 import org.apache.activemq.artemis.logs.ActiveMQUtilLogger;
@@ -40,15 +41,7 @@ public final class UTF8Util {
    public static void saveUTF(final ActiveMQBuffer out, final String str) {
       StringUtilBuffer buffer = UTF8Util.getThreadLocalBuffer();
 
-      if (str.length() > 0xffff) {
-         throw ActiveMQUtilBundle.BUNDLE.stringTooLong(str.length());
-      }
-
-      final int len = UTF8Util.calculateUTFSize(str, buffer);
-
-      if (len > 0xffff) {
-         throw ActiveMQUtilBundle.BUNDLE.stringTooLong(len);
-      }
+      final int len = UTF8Util.checkedUTFSize(str, buffer);
 
       out.writeShort((short) len);
 
@@ -56,37 +49,38 @@ public final class UTF8Util {
          buffer.resizeByteBuffer(len);
       }
 
-      if (len == (long) str.length()) {
-         for (int byteLocation = 0; byteLocation < len; byteLocation++) {
-            buffer.byteBuffer[byteLocation] = (byte) buffer.charBuffer[byteLocation];
-         }
-         out.writeBytes(buffer.byteBuffer, 0, len);
+      UTF8Util.encodeUTF(buffer.charBuffer, str.length(), buffer.byteBuffer, 0);
+
+      out.writeBytes(buffer.byteBuffer, 0, len);
+   }
+
+   /**
+    * Same as {@link #saveUTF(ActiveMQBuffer, String)}, encoding straight into the array of the buffer when it has one
+    * and copying the encoding to it at once otherwise.
+    */
+   public static void saveUTF(final ByteBuf out, final String str) {
+      StringUtilBuffer buffer = UTF8Util.getThreadLocalBuffer();
+
+      final int len = UTF8Util.checkedUTFSize(str, buffer);
+
+      out.ensureWritable(DataConstants.SIZE_SHORT + len);
+
+      out.writeShort(len);
+
+      if (out.hasArray()) {
+         int writerIndex = out.writerIndex();
+
+         UTF8Util.encodeUTF(buffer.charBuffer, str.length(), out.array(), out.arrayOffset() + writerIndex);
+
+         out.writerIndex(writerIndex + len);
       }
       else {
-         if (UTF8Util.isTrace) {
-            // This message is too verbose for debug, that's why we are using trace here
-            ActiveMQUtilLogger.LOGGER.trace("Saving string with utfSize=" + len + " stringSize=" + str.length());
+         if (len > buffer.byteBuffer.length) {
+            buffer.resizeByteBuffer(len);
          }
 
-         int stringLength = str.length();
-
-         int charCount = 0;
+         UTF8Util.encodeUTF(buffer.charBuffer, str.length(), buffer.byteBuffer, 0);
 
-         for (int i = 0; i < stringLength; i++) {
-            char charAtPos = buffer.charBuffer[i];
-            if (charAtPos >= 1 && charAtPos < 0x7f) {
-               buffer.byteBuffer[charCount++] = (byte) charAtPos;
-            }
-            else if (charAtPos >= 0x800) {
-               buffer.byteBuffer[charCount++] = (byte) (0xE0 | charAtPos >> 12 & 0x0F);
-               buffer.byteBuffer[charCount++] = (byte) (0x80 | charAtPos >> 6 & 0x3F);
-               buffer.byteBuffer[charCount++] = (byte) (0x80 | charAtPos >> 0 & 0x3F);
-            }
-            else {
-               buffer.byteBuffer[charCount++] = (byte) (0xC0 | charAtPos >> 6 & 0x1F);
-               buffer.byteBuffer[charCount++] = (byte) (0x80 | charAtPos >> 0 & 0x3F);
-            }
-         }
          out.writeBytes(buffer.byteBuffer, 0, len);
       }
    }
@@ -100,39 +94,148 @@ public final class UTF8Util {
          buffer.resizeByteBuffer(size);
       }
 
-      if (size > buffer.charBuffer.length) {
-         buffer.resizeCharBuffer(size);
+      input.readBytes(buffer.byteBuffer, 0, size);
+
+      return UTF8Util.decodeUTF(buffer.byteBuffer, 0, size, buffer);
+   }
+
+   /**
+    * Same as {@link #readUTF(ActiveMQBuffer)}, decoding straight from the array of the buffer when it has one.
+    */
+   public static String readUTF(final ByteBuf input) {
+      StringUtilBuffer buffer = UTF8Util.getThreadLocalBuffer();
+
+      final int size = input.readUnsignedShort();
+
+      if (input.hasArray()) {
+         int readerIndex = input.readerIndex();
+
+         if (size > input.readableBytes()) {
+            throw new IndexOutOfBoundsException("utfSize=" + size + " readableBytes=" + input.readableBytes());
+         }
+
+         String str = UTF8Util.decodeUTF(input.array(), input.arrayOffset() + readerIndex, size, buffer);
+
+         input.readerIndex(readerIndex + size);
+
+         return str;
+      }
+
+      if (size > buffer.byteBuffer.length) {
+         buffer.resizeByteBuffer(size);
       }
 
+      input.readBytes(buffer.byteBuffer, 0, size);
+
+      return UTF8Util.decodeUTF(buffer.byteBuffer, 0, size, buffer);
+   }
+
+   /**
+    * @return the size of the encoding of the string, left in the char buffer, if it can be saved
+    */
+   private static int checkedUTFSize(final String str, final StringUtilBuffer buffer) {
+      if (str.length() > 0xffff) {
+         throw ActiveMQUtilBundle.BUNDLE.stringTooLong(str.length());
+      }
+
+      final int len = UTF8Util.calculateUTFSize(str, buffer);
+
+      if (len > 0xffff) {
+         throw ActiveMQUtilBundle.BUNDLE.stringTooLong(len);
+      }
+
+      if (UTF8Util.isTrace && len != str.length()) {
+         // This message is too verbose for debug, that's why we are using trace here
+         ActiveMQUtilLogger.LOGGER.trace("Saving string with utfSize=" + len + " stringSize=" + str.length());
+      }
+
+      return len;
+   }
+
+   private static void encodeUTF(final char[] chars, final int length, final byte[] bytes, final int offset) {
+      int byteCount = offset;
+
+      int i = 0;
+
+      // most strings are ASCII, a byte per char
+      for (; i < length; i++) {
+         char charAtPos = chars[i];
+         if (charAtPos < 1 || charAtPos >= 0x7f) {
+            break;
+         }
+         bytes[byteCount++] = (byte) charAtPos;
+      }
+
+      for (; i < length; i++) {
+         char charAtPos = chars[i];
+         if (charAtPos >= 1 && charAtPos < 0x7f) {
+            bytes[byteCount++] = (byte) charAtPos;
+         }
+         else if (charAtPos >= 0x800) {
+            bytes[byteCount++] = (byte) (0xE0 | charAtPos >> 12 & 0x0F);
+            bytes[byteCount++] = (byte) (0x80 | charAtPos >> 6 & 0x3F);
+            bytes[byteCount++] = (byte) (0x80 | charAtPos >> 0 & 0x3F);
+         }
+         else {
+            bytes[byteCount++] = (byte) (0xC0 | charAtPos >> 6 & 0x1F);
+            bytes[byteCount++] = (byte) (0x80 | charAtPos >> 0 & 0x3F);
+         }
+      }
+   }
+
+   @SuppressWarnings("deprecation")
+   private static String decodeUTF(final byte[] bytes, final int offset, final int size, final StringUtilBuffer buffer) {
       if (UTF8Util.isTrace) {
          // This message is too verbose for debug, that's why we are using trace here
          ActiveMQUtilLogger.LOGGER.trace("Reading string with utfSize=" + size);
       }
 
-      int count = 0;
-      int byte1, byte2, byte3;
+      final int end = offset + size;
+
+      int count = offset;
+
+      // most strings are ASCII, a char per byte
+      while (count < end && bytes[count] > 0) {
+         count++;
+      }
+
+      if (count == end) {
+         // the bytes are the chars, without going through a char array
+         return new String(bytes, 0, offset, size);
+      }
+
+      if (size > buffer.charBuffer.length) {
+         buffer.resizeCharBuffer(size);
+      }
+
+      final char[] chars = buffer.charBuffer;
+
       int charCount = 0;
 
-      input.readBytes(buffer.byteBuffer, 0, size);
+      for (int i = offset; i < count; i++) {
+         chars[charCount++] = (char) bytes[i];
+      }
 
-      while (count < size) {
-         byte1 = buffer.byteBuffer[count++];
+      int byte1, byte2, byte3;
+
+      while (count < end) {
+         byte1 = bytes[count++];
 
          if (byte1 > 0 && byte1 <= 0x7F) {
-            buffer.charBuffer[charCount++] = (char) byte1;
+            chars[charCount++] = (char) byte1;
          }
          else {
             int c = byte1 & 0xff;
             switch (c >> 4) {
                case 0xc:
                case 0xd:
-                  byte2 = buffer.byteBuffer[count++];
-                  buffer.charBuffer[charCount++] = (char) ((c & 0x1F) << 6 | byte2 & 0x3F);
+                  byte2 = bytes[count++];
+                  chars[charCount++] = (char) ((c & 0x1F) << 6 | byte2 & 0x3F);
                   break;
                case 0xe:
-                  byte2 = buffer.byteBuffer[count++];
-                  byte3 = buffer.byteBuffer[count++];
-                  buffer.charBuffer[charCount++] = (char) ((c & 0x0F) << 12 | (byte2 & 0x3F) << 6 | (byte3 & 0x3F) << 0);
+                  byte2 = bytes[count++];
+                  byte3 = bytes[count++];
+                  chars[charCount++] = (char) ((c & 0x0F) << 12 | (byte2 & 0x3F) << 6 | (byte3 & 0x3F) << 0);
                   break;
                default:
                   throw new InternalError("unhandled utf8 byte " + c);
@@ -140,8 +243,7 @@ public final class UTF8Util {
          }
       }
 
-      return new String(buffer.charBuffer, 0, charCount);
-
+      return new String(chars, 0, charCount);
    }
 
    public static StringUtilBuffer getThreadLocalBuffer() {
@@ -173,8 +275,6 @@ public final class UTF8Util {
    }
 
    public static int calculateUTFSize(final String str, final StringUtilBuffer stringBuffer) {
-      int calculatedLen = 0;
-
       int stringLength = str.length();
 
       if (stringLength > stringBuffer.charBuffer.length) {
@@ -183,8 +283,19 @@ public final class UTF8Util {
 
       str.getChars(0, stringLength, stringBuffer.charBuffer, 0);
 
-      for (int i = 0; i < stringLength; i++) {
-         char c = stringBuffer.charBuffer[i];
+      final char[] chars = stringBuffer.charBuffer;
+
+      int i = 0;
+
+      // most strings are ASCII, a byte per char
+      while (i < stringLength && chars[i] >= 1 && chars[i] < 0x7f) {
+         i++;
+      }
+
+      int calculatedLen = i;
+
+      for (; i < stringLength; i++) {
+         char c = chars[i];
 
          if (c >= 1 && c < 0x7f) {
             calculatedLen++;
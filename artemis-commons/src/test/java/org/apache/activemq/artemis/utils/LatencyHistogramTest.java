@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.utils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LatencyHistogramTest extends Assert {
+
+   @Test
+   public void testBuckets() {
+      long previousHighest = -1;
+
+      for (int bucket = 0; LatencyHistogram.lowestValue(bucket) <= (1L << 32) - 1; bucket++) {
+         long lowest = LatencyHistogram.lowestValue(bucket);
+         long highest = LatencyHistogram.highestValue(bucket);
+
+         // the buckets cover every value once
+         assertEquals(previousHighest + 1, lowest);
+         assertEquals(bucket, LatencyHistogram.bucket(lowest));
+         assertEquals(bucket, LatencyHistogram.bucket(highest));
+
+         // within 1/8 of each other
+         assertTrue(highest - lowest <= lowest / 8);
+
+         previousHighest = highest;
+      }
+   }
+
+   @Test
+   public void testPercentiles() {
+      LatencyHistogram histogram = new LatencyHistogram();
+
+      for (int i = 1; i <= 1000; i++) {
+         histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+      }
+
+      LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+      assertEquals(1000, snapshot.getCount());
+      assertEquals(1000, snapshot.getMax());
+      assertWithin(500, snapshot.getMean());
+      assertWithin(500, snapshot.getValueAtPercentile(50));
+      assertWithin(990, snapshot.getValueAtPercentile(99));
+      assertEquals(1000, snapshot.getValueAtPercentile(100));
+      assertEquals(1, snapshot.getValueAtPercentile(0));
+   }
+
+   @Test
+   public void testLimits() {
+      LatencyHistogram histogram = new LatencyHistogram();
+
+      assertEquals(0, histogram.snapshot().getValueAtPercentile(50));
+      assertEquals(0, histogram.snapshot().getMean());
+
+      histogram.record(-1);
+      histogram.record(Long.MAX_VALUE);
+
+      LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+      assertEquals(2, snapshot.getCount());
+      assertEquals(0, snapshot.getValueAtPercentile(50));
+      assertEquals((1L << 32) - 1, snapshot.getMax());
+
+      histogram.reset();
+      assertEquals(0, histogram.snapshot().getCount());
+      assertEquals(0, histogram.snapshot().getMax());
+   }
+
+   @Test
+   public void testStripedWithParent() throws Exception {
+      final LatencyHistogram parent = new LatencyHistogram(4, null);
+      final LatencyHistogram child = new LatencyHistogram(1, parent);
+
+      final int threads = 8;
+      final int records = 10000;
+
+      final CountDownLatch done = new CountDownLatch(threads);
+
+      for (int i = 0; i < threads; i++) {
+         new Thread() {
+            @Override
+            public void run() {
+               for (int j = 0; j < records; j++) {
+                  child.record(TimeUnit.MICROSECONDS.toNanos(j % 100));
+                  parent.record(TimeUnit.MICROSECONDS.toNanos(100));
+               }
+               done.countDown();
+            }
+         }.start();
+      }
+
+      assertTrue(done.await(10, TimeUnit.SECONDS));
+
+      assertEquals(threads * records, child.snapshot().getCount());
+      assertEquals(2 * threads * records, parent.snapshot().getCount());
+      assertEquals(100, parent.snapshot().getMax());
+
+      child.reset();
+      assertEquals(2 * threads * records, parent.snapshot().getCount());
+   }
+
+   private static void assertWithin(final long expected, final long actual) {
+      assertTrue(actual + " not within 1/8 of " + expected, Math.abs(actual - expected) <= expected / 8);
+   }
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.utils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StripedCounterTest extends Assert {
+
+   @Test
+   public void testConcurrentIncrements() throws Exception {
+      final StripedCounter counter = new StripedCounter(4);
+
+      final int threads = 8;
+      final int increments = 100000;
+
+      final CountDownLatch done = new CountDownLatch(threads);
+
+      for (int i = 0; i < threads; i++) {
+         new Thread() {
+            @Override
+            public void run() {
+               for (int j = 0; j < increments; j++) {
+                  counter.increment();
+               }
+               done.countDown();
+            }
+         }.start();
+      }
+
+      assertTrue(done.await(30, TimeUnit.SECONDS));
+      assertEquals(threads * increments, counter.get());
+
+      counter.add(5);
+      assertEquals(threads * increments + 5, counter.get());
+
+      counter.reset();
+      assertEquals(0, counter.get());
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void testStripesPowerOf2() {
+      new StripedCounter(3);
+   }
+}
@@ -147,6 +147,12 @@ public final class ActiveMQDefaultConfiguration {
    // how long (in ms) to wait before invalidating the security cache
    private static long DEFAULT_SECURITY_INVALIDATION_INTERVAL = 10000;
 
+   // how long (in ms) to keep denied security checks in the security cache, 0 means they are not cached
+   private static long DEFAULT_SECURITY_DENIAL_INVALIDATION_INTERVAL = 10000;
+
+   // the maximum number of authorization decisions and of authentications held in the security cache
+   private static int DEFAULT_SECURITY_CACHE_MAX_SIZE = 10000;
+
    // how long (in ms) to wait to acquire a file lock on the journal
    private static long DEFAULT_JOURNAL_LOCK_ACQUISITION_TIMEOUT = -1;
 
@@ -177,6 +183,12 @@ public final class ActiveMQDefaultConfiguration {
    // true means that message counters are enabled
    private static boolean DEFAULT_MESSAGE_COUNTER_ENABLED = false;
 
+   // true means that the latencies of routing, persisting, queueing and acknowledging messages are measured
+   private static boolean DEFAULT_LATENCY_METRICS_ENABLED = true;
+
+   // true means that the core messages being routed are held in pooled direct buffers until their last reference is gone
+   private static boolean DEFAULT_POOLED_MESSAGE_BUFFERS = false;
+
    // the sample period (in ms) to use for message counters
    private static long DEFAULT_MESSAGE_COUNTER_SAMPLE_PERIOD = 10000;
 
@@ -189,6 +201,9 @@ public final class ActiveMQDefaultConfiguration {
    // should certain incoming packets on the server be handed off to a thread from the thread pool for processing or should they be handled on the remoting thread?
    private static boolean DEFAULT_ASYNC_CONNECTION_EXECUTION_ENABLED = true;
 
+   // how many packets of a core session can wait to be handled before the server holds back the producer credits of the session, 0 means the packets are handled on the remoting thread
+   private static int DEFAULT_SESSION_PIPELINE_SIZE = 0;
+
    // how long (in ms) before a transaction can be removed from the resource manager after create time
    private static long DEFAULT_TRANSACTION_TIMEOUT = 300000;
 
@@ -207,6 +222,9 @@ public final class ActiveMQDefaultConfiguration {
    // true means that ID's are persisted to the journal
    private static boolean DEFAULT_PERSIST_ID_CACHE = true;
 
+   // the rate of false positives of the filter in front of the duplicate id caches, 0 means no filter
+   private static double DEFAULT_ID_CACHE_FILTER_FALSE_POSITIVE_RATE = 0;
+
    // True means that the delivery count is persisted before delivery. False means that this only happens after a message has been cancelled.
    private static boolean DEFAULT_PERSIST_DELIVERY_COUNT_BEFORE_DELIVERY = false;
 
@@ -234,6 +252,9 @@ public final class ActiveMQDefaultConfiguration {
    // if true wait for non transaction data to be synced to the journal before returning response to client.
    private static boolean DEFAULT_JOURNAL_SYNC_NON_TRANSACTIONAL = true;
 
+   // if true the message records use the compact headers and a dictionary of the property keys, which older versions can't read
+   private static boolean DEFAULT_PERSIST_COMPACT_MESSAGE_HEADERS = false;
+
    // Whether to log messages about the journal write rate
    private static boolean DEFAULT_JOURNAL_LOG_WRITE_RATE = false;
 
@@ -392,6 +413,24 @@ public final class ActiveMQDefaultConfiguration {
    // How often the reaper will be run to check for timed out group bindings. Only valid for LOCAL handlers
    private static long DEFAULT_GROUPING_HANDLER_REAPER_PERIOD = 30000;
 
+   // Scheduled messages due further than this many milliseconds in the future are spilled to disk, -1 means never spill
+   private static long DEFAULT_SCHEDULED_SPILL_HORIZON = -1;
+
+   // The maximum number of message groups a queue remembers the consumer of, -1 means no limit
+   private static int DEFAULT_MESSAGE_GROUP_MAX_SIZE = -1;
+
+   // How long (in ms) a message group can go unused before a queue forgets its consumer, -1 means never
+   private static long DEFAULT_MESSAGE_GROUP_IDLE_TIMEOUT = -1;
+
+   // true means new message groups are spread by consistent hashing and some groups move to a consumer when it is added
+   private static boolean DEFAULT_MESSAGE_GROUP_REBALANCE = false;
+
+   // How long (in ms) last-value queues hold the messages replaced by a newer value before acknowledging them as a batch, -1 means acknowledge each one straight away
+   private static long DEFAULT_LAST_VALUE_WRITE_BEHIND_WINDOW = -1;
+
+   // The maximum number of replaced messages a last-value queue holds before acknowledging them
+   private static int DEFAULT_LAST_VALUE_WRITE_BEHIND_BATCH_SIZE = 1000;
+
    /**
     * If true then the ActiveMQ Artemis Server will make use of any Protocol Managers that are in available on the classpath. If false then only the core protocol will be available, unless in Embedded mode where users can inject their own Protocol Managers.
     */
@@ -455,6 +494,20 @@ public final class ActiveMQDefaultConfiguration {
       return DEFAULT_SECURITY_INVALIDATION_INTERVAL;
    }
 
+   /**
+    * how long (in ms) to keep denied security checks in the security cache, 0 means they are not cached
+    */
+   public static long getDefaultSecurityDenialInvalidationInterval() {
+      return DEFAULT_SECURITY_DENIAL_INVALIDATION_INTERVAL;
+   }
+
+   /**
+    * the maximum number of authorization decisions and of authentications held in the security cache
+    */
+   public static int getDefaultSecurityCacheMaxSize() {
+      return DEFAULT_SECURITY_CACHE_MAX_SIZE;
+   }
+
    /**
     * how long (in ms) to wait to acquire a file lock on the journal
     */
@@ -525,6 +578,20 @@ public final class ActiveMQDefaultConfiguration {
       return DEFAULT_MESSAGE_COUNTER_ENABLED;
    }
 
+   /**
+    * true means that the latencies of routing, persisting, queueing and acknowledging messages are measured
+    */
+   public static boolean isDefaultLatencyMetricsEnabled() {
+      return DEFAULT_LATENCY_METRICS_ENABLED;
+   }
+
+   /**
+    * true means that the core messages being routed are held in pooled direct buffers until their last reference is gone
+    */
+   public static boolean isDefaultPooledMessageBuffers() {
+      return DEFAULT_POOLED_MESSAGE_BUFFERS;
+   }
+
    /**
     * the sample period (in ms) to use for message counters
     */
@@ -553,6 +620,13 @@ public final class ActiveMQDefaultConfiguration {
       return DEFAULT_ASYNC_CONNECTION_EXECUTION_ENABLED;
    }
 
+   /**
+    * how many packets of a core session can wait to be handled before the server holds back the producer credits of the session, 0 means the packets are handled on the remoting thread
+    */
+   public static int getDefaultSessionPipelineSize() {
+      return DEFAULT_SESSION_PIPELINE_SIZE;
+   }
+
    /**
     * how long (in ms) before a transaction can be removed from the resource manager after create time
     */
@@ -595,6 +669,13 @@ public final class ActiveMQDefaultConfiguration {
       return DEFAULT_PERSIST_ID_CACHE;
    }
 
+   /**
+    * the rate of false positives of the filter in front of the duplicate id caches, 0 means no filter
+    */
+   public static double getDefaultIdCacheFilterFalsePositiveRate() {
+      return DEFAULT_ID_CACHE_FILTER_FALSE_POSITIVE_RATE;
+   }
+
    /**
     * True means that the delivery count is persisted before delivery. False means that this only happens after a message has been cancelled.
     */
@@ -658,6 +739,13 @@ public final class ActiveMQDefaultConfiguration {
       return DEFAULT_JOURNAL_SYNC_NON_TRANSACTIONAL;
    }
 
+   /**
+    * if true the message records use the compact headers and a dictionary of the property keys, which older versions can't read
+    */
+   public static boolean isDefaultPersistCompactMessageHeaders() {
+      return DEFAULT_PERSIST_COMPACT_MESSAGE_HEADERS;
+   }
+
    /**
     * Whether to log messages about the journal write rate
     */
@@ -1036,4 +1124,46 @@ public final class ActiveMQDefaultConfiguration {
       return DEFAULT_GROUPING_HANDLER_REAPER_PERIOD;
    }
 
+   /**
+    * Scheduled messages due further than this many milliseconds in the future are spilled to disk, -1 means never spill
+    */
+   public static long getDefaultScheduledSpillHorizon() {
+      return DEFAULT_SCHEDULED_SPILL_HORIZON;
+   }
+
+   /**
+    * The maximum number of message groups a queue remembers the consumer of, -1 means no limit
+    */
+   public static int getDefaultMessageGroupMaxSize() {
+      return DEFAULT_MESSAGE_GROUP_MAX_SIZE;
+   }
+
+   /**
+    * How long (in ms) a message group can go unused before a queue forgets its consumer, -1 means never
+    */
+   public static long getDefaultMessageGroupIdleTimeout() {
+      return DEFAULT_MESSAGE_GROUP_IDLE_TIMEOUT;
+   }
+
+   /**
+    * true means new message groups are spread by consistent hashing and some groups move to a consumer when it is added
+    */
+   public static boolean isDefaultMessageGroupRebalance() {
+      return DEFAULT_MESSAGE_GROUP_REBALANCE;
+   }
+
+   /**
+    * How long (in ms) last-value queues hold the messages replaced by a newer value before acknowledging them as a batch, -1 means acknowledge each one straight away
+    */
+   public static long getDefaultLastValueWriteBehindWindow() {
+      return DEFAULT_LAST_VALUE_WRITE_BEHIND_WINDOW;
+   }
+
+   /**
+    * The maximum number of replaced messages a last-value queue holds before acknowledging them
+    */
+   public static int getDefaultLastValueWriteBehindBatchSize() {
+      return DEFAULT_LAST_VALUE_WRITE_BEHIND_BATCH_SIZE;
+   }
+
 }
@@ -19,6 +19,7 @@ package org.apache.activemq.artemis.api.core.client;
 import java.io.InputStream;
 import java.io.OutputStream;
 
+import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
 import org.apache.activemq.artemis.api.core.ActiveMQException;
 import org.apache.activemq.artemis.api.core.SimpleString;
 import org.apache.activemq.artemis.api.core.Message;
@@ -83,6 +84,16 @@ public interface ClientMessage extends Message {
     */
    int getBodySize();
 
+   /**
+    * Returns a read-only view of the whole body of this message sharing its memory, for the consumers that only
+    * forward or hash the body without copying it. {@link ActiveMQBuffer#toByteBuffer()} and
+    * {@link ActiveMQBuffer#byteBuf()} don't copy it either.
+    * <br>
+    * Reading the view doesn't move the indexes of {@link #getBodyBuffer()}. It must not be used once the body is
+    * changed.
+    */
+   ActiveMQBuffer getReadOnlyBodyBuffer();
+
    /**
     * Sets the OutputStream that will receive the content of a message received in a non blocking way.
     * <br>
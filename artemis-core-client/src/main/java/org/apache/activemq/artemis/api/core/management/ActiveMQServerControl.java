@@ -72,6 +72,56 @@ public interface ActiveMQServerControl {
     */
    long getSecurityInvalidationInterval();
 
+   /**
+    * Returns the number of security checks found in the security cache.
+    */
+   long getAuthorizationCacheHitCount();
+
+   /**
+    * Returns the number of security checks not found in the security cache.
+    */
+   long getAuthorizationCacheMissCount();
+
+   /**
+    * Returns the number of authentications found in the security cache.
+    */
+   long getAuthenticationCacheHitCount();
+
+   /**
+    * Returns the number of authentications not found in the security cache.
+    */
+   long getAuthenticationCacheMissCount();
+
+   /**
+    * Returns the average time (in microseconds) core sends waited to be handled after they were read, when the packets of sessions are pipelined.
+    */
+   long getSendQueuedAverageTime();
+
+   /**
+    * Returns the longest time (in microseconds) a core send waited to be handled after it was read, when the packets of sessions are pipelined.
+    */
+   long getSendQueuedMaxTime();
+
+   /**
+    * Returns the average time (in microseconds) core sends took to be routed.
+    */
+   long getSendRoutingAverageTime();
+
+   /**
+    * Returns the longest time (in microseconds) a core send took to be routed.
+    */
+   long getSendRoutingMaxTime();
+
+   /**
+    * Returns the average time (in microseconds) core sends waited to be persisted after they were routed.
+    */
+   long getSendPersistenceAverageTime();
+
+   /**
+    * Returns the longest time (in microseconds) a core send waited to be persisted after it was routed.
+    */
+   long getSendPersistenceMaxTime();
+
    /**
     * Returns whether security is enabled for this server.
     */
@@ -406,6 +456,22 @@ public interface ActiveMQServerControl {
    @Operation(desc = "Reset all message counters history", impact = MBeanOperationInfo.ACTION)
    void resetAllMessageCounterHistories() throws Exception;
 
+   /**
+    * Lists the latencies (in microseconds) of the messages of this server: how long they take to be routed
+    * ({@code route}), to be persisted once routed ({@code durable}), to be delivered once in a queue
+    * ({@code dwell}) and to be acknowledged once delivered ({@code ack}).
+    * <br>
+    * Java objects can be recreated from JSON serialization using {@code LatencyInfo#fromJSON(String)}.
+    */
+   @Operation(desc = "List the latencies of routing, persisting, queueing and acknowledging messages", impact = MBeanOperationInfo.INFO)
+   String listLatencies() throws Exception;
+
+   /**
+    * Resets the latencies of this server, the ones of its addresses and queues are left alone.
+    */
+   @Operation(desc = "Reset the latencies of routing, persisting, queueing and acknowledging messages", impact = MBeanOperationInfo.ACTION)
+   void resetLatencies() throws Exception;
+
    /**
     * List all the prepared transaction, sorted by date, oldest first.
     * <br>
@@ -75,4 +75,31 @@ public interface AddressControl {
     * Returns the names of all bindings (both queues and diverts) bound to this address
     */
    String[] getBindingNames() throws Exception;
+
+   /**
+    * Returns the ratio of the duplicate id lookups of this address answered by the filter in front of its cache,
+    * or -1 if the cache has no filter.
+    */
+   double getDuplicateIDFilterHitRatio() throws Exception;
+
+   /**
+    * Returns the ratio of the duplicate id lookups of ids not in the cache of this address that its filter let
+    * through, or -1 if the cache has no filter.
+    */
+   double getDuplicateIDFilterFalsePositiveRatio() throws Exception;
+
+   /**
+    * Lists the latencies (in microseconds) of routing the messages of this address to its queues
+    * ({@code route}). Empty if latencies are not measured.
+    * <br>
+    * Java objects can be recreated from JSON serialization using {@code LatencyInfo#fromJSON(String)}.
+    */
+   @Operation(desc = "List the latencies of routing messages", impact = MBeanOperationInfo.INFO)
+   String listLatencies() throws Exception;
+
+   /**
+    * Resets the latencies of this address.
+    */
+   @Operation(desc = "Reset the latencies of routing messages", impact = MBeanOperationInfo.ACTION)
+   void resetLatencies() throws Exception;
 }
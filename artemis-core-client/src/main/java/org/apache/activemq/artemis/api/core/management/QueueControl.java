@@ -85,6 +85,18 @@ public interface QueueControl {
     */
    long getMessagesAcknowledged();
 
+   /**
+    * Returns the number of messages of this last-value queue replaced by a newer message with the same last-value name.
+    * Always 0 if this queue is not a last-value queue.
+    */
+   long getMessagesReplaced();
+
+   /**
+    * Returns the fraction of the messages with a last-value name that this queue replaced before they were delivered.
+    * Always 0 if this queue is not a last-value queue.
+    */
+   double getMessagesReplacedRatio();
+
    /**
     * Returns the first message on the queue as JSON
     */
@@ -356,6 +368,21 @@ public interface QueueControl {
    @Operation(desc = "List the message counters history HTML", impact = MBeanOperationInfo.INFO)
    String listMessageCounterHistoryAsHTML() throws Exception;
 
+   /**
+    * Lists the latencies (in microseconds) of the messages of this queue: how long they wait to be delivered
+    * ({@code dwell}) and to be acknowledged once delivered ({@code ack}). Empty if latencies are not measured.
+    * <br>
+    * Java objects can be recreated from JSON serialization using {@code LatencyInfo#fromJSON(String)}.
+    */
+   @Operation(desc = "List the latencies of queueing and acknowledging messages", impact = MBeanOperationInfo.INFO)
+   String listLatencies() throws Exception;
+
+   /**
+    * Resets the latencies of this queue.
+    */
+   @Operation(desc = "Reset the latencies of queueing and acknowledging messages", impact = MBeanOperationInfo.ACTION)
+   void resetLatencies() throws Exception;
+
    /**
     * Pauses the queue. Messages are no longer delivered to its consumers.
     */
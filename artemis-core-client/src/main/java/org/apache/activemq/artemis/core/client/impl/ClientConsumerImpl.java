@@ -20,6 +20,7 @@ import java.io.File;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
@@ -517,7 +518,37 @@ public final class ClientConsumerImpl implements ClientConsumerInternal {
       }
    }
 
+   public synchronized void handleMessages(final List<ClientMessageInternal> messages) throws Exception {
+      if (closing) {
+         // This is ok - we just ignore the messages
+         return;
+      }
+
+      int added = 0;
+
+      for (ClientMessageInternal message : messages) {
+         if (message.getBooleanProperty(Message.HDR_LARGE_COMPRESSED)) {
+            handleCompressedMessage(message);
+         }
+         else {
+            addMessage(message);
+
+            added++;
+         }
+      }
+
+      if (added > 0) {
+         messagesAdded(added);
+      }
+   }
+
    private void handleRegularMessage(ClientMessageInternal message) {
+      addMessage(message);
+
+      messagesAdded(1);
+   }
+
+   private void addMessage(ClientMessageInternal message) {
       if (message.getAddress() == null) {
          message.setAddressTransient(queueInfo.getAddress());
       }
@@ -533,16 +564,24 @@ public final class ClientConsumerImpl implements ClientConsumerInternal {
 
       // Add it to the buffer
       buffer.addTail(message, message.getPriority());
+   }
 
+   private void messagesAdded(final int count) {
       if (handler != null) {
-         // Execute using executor
+         // Execute using executor, the runner handles one message at a time
          if (!stopped) {
-            queueExecutor();
+            for (int i = 0; i < count; i++) {
+               queueExecutor();
+            }
          }
       }
-      else {
+      else if (count == 1) {
          notify();
       }
+      else {
+         // a single wake up of all the receivers for all the messages
+         notifyAll();
+      }
    }
 
    /**
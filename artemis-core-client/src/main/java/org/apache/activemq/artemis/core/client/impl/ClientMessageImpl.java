@@ -21,12 +21,14 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 
+import io.netty.buffer.Unpooled;
 import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
 import org.apache.activemq.artemis.api.core.ActiveMQBuffers;
 import org.apache.activemq.artemis.api.core.ActiveMQException;
 import org.apache.activemq.artemis.api.core.ActiveMQPropertyConversionException;
 import org.apache.activemq.artemis.api.core.Message;
 import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.buffers.impl.ChannelBufferWrapper;
 import org.apache.activemq.artemis.core.client.ActiveMQClientMessageBundle;
 import org.apache.activemq.artemis.core.message.BodyEncoder;
 import org.apache.activemq.artemis.core.message.impl.MessageImpl;
@@ -139,6 +141,16 @@ public class ClientMessageImpl extends MessageImpl implements ClientMessageInter
       return buffer.writerIndex() - buffer.readerIndex();
    }
 
+   @Override
+   public synchronized ActiveMQBuffer getReadOnlyBodyBuffer() {
+      // the body of a large message is read first
+      getBodyBuffer();
+
+      int bodyEnd = getEndOfBodyPosition();
+
+      return new ChannelBufferWrapper(Unpooled.unmodifiableBuffer(buffer.byteBuf().slice(BODY_OFFSET, bodyEnd - BODY_OFFSET)));
+   }
+
    @Override
    public String toString() {
       return "ClientMessage[messageID=" + messageID + ", durable=" + durable + ", address=" + getAddress() + ",userID=" + (getUserID() != null ? getUserID() : "null") + ",properties=" + properties.toString() + "]";
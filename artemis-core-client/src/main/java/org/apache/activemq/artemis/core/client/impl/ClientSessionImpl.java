@@ -22,6 +22,7 @@ import javax.transaction.xa.Xid;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Executor;
@@ -748,6 +749,15 @@ public final class ClientSessionImpl implements ClientSessionInternal, FailureLi
       }
    }
 
+   public void handleReceiveMessages(final ConsumerContext consumerID,
+                                     final List<ClientMessageInternal> messages) throws Exception {
+      ClientConsumerInternal consumer = getConsumer(consumerID);
+
+      if (consumer != null) {
+         consumer.handleMessages(messages);
+      }
+   }
+
    public void handleReceiveLargeMessage(final ConsumerContext consumerID,
                                          ClientLargeMessageInternal clientLargeMessage,
                                          long largeMessageSize) throws Exception {
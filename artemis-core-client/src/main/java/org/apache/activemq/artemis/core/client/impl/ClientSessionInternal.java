@@ -16,6 +16,8 @@
  */
 package org.apache.activemq.artemis.core.client.impl;
 
+import java.util.List;
+
 import org.apache.activemq.artemis.api.core.ActiveMQException;
 import org.apache.activemq.artemis.api.core.Message;
 import org.apache.activemq.artemis.api.core.SimpleString;
@@ -52,6 +54,8 @@ public interface ClientSessionInternal extends ClientSession {
 
    void handleReceiveMessage(ConsumerContext consumerID, ClientMessageInternal message) throws Exception;
 
+   void handleReceiveMessages(ConsumerContext consumerID, List<ClientMessageInternal> messages) throws Exception;
+
    void handleReceiveLargeMessage(ConsumerContext consumerID,
                                   ClientLargeMessageInternal clientLargeMessage,
                                   long largeMessageSize) throws Exception;
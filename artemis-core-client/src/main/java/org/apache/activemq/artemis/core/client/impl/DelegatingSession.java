@@ -19,6 +19,7 @@ package org.apache.activemq.artemis.core.client.impl;
 import javax.transaction.xa.XAException;
 import javax.transaction.xa.XAResource;
 import javax.transaction.xa.Xid;
+import java.util.List;
 import java.util.Set;
 
 import org.apache.activemq.artemis.api.core.ActiveMQException;
@@ -361,6 +362,11 @@ public class DelegatingSession implements ClientSessionInternal {
       session.handleReceiveMessage(consumerID, message);
    }
 
+   @Override
+   public void handleReceiveMessages(ConsumerContext consumerID, List<ClientMessageInternal> messages) throws Exception {
+      session.handleReceiveMessages(consumerID, messages);
+   }
+
    @Override
    public void handleReceiveLargeMessage(ConsumerContext consumerID,
                                          ClientLargeMessageInternal clientLargeMessage,
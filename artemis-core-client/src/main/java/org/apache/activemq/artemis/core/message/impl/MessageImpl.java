@@ -18,20 +18,27 @@ package org.apache.activemq.artemis.core.message.impl;
 
 import java.nio.ByteBuffer;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
 import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
 import org.apache.activemq.artemis.api.core.ActiveMQBuffers;
 import org.apache.activemq.artemis.api.core.ActiveMQException;
 import org.apache.activemq.artemis.api.core.ActiveMQPropertyConversionException;
 import org.apache.activemq.artemis.api.core.Message;
 import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.buffers.impl.ChannelBufferWrapper;
 import org.apache.activemq.artemis.core.buffers.impl.ResetLimitWrappedActiveMQBuffer;
 import org.apache.activemq.artemis.core.message.BodyEncoder;
 import org.apache.activemq.artemis.core.protocol.core.impl.PacketImpl;
 import org.apache.activemq.artemis.utils.ByteUtil;
+import org.apache.activemq.artemis.utils.CompactEncoding;
 import org.apache.activemq.artemis.utils.DataConstants;
+import org.apache.activemq.artemis.utils.KeyDictionary;
 import org.apache.activemq.artemis.utils.TypedProperties;
 import org.apache.activemq.artemis.utils.UUID;
 
@@ -55,6 +62,29 @@ public abstract class MessageImpl implements MessageInternal {
 
    public static final int BODY_OFFSET = BUFFER_HEADER_SPACE + DataConstants.SIZE_INT;
 
+   // the addresses decoded, shared by all the messages of the client or the server so that they share the instances
+   public static final SimpleString.Pool ADDRESS_POOL = new SimpleString.Pool(1024, 512);
+
+   // set on the end of message position written after the body when the headers and properties are compact
+   private static final int COMPACT_HEADERS = 0x80000000;
+
+   // the headers of the compact encoding written only when they aren't the default, see encodeCompactHeaders
+   private static final byte HAS_ADDRESS = 0x01;
+
+   private static final byte HAS_USER_ID = 0x02;
+
+   private static final byte HAS_TYPE = 0x04;
+
+   private static final byte IS_DURABLE = 0x08;
+
+   private static final byte HAS_EXPIRATION = 0x10;
+
+   private static final byte HAS_TIMESTAMP = 0x20;
+
+   private static final byte HAS_PRIORITY = 0x40;
+
+   private static final byte DEFAULT_PRIORITY = 4;
+
    protected long messageID;
 
    protected SimpleString address;
@@ -88,8 +118,13 @@ public abstract class MessageImpl implements MessageInternal {
 
    private boolean bufferUsed;
 
+   // incremented each time the message is encoded again after a change
+   private volatile int encodeVersion;
+
    private UUID userID;
 
+   private boolean compactHeaders;
+
    // Constructors --------------------------------------------------
 
    protected MessageImpl() {
@@ -152,6 +187,7 @@ public abstract class MessageImpl implements MessageInternal {
       // many subscriptions and bridging to other nodes in a cluster
       synchronized (other) {
          bufferValid = other.bufferValid;
+         compactHeaders = other.compactHeaders;
          endOfBodyPosition = other.endOfBodyPosition;
          endOfMessagePosition = other.endOfMessagePosition;
          copied = other.copied;
@@ -159,9 +195,22 @@ public abstract class MessageImpl implements MessageInternal {
          if (other.buffer != null) {
             other.bufferUsed = true;
 
-            // We need to copy the underlying buffer too, since the different messsages thereafter might have different
-            // properties set on them, making their encoding different
-            buffer = other.buffer.copy(0, other.buffer.writerIndex());
+            buffer = shareBuffer(other.buffer);
+
+            if (buffer != null) {
+               // The messages share the buffer until one of them changes: a change of the body copies it first
+               // (checkCopy) and a change of the headers or properties keeps sharing the body, encoding them in a
+               // buffer of their own (shareBody)
+               bufferUsed = true;
+               copied = false;
+               other.copied = false;
+            }
+            else {
+               // We need to copy the underlying buffer too, since the different messsages thereafter might have
+               // different properties set on them, making their encoding different, on the heap even if the
+               // other is in a pooled buffer that is released with it
+               buffer = copyBuffer(other.buffer, other.buffer.writerIndex());
+            }
 
             buffer.setIndex(other.buffer.readerIndex(), buffer.capacity());
          }
@@ -171,7 +220,8 @@ public abstract class MessageImpl implements MessageInternal {
    // Message implementation ----------------------------------------
 
    public int getEncodeSize() {
-      int headersPropsSize = getHeadersAndPropertiesEncodeSize();
+      // the size of encode(ActiveMQBuffer), always with the standard headers
+      int headersPropsSize = getHeadersAndPropertiesEncodeSize(false);
 
       int bodyPos = getEndOfBodyPosition();
 
@@ -180,7 +230,21 @@ public abstract class MessageImpl implements MessageInternal {
       return DataConstants.SIZE_INT + bodySize + DataConstants.SIZE_INT + headersPropsSize;
    }
 
+   public int getSharedEncodeSize() {
+      int bodySize = getEndOfBodyPosition() - BODY_OFFSET;
+
+      return DataConstants.SIZE_INT + bodySize + DataConstants.SIZE_INT + getHeadersAndPropertiesEncodeSize();
+   }
+
    public int getHeadersAndPropertiesEncodeSize() {
+      return getHeadersAndPropertiesEncodeSize(compactHeaders);
+   }
+
+   private int getHeadersAndPropertiesEncodeSize(final boolean compact) {
+      if (compact) {
+         return getCompactHeadersEncodeSize(CompactEncoding.FIXED_KEYS);
+      }
+
       return DataConstants.SIZE_LONG + // Message ID
          DataConstants.SIZE_BYTE + // user id null?
          (userID == null ? 0 : 16) +
@@ -194,6 +258,16 @@ public abstract class MessageImpl implements MessageInternal {
    }
 
    public void encodeHeadersAndProperties(final ActiveMQBuffer buffer) {
+      encodeHeadersAndProperties(buffer, compactHeaders);
+   }
+
+   private void encodeHeadersAndProperties(final ActiveMQBuffer buffer, final boolean compact) {
+      if (compact) {
+         encodeCompactHeaders(buffer, CompactEncoding.FIXED_KEYS);
+
+         return;
+      }
+
       buffer.writeLong(messageID);
       buffer.writeNullableSimpleString(address);
       if (userID == null) {
@@ -212,8 +286,14 @@ public abstract class MessageImpl implements MessageInternal {
    }
 
    public void decodeHeadersAndProperties(final ActiveMQBuffer buffer) {
+      if (compactHeaders) {
+         decodeCompactHeaders(buffer, CompactEncoding.FIXED_KEYS);
+
+         return;
+      }
+
       messageID = buffer.readLong();
-      address = buffer.readNullableSimpleString();
+      address = ADDRESS_POOL.readNullableSimpleString(buffer);
       if (buffer.readByte() == DataConstants.NOT_NULL) {
          byte[] bytes = new byte[16];
          buffer.readBytes(bytes);
@@ -230,6 +310,18 @@ public abstract class MessageImpl implements MessageInternal {
       properties.decode(buffer);
    }
 
+   public boolean isCompactHeaders() {
+      return compactHeaders;
+   }
+
+   public synchronized void setCompactHeaders(final boolean compactHeaders) {
+      if (this.compactHeaders != compactHeaders) {
+         this.compactHeaders = compactHeaders;
+
+         bufferValid = false;
+      }
+   }
+
    public void copyHeadersAndProperties(final MessageInternal msg) {
       messageID = msg.getMessageID();
       address = msg.getAddress();
@@ -269,7 +361,7 @@ public abstract class MessageImpl implements MessageInternal {
    public synchronized ActiveMQBuffer getBodyBufferCopy() {
       // Must copy buffer before sending it
 
-      ActiveMQBuffer newBuffer = buffer.copy(0, buffer.capacity());
+      ActiveMQBuffer newBuffer = copyBuffer(buffer, buffer.capacity());
 
       newBuffer.setIndex(0, getEndOfBodyPosition());
 
@@ -420,7 +512,7 @@ public abstract class MessageImpl implements MessageInternal {
 
    public synchronized void checkCopy() {
       if (!copied) {
-         forceCopy();
+         forceCopy(buffer.capacity());
 
          copied = true;
       }
@@ -441,11 +533,29 @@ public abstract class MessageImpl implements MessageInternal {
       return endOfBodyPosition;
    }
 
-   // Encode to journal or paging
-   public void encode(final ActiveMQBuffer buff) {
+   // Encode to journal or paging, with the standard headers so that the files stay readable by older versions
+   public synchronized void encode(final ActiveMQBuffer buff) {
       encodeToBuffer();
 
-      buff.writeBytes(buffer, BUFFER_HEADER_SPACE, endOfMessagePosition - BUFFER_HEADER_SPACE);
+      if (!compactHeaders) {
+         buff.writeBytes(buffer, BUFFER_HEADER_SPACE, endOfMessagePosition - BUFFER_HEADER_SPACE);
+
+         return;
+      }
+
+      int start = buff.writerIndex();
+
+      int bodySize = getEndOfBodyPosition();
+
+      buff.writeBytes(buffer, BUFFER_HEADER_SPACE, bodySize - BUFFER_HEADER_SPACE);
+
+      int endOfBody = buff.writerIndex();
+
+      buff.writeInt(0);
+
+      encodeHeadersAndProperties(buff, false);
+
+      buff.setInt(endOfBody, BUFFER_HEADER_SPACE + buff.writerIndex() - start);
    }
 
    // Decode from journal or paging
@@ -454,7 +564,7 @@ public abstract class MessageImpl implements MessageInternal {
 
       endOfBodyPosition = buff.readInt();
 
-      endOfMessagePosition = buff.getInt(endOfBodyPosition - BUFFER_HEADER_SPACE + start);
+      endOfMessagePosition = buff.getInt(endOfBodyPosition - BUFFER_HEADER_SPACE + start) & ~COMPACT_HEADERS;
 
       int length = endOfMessagePosition - BUFFER_HEADER_SPACE;
 
@@ -467,11 +577,61 @@ public abstract class MessageImpl implements MessageInternal {
       buff.readerIndex(start + length);
    }
 
+   public int getEncodeSize(final KeyDictionary keys) {
+      int bodySize = getEndOfBodyPosition() - BODY_OFFSET;
+
+      return DataConstants.SIZE_INT + bodySize + DataConstants.SIZE_INT + getCompactHeadersEncodeSize(keys);
+   }
+
+   // Encode to journal with the keys referring to its dictionary
+   public synchronized void encode(final ActiveMQBuffer buff, final KeyDictionary keys) {
+      int start = buff.writerIndex();
+
+      int bodySize = getEndOfBodyPosition();
+
+      buff.writeInt(bodySize);
+      buff.writeBytes(buffer, BODY_OFFSET, bodySize - BODY_OFFSET);
+
+      int endOfBody = buff.writerIndex();
+
+      buff.writeInt(0);
+
+      encodeCompactHeaders(buff, keys);
+
+      buff.setInt(endOfBody, (BUFFER_HEADER_SPACE + buff.writerIndex() - start) | COMPACT_HEADERS);
+   }
+
+   // Decode from journal with its dictionary
+   public synchronized void decode(final ActiveMQBuffer buff, final KeyDictionary keys) {
+      int start = buff.readerIndex();
+
+      endOfBodyPosition = buff.readInt();
+
+      int length = (buff.getInt(endOfBodyPosition - BUFFER_HEADER_SPACE + start) & ~COMPACT_HEADERS) - BUFFER_HEADER_SPACE;
+
+      buffer.setIndex(0, BUFFER_HEADER_SPACE);
+
+      buffer.writeBytes(buff, start, length);
+
+      buffer.readerIndex(endOfBodyPosition + DataConstants.SIZE_INT);
+
+      decodeCompactHeaders(buffer, keys);
+
+      compactHeaders = true;
+
+      // the references to the dictionary never leave the journal: encoded again with the fixed one once needed
+      buffer.writerIndex(endOfBodyPosition);
+
+      bufferValid = false;
+
+      buff.readerIndex(start + length);
+   }
+
    public synchronized ActiveMQBuffer getEncodedBuffer() {
       ActiveMQBuffer buff = encodeToBuffer();
 
       if (bufferUsed) {
-         ActiveMQBuffer copied = buff.copy(0, buff.capacity());
+         ActiveMQBuffer copied = copyBuffer(buff, buff.capacity());
 
          copied.setIndex(0, endOfMessagePosition);
 
@@ -486,6 +646,36 @@ public abstract class MessageImpl implements MessageInternal {
       }
    }
 
+   public synchronized ActiveMQBuffer getSharedEncodedBuffer() {
+      ActiveMQBuffer buff = encodeToBuffer();
+
+      // a change will encode the message in a new buffer, the slices given away are never written
+      bufferUsed = true;
+
+      return buff.slice(BUFFER_HEADER_SPACE, endOfMessagePosition - BUFFER_HEADER_SPACE);
+   }
+
+   public synchronized ActiveMQBuffer getStandardEncodedBuffer() {
+      if (!compactHeaders) {
+         return getSharedEncodedBuffer();
+      }
+
+      encodeToBuffer();
+
+      int bodySize = getEndOfBodyPosition();
+
+      ActiveMQBuffer standard = ActiveMQBuffers.fixedBuffer(bodySize + DataConstants.SIZE_INT + getHeadersAndPropertiesEncodeSize(false));
+
+      standard.writeBytes(buffer, 0, bodySize);
+      standard.writeInt(0);
+
+      encodeHeadersAndProperties(standard, false);
+
+      standard.setInt(bodySize, standard.writerIndex());
+
+      return standard.slice(BUFFER_HEADER_SPACE, standard.writerIndex() - BUFFER_HEADER_SPACE);
+   }
+
    public void setAddressTransient(final SimpleString address) {
       this.address = address;
    }
@@ -868,15 +1058,45 @@ public abstract class MessageImpl implements MessageInternal {
       return properties;
    }
 
+   /**
+    * The number of times the message was encoded again after a change, while the buffer is valid the message
+    * didn't change since it was encoded this many times.
+    */
+   protected int getEncodeVersion() {
+      return encodeVersion;
+   }
+
+   /**
+    * Encodes the message if it changed since it was last encoded.
+    *
+    * @return the encode version of the message
+    */
+   protected synchronized int encodeIfChanged() {
+      encodeToBuffer();
+
+      return encodeVersion;
+   }
+
+   /**
+    * @return the buffer of the message to be written in place, copied first if it is shared with copies of the
+    * message or was given away
+    */
+   protected synchronized ActiveMQBuffer getWritableBuffer() {
+      if (bufferUsed) {
+         shareBody();
+      }
+
+      return buffer;
+   }
+
    // This must be synchronized as it can be called concurrently id the message is being delivered
    // concurrently to
    // many queues - the first caller in this case will actually encode it
    private synchronized ActiveMQBuffer encodeToBuffer() {
       if (!bufferValid) {
          if (bufferUsed) {
-            // Cannot use same buffer - must copy
-
-            forceCopy();
+            // Cannot use same buffer - the headers and properties are encoded again after the shared body
+            shareBody();
          }
 
          int bodySize = getEndOfBodyPosition();
@@ -904,7 +1124,9 @@ public abstract class MessageImpl implements MessageInternal {
 
          endOfMessagePosition = buffer.writerIndex();
 
-         buffer.setInt(bodySize, endOfMessagePosition);
+         buffer.setInt(bodySize, compactHeaders ? endOfMessagePosition | COMPACT_HEADERS : endOfMessagePosition);
+
+         encodeVersion++;
 
          bufferValid = true;
       }
@@ -915,6 +1137,8 @@ public abstract class MessageImpl implements MessageInternal {
    private void decode() {
       endOfBodyPosition = buffer.getInt(BUFFER_HEADER_SPACE);
 
+      compactHeaders = (buffer.getInt(endOfBodyPosition) & COMPACT_HEADERS) != 0;
+
       buffer.readerIndex(endOfBodyPosition + DataConstants.SIZE_INT);
 
       decodeHeadersAndProperties(buffer);
@@ -924,6 +1148,102 @@ public abstract class MessageImpl implements MessageInternal {
       bufferValid = true;
    }
 
+   /**
+    * The compact encoding of the headers: the message ID first as a long, as in the standard encoding, so that it can
+    * still be set in place, then a byte of flags telling which of the other headers aren't the default and follow,
+    * the numbers as variable-length quantities, then the properties, see {@link CompactEncoding}.
+    */
+   private void encodeCompactHeaders(final ActiveMQBuffer buffer, final KeyDictionary keys) {
+      buffer.writeLong(messageID);
+      buffer.writeByte(getCompactHeaderFlags());
+
+      if (address != null) {
+         CompactEncoding.writeString(buffer, address);
+      }
+      if (userID != null) {
+         buffer.writeBytes(userID.asBytes());
+      }
+      if (type != Message.DEFAULT_TYPE) {
+         buffer.writeByte(type);
+      }
+      if (expiration != 0) {
+         CompactEncoding.writeVarLong(buffer, expiration);
+      }
+      if (timestamp != 0) {
+         CompactEncoding.writeVarLong(buffer, timestamp);
+      }
+      if (priority != DEFAULT_PRIORITY) {
+         buffer.writeByte(priority);
+      }
+
+      properties.encodeCompact(buffer, keys);
+   }
+
+   private int getCompactHeadersEncodeSize(final KeyDictionary keys) {
+      return DataConstants.SIZE_LONG +
+         DataConstants.SIZE_BYTE +
+         (address == null ? 0 : CompactEncoding.sizeofString(address)) +
+         (userID == null ? 0 : 16) +
+         (type == Message.DEFAULT_TYPE ? 0 : DataConstants.SIZE_BYTE) +
+         (expiration == 0 ? 0 : CompactEncoding.sizeofVarLong(expiration)) +
+         (timestamp == 0 ? 0 : CompactEncoding.sizeofVarLong(timestamp)) +
+         (priority == DEFAULT_PRIORITY ? 0 : DataConstants.SIZE_BYTE) +
+         properties.getCompactEncodeSize(keys);
+   }
+
+   private byte getCompactHeaderFlags() {
+      int flags = 0;
+
+      if (address != null) {
+         flags |= HAS_ADDRESS;
+      }
+      if (userID != null) {
+         flags |= HAS_USER_ID;
+      }
+      if (type != Message.DEFAULT_TYPE) {
+         flags |= HAS_TYPE;
+      }
+      if (durable) {
+         flags |= IS_DURABLE;
+      }
+      if (expiration != 0) {
+         flags |= HAS_EXPIRATION;
+      }
+      if (timestamp != 0) {
+         flags |= HAS_TIMESTAMP;
+      }
+      if (priority != DEFAULT_PRIORITY) {
+         flags |= HAS_PRIORITY;
+      }
+
+      return (byte) flags;
+   }
+
+   private void decodeCompactHeaders(final ActiveMQBuffer buffer, final KeyDictionary keys) {
+      messageID = buffer.readLong();
+
+      byte flags = buffer.readByte();
+
+      address = (flags & HAS_ADDRESS) == 0 ? null : ADDRESS_POOL.readCompactString(buffer);
+
+      if ((flags & HAS_USER_ID) == 0) {
+         userID = null;
+      }
+      else {
+         byte[] bytes = new byte[16];
+         buffer.readBytes(bytes);
+         userID = new UUID(UUID.TYPE_TIME_BASED, bytes);
+      }
+
+      type = (flags & HAS_TYPE) == 0 ? Message.DEFAULT_TYPE : buffer.readByte();
+      durable = (flags & IS_DURABLE) != 0;
+      expiration = (flags & HAS_EXPIRATION) == 0 ? 0 : CompactEncoding.readVarLong(buffer);
+      timestamp = (flags & HAS_TIMESTAMP) == 0 ? 0 : CompactEncoding.readVarLong(buffer);
+      priority = (flags & HAS_PRIORITY) == 0 ? DEFAULT_PRIORITY : buffer.readByte();
+
+      properties.decodeCompact(buffer, keys);
+   }
+
    public void createBody(final int initialMessageBufferSize) {
       buffer = ActiveMQBuffers.dynamicBuffer(initialMessageBufferSize);
 
@@ -933,10 +1253,10 @@ public abstract class MessageImpl implements MessageInternal {
       buffer.setIndex(BODY_OFFSET, BODY_OFFSET);
    }
 
-   private void forceCopy() {
+   private void forceCopy(final int length) {
       // Must copy buffer before sending it
 
-      buffer = buffer.copy(0, buffer.capacity());
+      buffer = copyBuffer(buffer, length);
 
       buffer.setIndex(0, getEndOfBodyPosition());
 
@@ -947,6 +1267,102 @@ public abstract class MessageImpl implements MessageInternal {
       bufferUsed = false;
    }
 
+   /**
+    * Replaces the buffer given away or shared with copies by a composite of the same body, read only, between a copy
+    * of the space before it and a buffer of its own for the headers and properties, copied if they are still valid or
+    * to be encoded again. The body is copied only by a change of the body (checkCopy).
+    */
+   private void shareBody() {
+      int bodySize = getEndOfBodyPosition();
+
+      ByteBuf shared = buffer.byteBuf();
+
+      // a body out of the heap, as in a pooled buffer released with the message, is not kept
+      if (bodySize < BODY_OFFSET || bufferValid && endOfMessagePosition < bodySize || !isOnHeap(shared)) {
+         forceCopy(buffer.capacity());
+
+         return;
+      }
+
+      int headersSize = bufferValid ? endOfMessagePosition - bodySize : DataConstants.SIZE_INT + getHeadersAndPropertiesEncodeSize();
+
+      ByteBuf start = Unpooled.buffer(BODY_OFFSET);
+      start.writeBytes(shared, 0, BODY_OFFSET);
+
+      ByteBuf headers = Unpooled.buffer(headersSize);
+
+      if (bufferValid) {
+         headers.writeBytes(shared, bodySize, headersSize);
+      }
+      else {
+         headers.writerIndex(headersSize);
+      }
+
+      CompositeByteBuf composite = Unpooled.compositeBuffer();
+      composite.addComponent(start);
+
+      if (bodySize > BODY_OFFSET) {
+         composite.addComponent(Unpooled.unmodifiableBuffer(shared.slice(BODY_OFFSET, bodySize - BODY_OFFSET)));
+      }
+
+      composite.addComponent(headers);
+
+      buffer = new ChannelBufferWrapper(composite);
+
+      buffer.setIndex(0, bufferValid ? endOfMessagePosition : bodySize);
+
+      if (bodyBuffer != null) {
+         bodyBuffer.setBuffer(buffer);
+      }
+
+      bufferUsed = false;
+
+      // the body is still shared, a change of it must copy it first
+      copied = false;
+   }
+
+   private static boolean isOnHeap(final ByteBuf buffer) {
+      ByteBuf root = ChannelBufferWrapper.unwrap(buffer);
+
+      // the composites only ever share a body on the heap
+      return root.hasArray() || root instanceof CompositeByteBuf;
+   }
+
+   /**
+    * @return a buffer with the content of the given one and its own indexes, null if its memory can't be shared
+    */
+   private static ActiveMQBuffer shareBuffer(final ActiveMQBuffer buffer) {
+      ByteBuf byteBuf = ChannelBufferWrapper.unwrap(buffer.byteBuf());
+
+      if (byteBuf instanceof CompositeByteBuf) {
+         // a copy already sharing its body, the components are shared in a composite of its own
+         List<ByteBuf> components = ((CompositeByteBuf) byteBuf).decompose(0, byteBuf.capacity());
+
+         CompositeByteBuf composite = Unpooled.compositeBuffer();
+         composite.addComponents(components);
+
+         return new ChannelBufferWrapper(composite);
+      }
+
+      if (!byteBuf.hasArray() || byteBuf.arrayOffset() != 0) {
+         return null;
+      }
+
+      // a new buffer of the same array rather than a duplicate, since a body buffer unwraps the buffer it is given
+      return ActiveMQBuffers.wrappedBuffer(byteBuf.array());
+   }
+
+   /**
+    * @return a copy of the start of the buffer that can grow, even if the buffer is a shared one that can't
+    */
+   protected static ActiveMQBuffer copyBuffer(final ActiveMQBuffer buffer, final int length) {
+      ActiveMQBuffer copy = ActiveMQBuffers.dynamicBuffer(length);
+
+      copy.writeBytes(buffer, 0, length);
+
+      return copy;
+   }
+
    // Inner classes -------------------------------------------------
 
    private final class DecodingContext implements BodyEncoder {
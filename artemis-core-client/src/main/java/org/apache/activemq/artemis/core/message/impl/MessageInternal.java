@@ -23,6 +23,7 @@ import org.apache.activemq.artemis.api.core.ActiveMQException;
 import org.apache.activemq.artemis.api.core.Message;
 import org.apache.activemq.artemis.api.core.SimpleString;
 import org.apache.activemq.artemis.core.message.BodyEncoder;
+import org.apache.activemq.artemis.utils.KeyDictionary;
 import org.apache.activemq.artemis.utils.TypedProperties;
 
 public interface MessageInternal extends Message {
@@ -43,6 +44,52 @@ public interface MessageInternal extends Message {
 
    ActiveMQBuffer getEncodedBuffer();
 
+   /**
+    * The encoded message without the space reserved for the packet headers, shared by all the callers until the
+    * message changes. It must not be written.
+    */
+   ActiveMQBuffer getSharedEncodedBuffer();
+
+   /**
+    * The size of {@link #getSharedEncodedBuffer()}, in the compact encoding if the message uses it, known without
+    * encoding the message.
+    */
+   int getSharedEncodeSize();
+
+   /**
+    * The encoded message as {@link #getSharedEncodedBuffer()} returns it, but with the headers and properties in the
+    * standard encoding for the peers that don't decode the compact one. A copy if the message uses the compact one.
+    */
+   ActiveMQBuffer getStandardEncodedBuffer();
+
+   /**
+    * @return whether the headers and properties are encoded compactly, see {@link #setCompactHeaders(boolean)}
+    */
+   boolean isCompactHeaders();
+
+   /**
+    * Chooses between the compact encoding of the headers and properties and the standard one, the compact one being
+    * only decoded by peers from {@link org.apache.activemq.artemis.core.protocol.core.impl.PacketImpl#COMPACT_HEADERS_VERSION}.
+    * Decoding a message keeps the encoding it was sent or stored with.
+    */
+   void setCompactHeaders(boolean compactHeaders);
+
+   /**
+    * @return the size of the message encoded by {@link #encode(ActiveMQBuffer, KeyDictionary)}
+    */
+   int getEncodeSize(KeyDictionary keys);
+
+   /**
+    * Encodes the message as {@link #encode(ActiveMQBuffer)} does, but with the compact headers and the keys of the
+    * properties referring to the given dictionary, for the records that are only decoded along with the dictionary.
+    */
+   void encode(ActiveMQBuffer buffer, KeyDictionary keys);
+
+   /**
+    * Decodes a message written by {@link #encode(ActiveMQBuffer, KeyDictionary)} with the same dictionary.
+    */
+   void decode(ActiveMQBuffer buffer, KeyDictionary keys);
+
    int getHeadersAndPropertiesEncodeSize();
 
    ActiveMQBuffer getWholeBuffer();
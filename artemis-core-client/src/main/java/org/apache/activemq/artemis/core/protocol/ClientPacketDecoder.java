@@ -16,6 +16,7 @@
  */
 package org.apache.activemq.artemis.core.protocol;
 
+import static org.apache.activemq.artemis.core.protocol.core.impl.PacketImpl.SESS_RECEIVE_BATCH;
 import static org.apache.activemq.artemis.core.protocol.core.impl.PacketImpl.SESS_RECEIVE_LARGE_MSG;
 import static org.apache.activemq.artemis.core.protocol.core.impl.PacketImpl.SESS_RECEIVE_MSG;
 
@@ -24,6 +25,7 @@ import org.apache.activemq.artemis.core.client.impl.ClientLargeMessageImpl;
 import org.apache.activemq.artemis.core.client.impl.ClientMessageImpl;
 import org.apache.activemq.artemis.core.protocol.core.Packet;
 import org.apache.activemq.artemis.core.protocol.core.impl.PacketDecoder;
+import org.apache.activemq.artemis.core.protocol.core.impl.wireformat.SessionReceiveBatchMessage;
 import org.apache.activemq.artemis.core.protocol.core.impl.wireformat.SessionReceiveClientLargeMessage;
 import org.apache.activemq.artemis.core.protocol.core.impl.wireformat.SessionReceiveMessage;
 
@@ -56,6 +58,10 @@ public class ClientPacketDecoder extends PacketDecoder {
             packet = new SessionReceiveClientLargeMessage(new ClientLargeMessageImpl());
             break;
          }
+         case SESS_RECEIVE_BATCH: {
+            packet = new SessionReceiveBatchMessage();
+            break;
+         }
          default: {
             packet = super.decode(packetType);
          }
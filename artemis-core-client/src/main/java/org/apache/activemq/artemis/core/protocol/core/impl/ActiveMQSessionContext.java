@@ -21,6 +21,7 @@ import javax.transaction.xa.XAResource;
 import javax.transaction.xa.Xid;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -73,6 +74,7 @@ import org.apache.activemq.artemis.core.protocol.core.impl.wireformat.SessionPro
 import org.apache.activemq.artemis.core.protocol.core.impl.wireformat.SessionProducerCreditsMessage;
 import org.apache.activemq.artemis.core.protocol.core.impl.wireformat.SessionQueueQueryMessage;
 import org.apache.activemq.artemis.core.protocol.core.impl.wireformat.SessionQueueQueryResponseMessage_V2;
+import org.apache.activemq.artemis.core.protocol.core.impl.wireformat.SessionReceiveBatchMessage;
 import org.apache.activemq.artemis.core.protocol.core.impl.wireformat.SessionReceiveContinuationMessage;
 import org.apache.activemq.artemis.core.protocol.core.impl.wireformat.SessionReceiveLargeMessage;
 import org.apache.activemq.artemis.core.protocol.core.impl.wireformat.SessionReceiveMessage;
@@ -103,6 +105,7 @@ import org.apache.activemq.artemis.utils.VersionLoader;
 
 import static org.apache.activemq.artemis.core.protocol.core.impl.PacketImpl.DISCONNECT_CONSUMER;
 import static org.apache.activemq.artemis.core.protocol.core.impl.PacketImpl.EXCEPTION;
+import static org.apache.activemq.artemis.core.protocol.core.impl.PacketImpl.SESS_RECEIVE_BATCH;
 import static org.apache.activemq.artemis.core.protocol.core.impl.PacketImpl.SESS_RECEIVE_CONTINUATION;
 import static org.apache.activemq.artemis.core.protocol.core.impl.PacketImpl.SESS_RECEIVE_LARGE_MSG;
 import static org.apache.activemq.artemis.core.protocol.core.impl.PacketImpl.SESS_RECEIVE_MSG;
@@ -359,6 +362,9 @@ public class ActiveMQSessionContext extends SessionContext {
                                boolean sendBlocking,
                                SendAcknowledgementHandler handler,
                                SimpleString defaultAddress) throws ActiveMQException {
+      // the headers are encoded compactly for the servers that decode them
+      msgI.setCompactHeaders(serverVersion >= PacketImpl.COMPACT_HEADERS_VERSION);
+
       SessionSendMessage packet = new SessionSendMessage(msgI, sendBlocking, handler);
 
       if (sendBlocking) {
@@ -371,6 +377,9 @@ public class ActiveMQSessionContext extends SessionContext {
 
    @Override
    public int sendInitialChunkOnLargeMessage(MessageInternal msgI) throws ActiveMQException {
+      // the large messages keep the standard encoding of the headers
+      msgI.setCompactHeaders(false);
+
       SessionSendLargeMessage initialChunk = new SessionSendLargeMessage(msgI);
 
       sessionChannel.send(initialChunk);
@@ -669,6 +678,37 @@ public class ActiveMQSessionContext extends SessionContext {
       handleReceiveMessage(new ActiveMQConsumerContext(messagePacket.getConsumerID()), msgi);
    }
 
+   private void handleReceivedBatchPacket(SessionReceiveBatchMessage batchPacket) throws Exception {
+      List<SessionReceiveMessage> deliveries = batchPacket.getDeliveries();
+
+      List<ClientMessageInternal> messages = new ArrayList<ClientMessageInternal>(deliveries.size());
+
+      long consumerID = 0;
+
+      for (SessionReceiveMessage messagePacket : deliveries) {
+         // the consecutive messages of a consumer are handed to it at once
+         if (!messages.isEmpty() && messagePacket.getConsumerID() != consumerID) {
+            handleReceiveMessages(new ActiveMQConsumerContext(consumerID), messages);
+
+            messages = new ArrayList<ClientMessageInternal>(deliveries.size());
+         }
+
+         consumerID = messagePacket.getConsumerID();
+
+         ClientMessageInternal msgi = (ClientMessageInternal) messagePacket.getMessage();
+
+         msgi.setDeliveryCount(messagePacket.getDeliveryCount());
+
+         msgi.setFlowControlSize(messagePacket.getPacketSize());
+
+         messages.add(msgi);
+      }
+
+      if (!messages.isEmpty()) {
+         handleReceiveMessages(new ActiveMQConsumerContext(consumerID), messages);
+      }
+   }
+
    private void handleReceiveLargeMessage(SessionReceiveLargeMessage serverPacket) throws Exception {
       ClientLargeMessageInternal clientLargeMessage = (ClientLargeMessageInternal) serverPacket.getLargeMessage();
 
@@ -712,6 +752,11 @@ public class ActiveMQSessionContext extends SessionContext {
 
                   break;
                }
+               case SESS_RECEIVE_BATCH: {
+                  handleReceivedBatchPacket((SessionReceiveBatchMessage) packet);
+
+                  break;
+               }
                case SESS_RECEIVE_LARGE_MSG: {
                   handleReceiveLargeMessage((SessionReceiveLargeMessage) packet);
 
@@ -155,6 +155,9 @@ public final class ChannelImpl implements Channel {
             return version >= 126;
          case PacketImpl.SESS_BINDINGQUERY_RESP_V2:
             return version >= 126;
+         case PacketImpl.SESS_RECEIVE_BATCH:
+            // the outgoing interceptors expect each delivery in a packet of its own
+            return version >= PacketImpl.BATCHED_DELIVERY_VERSION && (interceptors == null || interceptors.isEmpty());
          default:
             return true;
       }
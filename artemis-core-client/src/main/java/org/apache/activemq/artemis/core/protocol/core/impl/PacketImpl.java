@@ -29,6 +29,12 @@ public class PacketImpl implements Packet {
    public static final int PACKET_HEADERS_SIZE = DataConstants.SIZE_INT + DataConstants.SIZE_BYTE +
       DataConstants.SIZE_LONG;
 
+   // The first version of the clients and servers that decode the messages with compact headers
+   public static final int COMPACT_HEADERS_VERSION = 127;
+
+   // The first version of the clients that decode many deliveries in a single packet
+   public static final int BATCHED_DELIVERY_VERSION = 128;
+
    private static final int INITIAL_PACKET_SIZE = 1500;
 
    protected long channelID;
@@ -245,6 +251,8 @@ public class PacketImpl implements Packet {
 
    public static final byte REPLICATION_RESPONSE_V2 = -9;
 
+   public static final byte SESS_RECEIVE_BATCH = -10;
+
    // Static --------------------------------------------------------
 
    public PacketImpl(final byte type) {
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.core.protocol.core.impl.wireformat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
+import org.apache.activemq.artemis.api.core.ActiveMQBuffers;
+import org.apache.activemq.artemis.core.buffers.impl.ChannelBufferWrapper;
+import org.apache.activemq.artemis.core.client.impl.ClientMessageImpl;
+import org.apache.activemq.artemis.core.protocol.core.impl.PacketImpl;
+import org.apache.activemq.artemis.spi.core.protocol.RemotingConnection;
+import org.apache.activemq.artemis.utils.DataConstants;
+
+/**
+ * Many deliveries of a session in a single packet: the number of deliveries followed by each one encoded as a
+ * {@link SessionReceiveMessage}, so that each delivery keeps its own size for the flow control.
+ */
+public class SessionReceiveBatchMessage extends PacketImpl {
+
+   private final List<SessionReceiveMessage> deliveries;
+
+   public SessionReceiveBatchMessage(final List<SessionReceiveMessage> deliveries) {
+      super(SESS_RECEIVE_BATCH);
+
+      this.deliveries = deliveries;
+   }
+
+   public SessionReceiveBatchMessage() {
+      super(SESS_RECEIVE_BATCH);
+
+      this.deliveries = new ArrayList<SessionReceiveMessage>();
+   }
+
+   public List<SessionReceiveMessage> getDeliveries() {
+      return deliveries;
+   }
+
+   @Override
+   public ActiveMQBuffer encode(final RemotingConnection connection) {
+      // The deliveries are encoded again on each call as the packet may be resent after a failover
+      ByteBuf[] parts = new ByteBuf[deliveries.size() + 1];
+
+      size = PACKET_HEADERS_SIZE + DataConstants.SIZE_INT;
+
+      for (int i = 0; i < deliveries.size(); i++) {
+         SessionReceiveMessage delivery = deliveries.get(i);
+
+         delivery.setChannelID(channelID);
+
+         parts[i + 1] = delivery.encode(connection).byteBuf();
+
+         size += delivery.getPacketSize();
+      }
+
+      ByteBuf headers = Unpooled.buffer(PACKET_HEADERS_SIZE + DataConstants.SIZE_INT, PACKET_HEADERS_SIZE + DataConstants.SIZE_INT);
+      headers.writeInt(size - DataConstants.SIZE_INT);
+      headers.writeByte(getType());
+      headers.writeLong(channelID);
+      headers.writeInt(deliveries.size());
+
+      parts[0] = headers;
+
+      return new ChannelBufferWrapper(Unpooled.wrappedBuffer(parts.length, parts), true);
+   }
+
+   @Override
+   public void decode(final ActiveMQBuffer buffer) {
+      channelID = buffer.readLong();
+
+      int count = buffer.readInt();
+
+      for (int i = 0; i < count; i++) {
+         int start = buffer.readerIndex();
+
+         int length = buffer.getInt(start) + DataConstants.SIZE_INT;
+
+         // Each message is decoded in a frame of its own, as if it had been received in a packet of its own
+         ActiveMQBuffer frame = ActiveMQBuffers.dynamicBuffer(length);
+         frame.writeBytes(buffer, start, length);
+         frame.readerIndex(DataConstants.SIZE_INT + DataConstants.SIZE_BYTE);
+
+         SessionReceiveMessage delivery = new SessionReceiveMessage(new ClientMessageImpl());
+
+         delivery.decode(frame);
+
+         deliveries.add(delivery);
+
+         buffer.readerIndex(start + length);
+      }
+
+      size = buffer.readerIndex();
+   }
+
+   @Override
+   public String toString() {
+      return getParentString() + ", deliveries=" + deliveries.size() + "]";
+   }
+}
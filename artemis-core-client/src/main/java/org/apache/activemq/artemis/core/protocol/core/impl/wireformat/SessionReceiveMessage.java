@@ -16,8 +16,12 @@
  */
 package org.apache.activemq.artemis.core.protocol.core.impl.wireformat;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
+import org.apache.activemq.artemis.core.buffers.impl.ChannelBufferWrapper;
 import org.apache.activemq.artemis.core.message.impl.MessageInternal;
+import org.apache.activemq.artemis.core.protocol.core.CoreRemotingConnection;
 import org.apache.activemq.artemis.spi.core.protocol.RemotingConnection;
 import org.apache.activemq.artemis.utils.DataConstants;
 
@@ -52,31 +56,40 @@ public class SessionReceiveMessage extends MessagePacket {
       return deliveryCount;
    }
 
-   @Override
-   public ActiveMQBuffer encode(final RemotingConnection connection) {
-      ActiveMQBuffer buffer = message.getEncodedBuffer();
+   /**
+    * @return the size of the packet once encoded for the connection, with compact headers if its peer decodes them,
+    * known before it's encoded
+    */
+   public int getExpectedPacketSize(final RemotingConnection connection) {
+      int encodeSize = decodesCompactHeaders(connection) ? message.getSharedEncodeSize() : message.getEncodeSize();
 
-      // Sanity check
-      if (buffer.writerIndex() != message.getEndOfMessagePosition()) {
-         throw new IllegalStateException("Wrong encode position");
-      }
+      return PACKET_HEADERS_SIZE + encodeSize + DataConstants.SIZE_LONG + DataConstants.SIZE_INT;
+   }
 
-      buffer.writeLong(consumerID);
-      buffer.writeInt(deliveryCount);
+   @Override
+   public ActiveMQBuffer encode(final RemotingConnection connection) {
+      // The encoded message is shared by all its deliveries, when it's delivered to many consumers only the
+      // standard headers and the consumer fields are written for each one instead of copying the whole message
+      ActiveMQBuffer encodedMessage = decodesCompactHeaders(connection) ? message.getSharedEncodedBuffer() : message.getStandardEncodedBuffer();
 
-      size = buffer.writerIndex();
+      size = PACKET_HEADERS_SIZE + encodedMessage.readableBytes() + DataConstants.SIZE_LONG + DataConstants.SIZE_INT;
 
       // Write standard headers
 
-      int len = size - DataConstants.SIZE_INT;
-      buffer.setInt(0, len);
-      buffer.setByte(DataConstants.SIZE_INT, getType());
-      buffer.setLong(DataConstants.SIZE_INT + DataConstants.SIZE_BYTE, channelID);
+      ByteBuf headers = Unpooled.buffer(PACKET_HEADERS_SIZE, PACKET_HEADERS_SIZE);
+      headers.writeInt(size - DataConstants.SIZE_INT);
+      headers.writeByte(getType());
+      headers.writeLong(channelID);
+
+      ByteBuf consumer = Unpooled.buffer(DataConstants.SIZE_LONG + DataConstants.SIZE_INT);
+      consumer.writeLong(consumerID);
+      consumer.writeInt(deliveryCount);
 
-      // Position reader for reading by Netty
-      buffer.setIndex(0, size);
+      return new ChannelBufferWrapper(Unpooled.wrappedBuffer(headers, encodedMessage.byteBuf(), consumer), true);
+   }
 
-      return buffer;
+   private static boolean decodesCompactHeaders(final RemotingConnection connection) {
+      return connection instanceof CoreRemotingConnection && ((CoreRemotingConnection) connection).getClientVersion() >= COMPACT_HEADERS_VERSION;
    }
 
    @Override
@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.core.remoting.impl.netty;
+
+import io.netty.channel.epoll.Epoll;
+import org.apache.activemq.artemis.core.client.ActiveMQClientLogger;
+
+/**
+ * Decides whether the acceptors and connectors use the native epoll transport of Netty, which is only available on
+ * Linux with its native library.
+ */
+public final class EpollSupport {
+
+   private static volatile boolean warned;
+
+   private EpollSupport() {
+   }
+
+   /**
+    * @param useEpoll whether the epoll transport was asked for, see {@link TransportConstants#USE_EPOLL_PROP_NAME}
+    * @return whether to use it, the transport falls back to NIO when it isn't available
+    */
+   public static boolean isEnabled(final boolean useEpoll) {
+      if (!useEpoll) {
+         return false;
+      }
+
+      if (Epoll.isAvailable()) {
+         return true;
+      }
+
+      // once is enough, a client may create many connectors
+      if (!warned) {
+         warned = true;
+         ActiveMQClientLogger.LOGGER.epollNotAvailable(Epoll.unavailabilityCause());
+      }
+
+      return false;
+   }
+}
@@ -19,7 +19,7 @@ package org.apache.activemq.artemis.core.remoting.impl.netty;
 import java.net.SocketAddress;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.RejectedExecutionException;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
@@ -28,8 +28,8 @@ import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.EventLoop;
 import io.netty.handler.ssl.SslHandler;
+import io.netty.util.ReferenceCountUtil;
 import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
-import org.apache.activemq.artemis.api.core.ActiveMQBuffers;
 import org.apache.activemq.artemis.api.core.ActiveMQInterruptedException;
 import org.apache.activemq.artemis.api.core.TransportConfiguration;
 import org.apache.activemq.artemis.core.buffers.impl.ChannelBufferWrapper;
@@ -42,11 +42,15 @@ import org.apache.activemq.artemis.spi.core.remoting.ReadyListener;
 import org.apache.activemq.artemis.utils.ConcurrentHashSet;
 import org.apache.activemq.artemis.utils.IPV6Util;
 
+/**
+ * A connection over a Netty channel.
+ * <p>
+ * The packets are written without being copied, as tasks of the event loop of the channel, and flushed together once
+ * the event loop has run the writes queued before: under load many packets go out in a single system call, while a
+ * lone packet is flushed right after being written.
+ */
 public class NettyConnection implements Connection {
 
-   // Constants -----------------------------------------------------
-   private static final int BATCHING_BUFFER_SIZE = 8192;
-
    // Attributes ----------------------------------------------------
 
    protected final Channel channel;
@@ -55,15 +59,21 @@ public class NettyConnection implements Connection {
 
    private final ConnectionLifeCycleListener listener;
 
-   private final boolean batchingEnabled;
-
    private final boolean directDeliver;
 
-   private volatile ActiveMQBuffer batchBuffer;
-
    private final Map<String, Object> configuration;
 
-   private final Semaphore writeLock = new Semaphore(1);
+   // only used on the event loop, whether a flush is queued after the writes
+   private boolean flushPending;
+
+   private final Runnable flushTask = new Runnable() {
+      @Override
+      public void run() {
+         flushPending = false;
+
+         channel.flush();
+      }
+   };
 
    private final Set<ReadyListener> readyListeners = new ConcurrentHashSet<ReadyListener>();
 
@@ -76,7 +86,6 @@ public class NettyConnection implements Connection {
    public NettyConnection(final Map<String, Object> configuration,
                           final Channel channel,
                           final ConnectionLifeCycleListener listener,
-                          boolean batchingEnabled,
                           boolean directDeliver) {
       this.configuration = configuration;
 
@@ -84,11 +93,22 @@ public class NettyConnection implements Connection {
 
       this.listener = listener;
 
-      this.batchingEnabled = batchingEnabled;
-
       this.directDeliver = directDeliver;
    }
 
+   /**
+    * @deprecated the writes are no longer batched in a buffer, use
+    * {@link #NettyConnection(Map, Channel, ConnectionLifeCycleListener, boolean)}
+    */
+   @Deprecated
+   public NettyConnection(final Map<String, Object> configuration,
+                          final Channel channel,
+                          final ConnectionLifeCycleListener listener,
+                          boolean batchingEnabled,
+                          boolean directDeliver) {
+      this(configuration, channel, listener, directDeliver);
+   }
+
    // Public --------------------------------------------------------
 
    public Channel getNettyChannel() {
@@ -159,24 +179,8 @@ public class NettyConnection implements Connection {
       return channel.hashCode();
    }
 
-   // This is called periodically to flush the batch buffer
+   // The writes are flushed by the event loop of the channel, there is no batch buffer to flush
    public void checkFlushBatchBuffer() {
-      if (!batchingEnabled) {
-         return;
-      }
-
-      if (writeLock.tryAcquire()) {
-         try {
-            if (batchBuffer != null && batchBuffer.readable()) {
-               channel.writeAndFlush(batchBuffer.byteBuf());
-
-               batchBuffer = createTransportBuffer(BATCHING_BUFFER_SIZE);
-            }
-         }
-         finally {
-            writeLock.release();
-         }
-      }
    }
 
    public void write(final ActiveMQBuffer buffer) {
@@ -191,104 +195,57 @@ public class NettyConnection implements Connection {
                      final boolean flush,
                      final boolean batched,
                      final ChannelFutureListener futureListener) {
+      // depending on if we need to flush or not we can use a voidPromise or
+      // use a normal promise
+      final ByteBuf buf = buffer.byteBuf();
+      final ChannelPromise promise;
+      if (flush || futureListener != null) {
+         promise = channel.newPromise();
+      }
+      else {
+         promise = channel.voidPromise();
+      }
 
-      try {
-         writeLock.acquire();
-
-         try {
-            if (batchBuffer == null && batchingEnabled && batched && !flush) {
-               // Lazily create batch buffer
+      if (futureListener != null) {
+         promise.addListener(futureListener);
+      }
 
-               batchBuffer = ActiveMQBuffers.dynamicBuffer(BATCHING_BUFFER_SIZE);
-            }
+      EventLoop eventLoop = channel.eventLoop();
+      boolean inEventLoop = eventLoop.inEventLoop();
 
-            if (batchBuffer != null) {
-               batchBuffer.writeBytes(buffer, 0, buffer.writerIndex());
+      // The write is always a task of the event loop, even from the event loop itself, so that the writes of the
+      // different threads sharing the connection are done in the order they were made without locking
+      try {
+         eventLoop.execute(new WriteTask(buf, promise));
+      }
+      catch (RejectedExecutionException e) {
+         // the event loop is shut down, the channel is closed
+         ReferenceCountUtil.release(buf);
 
-               if (batchBuffer.writerIndex() >= BATCHING_BUFFER_SIZE || !batched || flush) {
-                  // If the batch buffer is full or it's flush param or not batched then flush the buffer
+         if (!promise.isVoid()) {
+            promise.setFailure(e);
+         }
 
-                  buffer = batchBuffer;
-               }
-               else {
-                  return;
-               }
+         return;
+      }
 
-               if (!batched || flush) {
-                  batchBuffer = null;
-               }
-               else {
-                  // Create a new buffer
+      // only try to wait if not in the eventloop otherwise we will produce a deadlock
+      if (flush && !inEventLoop) {
+         while (true) {
+            try {
+               boolean ok = promise.await(10000);
 
-                  batchBuffer = ActiveMQBuffers.dynamicBuffer(BATCHING_BUFFER_SIZE);
+               if (!ok) {
+                  ActiveMQClientLogger.LOGGER.timeoutFlushingPacket();
                }
-            }
 
-            // depending on if we need to flush or not we can use a voidPromise or
-            // use a normal promise
-            final ByteBuf buf = buffer.byteBuf();
-            final ChannelPromise promise;
-            if (flush || futureListener != null) {
-               promise = channel.newPromise();
+               break;
             }
-            else {
-               promise = channel.voidPromise();
+            catch (InterruptedException e) {
+               throw new ActiveMQInterruptedException(e);
             }
-
-            EventLoop eventLoop = channel.eventLoop();
-            boolean inEventLoop = eventLoop.inEventLoop();
-            if (!inEventLoop) {
-               if (futureListener != null) {
-                  channel.writeAndFlush(buf, promise).addListener(futureListener);
-               }
-               else {
-                  channel.writeAndFlush(buf, promise);
-               }
-            }
-            else {
-               // create a task which will be picked up by the eventloop and trigger the write.
-               // This is mainly needed as this method is triggered by different threads for the same channel.
-               // if we not do this we may produce out of order writes.
-               final Runnable task = new Runnable() {
-                  @Override
-                  public void run() {
-                     if (futureListener != null) {
-                        channel.writeAndFlush(buf, promise).addListener(futureListener);
-                     }
-                     else {
-                        channel.writeAndFlush(buf, promise);
-                     }
-                  }
-               };
-               // execute the task on the eventloop
-               eventLoop.execute(task);
-            }
-
-            // only try to wait if not in the eventloop otherwise we will produce a deadlock
-            if (flush && !inEventLoop) {
-               while (true) {
-                  try {
-                     boolean ok = promise.await(10000);
-
-                     if (!ok) {
-                        ActiveMQClientLogger.LOGGER.timeoutFlushingPacket();
-                     }
-
-                     break;
-                  }
-                  catch (InterruptedException e) {
-                     throw new ActiveMQInterruptedException(e);
-                  }
-               }
-            }
-         }
-         finally {
-            writeLock.release();
          }
       }
-      catch (InterruptedException e) {
-         throw new ActiveMQInterruptedException(e);
-      }
    }
 
    public String getRemoteAddress() {
@@ -359,6 +316,10 @@ public class NettyConnection implements Connection {
    // Private -------------------------------------------------------
 
    private void closeSSLAndChannel(SslHandler sslHandler, Channel channel) {
+      // The write tasks queued before the close have written their buffers but may not have flushed them yet,
+      // and Netty fails the unflushed writes on close. Outside of the event loop the flush is queued behind them.
+      channel.flush();
+
       if (sslHandler != null) {
          try {
             ChannelFuture sslCloseFuture = sslHandler.close();
@@ -379,4 +340,34 @@ public class NettyConnection implements Connection {
    }
    // Inner classes -------------------------------------------------
 
+   private final class WriteTask implements Runnable {
+
+      private final ByteBuf buf;
+
+      private final ChannelPromise promise;
+
+      private WriteTask(final ByteBuf buf, final ChannelPromise promise) {
+         this.buf = buf;
+         this.promise = promise;
+      }
+
+      @Override
+      public void run() {
+         channel.write(buf, promise);
+
+         // queued behind the writes already waiting on the event loop, so that they're all flushed at once
+         if (!flushPending) {
+            flushPending = true;
+
+            try {
+               channel.eventLoop().execute(flushTask);
+            }
+            catch (RejectedExecutionException e) {
+               // the event loop is shutting down
+               flushTask.run();
+            }
+         }
+      }
+   }
+
 }
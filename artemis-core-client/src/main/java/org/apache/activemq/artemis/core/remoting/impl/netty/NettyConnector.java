@@ -41,7 +41,6 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import io.netty.bootstrap.Bootstrap;
@@ -57,6 +56,11 @@ import io.netty.channel.ChannelPipeline;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollMode;
+import io.netty.channel.epoll.EpollSocketChannel;
 import io.netty.channel.group.ChannelGroup;
 import io.netty.channel.group.DefaultChannelGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
@@ -200,7 +204,7 @@ public class NettyConnector extends AbstractConnector {
 
    private int tcpReceiveBufferSize;
 
-   private long batchDelay;
+   private boolean tcpCork;
 
    private ConcurrentMap<Object, Connection> connections = new ConcurrentHashMap<Object, Connection>();
 
@@ -210,14 +214,12 @@ public class NettyConnector extends AbstractConnector {
 
    private boolean useNioGlobalWorkerPool;
 
+   private boolean useEpoll;
+
    private ScheduledExecutorService scheduledThreadPool;
 
    private Executor closeExecutor;
 
-   private BatchFlusher flusher;
-
-   private ScheduledFuture<?> batchFlusherFuture;
-
    private EventLoopGroup group;
 
    private int connectTimeoutMillis;
@@ -281,6 +283,8 @@ public class NettyConnector extends AbstractConnector {
 
       useNioGlobalWorkerPool = ConfigurationHelper.getBooleanProperty(TransportConstants.USE_NIO_GLOBAL_WORKER_POOL_PROP_NAME, TransportConstants.DEFAULT_USE_NIO_GLOBAL_WORKER_POOL, configuration);
 
+      useEpoll = ConfigurationHelper.getBooleanProperty(TransportConstants.USE_EPOLL_PROP_NAME, TransportConstants.DEFAULT_USE_EPOLL, configuration);
+
       useServlet = ConfigurationHelper.getBooleanProperty(TransportConstants.USE_SERVLET_PROP_NAME, TransportConstants.DEFAULT_USE_SERVLET, configuration);
       host = ConfigurationHelper.getStringProperty(TransportConstants.HOST_PROP_NAME, TransportConstants.DEFAULT_HOST, configuration);
       port = ConfigurationHelper.getIntProperty(TransportConstants.PORT_PROP_NAME, TransportConstants.DEFAULT_PORT, configuration);
@@ -318,8 +322,7 @@ public class NettyConnector extends AbstractConnector {
       tcpNoDelay = ConfigurationHelper.getBooleanProperty(TransportConstants.TCP_NODELAY_PROPNAME, TransportConstants.DEFAULT_TCP_NODELAY, configuration);
       tcpSendBufferSize = ConfigurationHelper.getIntProperty(TransportConstants.TCP_SENDBUFFER_SIZE_PROPNAME, TransportConstants.DEFAULT_TCP_SENDBUFFER_SIZE, configuration);
       tcpReceiveBufferSize = ConfigurationHelper.getIntProperty(TransportConstants.TCP_RECEIVEBUFFER_SIZE_PROPNAME, TransportConstants.DEFAULT_TCP_RECEIVEBUFFER_SIZE, configuration);
-
-      batchDelay = ConfigurationHelper.getLongProperty(TransportConstants.BATCH_DELAY, TransportConstants.DEFAULT_BATCH_DELAY, configuration);
+      tcpCork = ConfigurationHelper.getBooleanProperty(TransportConstants.TCP_CORK_PROPNAME, TransportConstants.DEFAULT_TCP_CORK, configuration);
 
       connectTimeoutMillis = ConfigurationHelper.getIntProperty(TransportConstants.NETTY_CONNECT_TIMEOUT, TransportConstants.DEFAULT_NETTY_CONNECT_TIMEOUT, configuration);
       this.closeExecutor = closeExecutor;
@@ -343,6 +346,8 @@ public class NettyConnector extends AbstractConnector {
          sslEnabled +
          ", useNio=" +
          true +
+         ", useEpoll=" +
+         useEpoll +
          "]";
    }
 
@@ -362,7 +367,13 @@ public class NettyConnector extends AbstractConnector {
          threadsToUse = this.nioRemotingThreads;
       }
 
-      if (useNioGlobalWorkerPool) {
+      boolean epoll = EpollSupport.isEnabled(useEpoll);
+
+      if (epoll) {
+         channelClazz = EpollSocketChannel.class;
+         group = useNioGlobalWorkerPool ? SharedEpollEventLoopGroup.getInstance(threadsToUse) : new EpollEventLoopGroup(threadsToUse);
+      }
+      else if (useNioGlobalWorkerPool) {
          channelClazz = NioSocketChannel.class;
          group = SharedNioEventLoopGroup.getInstance(threadsToUse);
       }
@@ -376,6 +387,11 @@ public class NettyConnector extends AbstractConnector {
       bootstrap.channel(channelClazz);
       bootstrap.group(group);
 
+      if (epoll) {
+         bootstrap.option(EpollChannelOption.EPOLL_MODE, EpollMode.EDGE_TRIGGERED);
+         bootstrap.option(EpollChannelOption.TCP_CORK, tcpCork);
+      }
+
       bootstrap.option(ChannelOption.TCP_NODELAY, tcpNoDelay);
 
       if (connectTimeoutMillis != -1) {
@@ -519,12 +535,6 @@ public class NettyConnector extends AbstractConnector {
          }
       });
 
-      if (batchDelay > 0) {
-         flusher = new BatchFlusher();
-
-         batchFlusherFuture = scheduledThreadPool.scheduleWithFixedDelay(flusher, batchDelay, batchDelay, TimeUnit.MILLISECONDS);
-      }
-
       ActiveMQClientLogger.LOGGER.debug("Started Netty Connector version " + TransportConstants.NETTY_VERSION);
    }
 
@@ -533,16 +543,6 @@ public class NettyConnector extends AbstractConnector {
          return;
       }
 
-      if (batchFlusherFuture != null) {
-         batchFlusherFuture.cancel(false);
-
-         flusher.cancel();
-
-         flusher = null;
-
-         batchFlusherFuture = null;
-      }
-
       bootstrap = null;
       channelGroup.close().awaitUninterruptibly();
 
@@ -675,7 +675,7 @@ public class NettyConnector extends AbstractConnector {
 
          // No acceptor on a client connection
          Listener connectionListener = new Listener();
-         NettyConnection conn = new NettyConnection(configuration, ch, connectionListener, !httpEnabled && batchDelay > 0, false);
+         NettyConnection conn = new NettyConnection(configuration, ch, connectionListener, false);
          connectionListener.connectionCreated(null, conn, protocolManager.getName());
          return conn;
       }
@@ -929,23 +929,6 @@ public class NettyConnector extends AbstractConnector {
 
    }
 
-   private class BatchFlusher implements Runnable {
-
-      private boolean cancelled;
-
-      public synchronized void run() {
-         if (!cancelled) {
-            for (Connection connection : connections.values()) {
-               connection.checkFlushBatchBuffer();
-            }
-         }
-      }
-
-      public synchronized void cancel() {
-         cancelled = true;
-      }
-   }
-
    public boolean isEquivalent(Map<String, Object> configuration) {
       //here we only check host and port because these two parameters
       //is sufficient to determine the target host
@@ -988,6 +971,10 @@ public class NettyConnector extends AbstractConnector {
 
    public static void clearThreadPools() {
       SharedNioEventLoopGroup.forceShutdown();
+
+      if (Epoll.isAvailable()) {
+         SharedEpollEventLoopGroup.forceShutdown();
+      }
    }
 
    private static ClassLoader getThisClassLoader() {
@@ -51,6 +51,11 @@ public class TransportConstants {
 
    public static final String USE_NIO_GLOBAL_WORKER_POOL_PROP_NAME = "useNioGlobalWorkerPool";
 
+   /**
+    * Use the native epoll transport of Netty instead of NIO, falling back to NIO where it isn't available.
+    */
+   public static final String USE_EPOLL_PROP_NAME = "useEpoll";
+
    public static final String USE_INVM_PROP_NAME = "useInvm";
 
    /**
@@ -107,8 +112,26 @@ public class TransportConstants {
 
    public static final String TCP_RECEIVEBUFFER_SIZE_PROPNAME = "tcpReceiveBufferSize";
 
+   /**
+    * Set TCP_CORK on the sockets, only with the epoll transport.<br>
+    * The kernel then only sends full segments and holds a partial one for up to 200ms, which favours
+    * throughput over latency.
+    */
+   public static final String TCP_CORK_PROPNAME = "tcpCork";
+
+   /**
+    * Set SO_REUSEPORT on the acceptor sockets, only with the epoll transport.<br>
+    * The acceptor then binds a socket per processor to the same port, and the kernel spreads the new
+    * connections over them.
+    */
+   public static final String REUSE_PORT_PROPNAME = "reusePort";
+
    public static final String NIO_REMOTING_THREADS_PROPNAME = "nioRemotingThreads";
 
+   /**
+    * @deprecated ignored by the Netty acceptors and connectors, their writes are flushed together by the event loops
+    */
+   @Deprecated
    public static final String BATCH_DELAY = "batchDelay";
 
    public static final String DIRECT_DELIVER = "directDeliver";
@@ -123,6 +146,8 @@ public class TransportConstants {
 
    public static final boolean DEFAULT_USE_NIO_GLOBAL_WORKER_POOL = true;
 
+   public static final boolean DEFAULT_USE_EPOLL = false;
+
    public static final boolean DEFAULT_USE_INVM = false;
 
    public static final boolean DEFAULT_USE_SERVLET = false;
@@ -161,6 +186,10 @@ public class TransportConstants {
 
    public static final int DEFAULT_TCP_RECEIVEBUFFER_SIZE = 32768;
 
+   public static final boolean DEFAULT_TCP_CORK = false;
+
+   public static final boolean DEFAULT_REUSE_PORT = false;
+
    public static final boolean DEFAULT_HTTP_ENABLED = false;
 
    public static final long DEFAULT_HTTP_CLIENT_IDLE_TIME = 500;
@@ -207,6 +236,7 @@ public class TransportConstants {
       allowableAcceptorKeys.add(TransportConstants.HTTP_UPGRADE_ENABLED_PROP_NAME);
       allowableAcceptorKeys.add(TransportConstants.USE_NIO_PROP_NAME);
       allowableAcceptorKeys.add(TransportConstants.USE_INVM_PROP_NAME);
+      allowableAcceptorKeys.add(TransportConstants.USE_EPOLL_PROP_NAME);
       allowableAcceptorKeys.add(TransportConstants.PROTOCOL_PROP_NAME);
       allowableAcceptorKeys.add(TransportConstants.PROTOCOLS_PROP_NAME);
       allowableAcceptorKeys.add(TransportConstants.HOST_PROP_NAME);
@@ -223,6 +253,8 @@ public class TransportConstants {
       allowableAcceptorKeys.add(TransportConstants.TCP_NODELAY_PROPNAME);
       allowableAcceptorKeys.add(TransportConstants.TCP_SENDBUFFER_SIZE_PROPNAME);
       allowableAcceptorKeys.add(TransportConstants.TCP_RECEIVEBUFFER_SIZE_PROPNAME);
+      allowableAcceptorKeys.add(TransportConstants.TCP_CORK_PROPNAME);
+      allowableAcceptorKeys.add(TransportConstants.REUSE_PORT_PROPNAME);
       allowableAcceptorKeys.add(TransportConstants.NIO_REMOTING_THREADS_PROPNAME);
       allowableAcceptorKeys.add(TransportConstants.BATCH_DELAY);
       allowableAcceptorKeys.add(TransportConstants.DIRECT_DELIVER);
@@ -249,6 +281,7 @@ public class TransportConstants {
       allowableConnectorKeys.add(TransportConstants.SERVLET_PATH);
       allowableConnectorKeys.add(TransportConstants.USE_NIO_PROP_NAME);
       allowableConnectorKeys.add(TransportConstants.USE_NIO_GLOBAL_WORKER_POOL_PROP_NAME);
+      allowableConnectorKeys.add(TransportConstants.USE_EPOLL_PROP_NAME);
       allowableConnectorKeys.add(TransportConstants.HOST_PROP_NAME);
       allowableConnectorKeys.add(TransportConstants.PORT_PROP_NAME);
       allowableConnectorKeys.add(TransportConstants.LOCAL_ADDRESS_PROP_NAME);
@@ -264,6 +297,7 @@ public class TransportConstants {
       allowableConnectorKeys.add(TransportConstants.TCP_NODELAY_PROPNAME);
       allowableConnectorKeys.add(TransportConstants.TCP_SENDBUFFER_SIZE_PROPNAME);
       allowableConnectorKeys.add(TransportConstants.TCP_RECEIVEBUFFER_SIZE_PROPNAME);
+      allowableConnectorKeys.add(TransportConstants.TCP_CORK_PROPNAME);
       allowableConnectorKeys.add(TransportConstants.NIO_REMOTING_THREADS_PROPNAME);
       allowableConnectorKeys.add(TransportConstants.BATCH_DELAY);
       allowableConnectorKeys.add(ActiveMQDefaultConfiguration.getPropMaskPassword());
@@ -19,6 +19,7 @@ package org.apache.activemq.artemis.spi.core.remoting;
 import javax.transaction.xa.XAException;
 import javax.transaction.xa.Xid;
 import java.util.HashMap;
+import java.util.List;
 import java.util.concurrent.Executor;
 
 import org.apache.activemq.artemis.api.core.ActiveMQException;
@@ -98,6 +99,15 @@ public abstract class SessionContext {
       }
    }
 
+   protected void handleReceiveMessages(ConsumerContext consumerID,
+                                        final List<ClientMessageInternal> messages) throws Exception {
+
+      ClientSessionInternal session = this.session;
+      if (session != null) {
+         session.handleReceiveMessages(consumerID, messages);
+      }
+   }
+
    protected void handleReceiveContinuation(final ConsumerContext consumerID,
                                             byte[] chunk,
                                             int flowControlSize,
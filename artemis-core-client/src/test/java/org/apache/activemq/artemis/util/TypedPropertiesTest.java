@@ -208,6 +208,56 @@ public class TypedPropertiesTest {
       Assert.assertEquals(props.getEncodeSize(), buffer.writerIndex());
    }
 
+   @Test
+   public void testEncodeDecodeCompact() throws Exception {
+      props.putByteProperty(RandomUtil.randomSimpleString(), RandomUtil.randomByte());
+      props.putBytesProperty(RandomUtil.randomSimpleString(), RandomUtil.randomBytes());
+      props.putBytesProperty(RandomUtil.randomSimpleString(), null);
+      props.putBooleanProperty(RandomUtil.randomSimpleString(), RandomUtil.randomBoolean());
+      props.putShortProperty(RandomUtil.randomSimpleString(), RandomUtil.randomShort());
+      props.putIntProperty(RandomUtil.randomSimpleString(), RandomUtil.randomInt());
+      props.putLongProperty(RandomUtil.randomSimpleString(), RandomUtil.randomLong());
+      props.putFloatProperty(RandomUtil.randomSimpleString(), RandomUtil.randomFloat());
+      props.putDoubleProperty(RandomUtil.randomSimpleString(), RandomUtil.randomDouble());
+      props.putCharProperty(RandomUtil.randomSimpleString(), RandomUtil.randomChar());
+      props.putSimpleStringProperty(RandomUtil.randomSimpleString(), RandomUtil.randomSimpleString());
+      props.putSimpleStringProperty(new SimpleString("_AMQ_DUPL_ID"), new SimpleString("\u00e9t\u00e9 \u20ac \ud800"));
+
+      ActiveMQBuffer buffer = ActiveMQBuffers.dynamicBuffer(1024);
+      props.encodeCompact(buffer);
+
+      Assert.assertEquals(props.getCompactEncodeSize(), buffer.writerIndex());
+      Assert.assertTrue(buffer.writerIndex() < props.getEncodeSize());
+
+      TypedProperties decodedProps = new TypedProperties();
+      decodedProps.decodeCompact(buffer);
+
+      Assert.assertEquals(0, buffer.readableBytes());
+      Assert.assertTrue(decodedProps.hasInternalProperties());
+      Assert.assertEquals(props.getEncodeSize(), decodedProps.getEncodeSize());
+      Assert.assertEquals(props.getCompactEncodeSize(), decodedProps.getCompactEncodeSize());
+
+      TypedPropertiesTest.assertEqualsTypeProperties(props, decodedProps);
+
+      // encoded again compactly while the decoded properties are still encoded in the standard way
+      ActiveMQBuffer other = ActiveMQBuffers.dynamicBuffer(1024);
+      decodedProps.encodeCompact(other);
+
+      Assert.assertEquals(buffer.writerIndex(), other.writerIndex());
+
+      TypedProperties otherProps = new TypedProperties();
+      otherProps.decodeCompact(other);
+
+      TypedPropertiesTest.assertEqualsTypeProperties(props, otherProps);
+
+      otherProps.putIntProperty(RandomUtil.randomSimpleString(), -1);
+
+      other.clear();
+      otherProps.encodeCompact(other);
+
+      Assert.assertEquals(otherProps.getCompactEncodeSize(), other.writerIndex());
+   }
+
    @Test
    public void testEncodeDecodeEmpty() throws Exception {
       TypedProperties emptyProps = new TypedProperties();
@@ -223,6 +273,92 @@ public class TypedPropertiesTest {
       TypedPropertiesTest.assertEqualsTypeProperties(emptyProps, decodedProps);
    }
 
+   @Test
+   public void testEncodeDecodeCompactEmpty() throws Exception {
+      TypedProperties emptyProps = new TypedProperties();
+
+      ActiveMQBuffer buffer = ActiveMQBuffers.dynamicBuffer(1024);
+      emptyProps.encodeCompact(buffer);
+
+      TypedProperties decodedProps = new TypedProperties();
+      decodedProps.decodeCompact(buffer);
+
+      Assert.assertEquals(0, buffer.readableBytes());
+      Assert.assertTrue(decodedProps.isEmpty());
+      Assert.assertTrue(decodedProps.getMap().isEmpty());
+      Assert.assertTrue(decodedProps.getPropertyNames().isEmpty());
+      Assert.assertFalse(decodedProps.containsProperty(key));
+
+      decodedProps.putIntProperty(key, 1);
+      Assert.assertFalse(decodedProps.isEmpty());
+      Assert.assertEquals(1, decodedProps.getMap().size());
+   }
+
+   @Test
+   public void testDecodedPropertiesLookup() throws Exception {
+      SimpleString intKey = RandomUtil.randomSimpleString();
+      SimpleString bytesKey = RandomUtil.randomSimpleString();
+      props.putIntProperty(intKey, 42);
+      props.putBytesProperty(bytesKey, new byte[]{1, 2, 3});
+      props.putSimpleStringProperty(key, new SimpleString("value"));
+
+      TypedProperties decodedProps = encodeDecode(props);
+
+      Assert.assertEquals(42, (int) decodedProps.getIntProperty(intKey));
+      Assert.assertArrayEquals(new byte[]{1, 2, 3}, decodedProps.getBytesProperty(bytesKey));
+      Assert.assertEquals(new SimpleString("value"), decodedProps.getSimpleStringProperty(key));
+      Assert.assertTrue(decodedProps.containsProperty(key));
+      Assert.assertFalse(decodedProps.containsProperty(RandomUtil.randomSimpleString()));
+      Assert.assertNull(decodedProps.removeProperty(RandomUtil.randomSimpleString()));
+      Assert.assertEquals(props.getMemoryOffset(), decodedProps.getMemoryOffset());
+
+      // encoded again as decoded
+      Assert.assertEquals(props.getEncodeSize(), encodeDecode(decodedProps).getEncodeSize());
+   }
+
+   @Test
+   public void testDecodedPropertiesChanged() throws Exception {
+      props.putSimpleStringProperty(key, RandomUtil.randomSimpleString());
+      SimpleString otherKey = RandomUtil.randomSimpleString();
+      props.putLongProperty(otherKey, 1L);
+
+      TypedProperties decodedProps = encodeDecode(props);
+      TypedProperties copy = new TypedProperties(decodedProps);
+
+      copy.putLongProperty(otherKey, 2L);
+      Assert.assertEquals(2L, (long) copy.getLongProperty(otherKey));
+      Assert.assertEquals(1L, (long) decodedProps.getLongProperty(otherKey));
+
+      Assert.assertNotNull(decodedProps.removeProperty(key));
+      Assert.assertFalse(decodedProps.containsProperty(key));
+      Assert.assertEquals(1, decodedProps.getPropertyNames().size());
+      Assert.assertEquals(2, copy.getPropertyNames().size());
+
+      TypedPropertiesTest.assertEqualsTypeProperties(decodedProps, encodeDecode(decodedProps));
+      TypedPropertiesTest.assertEqualsTypeProperties(copy, encodeDecode(copy));
+   }
+
+   @Test
+   public void testDecodedInternalProperties() throws Exception {
+      props.putSimpleStringProperty(key, RandomUtil.randomSimpleString());
+      Assert.assertFalse(encodeDecode(props).hasInternalProperties());
+
+      props.putLongProperty(new SimpleString("_AMQ_ROUTE_TO"), 1L);
+      Assert.assertTrue(encodeDecode(props).hasInternalProperties());
+   }
+
+   private static TypedProperties encodeDecode(final TypedProperties properties) {
+      ActiveMQBuffer buffer = ActiveMQBuffers.dynamicBuffer(1024);
+      properties.encode(buffer);
+
+      TypedProperties decodedProps = new TypedProperties();
+      decodedProps.decode(buffer);
+
+      Assert.assertEquals(buffer.writerIndex(), buffer.readerIndex());
+
+      return decodedProps;
+   }
+
    @Before
    public void setUp() throws Exception {
       props = new TypedProperties();
@@ -44,6 +44,9 @@ public class ActiveMQTextMessage extends ActiveMQMessage implements TextMessage
    // methods are more efficient for a SimpleString
    private SimpleString text;
 
+   // The text of a received regular message is read from its body the first time it's asked for
+   private boolean textRead = true;
+
    // Static --------------------------------------------------------
 
    // Constructors --------------------------------------------------
@@ -84,12 +87,16 @@ public class ActiveMQTextMessage extends ActiveMQMessage implements TextMessage
          this.text = null;
       }
 
+      textRead = true;
+
       writeBodyText(message.getBodyBuffer(), this.text);
    }
 
    public String getText() {
-      if (text != null) {
-         return text.toString();
+      SimpleString bodyText = readText();
+
+      if (bodyText != null) {
+         return bodyText.toString();
       }
       else {
          return null;
@@ -101,6 +108,8 @@ public class ActiveMQTextMessage extends ActiveMQMessage implements TextMessage
       super.clearBody();
 
       text = null;
+
+      textRead = true;
    }
 
    // ActiveMQRAMessage override -----------------------------------------
@@ -109,7 +118,17 @@ public class ActiveMQTextMessage extends ActiveMQMessage implements TextMessage
    public void doBeforeReceive() throws ActiveMQException {
       super.doBeforeReceive();
 
-      text = readBodyText(message.getBodyBuffer());
+      if (message.isLargeMessage()) {
+         // a large body is streamed from the session, it can't wait until the session may be closed
+         text = readBodyText(message.getBodyBuffer());
+
+         textRead = true;
+      }
+      else {
+         text = null;
+
+         textRead = false;
+      }
    }
 
    @Override
@@ -119,8 +138,19 @@ public class ActiveMQTextMessage extends ActiveMQMessage implements TextMessage
 
    @Override
    public boolean isBodyAssignableTo(@SuppressWarnings("rawtypes") Class c) {
-      if (text == null)
+      if (readText() == null)
          return true;
       return c.isAssignableFrom(java.lang.String.class);
    }
+
+   private SimpleString readText() {
+      if (!textRead) {
+         // read from a view of the body not to disturb its buffer
+         text = readBodyText(message.getReadOnlyBodyBuffer());
+
+         textRead = true;
+      }
+
+      return text;
+   }
 }
\ No newline at end of file
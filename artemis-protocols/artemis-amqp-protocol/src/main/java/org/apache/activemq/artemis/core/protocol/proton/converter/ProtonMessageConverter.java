@@ -63,9 +63,18 @@ public class ProtonMessageConverter implements MessageConverter {
 
    @Override
    public Object outbound(ServerMessage messageOutbound, int deliveryCount) throws Exception {
-      ServerJMSMessage jmsMessage = activeMQJMSVendor.wrapMessage(messageOutbound.getType(), messageOutbound, deliveryCount);
-      jmsMessage.decode();
+      // converted once and shared by all the AMQP consumers of the message, senders only encode it
+      Object converted = messageOutbound.getProtocolEncoding(this, deliveryCount);
 
-      return outboundTransformer.convert(jmsMessage);
+      if (converted == null) {
+         ServerJMSMessage jmsMessage = activeMQJMSVendor.wrapMessage(messageOutbound.getType(), messageOutbound, deliveryCount);
+         jmsMessage.decode();
+
+         converted = outboundTransformer.convert(jmsMessage);
+
+         messageOutbound.setProtocolEncoding(this, deliveryCount, converted);
+      }
+
+      return converted;
    }
 }
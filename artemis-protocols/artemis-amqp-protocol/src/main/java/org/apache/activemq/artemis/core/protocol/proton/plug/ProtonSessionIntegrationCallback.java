@@ -270,6 +270,10 @@ public class ProtonSessionIntegrationCallback implements AMQPSessionCallback, Se
    public void sendProducerCreditsFailMessage(int credits, SimpleString address) {
    }
 
+   @Override
+   public void afterDelivery() {
+   }
+
    @Override
    public int sendMessage(ServerMessage message, ServerConsumer consumer, int deliveryCount) {
 
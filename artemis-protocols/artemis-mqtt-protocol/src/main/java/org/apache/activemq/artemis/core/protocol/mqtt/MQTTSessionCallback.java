@@ -33,6 +33,10 @@ public class MQTTSessionCallback implements SessionCallback {
       this.session = session;
    }
 
+   @Override
+   public void afterDelivery() {
+   }
+
    @Override
    public int sendMessage(ServerMessage message, ServerConsumer consumer, int deliveryCount) {
       try {
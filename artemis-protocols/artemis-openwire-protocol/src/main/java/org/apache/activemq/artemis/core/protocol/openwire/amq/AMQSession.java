@@ -159,6 +159,10 @@ public class AMQSession implements SessionCallback {
 
    }
 
+   @Override
+   public void afterDelivery() {
+   }
+
    @Override
    public int sendMessage(ServerMessage message, ServerConsumer consumerID, int deliveryCount) {
       AMQConsumer consumer = consumers.get(consumerID.getID());
@@ -92,6 +92,10 @@ public class StompSession implements SessionCallback {
    public void sendProducerCreditsFailMessage(int credits, SimpleString address) {
    }
 
+   @Override
+   public void afterDelivery() {
+   }
+
    public int sendMessage(ServerMessage serverMessage, ServerConsumer consumer, int deliveryCount) {
       LargeServerMessageImpl largeMessage = null;
       ServerMessage newServerMessage = serverMessage;
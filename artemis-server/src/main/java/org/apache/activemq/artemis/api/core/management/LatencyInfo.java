@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.api.core.management;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.apache.activemq.artemis.utils.LatencyHistogram;
+import org.apache.activemq.artemis.utils.json.JSONObject;
+
+/**
+ * Helper class to create Java Objects from the JSON serialization returned by
+ * {@link QueueControl#listLatencies()}, {@link AddressControl#listLatencies()} and
+ * {@link ActiveMQServerControl#listLatencies()}.
+ * <p>
+ * All the latencies are in microseconds.
+ */
+public final class LatencyInfo {
+
+   private final String name;
+
+   private final long count;
+
+   private final long mean;
+
+   private final long p50;
+
+   private final long p90;
+
+   private final long p99;
+
+   private final long p999;
+
+   private final long max;
+
+   /**
+    * Returns a JSON String serialization of histograms by name, the null histograms are left out.
+    */
+   public static String toJSON(final String[] names, final LatencyHistogram[] histograms) throws Exception {
+      JSONObject json = new JSONObject();
+
+      for (int i = 0; i < names.length; i++) {
+         if (histograms[i] != null) {
+            LatencyHistogram.Snapshot snapshot = histograms[i].snapshot();
+
+            JSONObject latency = new JSONObject();
+            latency.put("count", snapshot.getCount());
+            latency.put("mean", snapshot.getMean());
+            latency.put("p50", snapshot.getValueAtPercentile(50));
+            latency.put("p90", snapshot.getValueAtPercentile(90));
+            latency.put("p99", snapshot.getValueAtPercentile(99));
+            latency.put("p999", snapshot.getValueAtPercentile(99.9));
+            latency.put("max", snapshot.getMax());
+
+            json.put(names[i], latency);
+         }
+      }
+
+      return json.toString();
+   }
+
+   /**
+    * Returns the LatencyInfo by name corresponding to the JSON serialization returned by the management
+    * operations listing latencies.
+    */
+   public static Map<String, LatencyInfo> fromJSON(final String jsonString) throws Exception {
+      JSONObject json = new JSONObject(jsonString);
+
+      Map<String, LatencyInfo> latencies = new HashMap<String, LatencyInfo>();
+
+      Iterator names = json.keys();
+      while (names.hasNext()) {
+         String name = (String) names.next();
+         JSONObject latency = json.getJSONObject(name);
+
+         latencies.put(name, new LatencyInfo(name, latency.getLong("count"), latency.getLong("mean"), latency.getLong("p50"), latency.getLong("p90"), latency.getLong("p99"), latency.getLong("p999"), latency.getLong("max")));
+      }
+
+      return latencies;
+   }
+
+   // Constructors --------------------------------------------------
+
+   public LatencyInfo(final String name,
+                      final long count,
+                      final long mean,
+                      final long p50,
+                      final long p90,
+                      final long p99,
+                      final long p999,
+                      final long max) {
+      this.name = name;
+      this.count = count;
+      this.mean = mean;
+      this.p50 = p50;
+      this.p90 = p90;
+      this.p99 = p99;
+      this.p999 = p999;
+      this.max = max;
+   }
+
+   // Public --------------------------------------------------------
+
+   /**
+    * Returns what was measured: route, durable, dwell or ack.
+    */
+   public String getName() {
+      return name;
+   }
+
+   /**
+    * Returns the number of latencies measured.
+    */
+   public long getCount() {
+      return count;
+   }
+
+   public long getMean() {
+      return mean;
+   }
+
+   /**
+    * Returns the median latency.
+    */
+   public long getP50() {
+      return p50;
+   }
+
+   public long getP90() {
+      return p90;
+   }
+
+   public long getP99() {
+      return p99;
+   }
+
+   public long getP999() {
+      return p999;
+   }
+
+   public long getMax() {
+      return max;
+   }
+}
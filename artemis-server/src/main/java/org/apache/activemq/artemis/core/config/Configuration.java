@@ -135,6 +135,29 @@ public interface Configuration {
     */
    Configuration setSecurityInvalidationInterval(long interval);
 
+   /**
+    * Returns the interval time (in milliseconds) to keep denied security checks in the security cache,
+    * 0 meaning they are not cached. <br>
+    * Default value is {@link org.apache.activemq.artemis.api.config.ActiveMQDefaultConfiguration#DEFAULT_SECURITY_DENIAL_INVALIDATION_INTERVAL}.
+    */
+   long getSecurityDenialInvalidationInterval();
+
+   /**
+    * Sets the interval time (in milliseconds) to keep denied security checks in the security cache.
+    */
+   Configuration setSecurityDenialInvalidationInterval(long interval);
+
+   /**
+    * Returns the maximum number of authorization decisions and of authentications held in the security cache. <br>
+    * Default value is {@link org.apache.activemq.artemis.api.config.ActiveMQDefaultConfiguration#DEFAULT_SECURITY_CACHE_MAX_SIZE}.
+    */
+   int getSecurityCacheMaxSize();
+
+   /**
+    * Sets the maximum number of authorization decisions and of authentications held in the security cache.
+    */
+   Configuration setSecurityCacheMaxSize(int size);
+
    /**
     * Returns whether security is enabled for this server. <br>
     * Default value is {@link org.apache.activemq.artemis.api.config.ActiveMQDefaultConfiguration#DEFAULT_SECURITY_ENABLED}.
@@ -246,6 +269,20 @@ public interface Configuration {
     */
    Configuration setEnabledAsyncConnectionExecution(boolean enabled);
 
+   /**
+    * Returns how many packets of a core session can wait to be handled before the server holds back the producer
+    * credits of the session. If it is 0 the packets are handled on the remoting thread as they are read. <br>
+    * Default value is
+    * {@link org.apache.activemq.artemis.api.config.ActiveMQDefaultConfiguration#DEFAULT_SESSION_PIPELINE_SIZE}.
+    */
+   int getSessionPipelineSize();
+
+   /**
+    * Sets how many packets of a core session can wait to be handled before the server holds back the producer
+    * credits of the session.
+    */
+   Configuration setSessionPipelineSize(int size);
+
    /**
     * Returns the acceptors configured for this server.
     */
@@ -440,6 +477,18 @@ public interface Configuration {
     */
    Configuration setPersistIDCache(boolean persist);
 
+   /**
+    * Returns the rate of false positives of the bloom filter telling without a lock that an id is not in a
+    * duplicate id cache, 0 meaning the caches have no filter. <br>
+    * Default value is {@link org.apache.activemq.artemis.api.config.ActiveMQDefaultConfiguration#DEFAULT_ID_CACHE_FILTER_FALSE_POSITIVE_RATE}.
+    */
+   double getIDCacheFilterFalsePositiveRate();
+
+   /**
+    * Sets the rate of false positives of the filter in front of the duplicate id caches, 0 meaning no filter.
+    */
+   Configuration setIDCacheFilterFalsePositiveRate(double rate);
+
    // Journal related attributes ------------------------------------------------------------
 
    /**
@@ -524,6 +573,18 @@ public interface Configuration {
     */
    Configuration setJournalSyncNonTransactional(boolean sync);
 
+   /**
+    * Returns whether the message records of the journal use the compact encoding of the headers, with the keys of the
+    * properties referring to a dictionary stored in the bindings journal. Older versions can't read these records. <br>
+    * Default value is {@link org.apache.activemq.artemis.api.config.ActiveMQDefaultConfiguration#DEFAULT_PERSIST_COMPACT_MESSAGE_HEADERS}.
+    */
+   boolean isPersistCompactMessageHeaders();
+
+   /**
+    * Sets whether the message records of the journal use the compact encoding of the headers.
+    */
+   Configuration setPersistCompactMessageHeaders(boolean persistCompactMessageHeaders);
+
    /**
     * Returns the size (in bytes) of each journal files. <br>
     * Default value is {@link org.apache.activemq.artemis.api.config.ActiveMQDefaultConfiguration#DEFAULT_JOURNAL_FILE_SIZE}.
@@ -761,6 +822,29 @@ public interface Configuration {
     */
    Configuration setMessageCounterEnabled(boolean enabled);
 
+   /**
+    * Returns whether the latencies of routing, persisting, queueing and acknowledging messages are measured. <br>
+    * Default value is {@link org.apache.activemq.artemis.api.config.ActiveMQDefaultConfiguration#DEFAULT_LATENCY_METRICS_ENABLED}.
+    */
+   boolean isLatencyMetricsEnabled();
+
+   /**
+    * Sets whether the latencies of routing, persisting, queueing and acknowledging messages are measured.
+    */
+   Configuration setLatencyMetricsEnabled(boolean enabled);
+
+   /**
+    * Returns whether the core messages being routed are held in pooled direct buffers until their last reference is
+    * gone. <br>
+    * Default value is {@link org.apache.activemq.artemis.api.config.ActiveMQDefaultConfiguration#DEFAULT_POOLED_MESSAGE_BUFFERS}.
+    */
+   boolean isPooledMessageBuffers();
+
+   /**
+    * Sets whether the core messages being routed are held in pooled direct buffers until their last reference is gone.
+    */
+   Configuration setPooledMessageBuffers(boolean pooled);
+
    /**
     * Returns the sample period (in milliseconds) to take message counter snapshot. <br>
     * Default value is {@link org.apache.activemq.artemis.api.config.ActiveMQDefaultConfiguration#DEFAULT_MESSAGE_COUNTER_SAMPLE_PERIOD}.
@@ -824,6 +908,74 @@ public interface Configuration {
     */
    Configuration setMessageExpiryThreadPriority(int messageExpiryThreadPriority);
 
+   /**
+    * Returns the time (in milliseconds) beyond which scheduled messages are spilled to disk instead of
+    * being held in memory until their delivery time. <br>
+    * Default value is {@link org.apache.activemq.artemis.api.config.ActiveMQDefaultConfiguration#DEFAULT_SCHEDULED_SPILL_HORIZON}.
+    */
+   long getScheduledSpillHorizon();
+
+   /**
+    * Sets the time (in milliseconds) beyond which scheduled messages are spilled to disk, -1 disables spilling.
+    */
+   Configuration setScheduledSpillHorizon(long scheduledSpillHorizon);
+
+   /**
+    * Returns the maximum number of message groups a queue keeps the consumer of. <br>
+    * Default value is {@link org.apache.activemq.artemis.api.config.ActiveMQDefaultConfiguration#DEFAULT_MESSAGE_GROUP_MAX_SIZE}.
+    */
+   int getMessageGroupMaxSize();
+
+   /**
+    * Sets the maximum number of message groups a queue keeps the consumer of, -1 means no limit.
+    */
+   Configuration setMessageGroupMaxSize(int messageGroupMaxSize);
+
+   /**
+    * Returns how long (in milliseconds) a message group can go unused before its consumer is forgotten. <br>
+    * Default value is {@link org.apache.activemq.artemis.api.config.ActiveMQDefaultConfiguration#DEFAULT_MESSAGE_GROUP_IDLE_TIMEOUT}.
+    */
+   long getMessageGroupIdleTimeout();
+
+   /**
+    * Sets how long (in milliseconds) a message group can go unused before its consumer is forgotten, -1 means never.
+    */
+   Configuration setMessageGroupIdleTimeout(long messageGroupIdleTimeout);
+
+   /**
+    * Returns whether message groups are rebalanced when consumers are added. <br>
+    * Default value is {@link org.apache.activemq.artemis.api.config.ActiveMQDefaultConfiguration#DEFAULT_MESSAGE_GROUP_REBALANCE}.
+    */
+   boolean isMessageGroupRebalance();
+
+   /**
+    * Sets whether message groups are rebalanced when consumers are added.
+    */
+   Configuration setMessageGroupRebalance(boolean messageGroupRebalance);
+
+   /**
+    * Returns how long (in milliseconds) last-value queues hold replaced messages before acknowledging them as a batch. <br>
+    * Default value is {@link org.apache.activemq.artemis.api.config.ActiveMQDefaultConfiguration#DEFAULT_LAST_VALUE_WRITE_BEHIND_WINDOW}.
+    */
+   long getLastValueWriteBehindWindow();
+
+   /**
+    * Sets how long (in milliseconds) last-value queues hold replaced messages before acknowledging them as a batch,
+    * -1 means each replaced message is acknowledged straight away.
+    */
+   Configuration setLastValueWriteBehindWindow(long lastValueWriteBehindWindow);
+
+   /**
+    * Returns the maximum number of replaced messages a last-value queue holds before acknowledging them. <br>
+    * Default value is {@link org.apache.activemq.artemis.api.config.ActiveMQDefaultConfiguration#DEFAULT_LAST_VALUE_WRITE_BEHIND_BATCH_SIZE}.
+    */
+   int getLastValueWriteBehindBatchSize();
+
+   /**
+    * Sets the maximum number of replaced messages a last-value queue holds before acknowledging them.
+    */
+   Configuration setLastValueWriteBehindBatchSize(int lastValueWriteBehindBatchSize);
+
    /**
     * @return A list of AddressSettings per matching to be deployed to the address settings repository
     */
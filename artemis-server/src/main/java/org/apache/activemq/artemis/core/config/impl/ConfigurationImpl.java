@@ -79,6 +79,10 @@ public class ConfigurationImpl implements Configuration, Serializable {
 
    private long securityInvalidationInterval = ActiveMQDefaultConfiguration.getDefaultSecurityInvalidationInterval();
 
+   private long securityDenialInvalidationInterval = ActiveMQDefaultConfiguration.getDefaultSecurityDenialInvalidationInterval();
+
+   private int securityCacheMaxSize = ActiveMQDefaultConfiguration.getDefaultSecurityCacheMaxSize();
+
    private boolean securityEnabled = ActiveMQDefaultConfiguration.isDefaultSecurityEnabled();
 
    private boolean gracefulShutdownEnabled = ActiveMQDefaultConfiguration.isDefaultGracefulShutdownEnabled();
@@ -93,14 +97,30 @@ public class ConfigurationImpl implements Configuration, Serializable {
 
    protected boolean asyncConnectionExecutionEnabled = ActiveMQDefaultConfiguration.isDefaultAsyncConnectionExecutionEnabled();
 
+   private int sessionPipelineSize = ActiveMQDefaultConfiguration.getDefaultSessionPipelineSize();
+
    private long messageExpiryScanPeriod = ActiveMQDefaultConfiguration.getDefaultMessageExpiryScanPeriod();
 
    private int messageExpiryThreadPriority = ActiveMQDefaultConfiguration.getDefaultMessageExpiryThreadPriority();
 
+   private long scheduledSpillHorizon = ActiveMQDefaultConfiguration.getDefaultScheduledSpillHorizon();
+
+   private int messageGroupMaxSize = ActiveMQDefaultConfiguration.getDefaultMessageGroupMaxSize();
+
+   private long messageGroupIdleTimeout = ActiveMQDefaultConfiguration.getDefaultMessageGroupIdleTimeout();
+
+   private boolean messageGroupRebalance = ActiveMQDefaultConfiguration.isDefaultMessageGroupRebalance();
+
+   private long lastValueWriteBehindWindow = ActiveMQDefaultConfiguration.getDefaultLastValueWriteBehindWindow();
+
+   private int lastValueWriteBehindBatchSize = ActiveMQDefaultConfiguration.getDefaultLastValueWriteBehindBatchSize();
+
    protected int idCacheSize = ActiveMQDefaultConfiguration.getDefaultIdCacheSize();
 
    private boolean persistIDCache = ActiveMQDefaultConfiguration.isDefaultPersistIdCache();
 
+   private double idCacheFilterFalsePositiveRate = ActiveMQDefaultConfiguration.getDefaultIdCacheFilterFalsePositiveRate();
+
    private List<String> incomingInterceptorClassNames = new ArrayList<String>();
 
    private List<String> outgoingInterceptorClassNames = new ArrayList<String>();
@@ -145,6 +165,8 @@ public class ConfigurationImpl implements Configuration, Serializable {
 
    protected boolean journalSyncNonTransactional = ActiveMQDefaultConfiguration.isDefaultJournalSyncNonTransactional();
 
+   protected boolean persistCompactMessageHeaders = ActiveMQDefaultConfiguration.isDefaultPersistCompactMessageHeaders();
+
    protected int journalCompactMinFiles = ActiveMQDefaultConfiguration.getDefaultJournalCompactMinFiles();
 
    protected int journalCompactPercentage = ActiveMQDefaultConfiguration.getDefaultJournalCompactPercentage();
@@ -177,6 +199,10 @@ public class ConfigurationImpl implements Configuration, Serializable {
 
    private boolean messageCounterEnabled = ActiveMQDefaultConfiguration.isDefaultMessageCounterEnabled();
 
+   private boolean latencyMetricsEnabled = ActiveMQDefaultConfiguration.isDefaultLatencyMetricsEnabled();
+
+   private boolean pooledMessageBuffers = ActiveMQDefaultConfiguration.isDefaultPooledMessageBuffers();
+
    private long messageCounterSamplePeriod = ActiveMQDefaultConfiguration.getDefaultMessageCounterSamplePeriod();
 
    private int messageCounterMaxDayHistory = ActiveMQDefaultConfiguration.getDefaultMessageCounterMaxDayHistory();
@@ -292,6 +318,24 @@ public class ConfigurationImpl implements Configuration, Serializable {
       return this;
    }
 
+   public long getSecurityDenialInvalidationInterval() {
+      return securityDenialInvalidationInterval;
+   }
+
+   public ConfigurationImpl setSecurityDenialInvalidationInterval(final long interval) {
+      securityDenialInvalidationInterval = interval;
+      return this;
+   }
+
+   public int getSecurityCacheMaxSize() {
+      return securityCacheMaxSize;
+   }
+
+   public ConfigurationImpl setSecurityCacheMaxSize(final int size) {
+      securityCacheMaxSize = size;
+      return this;
+   }
+
    public long getConnectionTTLOverride() {
       return connectionTTLOverride;
    }
@@ -310,6 +354,15 @@ public class ConfigurationImpl implements Configuration, Serializable {
       return this;
    }
 
+   public int getSessionPipelineSize() {
+      return sessionPipelineSize;
+   }
+
+   public ConfigurationImpl setSessionPipelineSize(final int size) {
+      sessionPipelineSize = size;
+      return this;
+   }
+
    public List<String> getIncomingInterceptorClassNames() {
       return incomingInterceptorClassNames;
    }
@@ -511,6 +564,15 @@ public class ConfigurationImpl implements Configuration, Serializable {
       return this;
    }
 
+   public double getIDCacheFilterFalsePositiveRate() {
+      return idCacheFilterFalsePositiveRate;
+   }
+
+   public ConfigurationImpl setIDCacheFilterFalsePositiveRate(final double rate) {
+      idCacheFilterFalsePositiveRate = rate;
+      return this;
+   }
+
    public File getBindingsLocation() {
       return subFolder(getBindingsDirectory());
    }
@@ -588,6 +650,15 @@ public class ConfigurationImpl implements Configuration, Serializable {
       return this;
    }
 
+   public boolean isPersistCompactMessageHeaders() {
+      return persistCompactMessageHeaders;
+   }
+
+   public ConfigurationImpl setPersistCompactMessageHeaders(final boolean persistCompactMessageHeaders) {
+      this.persistCompactMessageHeaders = persistCompactMessageHeaders;
+      return this;
+   }
+
    public int getJournalFileSize() {
       return journalFileSize;
    }
@@ -696,6 +767,60 @@ public class ConfigurationImpl implements Configuration, Serializable {
       return this;
    }
 
+   public long getScheduledSpillHorizon() {
+      return scheduledSpillHorizon;
+   }
+
+   public ConfigurationImpl setScheduledSpillHorizon(final long scheduledSpillHorizon) {
+      this.scheduledSpillHorizon = scheduledSpillHorizon;
+      return this;
+   }
+
+   public int getMessageGroupMaxSize() {
+      return messageGroupMaxSize;
+   }
+
+   public ConfigurationImpl setMessageGroupMaxSize(final int messageGroupMaxSize) {
+      this.messageGroupMaxSize = messageGroupMaxSize;
+      return this;
+   }
+
+   public long getMessageGroupIdleTimeout() {
+      return messageGroupIdleTimeout;
+   }
+
+   public ConfigurationImpl setMessageGroupIdleTimeout(final long messageGroupIdleTimeout) {
+      this.messageGroupIdleTimeout = messageGroupIdleTimeout;
+      return this;
+   }
+
+   public boolean isMessageGroupRebalance() {
+      return messageGroupRebalance;
+   }
+
+   public ConfigurationImpl setMessageGroupRebalance(final boolean messageGroupRebalance) {
+      this.messageGroupRebalance = messageGroupRebalance;
+      return this;
+   }
+
+   public long getLastValueWriteBehindWindow() {
+      return lastValueWriteBehindWindow;
+   }
+
+   public ConfigurationImpl setLastValueWriteBehindWindow(final long lastValueWriteBehindWindow) {
+      this.lastValueWriteBehindWindow = lastValueWriteBehindWindow;
+      return this;
+   }
+
+   public int getLastValueWriteBehindBatchSize() {
+      return lastValueWriteBehindBatchSize;
+   }
+
+   public ConfigurationImpl setLastValueWriteBehindBatchSize(final int lastValueWriteBehindBatchSize) {
+      this.lastValueWriteBehindBatchSize = lastValueWriteBehindBatchSize;
+      return this;
+   }
+
    public boolean isSecurityEnabled() {
       return securityEnabled;
    }
@@ -763,6 +888,24 @@ public class ConfigurationImpl implements Configuration, Serializable {
       return this;
    }
 
+   public boolean isLatencyMetricsEnabled() {
+      return latencyMetricsEnabled;
+   }
+
+   public ConfigurationImpl setLatencyMetricsEnabled(final boolean enabled) {
+      latencyMetricsEnabled = enabled;
+      return this;
+   }
+
+   public boolean isPooledMessageBuffers() {
+      return pooledMessageBuffers;
+   }
+
+   public ConfigurationImpl setPooledMessageBuffers(final boolean pooled) {
+      pooledMessageBuffers = pooled;
+      return this;
+   }
+
    public long getMessageCounterSamplePeriod() {
       return messageCounterSamplePeriod;
    }
@@ -1136,6 +1279,7 @@ public class ConfigurationImpl implements Configuration, Serializable {
       result = prime * result + journalMinFiles;
       result = prime * result + journalPerfBlastPages;
       result = prime * result + (journalSyncNonTransactional ? 1231 : 1237);
+      result = prime * result + (persistCompactMessageHeaders ? 1231 : 1237);
       result = prime * result + (journalSyncTransactional ? 1231 : 1237);
       result = prime * result + ((journalType == null) ? 0 : journalType.hashCode());
       result = prime * result + ((largeMessagesDirectory == null) ? 0 : largeMessagesDirectory.hashCode());
@@ -1319,6 +1463,8 @@ public class ConfigurationImpl implements Configuration, Serializable {
          return false;
       if (journalSyncNonTransactional != other.journalSyncNonTransactional)
          return false;
+      if (persistCompactMessageHeaders != other.persistCompactMessageHeaders)
+         return false;
       if (journalSyncTransactional != other.journalSyncTransactional)
          return false;
       if (journalType != other.journalType)
@@ -104,6 +104,18 @@ public final class Validators {
       }
    };
 
+   public static final Validator RATE = new Validator() {
+      public void validate(final String name, final Object value) {
+         Number val = (Number) value;
+         if (val.doubleValue() >= 0 && val.doubleValue() < 1) {
+            // OK
+         }
+         else {
+            throw ActiveMQMessageBundle.BUNDLE.notARate(name, val);
+         }
+      }
+   };
+
    public static final Validator THREAD_PRIORITY_RANGE = new Validator() {
       public void validate(final String name, final Object value) {
          Number val = (Number) value;
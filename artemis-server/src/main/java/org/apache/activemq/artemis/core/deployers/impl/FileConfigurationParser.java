@@ -234,10 +234,16 @@ public final class FileConfigurationParser extends XMLConfigurationUtil {
 
       config.setSecurityInvalidationInterval(getLong(e, "security-invalidation-interval", config.getSecurityInvalidationInterval(), Validators.GT_ZERO));
 
+      config.setSecurityDenialInvalidationInterval(getLong(e, "security-denial-invalidation-interval", config.getSecurityDenialInvalidationInterval(), Validators.GE_ZERO));
+
+      config.setSecurityCacheMaxSize(getInteger(e, "security-cache-max-size", config.getSecurityCacheMaxSize(), Validators.GT_ZERO));
+
       config.setConnectionTTLOverride(getLong(e, "connection-ttl-override", config.getConnectionTTLOverride(), Validators.MINUS_ONE_OR_GT_ZERO));
 
       config.setEnabledAsyncConnectionExecution(getBoolean(e, "async-connection-execution-enabled", config.isAsyncConnectionExecutionEnabled()));
 
+      config.setSessionPipelineSize(getInteger(e, "session-pipeline-size", config.getSessionPipelineSize(), Validators.GE_ZERO));
+
       config.setTransactionTimeout(getLong(e, "transaction-timeout", config.getTransactionTimeout(), Validators.GT_ZERO));
 
       config.setTransactionTimeoutScanPeriod(getLong(e, "transaction-timeout-scan-period", config.getTransactionTimeoutScanPeriod(), Validators.GT_ZERO));
@@ -246,10 +252,24 @@ public final class FileConfigurationParser extends XMLConfigurationUtil {
 
       config.setMessageExpiryThreadPriority(getInteger(e, "message-expiry-thread-priority", config.getMessageExpiryThreadPriority(), Validators.THREAD_PRIORITY_RANGE));
 
+      config.setScheduledSpillHorizon(getLong(e, "scheduled-spill-horizon", config.getScheduledSpillHorizon(), Validators.MINUS_ONE_OR_GT_ZERO));
+
+      config.setMessageGroupMaxSize(getInteger(e, "message-group-max-size", config.getMessageGroupMaxSize(), Validators.MINUS_ONE_OR_GT_ZERO));
+
+      config.setMessageGroupIdleTimeout(getLong(e, "message-group-idle-timeout", config.getMessageGroupIdleTimeout(), Validators.MINUS_ONE_OR_GT_ZERO));
+
+      config.setMessageGroupRebalance(getBoolean(e, "message-group-rebalance", config.isMessageGroupRebalance()));
+
+      config.setLastValueWriteBehindWindow(getLong(e, "last-value-write-behind-window", config.getLastValueWriteBehindWindow(), Validators.MINUS_ONE_OR_GT_ZERO));
+
+      config.setLastValueWriteBehindBatchSize(getInteger(e, "last-value-write-behind-batch-size", config.getLastValueWriteBehindBatchSize(), Validators.GT_ZERO));
+
       config.setIDCacheSize(getInteger(e, "id-cache-size", config.getIDCacheSize(), Validators.GT_ZERO));
 
       config.setPersistIDCache(getBoolean(e, "persist-id-cache", config.isPersistIDCache()));
 
+      config.setIDCacheFilterFalsePositiveRate(getDouble(e, "id-cache-filter-false-positive-rate", config.getIDCacheFilterFalsePositiveRate(), Validators.RATE));
+
       config.setManagementAddress(new SimpleString(getString(e, "management-address", config.getManagementAddress().toString(), Validators.NOT_NULL_OR_EMPTY)));
 
       config.setManagementNotificationAddress(new SimpleString(getString(e, "management-notification-address", config.getManagementNotificationAddress().toString(), Validators.NOT_NULL_OR_EMPTY)));
@@ -449,6 +469,8 @@ public final class FileConfigurationParser extends XMLConfigurationUtil {
 
       config.setJournalSyncNonTransactional(getBoolean(e, "journal-sync-non-transactional", config.isJournalSyncNonTransactional()));
 
+      config.setPersistCompactMessageHeaders(getBoolean(e, "persist-compact-message-headers", config.isPersistCompactMessageHeaders()));
+
       config.setJournalFileSize(getInteger(e, "journal-file-size", config.getJournalFileSize(), Validators.GT_ZERO));
 
       int journalBufferTimeout = getInteger(e, "journal-buffer-timeout", config.getJournalType() == JournalType.ASYNCIO ? ArtemisConstants.DEFAULT_JOURNAL_BUFFER_TIMEOUT_AIO : ArtemisConstants.DEFAULT_JOURNAL_BUFFER_TIMEOUT_NIO, Validators.GT_ZERO);
@@ -488,6 +510,10 @@ public final class FileConfigurationParser extends XMLConfigurationUtil {
 
       config.setMessageCounterMaxDayHistory(getInteger(e, "message-counter-max-day-history", config.getMessageCounterMaxDayHistory(), Validators.GT_ZERO));
 
+      config.setLatencyMetricsEnabled(getBoolean(e, "latency-metrics-enabled", config.isLatencyMetricsEnabled()));
+
+      config.setPooledMessageBuffers(getBoolean(e, "pooled-message-buffers", config.isPooledMessageBuffers()));
+
       config.setServerDumpInterval(getLong(e, "server-dump-interval", config.getServerDumpInterval(), Validators.MINUS_ONE_OR_GT_ZERO)); // in milliseconds
 
       config.setMemoryWarningThreshold(getInteger(e, "memory-warning-threshold", config.getMemoryWarningThreshold(), Validators.PERCENTAGE));
@@ -97,9 +97,16 @@ public class FilterImpl implements Filter {
       return sfilterString;
    }
 
-   public synchronized boolean match(final ServerMessage message) {
+   public boolean match(final ServerMessage message) {
+      return match(new FilterableServerMessage(message));
+   }
+
+   /**
+    * Matches a message through a {@link Filterable} that may be shared with other filters
+    */
+   synchronized boolean match(final Filterable filterable) {
       try {
-         boolean result = booleanExpression.matches(new FilterableServerMessage(message));
+         boolean result = booleanExpression.matches(filterable);
          return result;
       }
       catch (Exception e) {
@@ -166,11 +173,11 @@ public class FilterImpl implements Filter {
       }
    }
 
-   private static class FilterableServerMessage implements Filterable {
+   static class FilterableServerMessage implements Filterable {
 
       private final ServerMessage message;
 
-      public FilterableServerMessage(ServerMessage message) {
+      FilterableServerMessage(ServerMessage message) {
          this.message = message;
       }
 
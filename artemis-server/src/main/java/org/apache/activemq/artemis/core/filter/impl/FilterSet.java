@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.core.filter.impl;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.filter.Filter;
+import org.apache.activemq.artemis.core.server.ServerMessage;
+
+/**
+ * The filters of a set of bindings, evaluated together against a message.
+ * <p>
+ * Filters with the same filter string are only evaluated once per message, and the properties the filters read
+ * are only looked up once per message whatever the number of filters reading them.
+ */
+public final class FilterSet {
+
+   // the distinct filters
+   private final Filter[] filters;
+
+   // the index in filters of the filter at each position, -1 if there is no filter at that position
+   private final int[] positions;
+
+   /**
+    * @param filters the filters by position, null where there isn't any
+    */
+   public FilterSet(final Filter[] filters) {
+      Map<SimpleString, Integer> indexes = new HashMap<SimpleString, Integer>();
+
+      Filter[] distinct = new Filter[filters.length];
+      int count = 0;
+
+      positions = new int[filters.length];
+
+      for (int i = 0; i < filters.length; i++) {
+         Filter filter = filters[i];
+
+         if (filter == null) {
+            positions[i] = -1;
+            continue;
+         }
+
+         Integer index = indexes.get(filter.getFilterString());
+
+         if (index == null) {
+            index = count;
+            distinct[count++] = filter;
+            indexes.put(filter.getFilterString(), index);
+         }
+
+         positions[i] = index;
+      }
+
+      this.filters = new Filter[count];
+      System.arraycopy(distinct, 0, this.filters, 0, count);
+   }
+
+   /**
+    * @return the number of filters evaluated per message at most
+    */
+   public int getDistinctCount() {
+      return filters.length;
+   }
+
+   /**
+    * Starts evaluating the filters against a message, each filter is evaluated the first time it is asked for.
+    */
+   public Evaluation evaluate(final ServerMessage message) {
+      return new Evaluation(message);
+   }
+
+   public final class Evaluation {
+
+      private final ServerMessage message;
+
+      // the result of each distinct filter, null until it is evaluated
+      private final Boolean[] results = new Boolean[filters.length];
+
+      private CachingFilterableServerMessage filterable;
+
+      private Evaluation(final ServerMessage message) {
+         this.message = message;
+      }
+
+      /**
+       * @return whether the filter at a position matches the message, true if there is no filter at that position
+       */
+      public boolean match(final int position) {
+         int index = positions[position];
+
+         if (index < 0) {
+            return true;
+         }
+
+         Boolean result = results[index];
+
+         if (result == null) {
+            Filter filter = filters[index];
+
+            if (filter instanceof FilterImpl) {
+               if (filterable == null) {
+                  filterable = new CachingFilterableServerMessage(message);
+               }
+
+               result = ((FilterImpl) filter).match(filterable);
+            }
+            else {
+               result = filter.match(message);
+            }
+
+            results[index] = result;
+         }
+
+         return result;
+      }
+   }
+
+   private static final class CachingFilterableServerMessage extends FilterImpl.FilterableServerMessage {
+
+      // the properties already looked up, including the ones the message doesn't have
+      private final Map<String, Object> properties = new HashMap<String, Object>();
+
+      CachingFilterableServerMessage(final ServerMessage message) {
+         super(message);
+      }
+
+      @Override
+      public Object getProperty(final String id) {
+         Object result = properties.get(id);
+
+         if (result == null && !properties.containsKey(id)) {
+            result = super.getProperty(id);
+            properties.put(id, result);
+         }
+
+         return result;
+      }
+   }
+}
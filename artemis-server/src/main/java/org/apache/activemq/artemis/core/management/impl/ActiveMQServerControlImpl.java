@@ -46,6 +46,7 @@ import org.apache.activemq.artemis.api.core.management.AddressControl;
 import org.apache.activemq.artemis.api.core.management.BridgeControl;
 import org.apache.activemq.artemis.api.core.management.CoreNotificationType;
 import org.apache.activemq.artemis.api.core.management.DivertControl;
+import org.apache.activemq.artemis.api.core.management.LatencyInfo;
 import org.apache.activemq.artemis.api.core.management.ActiveMQServerControl;
 import org.apache.activemq.artemis.api.core.management.QueueControl;
 import org.apache.activemq.artemis.core.config.BridgeConfiguration;
@@ -76,6 +77,7 @@ import org.apache.activemq.artemis.core.server.cluster.ha.LiveOnlyPolicy;
 import org.apache.activemq.artemis.core.server.cluster.ha.ScaleDownPolicy;
 import org.apache.activemq.artemis.core.server.cluster.ha.SharedStoreSlavePolicy;
 import org.apache.activemq.artemis.core.server.group.GroupingHandler;
+import org.apache.activemq.artemis.core.server.impl.LatencyMetrics;
 import org.apache.activemq.artemis.core.settings.impl.AddressFullMessagePolicy;
 import org.apache.activemq.artemis.core.settings.impl.AddressSettings;
 import org.apache.activemq.artemis.core.settings.impl.SlowConsumerPolicy;
@@ -85,6 +87,7 @@ import org.apache.activemq.artemis.core.transaction.TransactionDetail;
 import org.apache.activemq.artemis.core.transaction.impl.CoreTransactionDetail;
 import org.apache.activemq.artemis.core.transaction.impl.XidImpl;
 import org.apache.activemq.artemis.spi.core.protocol.RemotingConnection;
+import org.apache.activemq.artemis.utils.LatencyHistogram;
 import org.apache.activemq.artemis.utils.SecurityFormatter;
 import org.apache.activemq.artemis.utils.TypedProperties;
 import org.apache.activemq.artemis.utils.json.JSONArray;
@@ -430,6 +433,126 @@ public class ActiveMQServerControlImpl extends AbstractControl implements Active
       }
    }
 
+   public long getAuthorizationCacheHitCount() {
+      checkStarted();
+
+      clearIO();
+      try {
+         return server.getSecurityStore().getAuthorizationCacheHitCount();
+      }
+      finally {
+         blockOnIO();
+      }
+   }
+
+   public long getAuthorizationCacheMissCount() {
+      checkStarted();
+
+      clearIO();
+      try {
+         return server.getSecurityStore().getAuthorizationCacheMissCount();
+      }
+      finally {
+         blockOnIO();
+      }
+   }
+
+   public long getAuthenticationCacheHitCount() {
+      checkStarted();
+
+      clearIO();
+      try {
+         return server.getSecurityStore().getAuthenticationCacheHitCount();
+      }
+      finally {
+         blockOnIO();
+      }
+   }
+
+   public long getAuthenticationCacheMissCount() {
+      checkStarted();
+
+      clearIO();
+      try {
+         return server.getSecurityStore().getAuthenticationCacheMissCount();
+      }
+      finally {
+         blockOnIO();
+      }
+   }
+
+   public long getSendQueuedAverageTime() {
+      checkStarted();
+
+      clearIO();
+      try {
+         return server.getSendStageMetrics().getQueued().snapshot().getMean();
+      }
+      finally {
+         blockOnIO();
+      }
+   }
+
+   public long getSendQueuedMaxTime() {
+      checkStarted();
+
+      clearIO();
+      try {
+         return server.getSendStageMetrics().getQueued().snapshot().getMax();
+      }
+      finally {
+         blockOnIO();
+      }
+   }
+
+   public long getSendRoutingAverageTime() {
+      checkStarted();
+
+      clearIO();
+      try {
+         return server.getSendStageMetrics().getRouting().snapshot().getMean();
+      }
+      finally {
+         blockOnIO();
+      }
+   }
+
+   public long getSendRoutingMaxTime() {
+      checkStarted();
+
+      clearIO();
+      try {
+         return server.getSendStageMetrics().getRouting().snapshot().getMax();
+      }
+      finally {
+         blockOnIO();
+      }
+   }
+
+   public long getSendPersistenceAverageTime() {
+      checkStarted();
+
+      clearIO();
+      try {
+         return server.getSendStageMetrics().getPersistence().snapshot().getMean();
+      }
+      finally {
+         blockOnIO();
+      }
+   }
+
+   public long getSendPersistenceMaxTime() {
+      checkStarted();
+
+      clearIO();
+      try {
+         return server.getSendStageMetrics().getPersistence().snapshot().getMax();
+      }
+      finally {
+         blockOnIO();
+      }
+   }
+
    public boolean isClustered() {
       checkStarted();
 
@@ -699,6 +822,32 @@ public class ActiveMQServerControlImpl extends AbstractControl implements Active
       }
    }
 
+   public String listLatencies() throws Exception {
+      checkStarted();
+
+      clearIO();
+      try {
+         LatencyMetrics metrics = server.getLatencyMetrics();
+
+         return LatencyInfo.toJSON(new String[]{"route", "durable", "dwell", "ack"}, new LatencyHistogram[]{metrics.getRoute(), metrics.getDurable(), metrics.getDwell(), metrics.getAck()});
+      }
+      finally {
+         blockOnIO();
+      }
+   }
+
+   public void resetLatencies() {
+      checkStarted();
+
+      clearIO();
+      try {
+         server.getLatencyMetrics().reset();
+      }
+      finally {
+         blockOnIO();
+      }
+   }
+
    public boolean isMessageCounterEnabled() {
       checkStarted();
 
@@ -23,6 +23,7 @@ import java.util.Set;
 
 import org.apache.activemq.artemis.api.core.SimpleString;
 import org.apache.activemq.artemis.api.core.management.AddressControl;
+import org.apache.activemq.artemis.api.core.management.LatencyInfo;
 import org.apache.activemq.artemis.core.paging.PagingManager;
 import org.apache.activemq.artemis.core.paging.PagingStore;
 import org.apache.activemq.artemis.core.persistence.StorageManager;
@@ -33,6 +34,7 @@ import org.apache.activemq.artemis.core.postoffice.QueueBinding;
 import org.apache.activemq.artemis.core.security.CheckType;
 import org.apache.activemq.artemis.core.security.Role;
 import org.apache.activemq.artemis.core.settings.HierarchicalRepository;
+import org.apache.activemq.artemis.utils.LatencyHistogram;
 import org.apache.activemq.artemis.utils.json.JSONArray;
 import org.apache.activemq.artemis.utils.json.JSONObject;
 
@@ -215,6 +217,52 @@ public class AddressControlImpl extends AbstractControl implements AddressContro
       }
    }
 
+   public double getDuplicateIDFilterHitRatio() throws Exception {
+      clearIO();
+      try {
+         return postOffice.getDuplicateIDCache(address).getFilterHitRatio();
+      }
+      finally {
+         blockOnIO();
+      }
+   }
+
+   public double getDuplicateIDFilterFalsePositiveRatio() throws Exception {
+      clearIO();
+      try {
+         return postOffice.getDuplicateIDCache(address).getFilterFalsePositiveRatio();
+      }
+      finally {
+         blockOnIO();
+      }
+   }
+
+   public String listLatencies() throws Exception {
+      clearIO();
+      try {
+         Bindings bindings = postOffice.lookupBindingsForAddress(address);
+
+         return LatencyInfo.toJSON(new String[]{"route"}, new LatencyHistogram[]{bindings == null ? null : bindings.getRouteLatency()});
+      }
+      finally {
+         blockOnIO();
+      }
+   }
+
+   public void resetLatencies() throws Exception {
+      clearIO();
+      try {
+         Bindings bindings = postOffice.lookupBindingsForAddress(address);
+
+         if (bindings != null && bindings.getRouteLatency() != null) {
+            bindings.getRouteLatency().reset();
+         }
+      }
+      finally {
+         blockOnIO();
+      }
+   }
+
    @Override
    protected MBeanOperationInfo[] fillMBeanOperationInfo() {
       return MBeanInfoHelper.getMBeanOperationsInfo(AddressControl.class);
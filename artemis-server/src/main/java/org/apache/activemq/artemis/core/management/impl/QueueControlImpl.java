@@ -27,6 +27,7 @@ import java.util.Map;
 import org.apache.activemq.artemis.api.core.ActiveMQException;
 import org.apache.activemq.artemis.api.core.Message;
 import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.api.core.management.LatencyInfo;
 import org.apache.activemq.artemis.api.core.management.MessageCounterInfo;
 import org.apache.activemq.artemis.api.core.management.QueueControl;
 import org.apache.activemq.artemis.core.filter.Filter;
@@ -42,8 +43,10 @@ import org.apache.activemq.artemis.core.server.MessageReference;
 import org.apache.activemq.artemis.core.server.Queue;
 import org.apache.activemq.artemis.core.server.ServerConsumer;
 import org.apache.activemq.artemis.core.server.ServerMessage;
+import org.apache.activemq.artemis.core.server.impl.LastValueQueue;
 import org.apache.activemq.artemis.core.settings.HierarchicalRepository;
 import org.apache.activemq.artemis.core.settings.impl.AddressSettings;
+import org.apache.activemq.artemis.utils.LatencyHistogram;
 import org.apache.activemq.artemis.utils.LinkedListIterator;
 import org.apache.activemq.artemis.utils.json.JSONArray;
 import org.apache.activemq.artemis.utils.json.JSONException;
@@ -234,6 +237,36 @@ public class QueueControlImpl extends AbstractControl implements QueueControl {
       }
    }
 
+   public long getMessagesReplaced() {
+      checkStarted();
+
+      clearIO();
+      try {
+         if (queue instanceof LastValueQueue) {
+            return ((LastValueQueue) queue).getMessagesReplaced();
+         }
+         return 0;
+      }
+      finally {
+         blockOnIO();
+      }
+   }
+
+   public double getMessagesReplacedRatio() {
+      checkStarted();
+
+      clearIO();
+      try {
+         if (queue instanceof LastValueQueue) {
+            return ((LastValueQueue) queue).getReplacedRatio();
+         }
+         return 0;
+      }
+      finally {
+         blockOnIO();
+      }
+   }
+
    public long getID() {
       checkStarted();
 
@@ -771,6 +804,36 @@ public class QueueControlImpl extends AbstractControl implements QueueControl {
       }
    }
 
+   public String listLatencies() throws Exception {
+      checkStarted();
+
+      clearIO();
+      try {
+         return LatencyInfo.toJSON(new String[]{"dwell", "ack"}, new LatencyHistogram[]{queue.getDwellLatency(), queue.getAckLatency()});
+      }
+      finally {
+         blockOnIO();
+      }
+   }
+
+   public void resetLatencies() {
+      checkStarted();
+
+      clearIO();
+      try {
+         if (queue.getDwellLatency() != null) {
+            queue.getDwellLatency().reset();
+         }
+
+         if (queue.getAckLatency() != null) {
+            queue.getAckLatency().reset();
+         }
+      }
+      finally {
+         blockOnIO();
+      }
+   }
+
    public void pause() {
       checkStarted();
 
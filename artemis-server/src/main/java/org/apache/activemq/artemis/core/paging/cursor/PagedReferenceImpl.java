@@ -20,6 +20,7 @@ import java.lang.ref.WeakReference;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.activemq.artemis.api.core.Message;
+import org.apache.activemq.artemis.api.core.SimpleString;
 import org.apache.activemq.artemis.core.paging.PagedMessage;
 import org.apache.activemq.artemis.core.server.ActiveMQServerLogger;
 import org.apache.activemq.artemis.core.server.MessageReference;
@@ -48,6 +49,12 @@ public class PagedReferenceImpl implements PagedReference {
 
    private boolean alreadyAcked;
 
+   private SimpleString groupID;
+
+   private volatile boolean groupIDParsed;
+
+   private long latencyTime;
+
    public ServerMessage getMessage() {
       return getPagedMessage().getMessage();
    }
@@ -106,6 +113,15 @@ public class PagedReferenceImpl implements PagedReference {
       return messageEstimate;
    }
 
+   @Override
+   public SimpleString getGroupID() {
+      if (!groupIDParsed) {
+         groupID = getMessage().getSimpleStringProperty(Message.HDR_GROUP_ID);
+         groupIDParsed = true;
+      }
+      return groupID;
+   }
+
    @Override
    public MessageReference copy(final Queue queue) {
       return new PagedReferenceImpl(this.position, this.getPagedMessage(), this.subscription);
@@ -177,6 +193,16 @@ public class PagedReferenceImpl implements PagedReference {
       return alreadyAcked;
    }
 
+   @Override
+   public long getLatencyTime() {
+      return latencyTime;
+   }
+
+   @Override
+   public void setLatencyTime(final long nanoTime) {
+      latencyTime = nanoTime;
+   }
+
    @Override
    public void acknowledge() throws Exception {
       subscription.ack(this);
@@ -37,6 +37,7 @@ import org.apache.activemq.artemis.core.paging.PagingStore;
 import org.apache.activemq.artemis.core.paging.PagingStoreFactory;
 import org.apache.activemq.artemis.core.persistence.StorageManager;
 import org.apache.activemq.artemis.core.server.ActiveMQServerLogger;
+import org.apache.activemq.artemis.core.server.impl.ScheduledDeliverySpillStore;
 import org.apache.activemq.artemis.core.settings.HierarchicalRepository;
 import org.apache.activemq.artemis.core.settings.impl.AddressSettings;
 import org.apache.activemq.artemis.utils.ExecutorFactory;
@@ -137,6 +138,11 @@ public class PagingStoreFactoryNIO implements PagingStoreFactory {
 
             final String guid = file.getName();
 
+            if (ScheduledDeliverySpillStore.DIRECTORY.equals(guid)) {
+               // not an address, scheduled messages spilled by the queues
+               continue;
+            }
+
             final File addressFile = new File(file, PagingStoreFactoryNIO.ADDRESS_FILE);
 
             if (!addressFile.exists()) {
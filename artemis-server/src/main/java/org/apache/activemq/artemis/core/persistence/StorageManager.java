@@ -176,6 +176,8 @@ public interface StorageManager extends IDGenerator, ActiveMQComponent {
 
    void storeDuplicateID(SimpleString address, byte[] duplID, long recordID) throws Exception;
 
+   void updateDuplicateID(SimpleString address, byte[] duplID, long recordID) throws Exception;
+
    void deleteDuplicateID(long recordID) throws Exception;
 
    void storeMessageTransactional(long txID, ServerMessage message) throws Exception;
@@ -402,6 +404,12 @@ public interface StorageManager extends IDGenerator, ActiveMQComponent {
     */
    void readUnLock();
 
+   /**
+    * @return a generator of IDs for a single caller, such as a session, that may reserve them in bulk. Its IDs are
+    * increasing, but not ordered with the ones other callers generate meanwhile.
+    */
+   IDGenerator newIDSequence();
+
    /**
     * Closes the {@link IDGenerator} persisting the current record ID.
     * <p>
@@ -19,6 +19,9 @@ package org.apache.activemq.artemis.core.persistence.impl.journal;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
@@ -31,22 +34,60 @@ import org.apache.activemq.artemis.utils.IDGenerator;
 /**
  * An ID generator that allocates a batch of IDs of size {@link #checkpointSize} and records the ID
  * in the journal only when starting a new batch.
+ * <p>
+ * {@link #generateID()} takes each ID from the shared counter, so its IDs are increasing across all the callers. A
+ * caller generating many IDs, such as a session for the messages it sends, can instead take them from its own
+ * {@link #newSequence()}, which reserves them from the counter in ranges so that concurrent senders don't all contend
+ * on it. Nothing compares IDs generated by different callers: the journal and the paging store only use them as keys,
+ * and the ID counter records are always stored in increasing order, one at a time.
+ * <p>
+ * When given an executor, the checkpoint of the next batch is recorded on it once half of the current batch is
+ * taken, so that the callers crossing into the next batch rarely wait for the journal. A checkpoint is stored
+ * outside of the monitor, the callers only wait for it when they need an ID it covers.
  *
  * @see IDGenerator
  */
 public final class BatchingIDGenerator implements IDGenerator {
 
+   public static final int DEFAULT_RANGE_SIZE = 64;
+
    private final AtomicLong counter;
 
    private final long checkpointSize;
 
+   private final int rangeSize;
+
+   // every ID below it is covered by a checkpoint on the journal
    private volatile long nextID;
 
+   // whether a checkpoint is being stored, guarded by the monitor
+   private boolean storing;
+
    private final StorageManager storageManager;
 
+   private final Executor executor;
+
+   private final AtomicBoolean checkpointPending = new AtomicBoolean(false);
+
+   // changed whenever the counter is set, so that the sequences drop the ranges they reserved before
+   private volatile int generation;
+
    private List<Long> cleanupRecords = null;
 
    public BatchingIDGenerator(final long start, final long checkpointSize, final StorageManager storageManager) {
+      this(start, checkpointSize, DEFAULT_RANGE_SIZE, storageManager, null);
+   }
+
+   /**
+    * @param rangeSize the largest number of IDs reserved at once by a sequence, those left when it's dropped are lost
+    * @param executor  where the checkpoint of the next batch is recorded ahead, {@code null} to record it only when
+    *                  the batch is crossed
+    */
+   public BatchingIDGenerator(final long start,
+                              final long checkpointSize,
+                              final int rangeSize,
+                              final StorageManager storageManager,
+                              final Executor executor) {
       counter = new AtomicLong(start);
 
       // as soon as you generate the first ID, the nextID should be updated
@@ -54,7 +95,11 @@ public final class BatchingIDGenerator implements IDGenerator {
 
       this.checkpointSize = checkpointSize;
 
+      this.rangeSize = (int) Math.max(1, Math.min(rangeSize, checkpointSize));
+
       this.storageManager = storageManager;
+
+      this.executor = executor;
    }
 
    public void persistCurrentID() {
@@ -90,12 +135,15 @@ public final class BatchingIDGenerator implements IDGenerator {
       nextID = encoding.id;
 
       counter.set(nextID);
+
+      generation++;
    }
 
    // for testcases
    public void forceNextID(long nextID) {
       long idJournal = counter.incrementAndGet();
       counter.set(nextID);
+      generation++;
       storeID(idJournal, nextID);
 
    }
@@ -103,20 +151,89 @@ public final class BatchingIDGenerator implements IDGenerator {
    public long generateID() {
       long id = counter.getAndIncrement();
 
-      if (id >= nextID) {
-         saveCheckPoint(id);
-      }
+      checkpoint(id + 1);
+
       return id;
    }
 
+   /**
+    * @return the next ID of the shared counter, the sequences may still hold IDs reserved below it
+    */
    public long getCurrentID() {
       return counter.get();
    }
 
-   private synchronized void saveCheckPoint(final long id) {
-      if (id >= nextID) {
-         nextID += checkpointSize;
+   /**
+    * A generator for a single caller, such as a session, taking its IDs from ranges it reserves from this one. Its IDs
+    * are increasing but may be lower than the ones other callers got meanwhile. Its ranges start with a single ID and
+    * double up to the range size, so that a short-lived caller loses few IDs when it's dropped.
+    */
+   public IDGenerator newSequence() {
+      return new IDSequence();
+   }
+
+   // the IDs below end are about to be given
+   private void checkpoint(final long end) {
+      long limit = nextID;
+
+      if (end > limit) {
+         // no ID can be given before its checkpoint is recorded
+         saveCheckPoint(end);
+      }
+      else if (executor != null && end > limit - checkpointSize / 2 && checkpointPending.compareAndSet(false, true)) {
+         final long ahead = limit + 1;
+         try {
+            executor.execute(new Runnable() {
+               @Override
+               public void run() {
+                  try {
+                     saveCheckPoint(ahead);
+                  }
+                  finally {
+                     checkpointPending.set(false);
+                  }
+               }
+            });
+         }
+         catch (RejectedExecutionException e) {
+            // the server is stopping, the checkpoint will be recorded when the batch is crossed
+            checkpointPending.set(false);
+         }
+      }
+   }
+
+   /**
+    * Records a checkpoint covering the IDs below end, unless one is already, and returns once it's on the journal.
+    * The checkpoints are stored one at a time, so that the last one loaded from the journal is the highest.
+    */
+   private void saveCheckPoint(final long end) {
+      long checkpoint;
 
+      synchronized (this) {
+         while (storing && end > nextID) {
+            try {
+               wait();
+            }
+            catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+               throw new IllegalStateException(e);
+            }
+         }
+
+         if (end <= nextID) {
+            return;
+         }
+
+         checkpoint = nextID;
+
+         while (end > checkpoint) {
+            checkpoint += checkpointSize;
+         }
+
+         storing = true;
+      }
+
+      try {
          if (!storageManager.isStarted()) {
             // This could happen after the server is stopped
             // while notifications are being sent and ID gerated.
@@ -125,7 +242,18 @@ public final class BatchingIDGenerator implements IDGenerator {
             ActiveMQServerLogger.LOGGER.debug("The journalStorageManager is not loaded. " + "This is probably ok as long as it's a notification being sent after shutdown");
          }
          else {
-            storeID(counter.getAndIncrement(), nextID);
+            storeID(counter.getAndIncrement(), checkpoint);
+         }
+      }
+      finally {
+         synchronized (this) {
+            if (checkpoint > nextID) {
+               nextID = checkpoint;
+            }
+
+            storing = false;
+
+            notifyAll();
          }
       }
    }
@@ -162,6 +290,41 @@ public final class BatchingIDGenerator implements IDGenerator {
 
    // Inner classes -------------------------------------------------
 
+   /**
+    * Only used by one caller at a time, though not always from the same thread.
+    */
+   private final class IDSequence implements IDGenerator {
+
+      private long next;
+
+      private long end;
+
+      private int size = 1;
+
+      private int generation = -1;
+
+      public synchronized long generateID() {
+         int current = BatchingIDGenerator.this.generation;
+
+         if (next >= end || generation != current) {
+            generation = current;
+
+            next = counter.getAndAdd(size);
+            end = next + size;
+
+            checkpoint(end);
+
+            size = Math.min(size * 2, rangeSize);
+         }
+
+         return next++;
+      }
+
+      public long getCurrentID() {
+         return BatchingIDGenerator.this.getCurrentID();
+      }
+   }
+
    protected static final class IDCounterEncoding implements EncodingSupport {
 
       private long id;
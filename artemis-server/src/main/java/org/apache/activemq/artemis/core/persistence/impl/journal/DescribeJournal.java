@@ -27,6 +27,7 @@ import java.util.Map;
 import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
 import org.apache.activemq.artemis.api.core.ActiveMQBuffers;
 import org.apache.activemq.artemis.api.core.Message;
+import org.apache.activemq.artemis.api.core.SimpleString;
 import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
 import org.apache.activemq.artemis.core.journal.EncodingSupport;
 import org.apache.activemq.artemis.core.journal.PreparedTransactionInfo;
@@ -57,6 +58,8 @@ import org.apache.activemq.artemis.core.server.LargeServerMessage;
 import org.apache.activemq.artemis.core.server.ServerMessage;
 import org.apache.activemq.artemis.core.server.impl.ServerMessageImpl;
 import org.apache.activemq.artemis.utils.Base64;
+import org.apache.activemq.artemis.utils.CompactEncoding;
+import org.apache.activemq.artemis.utils.KeyDictionary;
 import org.apache.activemq.artemis.utils.XidCodecSupport;
 
 import static org.apache.activemq.artemis.core.persistence.impl.journal.JournalRecordIds.ACKNOWLEDGE_CURSOR;
@@ -65,6 +68,7 @@ import static org.apache.activemq.artemis.core.persistence.impl.journal.JournalR
 import static org.apache.activemq.artemis.core.persistence.impl.journal.JournalRecordIds.ADD_LARGE_MESSAGE;
 import static org.apache.activemq.artemis.core.persistence.impl.journal.JournalRecordIds.ADD_LARGE_MESSAGE_PENDING;
 import static org.apache.activemq.artemis.core.persistence.impl.journal.JournalRecordIds.ADD_MESSAGE;
+import static org.apache.activemq.artemis.core.persistence.impl.journal.JournalRecordIds.ADD_MESSAGE_DICTIONARY;
 import static org.apache.activemq.artemis.core.persistence.impl.journal.JournalRecordIds.ADD_REF;
 import static org.apache.activemq.artemis.core.persistence.impl.journal.JournalRecordIds.DUPLICATE_ID;
 import static org.apache.activemq.artemis.core.persistence.impl.journal.JournalRecordIds.HEURISTIC_COMPLETION;
@@ -74,6 +78,7 @@ import static org.apache.activemq.artemis.core.persistence.impl.journal.JournalR
 import static org.apache.activemq.artemis.core.persistence.impl.journal.JournalRecordIds.PAGE_CURSOR_COUNTER_VALUE;
 import static org.apache.activemq.artemis.core.persistence.impl.journal.JournalRecordIds.PAGE_CURSOR_PENDING_COUNTER;
 import static org.apache.activemq.artemis.core.persistence.impl.journal.JournalRecordIds.PAGE_TRANSACTION;
+import static org.apache.activemq.artemis.core.persistence.impl.journal.JournalRecordIds.PROPERTY_KEY_RECORD;
 import static org.apache.activemq.artemis.core.persistence.impl.journal.JournalRecordIds.QUEUE_BINDING_RECORD;
 import static org.apache.activemq.artemis.core.persistence.impl.journal.JournalRecordIds.SECURITY_RECORD;
 import static org.apache.activemq.artemis.core.persistence.impl.journal.JournalRecordIds.SET_SCHEDULED_DELIVERY_TIME;
@@ -86,6 +91,23 @@ import static org.apache.activemq.artemis.core.persistence.impl.journal.JournalR
  */
 public final class DescribeJournal {
 
+   // the keys of the properties when the bindings journal isn't loaded, the unknown ones named after their reference
+   private static final KeyDictionary UNKNOWN_KEYS = new KeyDictionary() {
+      @Override
+      public int getKeyReference(final SimpleString key) {
+         return CompactEncoding.getKeyReference(key);
+      }
+
+      @Override
+      public SimpleString getKey(final int reference) {
+         if (reference > CompactEncoding.getKeyCount()) {
+            return new SimpleString("#" + reference);
+         }
+
+         return CompactEncoding.getKey(reference);
+      }
+   };
+
    private final List<RecordInfo> records;
    private final List<PreparedTransactionInfo> preparedTransactions;
 
@@ -274,7 +296,7 @@ public final class DescribeJournal {
          long queueIDForCounter = 0;
 
          Object o = newObjectEncoding(info);
-         if (info.getUserRecordType() == JournalRecordIds.ADD_MESSAGE) {
+         if (info.getUserRecordType() == JournalRecordIds.ADD_MESSAGE || info.getUserRecordType() == JournalRecordIds.ADD_MESSAGE_DICTIONARY) {
             messageCount++;
          }
          else if (info.getUserRecordType() == JournalRecordIds.ADD_REF) {
@@ -338,7 +360,7 @@ public final class DescribeJournal {
          for (RecordInfo info : tx.records) {
             Object o = newObjectEncoding(info);
             out.println("- " + describeRecord(info, o));
-            if (info.getUserRecordType() == 31) {
+            if (info.getUserRecordType() == 31 || info.getUserRecordType() == 45) {
                preparedMessageCount++;
             }
             else if (info.getUserRecordType() == 32) {
@@ -457,6 +479,13 @@ public final class DescribeJournal {
 
             return new MessageDescribe(message);
          }
+         case ADD_MESSAGE_DICTIONARY: {
+            ServerMessage message = new ServerMessageImpl(rec, 50);
+
+            message.decode(buffer, storageManager == null ? UNKNOWN_KEYS : storageManager.getPropertyKeys());
+
+            return new MessageDescribe(message);
+         }
          case ADD_REF: {
             final RefEncoding encoding = new RefEncoding();
             encoding.decode(buffer);
@@ -571,6 +600,9 @@ public final class DescribeJournal {
          case SECURITY_RECORD:
             return JournalStorageManager.newSecurityRecord(id, buffer);
 
+         case PROPERTY_KEY_RECORD:
+            return JournalStorageManager.newPropertyKeyEncoding(id, buffer);
+
          default:
             return null;
       }
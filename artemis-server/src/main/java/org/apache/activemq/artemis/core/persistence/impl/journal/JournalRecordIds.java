@@ -44,6 +44,13 @@ public final class JournalRecordIds {
 
    public static final byte SECURITY_RECORD = 26;
 
+   /**
+    * A key of the properties in the dictionary referred to by the {@link #ADD_MESSAGE_DICTIONARY} records.
+    *
+    * @see PropertyKeyDictionary
+    */
+   public static final byte PROPERTY_KEY_RECORD = 44;
+
    // Message journal record types
 
    /**
@@ -80,4 +87,10 @@ public final class JournalRecordIds {
    public static final byte PAGE_CURSOR_COMPLETE = 42;
 
    public static final byte PAGE_CURSOR_PENDING_COUNTER = 43;
+
+   /**
+    * A message as {@link #ADD_MESSAGE}, with the keys of its properties referring to the {@link #PROPERTY_KEY_RECORD}
+    * dictionary.
+    */
+   public static final byte ADD_MESSAGE_DICTIONARY = 45;
 }
@@ -116,6 +116,8 @@ import org.apache.activemq.artemis.utils.DataConstants;
 import org.apache.activemq.artemis.utils.ExecutorFactory;
 import org.apache.activemq.artemis.utils.ActiveMQThreadFactory;
 import org.apache.activemq.artemis.utils.IDGenerator;
+import org.apache.activemq.artemis.utils.KeyDictionary;
+import org.apache.activemq.artemis.utils.LatencyHistogram;
 import org.apache.activemq.artemis.utils.UUID;
 import org.apache.activemq.artemis.utils.XidCodecSupport;
 
@@ -189,6 +191,9 @@ public class JournalStorageManager implements StorageManager {
     */
    private final ExecutorFactory executorFactory;
 
+   // null unless the contexts measure how long their completions wait
+   private volatile LatencyHistogram durableLatency;
+
    private final Executor executor;
 
    private ExecutorService singleThreadExecutor;
@@ -197,6 +202,8 @@ public class JournalStorageManager implements StorageManager {
 
    private final boolean syncNonTransactional;
 
+   private final boolean persistCompactHeaders;
+
    private final int perfBlastPages;
 
    private final String largeMessagesDirectory;
@@ -212,6 +219,9 @@ public class JournalStorageManager implements StorageManager {
 
    private final Set<Long> largeMessagesToDelete = new HashSet<Long>();
 
+   // the keys of the properties the message records refer to, persisted in the bindings journal
+   private final PropertyKeyDictionary propertyKeys = new PropertyKeyDictionary();
+
    public JournalStorageManager(final Configuration config, final ExecutorFactory executorFactory) {
       this(config, executorFactory, null);
    }
@@ -240,6 +250,8 @@ public class JournalStorageManager implements StorageManager {
 
       syncTransactional = config.isJournalSyncTransactional();
 
+      persistCompactHeaders = config.isPersistCompactMessageHeaders();
+
       if (config.getJournalType() == JournalType.ASYNCIO) {
          ActiveMQServerLogger.LOGGER.journalUseAIO();
 
@@ -253,7 +265,7 @@ public class JournalStorageManager implements StorageManager {
          throw ActiveMQMessageBundle.BUNDLE.invalidJournalType2(config.getJournalType());
       }
 
-      idGenerator = new BatchingIDGenerator(0, JournalStorageManager.CHECKPOINT_BATCH_SIZE, this);
+      idGenerator = new BatchingIDGenerator(0, JournalStorageManager.CHECKPOINT_BATCH_SIZE, BatchingIDGenerator.DEFAULT_RANGE_SIZE, this, executor);
 
       Journal localMessage = new JournalImpl(config.getJournalFileSize(), config.getJournalMinFiles(), config.getJournalCompactMinFiles(), config.getJournalCompactPercentage(), journalFF, "activemq-data", "amq", config.getJournalType() == JournalType.ASYNCIO ? config.getJournalMaxIO_AIO() : config.getJournalMaxIO_NIO());
 
@@ -633,7 +645,7 @@ public class JournalStorageManager implements StorageManager {
    }
 
    public OperationContext getContext() {
-      return OperationContextImpl.getContext(executorFactory);
+      return OperationContextImpl.getContext(executorFactory, durableLatency);
    }
 
    public void setContext(final OperationContext context) {
@@ -649,7 +661,14 @@ public class JournalStorageManager implements StorageManager {
    }
 
    public OperationContext newContext(final Executor executor1) {
-      return new OperationContextImpl(executor1);
+      return new OperationContextImpl(executor1, durableLatency);
+   }
+
+   /**
+    * Makes the contexts created from now on measure how long their completions wait for what was stored
+    */
+   public void setDurableLatency(final LatencyHistogram durableLatency) {
+      this.durableLatency = durableLatency;
    }
 
    public void afterCompleteOperations(final IOCallback run) {
@@ -664,6 +683,10 @@ public class JournalStorageManager implements StorageManager {
       return idGenerator.getCurrentID();
    }
 
+   public IDGenerator newIDSequence() {
+      return idGenerator.newSequence();
+   }
+
    public LargeServerMessage createLargeMessage() {
       return new LargeServerMessageImpl(this);
    }
@@ -767,6 +790,11 @@ public class JournalStorageManager implements StorageManager {
          if (message.isLargeMessage()) {
             messageJournal.appendAddRecord(message.getMessageID(), JournalRecordIds.ADD_LARGE_MESSAGE, new LargeMessageEncoding((LargeServerMessage) message), false, getContext(false));
          }
+         else if (persistCompactHeaders) {
+            messageJournal.appendAddRecord(message.getMessageID(), JournalRecordIds.ADD_MESSAGE_DICTIONARY, new DictionaryMessageEncoding(message, propertyKeys.snapshot()), false, getContext(false));
+
+            storePropertyKeys();
+         }
          else {
             messageJournal.appendAddRecord(message.getMessageID(), JournalRecordIds.ADD_MESSAGE, message, false, getContext(false));
          }
@@ -855,6 +883,18 @@ public class JournalStorageManager implements StorageManager {
       }
    }
 
+   public void updateDuplicateID(final SimpleString address, final byte[] duplID, final long recordID) throws Exception {
+      readLock();
+      try {
+         DuplicateIDEncoding encoding = new DuplicateIDEncoding(address, duplID);
+
+         messageJournal.appendUpdateRecord(recordID, JournalRecordIds.DUPLICATE_ID, encoding, syncNonTransactional, getContext(syncNonTransactional));
+      }
+      finally {
+         readUnLock();
+      }
+   }
+
    public void deleteDuplicateID(final long recordID) throws Exception {
       readLock();
       try {
@@ -877,6 +917,11 @@ public class JournalStorageManager implements StorageManager {
          if (message.isLargeMessage()) {
             messageJournal.appendAddRecordTransactional(txID, message.getMessageID(), JournalRecordIds.ADD_LARGE_MESSAGE, new LargeMessageEncoding(((LargeServerMessage) message)));
          }
+         else if (persistCompactHeaders) {
+            messageJournal.appendAddRecordTransactional(txID, message.getMessageID(), JournalRecordIds.ADD_MESSAGE_DICTIONARY, new DictionaryMessageEncoding(message, propertyKeys.snapshot()));
+
+            storePropertyKeys();
+         }
          else {
             messageJournal.appendAddRecordTransactional(txID, message.getMessageID(), JournalRecordIds.ADD_MESSAGE, message);
          }
@@ -1297,6 +1342,15 @@ public class JournalStorageManager implements StorageManager {
 
                   break;
                }
+               case JournalRecordIds.ADD_MESSAGE_DICTIONARY: {
+                  ServerMessage message = new ServerMessageImpl(record.id, 50);
+
+                  message.decode(buff, propertyKeys);
+
+                  messages.put(record.id, message);
+
+                  break;
+               }
                case JournalRecordIds.ADD_REF: {
                   long messageID = record.id;
 
@@ -1776,6 +1830,10 @@ public class JournalStorageManager implements StorageManager {
             PersistedRoles roles = newSecurityRecord(id, buffer);
             mapPersistedRoles.put(roles.getAddressMatch(), roles);
          }
+         else if (rec == JournalRecordIds.PROPERTY_KEY_RECORD) {
+            PropertyKeyEncoding encoding = newPropertyKeyEncoding(id, buffer);
+            propertyKeys.addKey(encoding.reference, encoding.key);
+         }
          else {
             throw new IllegalStateException("Invalid record type " + rec);
          }
@@ -1941,6 +1999,10 @@ public class JournalStorageManager implements StorageManager {
       return bindingsJournal;
    }
 
+   public PropertyKeyDictionary getPropertyKeys() {
+      return propertyKeys;
+   }
+
    // Package protected ---------------------------------------------
 
    private void confirmLargeMessage(final LargeServerMessage largeServerMessage) {
@@ -2036,6 +2098,26 @@ public class JournalStorageManager implements StorageManager {
 
    // Private ----------------------------------------------------------------------------------
 
+   /**
+    * Adds to the dictionary the keys of the properties missed often enough by the messages stored. Each key is
+    * stored synchronously before being added, so that no message record refers to a key whose record could be lost.
+    */
+   private void storePropertyKeys() throws Exception {
+      synchronized (propertyKeys) {
+         SimpleString key = propertyKeys.pollCandidate();
+
+         while (key != null) {
+            PropertyKeyEncoding encoding = new PropertyKeyEncoding(propertyKeys.nextReference(), key);
+
+            bindingsJournal.appendAddRecord(idGenerator.generateID(), JournalRecordIds.PROPERTY_KEY_RECORD, encoding, true);
+
+            propertyKeys.addKey(encoding.reference, key);
+
+            key = propertyKeys.pollCandidate();
+         }
+      }
+   }
+
    private void checkAndCreateDir(final File dir, final boolean create) {
       if (!dir.exists()) {
          if (create) {
@@ -2130,6 +2212,15 @@ public class JournalStorageManager implements StorageManager {
 
                   break;
                }
+               case JournalRecordIds.ADD_MESSAGE_DICTIONARY: {
+                  ServerMessage message = new ServerMessageImpl(record.id, 50);
+
+                  message.decode(buff, propertyKeys);
+
+                  messages.put(record.id, message);
+
+                  break;
+               }
                case JournalRecordIds.ADD_REF: {
                   long messageID = record.id;
 
@@ -2603,6 +2694,64 @@ public class JournalStorageManager implements StorageManager {
 
    }
 
+   public static class DictionaryMessageEncoding implements EncodingSupport {
+
+      public final ServerMessage message;
+
+      private final KeyDictionary keys;
+
+      public DictionaryMessageEncoding(final ServerMessage message, final KeyDictionary keys) {
+         this.message = message;
+         this.keys = keys;
+      }
+
+      public void decode(final ActiveMQBuffer buffer) {
+         message.decode(buffer, keys);
+      }
+
+      public void encode(final ActiveMQBuffer buffer) {
+         message.encode(buffer, keys);
+      }
+
+      public int getEncodeSize() {
+         return message.getEncodeSize(keys);
+      }
+   }
+
+   public static class PropertyKeyEncoding implements EncodingSupport {
+
+      public int reference;
+
+      public SimpleString key;
+
+      public PropertyKeyEncoding(final int reference, final SimpleString key) {
+         this.reference = reference;
+         this.key = key;
+      }
+
+      public PropertyKeyEncoding() {
+      }
+
+      public void decode(final ActiveMQBuffer buffer) {
+         reference = buffer.readInt();
+         key = buffer.readSimpleString();
+      }
+
+      public void encode(final ActiveMQBuffer buffer) {
+         buffer.writeInt(reference);
+         buffer.writeSimpleString(key);
+      }
+
+      public int getEncodeSize() {
+         return DataConstants.SIZE_INT + SimpleString.sizeofString(key);
+      }
+
+      @Override
+      public String toString() {
+         return "PropertyKeyEncoding [reference=" + reference + ", key=" + key + "]";
+      }
+   }
+
    public static class PendingLargeMessageEncoding implements EncodingSupport {
 
       public long largeMessageID;
@@ -3174,6 +3323,12 @@ public class JournalStorageManager implements StorageManager {
       return roles;
    }
 
+   static PropertyKeyEncoding newPropertyKeyEncoding(long id, ActiveMQBuffer buffer) {
+      PropertyKeyEncoding encoding = new PropertyKeyEncoding();
+      encoding.decode(buffer);
+      return encoding;
+   }
+
    /**
     * @param id
     * @param buffer
@@ -30,6 +30,7 @@ import org.apache.activemq.artemis.core.journal.impl.SimpleWaitIOCallback;
 import org.apache.activemq.artemis.core.persistence.OperationContext;
 import org.apache.activemq.artemis.core.server.ActiveMQServerLogger;
 import org.apache.activemq.artemis.utils.ExecutorFactory;
+import org.apache.activemq.artemis.utils.LatencyHistogram;
 
 /**
  * Each instance of OperationContextImpl is associated with an executor (usually an ordered Executor).
@@ -54,13 +55,22 @@ public class OperationContextImpl implements OperationContext {
    }
 
    public static OperationContext getContext(final ExecutorFactory executorFactory) {
+      return getContext(executorFactory, null);
+   }
+
+   /**
+    * @param durableLatency where the contexts created by this call measure how long their tasks wait for IO, null
+    *                       if they don't
+    */
+   public static OperationContext getContext(final ExecutorFactory executorFactory,
+                                             final LatencyHistogram durableLatency) {
       OperationContext token = OperationContextImpl.threadLocalContext.get();
       if (token == null) {
          if (executorFactory == null) {
             return null;
          }
          else {
-            token = new OperationContextImpl(executorFactory.getExecutor());
+            token = new OperationContextImpl(executorFactory.getExecutor(), durableLatency);
             OperationContextImpl.threadLocalContext.set(token);
          }
       }
@@ -93,9 +103,16 @@ public class OperationContextImpl implements OperationContext {
 
    private final AtomicInteger executorsPending = new AtomicInteger(0);
 
+   private final LatencyHistogram durableLatency;
+
    public OperationContextImpl(final Executor executor) {
+      this(executor, null);
+   }
+
+   public OperationContextImpl(final Executor executor, final LatencyHistogram durableLatency) {
       super();
       this.executor = executor;
+      this.durableLatency = durableLatency;
    }
 
    public void pageSyncLineUp() {
@@ -170,10 +187,15 @@ public class OperationContextImpl implements OperationContext {
 
    private void checkTasks() {
       if (stored >= minimalStore && replicated >= minimalReplicated && paged >= minimalPage) {
+         long now = durableLatency == null ? 0 : System.nanoTime();
          Iterator<TaskHolder> iter = tasks.iterator();
          while (iter.hasNext()) {
             TaskHolder holder = iter.next();
             if (stored >= holder.storeLined && replicated >= holder.replicationLined && paged >= holder.pageLined) {
+               if (durableLatency != null) {
+                  durableLatency.record(now - holder.created);
+               }
+
                // If set, we use an executor to avoid the server being single threaded
                execute(holder.task);
 
@@ -255,11 +277,15 @@ public class OperationContextImpl implements OperationContext {
 
       final IOCallback task;
 
+      // when the task started to wait for the IO lined up before it
+      final long created;
+
       TaskHolder(final IOCallback task) {
          storeLined = storeLineUp.intValue();
          replicationLined = replicationLineUp.intValue();
          pageLined = pageLineUp.intValue();
          this.task = task;
+         created = durableLatency == null ? 0 : System.nanoTime();
       }
    }
 
@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.core.persistence.impl.journal;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.utils.CompactEncoding;
+import org.apache.activemq.artemis.utils.KeyDictionary;
+
+/**
+ * The keys of the properties referred to by the messages stored in the journal, after the keys of the fixed
+ * dictionary of {@link CompactEncoding}. The keys missed often enough become candidates, which are added once
+ * their record is stored in the bindings journal, see {@link JournalRecordIds#PROPERTY_KEY_RECORD}.
+ * <p>
+ * The records are encoded with a {@link #snapshot()} so that a key added concurrently doesn't change the size of a
+ * record between its size being computed and its encoding.
+ */
+public final class PropertyKeyDictionary implements KeyDictionary {
+
+   public static final int DEFAULT_MAX_KEYS = 1024;
+
+   public static final int DEFAULT_MISSES_THRESHOLD = 100;
+
+   // the keys missed counted at most, forgotten all at once when reached
+   private static final int MAX_MISSED_KEYS = 4096;
+
+   private final int maxKeys;
+
+   private final int missesThreshold;
+
+   private final ConcurrentMap<SimpleString, Integer> references = new ConcurrentHashMap<SimpleString, Integer>();
+
+   // the keys by reference after the fixed ones, copied on write
+   private volatile SimpleString[] keys = new SimpleString[0];
+
+   private final ConcurrentMap<SimpleString, AtomicInteger> misses = new ConcurrentHashMap<SimpleString, AtomicInteger>();
+
+   private final Queue<SimpleString> candidates = new ConcurrentLinkedQueue<SimpleString>();
+
+   public PropertyKeyDictionary() {
+      this(DEFAULT_MAX_KEYS, DEFAULT_MISSES_THRESHOLD);
+   }
+
+   public PropertyKeyDictionary(final int maxKeys, final int missesThreshold) {
+      this.maxKeys = maxKeys;
+      this.missesThreshold = missesThreshold;
+   }
+
+   @Override
+   public int getKeyReference(final SimpleString key) {
+      return getKeyReference(key, Integer.MAX_VALUE);
+   }
+
+   @Override
+   public SimpleString getKey(final int reference) {
+      int index = reference - CompactEncoding.getKeyCount() - 1;
+
+      if (index < 0) {
+         return CompactEncoding.getKey(reference);
+      }
+
+      SimpleString[] current = keys;
+
+      if (index >= current.length || current[index] == null) {
+         throw new IllegalStateException("Unknown property key reference " + reference);
+      }
+
+      return current[index];
+   }
+
+   /**
+    * @return a view of the dictionary that ignores the keys added after it was taken
+    */
+   public KeyDictionary snapshot() {
+      final int lastReference = CompactEncoding.getKeyCount() + keys.length;
+
+      return new KeyDictionary() {
+         @Override
+         public int getKeyReference(final SimpleString key) {
+            return PropertyKeyDictionary.this.getKeyReference(key, lastReference);
+         }
+
+         @Override
+         public SimpleString getKey(final int reference) {
+            return PropertyKeyDictionary.this.getKey(reference);
+         }
+      };
+   }
+
+   /**
+    * @return the next key to add, null if there is none
+    */
+   public SimpleString pollCandidate() {
+      SimpleString key = candidates.poll();
+
+      // counted again after the misses were forgotten
+      while (key != null && references.containsKey(key)) {
+         key = candidates.poll();
+      }
+
+      return key;
+   }
+
+   /**
+    * @return the reference of the next key to add
+    */
+   public synchronized int nextReference() {
+      return CompactEncoding.getKeyCount() + keys.length + 1;
+   }
+
+   /**
+    * Adds a key once its record is stored, or when its record is loaded.
+    */
+   public synchronized void addKey(final int reference, final SimpleString key) {
+      int index = reference - CompactEncoding.getKeyCount() - 1;
+
+      if (index < 0) {
+         throw new IllegalStateException("Invalid property key reference " + reference);
+      }
+
+      // the records are loaded in any order
+      SimpleString[] added = Arrays.copyOf(keys, Math.max(keys.length, index + 1));
+
+      added[index] = key;
+
+      keys = added;
+
+      references.put(key, reference);
+
+      misses.remove(key);
+   }
+
+   public int getKeyCount() {
+      return references.size();
+   }
+
+   private int getKeyReference(final SimpleString key, final int lastReference) {
+      int reference = CompactEncoding.getKeyReference(key);
+
+      if (reference != 0) {
+         return reference;
+      }
+
+      Integer added = references.get(key);
+
+      if (added != null) {
+         return added <= lastReference ? added : 0;
+      }
+
+      countMiss(key);
+
+      return 0;
+   }
+
+   private void countMiss(final SimpleString key) {
+      if (references.size() + candidates.size() >= maxKeys) {
+         return;
+      }
+
+      AtomicInteger count = misses.get(key);
+
+      if (count == null) {
+         if (misses.size() >= MAX_MISSED_KEYS) {
+            misses.clear();
+         }
+
+         AtomicInteger other = misses.putIfAbsent(key, count = new AtomicInteger());
+
+         if (other != null) {
+            count = other;
+         }
+      }
+
+      if (count.incrementAndGet() == missesThreshold) {
+         candidates.add(key);
+      }
+   }
+}
@@ -55,6 +55,7 @@ import org.apache.activemq.artemis.core.server.group.impl.GroupBinding;
 import org.apache.activemq.artemis.core.server.impl.JournalLoader;
 import org.apache.activemq.artemis.core.transaction.ResourceManager;
 import org.apache.activemq.artemis.core.transaction.Transaction;
+import org.apache.activemq.artemis.utils.IDGenerator;
 
 public class NullStorageManager implements StorageManager {
 
@@ -187,6 +188,10 @@ public class NullStorageManager implements StorageManager {
    public void storeDuplicateID(final SimpleString address, final byte[] duplID, final long recordID) throws Exception {
    }
 
+   @Override
+   public void updateDuplicateID(final SimpleString address, final byte[] duplID, final long recordID) throws Exception {
+   }
+
    @Override
    public void storeDuplicateIDTransactional(final long txID,
                                              final SimpleString address,
@@ -242,6 +247,12 @@ public class NullStorageManager implements StorageManager {
       return idSequence.get();
    }
 
+   @Override
+   public IDGenerator newIDSequence() {
+      // the IDs aren't recorded, the shared sequence is cheap enough
+      return this;
+   }
+
    @Override
    public synchronized void start() throws Exception {
       if (started) {
@@ -23,6 +23,7 @@ import org.apache.activemq.artemis.core.server.RoutingContext;
 import org.apache.activemq.artemis.core.server.ServerMessage;
 import org.apache.activemq.artemis.core.server.cluster.impl.MessageLoadBalancingType;
 import org.apache.activemq.artemis.core.server.group.UnproposalListener;
+import org.apache.activemq.artemis.utils.LatencyHistogram;
 
 public interface Bindings extends UnproposalListener {
 
@@ -37,4 +38,15 @@ public interface Bindings extends UnproposalListener {
    boolean redistribute(ServerMessage message, Queue originatingQueue, RoutingContext context) throws Exception;
 
    void route(ServerMessage message, RoutingContext context) throws Exception;
+
+   /**
+    * @return the latencies of routing messages to these bindings, measured from the first time they are asked for,
+    * null if they are not measured
+    */
+   LatencyHistogram getRouteLatency();
+
+   /**
+    * Records the time a message took to be routed to these bindings, if the latencies are measured.
+    */
+   void recordRouteLatency(long nanos);
 }
@@ -36,4 +36,14 @@ public interface DuplicateIDCache {
    void clear() throws Exception;
 
    List<Pair<byte[], Long>> getMap();
+
+   /**
+    * The ratio of lookups answered by the filter without looking into the cache, -1 if the cache has no filter
+    */
+   double getFilterHitRatio();
+
+   /**
+    * The ratio of the lookups of ids not in the cache the filter let through, -1 if the cache has no filter
+    */
+   double getFilterFalsePositiveRatio();
 }
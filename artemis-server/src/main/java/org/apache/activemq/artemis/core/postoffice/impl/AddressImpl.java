@@ -16,11 +16,11 @@
  */
 package org.apache.activemq.artemis.core.postoffice.impl;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collection;
 
 import org.apache.activemq.artemis.api.core.SimpleString;
 import org.apache.activemq.artemis.core.postoffice.Address;
+import org.apache.activemq.artemis.utils.ConcurrentHashSet;
 
 /**
  * splits an address string into its hierarchical parts split by '.'
@@ -33,7 +33,8 @@ public class AddressImpl implements Address {
 
    private final boolean containsWildCard;
 
-   private final List<Address> linkedAddresses = new ArrayList<Address>();
+   // a wildcard address can be linked to a very large number of addresses, keep adding and removing them cheap
+   private final ConcurrentHashSet<Address> linkedAddresses = new ConcurrentHashSet<Address>();
 
    public AddressImpl(final SimpleString address) {
       this.address = address;
@@ -53,14 +54,12 @@ public class AddressImpl implements Address {
       return containsWildCard;
    }
 
-   public List<Address> getLinkedAddresses() {
+   public Collection<Address> getLinkedAddresses() {
       return linkedAddresses;
    }
 
    public void addLinkedAddress(final Address address) {
-      if (!linkedAddresses.contains(address)) {
-         linkedAddresses.add(address);
-      }
+      linkedAddresses.add(address);
    }
 
    public void removeLinkedAddress(final Address actualAddress) {
@@ -71,58 +70,35 @@ public class AddressImpl implements Address {
       if (containsWildCard == add.containsWildCard()) {
          return address.equals(add.getAddress());
       }
-      int pos = 0;
-      int matchPos = 0;
-
-      SimpleString nextToMatch;
-      for (; matchPos < add.getAddressParts().length; ) {
-         if (pos >= addressParts.length) {
-            // test for # as last address part
-            return pos + 1 == add.getAddressParts().length && add.getAddressParts()[pos].equals(WildcardAddressManager.ANY_WORDS_SIMPLESTRING);
-         }
-         SimpleString curr = addressParts[pos];
-         SimpleString next = addressParts.length > pos + 1 ? addressParts[pos + 1] : null;
-         SimpleString currMatch = add.getAddressParts()[matchPos];
-         if (currMatch.equals(WildcardAddressManager.SINGLE_WORD_SIMPLESTRING)) {
-            pos++;
-            matchPos++;
-         }
-         else if (currMatch.equals(WildcardAddressManager.ANY_WORDS_SIMPLESTRING)) {
-            if (matchPos == addressParts.length - 1) {
-               pos++;
-               matchPos++;
-            }
-            else if (next == null) {
-               return false;
-            }
-            else if (matchPos == add.getAddressParts().length - 1) {
-               return true;
-            }
-            else {
-               nextToMatch = add.getAddressParts()[matchPos + 1];
-               while (curr != null) {
-                  if (curr.equals(nextToMatch)) {
-                     break;
-                  }
-                  pos++;
-                  curr = next;
-                  next = addressParts.length > pos + 1 ? addressParts[pos + 1] : null;
-               }
-               if (curr == null) {
-                  return false;
-               }
-               matchPos++;
-            }
-         }
-         else {
-            if (!curr.equals(currMatch)) {
-               return false;
-            }
-            pos++;
-            matchPos++;
-         }
+
+      return matches(addressParts, 0, add.getAddressParts(), 0);
+   }
+
+   // as in AddressTree, '*' matches one word and '#' any number of words, including none, wherever it is
+   private static boolean matches(final SimpleString[] parts,
+                                  final int pos,
+                                  final SimpleString[] wildcard,
+                                  final int matchPos) {
+      if (matchPos == wildcard.length) {
+         return pos == parts.length;
+      }
+
+      SimpleString match = wildcard[matchPos];
+
+      if (match.equals(WildcardAddressManager.ANY_WORDS_SIMPLESTRING)) {
+         // either '#' stops matching here, or it takes one more word and stays
+         return matches(parts, pos, wildcard, matchPos + 1) || pos < parts.length && matches(parts, pos + 1, wildcard, matchPos);
+      }
+
+      if (pos == parts.length) {
+         return false;
       }
-      return pos == addressParts.length;
+
+      if (!match.equals(WildcardAddressManager.SINGLE_WORD_SIMPLESTRING) && !match.equals(parts[pos])) {
+         return false;
+      }
+
+      return matches(parts, pos + 1, wildcard, matchPos + 1);
    }
 
    @Override
@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.core.postoffice.impl;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.postoffice.Address;
+
+/**
+ * A tree of addresses indexed by their '.' separated words.
+ * <p>
+ * A tree of wildcard addresses finds the ones matching an address, and a tree of plain addresses finds the ones
+ * matching a wildcard address, walking only the branches the words lead to instead of comparing every address.
+ * <p>
+ * Changes must be serialized by the caller, lookups can run concurrently with them.
+ */
+public class AddressTree {
+
+   private final Node root = new Node();
+
+   private volatile int size;
+
+   public int size() {
+      return size;
+   }
+
+   public boolean isEmpty() {
+      return size == 0;
+   }
+
+   public void put(final Address address) {
+      Node node = root;
+
+      for (SimpleString part : address.getAddressParts()) {
+         node = node.getOrCreateChild(part);
+      }
+
+      if (node.address == null) {
+         size++;
+      }
+
+      node.address = address;
+   }
+
+   public void remove(final Address address) {
+      remove(root, address.getAddressParts(), 0, address);
+   }
+
+   public void clear() {
+      root.children = null;
+      size = 0;
+   }
+
+   /**
+    * The wildcard addresses of this tree matching a plain address
+    */
+   public Set<Address> getWildcardsMatching(final Address address) {
+      Set<Address> result = new HashSet<Address>();
+
+      matchWildcards(root, address.getAddressParts(), 0, result);
+
+      return result;
+   }
+
+   /**
+    * The plain addresses of this tree matching a wildcard address
+    */
+   public Set<Address> getAddressesMatching(final Address wildcard) {
+      Set<Address> result = new HashSet<Address>();
+
+      matchAddresses(root, wildcard.getAddressParts(), 0, result);
+
+      return result;
+   }
+
+   // returns true if the node is left with neither address nor children, so its parent can drop it
+   private boolean remove(final Node node, final SimpleString[] parts, final int pos, final Address address) {
+      if (pos == parts.length) {
+         if (node.address != null && node.address.equals(address)) {
+            node.address = null;
+            size--;
+         }
+      }
+      else {
+         Node child = node.getChild(parts[pos]);
+
+         if (child != null && remove(child, parts, pos + 1, address)) {
+            node.children.remove(parts[pos]);
+         }
+      }
+
+      return node.address == null && (node.children == null || node.children.isEmpty());
+   }
+
+   private void matchWildcards(final Node node, final SimpleString[] parts, final int pos, final Set<Address> result) {
+      if (pos == parts.length) {
+         Address address = node.address;
+         if (address != null) {
+            result.add(address);
+         }
+      }
+      else {
+         Node child = node.getChild(parts[pos]);
+         if (child != null) {
+            matchWildcards(child, parts, pos + 1, result);
+         }
+
+         child = node.getChild(WildcardAddressManager.SINGLE_WORD_SIMPLESTRING);
+         if (child != null) {
+            matchWildcards(child, parts, pos + 1, result);
+         }
+      }
+
+      // '#' matches any number of words, including none
+      Node anyWords = node.getChild(WildcardAddressManager.ANY_WORDS_SIMPLESTRING);
+      if (anyWords != null) {
+         for (int i = pos; i <= parts.length; i++) {
+            matchWildcards(anyWords, parts, i, result);
+         }
+      }
+   }
+
+   private void matchAddresses(final Node node, final SimpleString[] parts, final int pos, final Set<Address> result) {
+      if (pos == parts.length) {
+         Address address = node.address;
+         if (address != null) {
+            result.add(address);
+         }
+         return;
+      }
+
+      SimpleString part = parts[pos];
+
+      if (part.equals(WildcardAddressManager.SINGLE_WORD_SIMPLESTRING)) {
+         for (Node child : node.getChildren()) {
+            matchAddresses(child, parts, pos + 1, result);
+         }
+      }
+      else if (part.equals(WildcardAddressManager.ANY_WORDS_SIMPLESTRING)) {
+         // either '#' stops matching here, or it takes one more word and stays
+         matchAddresses(node, parts, pos + 1, result);
+
+         for (Node child : node.getChildren()) {
+            matchAddresses(child, parts, pos, result);
+         }
+      }
+      else {
+         Node child = node.getChild(part);
+         if (child != null) {
+            matchAddresses(child, parts, pos + 1, result);
+         }
+      }
+   }
+
+   private static final class Node {
+
+      private volatile Address address;
+
+      // created with the first child, most nodes are leaves
+      private volatile ConcurrentHashMap<SimpleString, Node> children;
+
+      Node getChild(final SimpleString part) {
+         ConcurrentHashMap<SimpleString, Node> theChildren = children;
+
+         return theChildren == null ? null : theChildren.get(part);
+      }
+
+      Iterable<Node> getChildren() {
+         ConcurrentHashMap<SimpleString, Node> theChildren = children;
+
+         return theChildren == null ? Collections.<Node>emptyList() : theChildren.values();
+      }
+
+      Node getOrCreateChild(final SimpleString part) {
+         if (children == null) {
+            children = new ConcurrentHashMap<SimpleString, Node>(4);
+         }
+
+         Node child = children.get(part);
+
+         if (child == null) {
+            child = new Node();
+            children.put(part, child);
+         }
+
+         return child;
+      }
+   }
+}
@@ -30,11 +30,13 @@ import java.util.concurrent.CopyOnWriteArrayList;
 import org.apache.activemq.artemis.api.core.Message;
 import org.apache.activemq.artemis.api.core.SimpleString;
 import org.apache.activemq.artemis.core.filter.Filter;
+import org.apache.activemq.artemis.core.filter.impl.FilterSet;
 import org.apache.activemq.artemis.core.message.impl.MessageImpl;
 import org.apache.activemq.artemis.core.paging.PagingStore;
 import org.apache.activemq.artemis.core.postoffice.Binding;
 import org.apache.activemq.artemis.core.postoffice.Bindings;
 import org.apache.activemq.artemis.core.server.ActiveMQServerLogger;
+import org.apache.activemq.artemis.core.server.Divert;
 import org.apache.activemq.artemis.core.server.Queue;
 import org.apache.activemq.artemis.core.server.RoutingContext;
 import org.apache.activemq.artemis.core.server.ServerMessage;
@@ -43,6 +45,9 @@ import org.apache.activemq.artemis.core.server.cluster.impl.MessageLoadBalancing
 import org.apache.activemq.artemis.core.server.group.GroupingHandler;
 import org.apache.activemq.artemis.core.server.group.impl.Proposal;
 import org.apache.activemq.artemis.core.server.group.impl.Response;
+import org.apache.activemq.artemis.core.server.impl.DivertImpl;
+import org.apache.activemq.artemis.core.server.impl.LatencyMetrics;
+import org.apache.activemq.artemis.utils.LatencyHistogram;
 
 public final class BindingsImpl implements Bindings {
 
@@ -61,6 +66,24 @@ public final class BindingsImpl implements Bindings {
 
    private volatile MessageLoadBalancingType messageLoadBalancingType = MessageLoadBalancingType.OFF;
 
+   /**
+    * The bindings a message is routed to when every routing name has a single local queue or divert, as it is most
+    * of the time outside of a cluster. Routing then needs neither the positions nor the load balancing of
+    * {@link #getNextBinding(ServerMessage, SimpleString, List)}. It is null whenever that doesn't hold.
+    */
+   private volatile RoutingTable routingTable;
+
+   // the exclusive bindings as a table, so their filters are evaluated together, null if there aren't any
+   private volatile RoutingTable exclusiveTable;
+
+   // the histogram recorded to, null unless the latencies are measured: the one of the server until the one of the
+   // address is asked for
+   private volatile LatencyHistogram routeLatency;
+
+   private LatencyMetrics latencyMetrics;
+
+   private boolean addressLatency;
+
    private final GroupingHandler groupingHandler;
 
    private final PagingStore pageStore;
@@ -77,6 +100,35 @@ public final class BindingsImpl implements Bindings {
       this.messageLoadBalancingType = messageLoadBalancingType;
    }
 
+   public synchronized LatencyHistogram getRouteLatency() {
+      if (latencyMetrics == null) {
+         return null;
+      }
+
+      // the histogram of an address takes a few KB, only the addresses whose latencies are asked for have their own
+      if (!addressLatency) {
+         routeLatency = latencyMetrics.newAddressRoute();
+
+         addressLatency = true;
+      }
+
+      return routeLatency;
+   }
+
+   public void recordRouteLatency(final long nanos) {
+      LatencyHistogram route = routeLatency;
+
+      if (route != null) {
+         route.record(nanos);
+      }
+   }
+
+   public synchronized void setLatencyMetrics(final LatencyMetrics latencyMetrics) {
+      this.latencyMetrics = latencyMetrics;
+
+      routeLatency = latencyMetrics.getRoute();
+   }
+
    public Collection<Binding> getBindings() {
       return bindingsMap.values();
    }
@@ -116,6 +168,8 @@ public final class BindingsImpl implements Bindings {
 
       bindingsMap.put(binding.getID(), binding);
 
+      updateRoutingTable();
+
       if (isTrace) {
          ActiveMQServerLogger.LOGGER.trace("Adding binding " + binding + " into " + this + " bindingTable: " + debugBindings());
       }
@@ -142,6 +196,8 @@ public final class BindingsImpl implements Bindings {
 
       bindingsMap.remove(binding.getID());
 
+      updateRoutingTable();
+
       if (isTrace) {
          ActiveMQServerLogger.LOGGER.trace("Removing binding " + binding + " from " + this + " bindingTable: " + debugBindings());
       }
@@ -258,14 +314,10 @@ public final class BindingsImpl implements Bindings {
 
       boolean routed = false;
 
-      if (!exclusiveBindings.isEmpty()) {
-         for (Binding binding : exclusiveBindings) {
-            if (binding.getFilter() == null || binding.getFilter().match(message)) {
-               binding.getBindable().route(message, context);
+      RoutingTable exclusive = exclusiveTable;
 
-               routed = true;
-            }
-         }
+      if (exclusive != null) {
+         routed = exclusive.route(message, context);
       }
 
       if (!routed) {
@@ -285,6 +337,15 @@ public final class BindingsImpl implements Bindings {
             if (isTrace) {
                ActiveMQServerLogger.LOGGER.trace("Routing message " + message + " on binding=" + this);
             }
+
+            RoutingTable table = routingTable;
+
+            if (table != null) {
+               table.route(message, context);
+
+               return;
+            }
+
             for (Map.Entry<SimpleString, List<Binding>> entry : routingNameBindingMap.entrySet()) {
                SimpleString routingName = entry.getKey();
 
@@ -311,6 +372,26 @@ public final class BindingsImpl implements Bindings {
       return "BindingsImpl [name=" + name + "]";
    }
 
+   private synchronized void updateRoutingTable() {
+      exclusiveTable = exclusiveBindings.isEmpty() ? null : new RoutingTable(exclusiveBindings.toArray(new Binding[0]));
+
+      List<Binding> table = new ArrayList<Binding>(routingNameBindingMap.size());
+
+      for (List<Binding> bindings : routingNameBindingMap.values()) {
+         // a snapshot, the list may be changed by a concurrent addBinding that will update the table after us
+         Object[] snapshot = bindings.toArray();
+
+         if (snapshot.length != 1 || !(snapshot[0] instanceof LocalQueueBinding || snapshot[0] instanceof DivertBinding)) {
+            routingTable = null;
+            return;
+         }
+
+         table.add((Binding) snapshot[0]);
+      }
+
+      routingTable = new RoutingTable(table.toArray(new Binding[table.size()]));
+   }
+
    /**
     * This code has a race on the assigned value to routing names.
     * <p>
@@ -608,4 +689,113 @@ public final class BindingsImpl implements Bindings {
    public Map<SimpleString, List<Binding>> getRoutingNameBindingMap() {
       return routingNameBindingMap;
    }
+
+   /**
+    * Bindings a message is routed to each one whose filter matches, like the exclusive ones or the ones of
+    * {@link #routingTable}.
+    * <p>
+    * When there are several filters they are evaluated together through a {@link FilterSet}. When a message is
+    * diverted by several diverts without transformer, they copy it from a template made once for all of them.
+    */
+   private static final class RoutingTable {
+
+      private final Binding[] bindings;
+
+      // null when there is no more than one filter, unless the diverts need to know their matches beforehand
+      private final FilterSet filters;
+
+      // the forward addresses of the diverts without transformer, null at the other positions
+      private final SimpleString[] forwardAddresses;
+
+      private final int sharingDiverts;
+
+      RoutingTable(final Binding[] bindings) {
+         this.bindings = bindings;
+
+         Filter[] bindingFilters = new Filter[bindings.length];
+         forwardAddresses = new SimpleString[bindings.length];
+
+         int filtered = 0;
+         int diverts = 0;
+
+         for (int i = 0; i < bindings.length; i++) {
+            bindingFilters[i] = bindings[i].getFilter();
+
+            if (bindingFilters[i] != null) {
+               filtered++;
+            }
+
+            if (bindings[i] instanceof DivertBinding) {
+               Divert divert = ((DivertBinding) bindings[i]).getDivert();
+
+               if (divert.getTransformer() == null) {
+                  forwardAddresses[i] = divert.getForwardAddress();
+                  diverts++;
+               }
+            }
+         }
+
+         sharingDiverts = diverts;
+
+         filters = filtered > 1 || filtered > 0 && sharingDiverts > 1 ? new FilterSet(bindingFilters) : null;
+      }
+
+      /**
+       * @return whether the message was routed to any binding
+       */
+      boolean route(final ServerMessage message, final RoutingContext context) throws Exception {
+         FilterSet.Evaluation evaluation = filters == null ? null : filters.evaluate(message);
+
+         if (sharingDiverts > 1 && !message.isLargeMessage()) {
+            shareDivertCopies(message, context, evaluation);
+         }
+
+         boolean routed = false;
+
+         for (int i = 0; i < bindings.length; i++) {
+            if (match(i, message, evaluation)) {
+               bindings[i].route(message, context);
+
+               routed = true;
+            }
+         }
+
+         return routed;
+      }
+
+      private void shareDivertCopies(final ServerMessage message,
+                                     final RoutingContext context,
+                                     final FilterSet.Evaluation evaluation) throws Exception {
+         SimpleString templateAddress = null;
+
+         int copies = 0;
+
+         for (int i = 0; i < bindings.length; i++) {
+            SimpleString forwardAddress = forwardAddresses[i];
+
+            // a divert to the address of the message routes the message itself
+            if (forwardAddress != null && !forwardAddress.equals(message.getAddress()) && match(i, message, evaluation)) {
+               if (templateAddress == null) {
+                  templateAddress = forwardAddress;
+               }
+
+               copies++;
+            }
+         }
+
+         if (copies > 1) {
+            context.setDivertTemplate(message, DivertImpl.createTemplate(message, templateAddress));
+         }
+      }
+
+      private boolean match(final int position, final ServerMessage message, final FilterSet.Evaluation evaluation) {
+         if (evaluation != null) {
+            return evaluation.match(position);
+         }
+
+         Filter filter = bindings[position].getFilter();
+
+         return filter == null || filter.match(message);
+      }
+   }
 }
@@ -17,9 +17,12 @@
 package org.apache.activemq.artemis.core.postoffice.impl;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.activemq.artemis.api.core.Pair;
 import org.apache.activemq.artemis.api.core.SimpleString;
@@ -34,19 +37,28 @@ import org.apache.activemq.artemis.core.transaction.TransactionOperationAbstract
  * A DuplicateIDCacheImpl
  *
  * A fixed size rotating cache of last X duplicate ids.
+ * <p>
+ * The ids are kept off heap by a {@link DuplicateIDTable}. When persisted, the ids of a large cache are stored
+ * in blocks: a journal record is added once per block and each id is an update of it, so the record is deleted
+ * once for all the ids of the block when the last of them is evicted. The journal can then hold the ids of a
+ * partially evicted block a while longer than the cache does, which makes it reject such duplicates for longer
+ * after a restart, but never accept one it should have rejected. Small caches store a record per id.
+ * <p>
+ * With a false positive rate, a bloom filter answers most lookups of new ids without taking the lock.
  */
 public class DuplicateIDCacheImpl implements DuplicateIDCache {
 
-   // ByteHolder, position
-   private final Map<ByteArrayHolder, Integer> cache = new ConcurrentHashMap<ByteArrayHolder, Integer>();
+   private static final int MAX_BLOCK_SIZE = 256;
 
-   private final SimpleString address;
+   // the ids in partially evicted blocks are at most a 64th of the cache
+   private static final int BLOCK_SIZE_RATIO = 64;
+
+   // the record of a block carries no id
+   private static final byte[] BLOCK_HEADER = new byte[0];
 
-   // Note - deliberately typed as ArrayList since we want to ensure fast indexed
-   // based array access
-   private final ArrayList<Pair<ByteArrayHolder, Long>> ids;
+   private final SimpleString address;
 
-   private int pos;
+   private final DuplicateIDTable table;
 
    private final int cacheSize;
 
@@ -54,187 +66,315 @@ public class DuplicateIDCacheImpl implements DuplicateIDCache {
 
    private final boolean persist;
 
+   private final int blockSize;
+
+   // the blocks by record ID, records holding a single id have none
+   private final Map<Long, IDBlock> blocks = new HashMap<Long, IDBlock>();
+
+   private IDBlock openBlock;
+
+   // lookups answered by the filter
+   private final AtomicLong filteredLookups = new AtomicLong();
+
+   // lookups the filter let through, and those of them not found
+   private long checkedLookups;
+
+   private long falsePositives;
+
    public DuplicateIDCacheImpl(final SimpleString address,
                                final int size,
                                final StorageManager storageManager,
                                final boolean persist) {
+      this(address, size, storageManager, persist, 0);
+   }
+
+   public DuplicateIDCacheImpl(final SimpleString address,
+                               final int size,
+                               final StorageManager storageManager,
+                               final boolean persist,
+                               final double filterFalsePositiveRate) {
       this.address = address;
 
       cacheSize = size;
 
-      ids = new ArrayList<Pair<ByteArrayHolder, Long>>(size);
+      table = new DuplicateIDTable(size, filterFalsePositiveRate);
 
       this.storageManager = storageManager;
 
       this.persist = persist;
-   }
 
-   public void load(final List<Pair<byte[], Long>> theIds) throws Exception {
-      int count = 0;
+      blockSize = Math.max(1, Math.min(MAX_BLOCK_SIZE, size / BLOCK_SIZE_RATIO));
+   }
 
-      long txID = -1;
+   public synchronized void load(final List<Pair<byte[], Long>> theIds) throws Exception {
+      List<Pair<byte[], Long>> ids = new ArrayList<Pair<byte[], Long>>(theIds.size());
 
       for (Pair<byte[], Long> id : theIds) {
-         if (count < cacheSize) {
-            ByteArrayHolder bah = new ByteArrayHolder(id.getA());
+         if (id.getA().length == 0) {
+            IDBlock block = new IDBlock(id.getB());
+            block.closed = true;
+            blocks.put(id.getB(), block);
+         }
+         else {
+            ids.add(id);
+         }
+      }
+
+      Set<Long> liveRecords = new HashSet<Long>();
+
+      // the cache size may have been reduced in config, keep the newest ids
+      for (int i = Math.max(0, ids.size() - cacheSize); i < ids.size(); i++) {
+         Pair<byte[], Long> id = ids.get(i);
 
-            Pair<ByteArrayHolder, Long> pair = new Pair<ByteArrayHolder, Long>(bah, id.getB());
+         table.add(id.getA(), id.getB());
 
-            cache.put(bah, ids.size());
+         IDBlock block = blocks.get(id.getB());
 
-            ids.add(pair);
+         if (block != null) {
+            block.live++;
          }
          else {
-            // cache size has been reduced in config - delete the extra records
-            if (txID == -1) {
-               txID = storageManager.generateID();
-            }
-
-            storageManager.deleteDuplicateIDTransactional(txID, id.getB());
+            liveRecords.add(id.getB());
          }
+      }
+
+      // delete the records left without an id in the cache
+      Set<Long> droppedRecords = new HashSet<Long>();
 
-         count++;
+      for (Pair<byte[], Long> id : theIds) {
+         IDBlock block = blocks.get(id.getB());
+
+         if (block != null ? block.live == 0 : !liveRecords.contains(id.getB())) {
+            droppedRecords.add(id.getB());
+         }
       }
 
-      if (txID != -1) {
+      if (!droppedRecords.isEmpty()) {
+         long txID = storageManager.generateID();
+
+         for (Long recordID : droppedRecords) {
+            blocks.remove(recordID);
+
+            storageManager.deleteDuplicateIDTransactional(txID, recordID);
+         }
+
          storageManager.commit(txID);
       }
+   }
 
-      pos = ids.size();
+   public synchronized void deleteFromCache(byte[] duplicateID) throws Exception {
+      long recordID = table.remove(duplicateID);
 
-      if (pos == cacheSize) {
-         pos = 0;
+      if (recordID >= 0) {
+         releaseRecord(recordID);
       }
-
    }
 
-   public void deleteFromCache(byte[] duplicateID) throws Exception {
-      ByteArrayHolder bah = new ByteArrayHolder(duplicateID);
+   public boolean contains(final byte[] duplID) {
+      if (!table.mightContain(duplID)) {
+         filteredLookups.incrementAndGet();
 
-      Integer posUsed = cache.remove(bah);
+         return false;
+      }
 
-      if (posUsed != null) {
-         Pair<ByteArrayHolder, Long> id;
+      synchronized (this) {
+         boolean contains = table.contains(duplID);
 
-         synchronized (this) {
-            id = ids.get(posUsed.intValue());
+         if (table.hasFilter()) {
+            checkedLookups++;
 
-            if (id.getA().equals(bah)) {
-               id.setA(null);
-               storageManager.deleteDuplicateID(id.getB());
-               id.setB(null);
+            if (!contains) {
+               falsePositives++;
             }
          }
+
+         return contains;
       }
+   }
+
+   public synchronized double getFilterHitRatio() {
+      if (!table.hasFilter()) {
+         return -1;
+      }
+
+      long filtered = filteredLookups.get();
+
+      long lookups = filtered + checkedLookups;
 
+      return lookups == 0 ? 0 : (double) filtered / lookups;
    }
 
-   public boolean contains(final byte[] duplID) {
-      return cache.get(new ByteArrayHolder(duplID)) != null;
+   public synchronized double getFilterFalsePositiveRatio() {
+      if (!table.hasFilter()) {
+         return -1;
+      }
+
+      long notFound = filteredLookups.get() + falsePositives;
+
+      return notFound == 0 ? 0 : (double) falsePositives / notFound;
    }
 
    public synchronized void addToCache(final byte[] duplID, final Transaction tx) throws Exception {
-      long recordID = -1;
+      if (!persist) {
+         if (tx == null) {
+            addToCacheInMemory(duplID, -1, null);
+         }
+         else {
+            tx.addOperation(new AddDuplicateIDOperation(duplID, -1, null));
+         }
+         return;
+      }
 
-      if (tx == null) {
-         if (persist) {
-            recordID = storageManager.generateID();
+      long recordID;
+
+      IDBlock block = null;
+
+      if (blockSize == 1) {
+         recordID = storageManager.generateID();
+
+         if (tx == null) {
             storageManager.storeDuplicateID(address, duplID, recordID);
          }
-
-         addToCacheInMemory(duplID, recordID);
+         else {
+            storageManager.storeDuplicateIDTransactional(tx.getID(), address, duplID, recordID);
+         }
       }
       else {
-         if (persist) {
-            recordID = storageManager.generateID();
-            storageManager.storeDuplicateIDTransactional(tx.getID(), address, duplID, recordID);
+         block = nextBlock();
+
+         recordID = block.recordID;
 
-            tx.setContainsPersistent();
+         try {
+            if (tx == null) {
+               storageManager.updateDuplicateID(address, duplID, recordID);
+            }
+            else {
+               storageManager.updateDuplicateIDTransactional(tx.getID(), address, duplID, recordID);
+            }
          }
+         catch (Exception e) {
+            block.pending--;
+            releaseBlock(block);
+            throw e;
+         }
+      }
+
+      if (tx == null) {
+         addToCacheInMemory(duplID, recordID, block);
+      }
+      else {
+         tx.setContainsPersistent();
 
          // For a tx, it's important that the entry is not added to the cache until commit
          // since if the client fails then resends them tx we don't want it to get rejected
-         tx.addOperation(new AddDuplicateIDOperation(duplID, recordID));
+         tx.addOperation(new AddDuplicateIDOperation(duplID, recordID, block));
       }
    }
 
    public void load(final Transaction tx, final byte[] duplID) {
-      tx.addOperation(new AddDuplicateIDOperation(duplID, tx.getID()));
+      tx.addOperation(new AddDuplicateIDOperation(duplID, tx.getID(), null));
    }
 
-   private synchronized void addToCacheInMemory(final byte[] duplID, final long recordID) {
-      ByteArrayHolder holder = new ByteArrayHolder(duplID);
+   private IDBlock nextBlock() throws Exception {
+      IDBlock block = openBlock;
 
-      cache.put(holder, pos);
+      if (block == null) {
+         block = new IDBlock(storageManager.generateID());
 
-      Pair<ByteArrayHolder, Long> id;
+         // the ids are updates of the block record, which is added on its own so that
+         // it doesn't depend on the outcome of any transaction
+         storageManager.storeDuplicateID(address, BLOCK_HEADER, block.recordID);
 
-      if (pos < ids.size()) {
-         // Need fast array style access here -hence ArrayList typing
-         id = ids.get(pos);
+         blocks.put(block.recordID, block);
 
-         // The id here might be null if it was explicit deleted
-         if (id.getA() != null) {
-            cache.remove(id.getA());
+         openBlock = block;
+      }
 
-            // Record already exists - we delete the old one and add the new one
-            // Note we can't use update since journal update doesn't let older records get
-            // reclaimed
+      block.pending++;
 
-            if (id.getB() != null) {
-               try {
-                  storageManager.deleteDuplicateID(id.getB());
-               }
-               catch (Exception e) {
-                  ActiveMQServerLogger.LOGGER.errorDeletingDuplicateCache(e);
-               }
-            }
-         }
+      if (++block.assigned == blockSize) {
+         block.closed = true;
+         openBlock = null;
+      }
+
+      return block;
+   }
+
+   private synchronized void addToCacheInMemory(final byte[] duplID, final long recordID, final IDBlock block) {
+      if (block != null) {
+         block.pending--;
+         block.live++;
+      }
+
+      long evicted = table.add(duplID, recordID);
+
+      if (evicted >= 0) {
+         releaseRecord(evicted);
+      }
+   }
 
-         id.setA(holder);
+   private synchronized void rollback(final IDBlock block) {
+      block.pending--;
+
+      releaseBlock(block);
+   }
 
-         // The recordID could be negative if the duplicateCache is configured to not persist,
-         // -1 would mean null on this case
-         id.setB(recordID >= 0 ? recordID : null);
+   private void releaseRecord(final long recordID) {
+      IDBlock block = blocks.get(recordID);
 
-         holder.pos = pos;
+      if (block == null) {
+         deleteRecord(recordID);
       }
       else {
-         id = new Pair<ByteArrayHolder, Long>(holder, recordID >= 0 ? recordID : null);
+         block.live--;
+
+         releaseBlock(block);
+      }
+   }
 
-         ids.add(id);
+   private void releaseBlock(final IDBlock block) {
+      if (block.closed && block.live == 0 && block.pending == 0) {
+         blocks.remove(block.recordID);
 
-         holder.pos = pos;
+         deleteRecord(block.recordID);
       }
+   }
 
-      if (pos++ == cacheSize - 1) {
-         pos = 0;
+   private void deleteRecord(final long recordID) {
+      // Note we can't use update since journal update doesn't let older records get reclaimed
+      try {
+         storageManager.deleteDuplicateID(recordID);
+      }
+      catch (Exception e) {
+         ActiveMQServerLogger.LOGGER.errorDeletingDuplicateCache(e);
       }
    }
 
    public void clear() throws Exception {
       synchronized (this) {
-         if (ids.size() > 0) {
+         if (persist && table.size() + blocks.size() > 0) {
+            Set<Long> recordIDs = new HashSet<Long>(blocks.keySet());
+
+            for (Pair<byte[], Long> id : table.getEntries()) {
+               recordIDs.add(id.getB());
+            }
+
             long tx = storageManager.generateID();
-            for (Pair<ByteArrayHolder, Long> id : ids) {
-               storageManager.deleteDuplicateIDTransactional(tx, id.getB());
+            for (Long recordID : recordIDs) {
+               storageManager.deleteDuplicateIDTransactional(tx, recordID);
             }
             storageManager.commit(tx);
          }
 
-         ids.clear();
-         cache.clear();
-         pos = 0;
+         table.clear();
+         blocks.clear();
+         openBlock = null;
       }
    }
 
    @Override
-   public List<Pair<byte[], Long>> getMap() {
-      List<Pair<byte[], Long>> list = new ArrayList<>();
-      for (Pair<ByteArrayHolder, Long> id : ids) {
-         list.add(new Pair<>(id.getA().bytes, id.getB()));
-      }
-      return list;
+   public synchronized List<Pair<byte[], Long>> getMap() {
+      return table.getEntries();
    }
 
    private final class AddDuplicateIDOperation extends TransactionOperationAbstract {
@@ -243,16 +383,19 @@ public class DuplicateIDCacheImpl implements DuplicateIDCache {
 
       final long recordID;
 
+      final IDBlock block;
+
       volatile boolean done;
 
-      AddDuplicateIDOperation(final byte[] duplID, final long recordID) {
+      AddDuplicateIDOperation(final byte[] duplID, final long recordID, final IDBlock block) {
          this.duplID = duplID;
          this.recordID = recordID;
+         this.block = block;
       }
 
       private void process() {
          if (!done) {
-            addToCacheInMemory(duplID, recordID);
+            addToCacheInMemory(duplID, recordID, block);
 
             done = true;
          }
@@ -263,55 +406,40 @@ public class DuplicateIDCacheImpl implements DuplicateIDCache {
          process();
       }
 
+      @Override
+      public void afterRollback(final Transaction tx) {
+         if (block != null) {
+            rollback(block);
+         }
+      }
+
       @Override
       public List<MessageReference> getRelatedMessageReferences() {
          return null;
       }
    }
 
-   private static final class ByteArrayHolder {
-
-      ByteArrayHolder(final byte[] bytes) {
-         this.bytes = bytes;
-      }
-
-      final byte[] bytes;
+   /**
+    * The ids stored as updates of a single journal record
+    */
+   private static final class IDBlock {
 
-      int hash;
-
-      int pos;
+      final long recordID;
 
-      @Override
-      public boolean equals(final Object other) {
-         if (other instanceof ByteArrayHolder) {
-            ByteArrayHolder s = (ByteArrayHolder) other;
+      // ids written into the block
+      int assigned;
 
-            if (bytes.length != s.bytes.length) {
-               return false;
-            }
+      // ids written whose transaction is not finished yet
+      int pending;
 
-            for (int i = 0; i < bytes.length; i++) {
-               if (bytes[i] != s.bytes[i]) {
-                  return false;
-               }
-            }
-
-            return true;
-         }
-         else {
-            return false;
-         }
-      }
+      // ids in the cache
+      int live;
 
-      @Override
-      public int hashCode() {
-         if (hash == 0) {
-            for (byte b : bytes) {
-               hash = 31 * hash + b;
-            }
-         }
+      // no more ids will be written into the block
+      boolean closed;
 
-         return hash;
+      IDBlock(final long recordID) {
+         this.recordID = recordID;
       }
    }
 }
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.core.postoffice.impl;
+
+import java.util.Arrays;
+
+/**
+ * A counting bloom filter over the hashes of the ids of a {@link DuplicateIDTable}, telling without a lock
+ * that an id is definitely not in the table.
+ * <p>
+ * Changes must be serialized by the caller. {@link #mightContain(int)} can run concurrently with them, it never
+ * misses a hash whose add happened before it, as the counters are published by a volatile write.
+ */
+final class DuplicateIDFilter {
+
+   private static final int MAX_HASHES = 16;
+
+   private static final byte SATURATED = (byte) 0xff;
+
+   // one byte per counter, a saturated counter is never decremented
+   private final byte[] counters;
+
+   private final int mask;
+
+   private final int hashes;
+
+   private volatile int modCount;
+
+   DuplicateIDFilter(final int capacity, final double falsePositiveRate) {
+      double ln2 = Math.log(2);
+
+      long bits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (ln2 * ln2));
+
+      int size = 64;
+      while (size < bits && size < (1 << 30)) {
+         size <<= 1;
+      }
+
+      counters = new byte[size];
+      mask = size - 1;
+      hashes = (int) Math.max(1, Math.min(MAX_HASHES, Math.round((double) bits / capacity * ln2)));
+   }
+
+   boolean mightContain(final int hash) {
+      // never negative, reading it makes the counters written before the last change visible
+      if (modCount < 0) {
+         return true;
+      }
+
+      int step = step(hash);
+
+      for (int i = 0; i < hashes; i++) {
+         if (counters[(hash + i * step) & mask] == 0) {
+            return false;
+         }
+      }
+
+      return true;
+   }
+
+   void add(final int hash) {
+      int step = step(hash);
+
+      for (int i = 0; i < hashes; i++) {
+         int index = (hash + i * step) & mask;
+
+         if (counters[index] != SATURATED) {
+            counters[index]++;
+         }
+      }
+
+      modCount = (modCount + 1) & Integer.MAX_VALUE;
+   }
+
+   void remove(final int hash) {
+      int step = step(hash);
+
+      for (int i = 0; i < hashes; i++) {
+         int index = (hash + i * step) & mask;
+
+         if (counters[index] != SATURATED && counters[index] != 0) {
+            counters[index]--;
+         }
+      }
+
+      modCount = (modCount + 1) & Integer.MAX_VALUE;
+   }
+
+   void clear() {
+      Arrays.fill(counters, (byte) 0);
+
+      modCount = (modCount + 1) & Integer.MAX_VALUE;
+   }
+
+   int getSize() {
+      return counters.length;
+   }
+
+   // an odd step visits distinct counters, derived from the high bits as the low ones give the start
+   private static int step(final int hash) {
+      return ((hash >>> 16) * 0x9e3779b1) | 1;
+   }
+}
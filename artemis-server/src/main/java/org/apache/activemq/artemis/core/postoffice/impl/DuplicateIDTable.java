@@ -0,0 +1,462 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.core.postoffice.impl;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.activemq.artemis.api.core.Pair;
+
+/**
+ * A fixed size rotating set of the last X duplicate ids, kept in direct memory.
+ * <p>
+ * Each id takes a fixed size slot in a ring holding its record id, hash, length and the position of its bytes,
+ * which are appended to a circular log. An open addressing table of slot numbers finds the slots by hash.
+ * Since ids are evicted in the order they were added, evicting the oldest slot also frees the oldest bytes of
+ * the log, and nothing is allocated on the heap per id.
+ * <p>
+ * The memory grows with the ids added until the ring is full, it is never shrunk. This class is not thread safe,
+ * except for {@link #mightContain(byte[])} when the table has a filter.
+ */
+public final class DuplicateIDTable {
+
+   // recordID (long), log offset (long), hash (int), length (int)
+   private static final int SLOT_SIZE = 24;
+
+   private static final int RECORD_ID = 0;
+
+   private static final int OFFSET = 8;
+
+   private static final int HASH = 16;
+
+   private static final int LENGTH = 20;
+
+   // a slot whose id was removed, its bytes stay in the log until the slot is reused
+   private static final long REMOVED = Long.MIN_VALUE;
+
+   private static final int INITIAL_SLOTS = 1024;
+
+   private static final int INITIAL_LOG_SIZE = 16 * 1024;
+
+   private final int capacity;
+
+   private final DuplicateIDFilter filter;
+
+   private ByteBuffer slots;
+
+   private int slotsCapacity;
+
+   // slot number + 1, 0 being an empty entry
+   private ByteBuffer table;
+
+   private int tableMask;
+
+   private ByteBuffer log;
+
+   private int logMask;
+
+   private long logHead;
+
+   private long logTail;
+
+   // the next slot to be written, the oldest one once the ring is full
+   private int pos;
+
+   private int slotCount;
+
+   private int size;
+
+   public DuplicateIDTable(final int capacity) {
+      this(capacity, 0);
+   }
+
+   /**
+    * @param falsePositiveRate the rate of ids not in the table {@link #mightContain(byte[])} lets through,
+    *                          between 0 and 1, 0 meaning no filter
+    */
+   public DuplicateIDTable(final int capacity, final double falsePositiveRate) {
+      if (capacity <= 0) {
+         throw new IllegalArgumentException("capacity must be greater than 0");
+      }
+
+      if (falsePositiveRate < 0 || falsePositiveRate >= 1) {
+         throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+      }
+
+      this.capacity = capacity;
+
+      filter = falsePositiveRate > 0 ? new DuplicateIDFilter(capacity, falsePositiveRate) : null;
+
+      clear();
+   }
+
+   public int size() {
+      return size;
+   }
+
+   public int capacity() {
+      return capacity;
+   }
+
+   /**
+    * The direct memory taken by this table, in bytes
+    */
+   public long getMemorySize() {
+      return (long) slotsCapacity * SLOT_SIZE + (tableMask + 1L) * 4 + logMask + 1L + (filter != null ? filter.getSize() : 0);
+   }
+
+   public boolean hasFilter() {
+      return filter != null;
+   }
+
+   /**
+    * Whether the id may be in the table, false meaning it is definitely not. It can be called concurrently with
+    * changes to the table, without a filter it is always true.
+    */
+   public boolean mightContain(final byte[] id) {
+      return filter == null || filter.mightContain(hash(id));
+   }
+
+   public boolean contains(final byte[] id) {
+      return find(id, hash(id)) >= 0;
+   }
+
+   /**
+    * Adds an id, evicting the oldest one if the table is full.
+    *
+    * @return the record id of the evicted id, or -1 if none was evicted or it had no record
+    */
+   public long add(final byte[] id, final long recordID) {
+      long evicted = -1;
+
+      if (slotCount == capacity) {
+         evicted = evict(pos);
+      }
+      else if (pos == slotsCapacity) {
+         growSlots();
+      }
+
+      if ((size + 1) * 2L > tableMask + 1L) {
+         growTable();
+      }
+
+      int hash = hash(id);
+
+      ensureLogSpace(id.length);
+
+      int slot = pos * SLOT_SIZE;
+      slots.putLong(slot + RECORD_ID, recordID);
+      slots.putLong(slot + OFFSET, logHead);
+      slots.putInt(slot + HASH, hash);
+      slots.putInt(slot + LENGTH, id.length);
+
+      for (int i = 0; i < id.length; i++) {
+         log.put((int) ((logHead + i) & logMask), id[i]);
+      }
+      logHead += id.length;
+
+      insert(pos, hash);
+
+      if (filter != null) {
+         filter.add(hash);
+      }
+
+      size++;
+
+      if (slotCount < capacity) {
+         slotCount++;
+      }
+
+      if (++pos == capacity) {
+         pos = 0;
+      }
+
+      return evicted;
+   }
+
+   /**
+    * Removes an id, its slot is only reused when the ring gets back to it.
+    *
+    * @return the record id of the removed id, or -1 if it wasn't found or had no record
+    */
+   public long remove(final byte[] id) {
+      int index = find(id, hash(id));
+
+      if (index < 0) {
+         return -1;
+      }
+
+      int slotNumber = table.getInt(index * 4) - 1;
+
+      long recordID = slots.getLong(slotNumber * SLOT_SIZE + RECORD_ID);
+
+      delete(index);
+
+      slots.putLong(slotNumber * SLOT_SIZE + RECORD_ID, REMOVED);
+
+      if (filter != null) {
+         filter.remove(slots.getInt(slotNumber * SLOT_SIZE + HASH));
+      }
+
+      size--;
+
+      return recordID;
+   }
+
+   public void clear() {
+      slotsCapacity = Math.min(capacity, INITIAL_SLOTS);
+      slots = ByteBuffer.allocateDirect(slotsCapacity * SLOT_SIZE);
+
+      int tableSize = tableSizeFor(slotsCapacity * 2);
+      table = ByteBuffer.allocateDirect(tableSize * 4);
+      tableMask = tableSize - 1;
+
+      log = ByteBuffer.allocateDirect(INITIAL_LOG_SIZE);
+      logMask = INITIAL_LOG_SIZE - 1;
+
+      if (filter != null) {
+         filter.clear();
+      }
+
+      logHead = 0;
+      logTail = 0;
+      pos = 0;
+      slotCount = 0;
+      size = 0;
+   }
+
+   /**
+    * The ids and their record ids, from the oldest to the newest
+    */
+   public List<Pair<byte[], Long>> getEntries() {
+      List<Pair<byte[], Long>> entries = new ArrayList<Pair<byte[], Long>>(size);
+
+      int first = slotCount == capacity ? pos : 0;
+
+      for (int i = 0; i < slotCount; i++) {
+         int slot = ((first + i) % capacity) * SLOT_SIZE;
+
+         long recordID = slots.getLong(slot + RECORD_ID);
+
+         if (recordID != REMOVED) {
+            entries.add(new Pair<byte[], Long>(readID(slot), recordID));
+         }
+      }
+
+      return entries;
+   }
+
+   private long evict(final int slotNumber) {
+      int slot = slotNumber * SLOT_SIZE;
+
+      long recordID = slots.getLong(slot + RECORD_ID);
+
+      if (recordID != REMOVED) {
+         delete(indexOf(slotNumber, slots.getInt(slot + HASH)));
+         slots.putLong(slot + RECORD_ID, REMOVED);
+
+         if (filter != null) {
+            filter.remove(slots.getInt(slot + HASH));
+         }
+         size--;
+      }
+
+      // the next slot in the ring holds the oldest bytes left in the log
+      if (capacity > 1) {
+         logTail = slots.getLong(((slotNumber + 1) % capacity) * SLOT_SIZE + OFFSET);
+      }
+      else {
+         logTail = logHead;
+      }
+
+      return recordID == REMOVED ? -1 : recordID;
+   }
+
+   private int find(final byte[] id, final int hash) {
+      int index = hash & tableMask;
+
+      while (true) {
+         int entry = table.getInt(index * 4);
+
+         if (entry == 0) {
+            return -1;
+         }
+
+         int slot = (entry - 1) * SLOT_SIZE;
+
+         if (slots.getInt(slot + HASH) == hash && matches(slot, id)) {
+            return index;
+         }
+
+         index = (index + 1) & tableMask;
+      }
+   }
+
+   private int indexOf(final int slotNumber, final int hash) {
+      int index = hash & tableMask;
+
+      while (table.getInt(index * 4) != slotNumber + 1) {
+         index = (index + 1) & tableMask;
+      }
+
+      return index;
+   }
+
+   private void insert(final int slotNumber, final int hash) {
+      int index = hash & tableMask;
+
+      while (table.getInt(index * 4) != 0) {
+         index = (index + 1) & tableMask;
+      }
+
+      table.putInt(index * 4, slotNumber + 1);
+   }
+
+   // removes a table entry shifting back the entries of its probe sequence, so no tombstones are needed
+   private void delete(int index) {
+      int next = index;
+
+      while (true) {
+         next = (next + 1) & tableMask;
+
+         int entry = table.getInt(next * 4);
+
+         if (entry == 0) {
+            break;
+         }
+
+         int home = slots.getInt((entry - 1) * SLOT_SIZE + HASH) & tableMask;
+
+         // the entry can't move before its home position
+         boolean stays = index <= next ? (index < home && home <= next) : (index < home || home <= next);
+
+         if (!stays) {
+            table.putInt(index * 4, entry);
+            index = next;
+         }
+      }
+
+      table.putInt(index * 4, 0);
+   }
+
+   private boolean matches(final int slot, final byte[] id) {
+      if (slots.getInt(slot + LENGTH) != id.length) {
+         return false;
+      }
+
+      long offset = slots.getLong(slot + OFFSET);
+
+      for (int i = 0; i < id.length; i++) {
+         if (log.get((int) ((offset + i) & logMask)) != id[i]) {
+            return false;
+         }
+      }
+
+      return true;
+   }
+
+   private byte[] readID(final int slot) {
+      byte[] id = new byte[slots.getInt(slot + LENGTH)];
+
+      long offset = slots.getLong(slot + OFFSET);
+
+      for (int i = 0; i < id.length; i++) {
+         id[i] = log.get((int) ((offset + i) & logMask));
+      }
+
+      return id;
+   }
+
+   private void growSlots() {
+      int newCapacity = (int) Math.min(capacity, slotsCapacity * 2L);
+
+      ByteBuffer newSlots = ByteBuffer.allocateDirect(newCapacity * SLOT_SIZE);
+
+      slots.clear();
+      newSlots.put(slots);
+
+      slots = newSlots;
+      slotsCapacity = newCapacity;
+   }
+
+   private void growTable() {
+      int newSize = (tableMask + 1) * 2;
+
+      table = ByteBuffer.allocateDirect(newSize * 4);
+      tableMask = newSize - 1;
+
+      for (int i = 0; i < slotCount; i++) {
+         int slot = i * SLOT_SIZE;
+
+         if (slots.getLong(slot + RECORD_ID) != REMOVED) {
+            insert(i, slots.getInt(slot + HASH));
+         }
+      }
+   }
+
+   private void ensureLogSpace(final int length) {
+      long needed = logHead - logTail + length;
+
+      if (needed <= logMask + 1L) {
+         return;
+      }
+
+      int newSize = logMask + 1;
+
+      while (newSize < needed) {
+         newSize *= 2;
+      }
+
+      ByteBuffer newLog = ByteBuffer.allocateDirect(newSize);
+
+      int newMask = newSize - 1;
+
+      // the offsets are kept, only their position in the buffer changes with the mask
+      for (long offset = logTail; offset < logHead; offset++) {
+         newLog.put((int) (offset & newMask), log.get((int) (offset & logMask)));
+      }
+
+      log = newLog;
+      logMask = newMask;
+   }
+
+   private static int tableSizeFor(final int minimum) {
+      int size = 1;
+
+      while (size < minimum) {
+         size <<= 1;
+      }
+
+      return size;
+   }
+
+   private static int hash(final byte[] id) {
+      int hash = 0;
+
+      for (byte b : id) {
+         hash = 31 * hash + b;
+      }
+
+      // the low bits pick the table entry, mix the high bits in
+      hash ^= hash >>> 16;
+      hash *= 0x85ebca6b;
+      hash ^= hash >>> 13;
+
+      return hash;
+   }
+}
@@ -67,6 +67,7 @@ import org.apache.activemq.artemis.core.server.RouteContextList;
 import org.apache.activemq.artemis.core.server.RoutingContext;
 import org.apache.activemq.artemis.core.server.ServerMessage;
 import org.apache.activemq.artemis.core.server.group.GroupingHandler;
+import org.apache.activemq.artemis.core.server.impl.LatencyMetrics;
 import org.apache.activemq.artemis.core.server.impl.RoutingContextImpl;
 import org.apache.activemq.artemis.core.server.impl.ServerMessageImpl;
 import org.apache.activemq.artemis.core.server.management.ManagementService;
@@ -96,6 +97,12 @@ public class PostOfficeImpl implements PostOffice, NotificationListener, Binding
 
    public static final SimpleString BRIDGE_CACHE_STR = new SimpleString("BRIDGE.");
 
+   /**
+    * A routing context per thread reused by the routes that don't get one from the caller.
+    * It is taken out while in use, so a route nested in another (e.g. to a DLA) creates its own.
+    */
+   private static final ThreadLocal<RoutingContextImpl> cachedRoutingContext = new ThreadLocal<RoutingContextImpl>();
+
    private final AddressManager addressManager;
 
    private final QueueFactory queueFactory;
@@ -122,6 +129,8 @@ public class PostOfficeImpl implements PostOffice, NotificationListener, Binding
 
    private final boolean persistIDCache;
 
+   private final double idCacheFilterFalsePositiveRate;
+
    private final Map<SimpleString, QueueInfo> queueInfos = new HashMap<SimpleString, QueueInfo>();
 
    private final Object notificationLock = new Object();
@@ -130,6 +139,9 @@ public class PostOfficeImpl implements PostOffice, NotificationListener, Binding
 
    private final ActiveMQServer server;
 
+   // null unless the latencies of routing are measured
+   private volatile LatencyMetrics latencyMetrics;
+
    public PostOfficeImpl(final ActiveMQServer server,
                          final StorageManager storageManager,
                          final PagingManager pagingManager,
@@ -140,6 +152,7 @@ public class PostOfficeImpl implements PostOffice, NotificationListener, Binding
                          final boolean enableWildCardRouting,
                          final int idCacheSize,
                          final boolean persistIDCache,
+                         final double idCacheFilterFalsePositiveRate,
                          final HierarchicalRepository<AddressSettings> addressSettingsRepository) {
       this.storageManager = storageManager;
 
@@ -164,11 +177,20 @@ public class PostOfficeImpl implements PostOffice, NotificationListener, Binding
 
       this.persistIDCache = persistIDCache;
 
+      this.idCacheFilterFalsePositiveRate = idCacheFilterFalsePositiveRate;
+
       this.addressSettingsRepository = addressSettingsRepository;
 
       this.server = server;
    }
 
+   /**
+    * Makes the bindings created from now on measure the latencies of routing
+    */
+   public void setLatencyMetrics(final LatencyMetrics latencyMetrics) {
+      this.latencyMetrics = latencyMetrics;
+   }
+
    // ActiveMQComponent implementation ---------------------------------------
 
    public synchronized void start() throws Exception {
@@ -564,7 +586,7 @@ public class PostOfficeImpl implements PostOffice, NotificationListener, Binding
                      QueueCreator queueCreator,
                      final Transaction tx,
                      final boolean direct) throws Exception {
-      route(message, queueCreator, new RoutingContextImpl(tx), direct);
+      route(message, queueCreator, tx, direct, true);
    }
 
    public void route(final ServerMessage message,
@@ -572,7 +594,23 @@ public class PostOfficeImpl implements PostOffice, NotificationListener, Binding
                      final Transaction tx,
                      final boolean direct,
                      final boolean rejectDuplicates) throws Exception {
-      route(message, queueCreator, new RoutingContextImpl(tx), direct, rejectDuplicates);
+      RoutingContextImpl context = cachedRoutingContext.get();
+
+      if (context == null) {
+         context = new RoutingContextImpl(tx);
+      }
+      else {
+         cachedRoutingContext.set(null);
+         context.setTransaction(tx);
+      }
+
+      try {
+         route(message, queueCreator, context, direct, rejectDuplicates);
+      }
+      finally {
+         context.clear();
+         cachedRoutingContext.set(context);
+      }
    }
 
    public void route(final ServerMessage message,
@@ -592,6 +630,8 @@ public class PostOfficeImpl implements PostOffice, NotificationListener, Binding
          throw new IllegalStateException("Message cannot be routed more than once");
       }
 
+      long start = latencyMetrics == null ? 0 : System.nanoTime();
+
       SimpleString address = message.getAddress();
 
       setPagingStore(message);
@@ -686,6 +726,10 @@ public class PostOfficeImpl implements PostOffice, NotificationListener, Binding
             }
             throw e;
          }
+
+         if (bindings != null && start != 0) {
+            bindings.recordRouteLatency(System.nanoTime() - start);
+         }
       }
 
       if (startedTX.get()) {
@@ -766,7 +810,7 @@ public class PostOfficeImpl implements PostOffice, NotificationListener, Binding
       DuplicateIDCache cache = duplicateIDCaches.get(address);
 
       if (cache == null) {
-         cache = new DuplicateIDCacheImpl(address, idCacheSize, storageManager, persistIDCache);
+         cache = new DuplicateIDCacheImpl(address, idCacheSize, storageManager, persistIDCache, idCacheFilterFalsePositiveRate);
 
          DuplicateIDCache oldCache = duplicateIDCaches.putIfAbsent(address, cache);
 
@@ -1346,6 +1390,9 @@ public class PostOfficeImpl implements PostOffice, NotificationListener, Binding
    public Bindings createBindings(final SimpleString address) throws Exception {
       GroupingHandler groupingHandler = server.getGroupingHandler();
       BindingsImpl bindings = new BindingsImpl(address, groupingHandler, pagingManager.getPageStore(address));
+      if (latencyMetrics != null) {
+         bindings.setLatencyMetrics(latencyMetrics);
+      }
       if (groupingHandler != null) {
          groupingHandler.addListener(bindings);
       }
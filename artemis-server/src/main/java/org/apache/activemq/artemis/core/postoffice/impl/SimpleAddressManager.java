@@ -23,6 +23,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
 import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.message.impl.MessageImpl;
 import org.apache.activemq.artemis.core.postoffice.Address;
 import org.apache.activemq.artemis.core.postoffice.AddressManager;
 import org.apache.activemq.artemis.core.postoffice.Binding;
@@ -177,9 +178,12 @@ public class SimpleAddressManager implements AddressManager {
       Bindings prevBindings = null;
 
       if (bindings == null) {
-         bindings = bindingsFactory.createBindings(address);
+         // the decoded messages get the same instance of the address, that the lookups compare first
+         SimpleString pooledAddress = MessageImpl.ADDRESS_POOL.intern(address);
 
-         prevBindings = mappings.putIfAbsent(address, bindings);
+         bindings = bindingsFactory.createBindings(pooledAddress);
+
+         prevBindings = mappings.putIfAbsent(pooledAddress, bindings);
 
          if (prevBindings != null) {
             bindings = prevBindings;
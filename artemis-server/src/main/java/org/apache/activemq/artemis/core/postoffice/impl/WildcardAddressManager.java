@@ -17,7 +17,6 @@
 package org.apache.activemq.artemis.core.postoffice.impl;
 
 import java.util.Collection;
-import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -51,6 +50,13 @@ public class WildcardAddressManager extends SimpleAddressManager {
 
    private final Map<SimpleString, Address> wildCardAddresses = new ConcurrentHashMap<SimpleString, Address>();
 
+   /**
+    * The same addresses indexed by their words, so matching an address only walks the branches it can match
+    */
+   private final AddressTree addressTree = new AddressTree();
+
+   private final AddressTree wildCardTree = new AddressTree();
+
    public WildcardAddressManager(final BindingsFactory bindingsFactory) {
       super(bindingsFactory);
    }
@@ -61,7 +67,12 @@ public class WildcardAddressManager extends SimpleAddressManager {
 
       // this should only happen if we're routing to an address that has no mappings when we're running checkAllowable
       if (bindings == null && !wildCardAddresses.isEmpty()) {
-         Address add = addAndUpdateAddressMap(address);
+         Address add = new AddressImpl(address);
+         // most addresses without bindings don't match any wildcard either, which we can tell without locking
+         if (!add.containsWildCard() && wildCardTree.getWildcardsMatching(add).isEmpty()) {
+            return null;
+         }
+         add = addAndUpdateAddressMap(add);
          if (!add.containsWildCard()) {
             for (Address destAdd : add.getLinkedAddresses()) {
                Bindings b = super.getBindingsForRoutingAddress(destAdd.getAddress());
@@ -89,7 +100,7 @@ public class WildcardAddressManager extends SimpleAddressManager {
    public boolean addBinding(final Binding binding) throws Exception {
       boolean exists = super.addBinding(binding);
       if (!exists) {
-         Address add = addAndUpdateAddressMap(binding.getAddress());
+         Address add = addAndUpdateAddressMap(new AddressImpl(binding.getAddress()));
          if (add.containsWildCard()) {
             for (Address destAdd : add.getLinkedAddresses()) {
                super.addMappingInternal(destAdd.getAddress(), binding);
@@ -134,6 +145,8 @@ public class WildcardAddressManager extends SimpleAddressManager {
       super.clear();
       addresses.clear();
       wildCardAddresses.clear();
+      addressTree.clear();
+      wildCardTree.clear();
    }
 
    private Address getAddress(final SimpleString address) {
@@ -148,8 +161,8 @@ public class WildcardAddressManager extends SimpleAddressManager {
       return actualAddress != null ? actualAddress : add;
    }
 
-   private synchronized Address addAndUpdateAddressMap(final SimpleString address) {
-      Address add = new AddressImpl(address);
+   private synchronized Address addAndUpdateAddressMap(final Address add) {
+      SimpleString address = add.getAddress();
       Address actualAddress;
       if (add.containsWildCard()) {
          actualAddress = wildCardAddresses.get(address);
@@ -162,20 +175,15 @@ public class WildcardAddressManager extends SimpleAddressManager {
          addAddress(address, actualAddress);
       }
       if (actualAddress.containsWildCard()) {
-         for (Address destAdd : addresses.values()) {
-            if (destAdd.matches(actualAddress)) {
-               destAdd.addLinkedAddress(actualAddress);
-               actualAddress.addLinkedAddress(destAdd);
-            }
+         for (Address destAdd : addressTree.getAddressesMatching(actualAddress)) {
+            destAdd.addLinkedAddress(actualAddress);
+            actualAddress.addLinkedAddress(destAdd);
          }
       }
       else {
-         for (Address destAdd : wildCardAddresses.values()) {
-            if (actualAddress.matches(destAdd)) {
-               destAdd.addLinkedAddress(actualAddress);
-               actualAddress.addLinkedAddress(destAdd);
-
-            }
+         for (Address destAdd : wildCardTree.getWildcardsMatching(actualAddress)) {
+            destAdd.addLinkedAddress(actualAddress);
+            actualAddress.addLinkedAddress(destAdd);
          }
       }
       return actualAddress;
@@ -184,9 +192,11 @@ public class WildcardAddressManager extends SimpleAddressManager {
    private void addAddress(final SimpleString address, final Address actualAddress) {
       if (actualAddress.containsWildCard()) {
          wildCardAddresses.put(address, actualAddress);
+         wildCardTree.put(actualAddress);
       }
       else {
          addresses.put(address, actualAddress);
+         addressTree.put(actualAddress);
       }
    }
 
@@ -194,7 +204,7 @@ public class WildcardAddressManager extends SimpleAddressManager {
       // we only remove if there are no bindings left
       Bindings bindings = super.getBindingsForRoutingAddress(address.getAddress());
       if (bindings == null || bindings.getBindings().size() == 0) {
-         List<Address> addresses = address.getLinkedAddresses();
+         Collection<Address> addresses = address.getLinkedAddresses();
          for (Address address1 : addresses) {
             address1.removeLinkedAddress(address);
             Bindings linkedBindings = super.getBindingsForRoutingAddress(address1.getAddress());
@@ -209,9 +219,11 @@ public class WildcardAddressManager extends SimpleAddressManager {
    private void removeAddress(final Address add) {
       if (add.containsWildCard()) {
          wildCardAddresses.remove(add.getAddress());
+         wildCardTree.remove(add);
       }
       else {
          addresses.remove(add.getAddress());
+         addressTree.remove(add);
       }
    }
 }
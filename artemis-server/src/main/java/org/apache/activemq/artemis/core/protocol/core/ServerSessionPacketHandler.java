@@ -50,7 +50,9 @@ import static org.apache.activemq.artemis.core.protocol.core.impl.PacketImpl.SES
 import static org.apache.activemq.artemis.core.protocol.core.impl.PacketImpl.SESS_XA_FAILED;
 import static org.apache.activemq.artemis.core.protocol.core.impl.PacketImpl.SESS_XA_SUSPEND;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import javax.transaction.xa.XAResource;
 import javax.transaction.xa.Xid;
@@ -58,6 +60,7 @@ import javax.transaction.xa.Xid;
 import org.apache.activemq.artemis.api.core.ActiveMQException;
 import org.apache.activemq.artemis.api.core.ActiveMQExceptionType;
 import org.apache.activemq.artemis.api.core.ActiveMQInternalErrorException;
+import org.apache.activemq.artemis.api.core.ActiveMQInterruptedException;
 import org.apache.activemq.artemis.core.io.IOCallback;
 import org.apache.activemq.artemis.core.exception.ActiveMQXAException;
 import org.apache.activemq.artemis.core.persistence.StorageManager;
@@ -111,6 +114,7 @@ import org.apache.activemq.artemis.core.server.ActiveMQMessageBundle;
 import org.apache.activemq.artemis.core.server.QueueQueryResult;
 import org.apache.activemq.artemis.core.server.ServerMessage;
 import org.apache.activemq.artemis.core.server.ServerSession;
+import org.apache.activemq.artemis.core.server.impl.SendStageMetrics;
 import org.apache.activemq.artemis.spi.core.remoting.Connection;
 
 public class ServerSessionPacketHandler implements ChannelHandler {
@@ -127,15 +131,50 @@ public class ServerSessionPacketHandler implements ChannelHandler {
 
    private final boolean direct;
 
+   private final SendStageMetrics sendStageMetrics;
+
+   // handles the packets in order when they are pipelined, null when they are handled as they are read
+   private final Executor pipelineExecutor;
+
+   private final int pipelineSize;
+
+   // guarded by this, the packets handed to the executor and not handled yet
+   private int pendingPackets;
+
+   // guarded by this, the credit requests held back while too many packets are pending
+   private final List<Packet> withheldCredits = new ArrayList<Packet>();
+
+   // held while a pipelined packet is handled, so closing the session waits for it
+   private final Object handlingLock = new Object();
+
+   // once the session is closed or its connection failed, the pipelined packets still pending are dropped
+   private volatile boolean closed;
+
+   /**
+    * @param sendStageMetrics the metrics the stages of the sends are recorded to, null if the latencies aren't measured
+    * @param pipelineExecutor an ordered executor to handle the packets on, so the remoting thread can go on reading,
+    *                         or null to handle them as they are read
+    * @param pipelineSize     how many packets can be pending on the executor before the producer credits of the
+    *                         session are held back
+    */
    public ServerSessionPacketHandler(final ServerSession session,
                                      final StorageManager storageManager,
-                                     final Channel channel) {
+                                     final Channel channel,
+                                     final SendStageMetrics sendStageMetrics,
+                                     final Executor pipelineExecutor,
+                                     final int pipelineSize) {
       this.session = session;
 
       this.storageManager = storageManager;
 
       this.channel = channel;
 
+      this.sendStageMetrics = sendStageMetrics;
+
+      this.pipelineExecutor = pipelineExecutor;
+
+      this.pipelineSize = pipelineSize;
+
       this.remotingConnection = channel.getConnection();
 
       //TODO think of a better way of doing this
@@ -160,6 +199,8 @@ public class ServerSessionPacketHandler implements ChannelHandler {
    public void connectionFailed(final ActiveMQException exception, boolean failedOver) {
       ActiveMQServerLogger.LOGGER.clientConnectionFailed(session.getName());
 
+      stopPipeline();
+
       try {
          session.close(true);
       }
@@ -171,6 +212,8 @@ public class ServerSessionPacketHandler implements ChannelHandler {
    }
 
    public void close() {
+      stopPipeline();
+
       channel.flushConfirmations();
 
       try {
@@ -186,6 +229,107 @@ public class ServerSessionPacketHandler implements ChannelHandler {
    }
 
    public void handlePacket(final Packet packet) {
+      if (pipelineExecutor == null) {
+         handlePacket(packet, false, 0);
+         return;
+      }
+
+      if (packetPending(packet)) {
+         pipeline(packet);
+      }
+   }
+
+   private void pipeline(final Packet packet) {
+      final long received = sendStageMetrics == null ? 0 : System.nanoTime();
+
+      pipelineExecutor.execute(new Runnable() {
+         public void run() {
+            try {
+               synchronized (handlingLock) {
+                  if (!closed) {
+                     handlePacket(packet, true, received);
+                  }
+               }
+            }
+            finally {
+               packetHandled();
+            }
+         }
+      });
+   }
+
+   /**
+    * Instead of pausing the connection, which is shared with other sessions, a session with too many packets pending
+    * holds back the credits its producers ask for
+    *
+    * @return false if the packet is a credit request held back
+    */
+   private synchronized boolean packetPending(final Packet packet) {
+      if (packet.getType() == PacketImpl.SESS_PRODUCER_REQUEST_CREDITS && pendingPackets >= pipelineSize) {
+         withheldCredits.add(packet);
+         return false;
+      }
+
+      pendingPackets++;
+
+      return true;
+   }
+
+   private void packetHandled() {
+      List<Packet> released = null;
+
+      synchronized (this) {
+         pendingPackets--;
+
+         // releasing at half the size instead of right below it keeps from holding back the next request again
+         if (pendingPackets <= pipelineSize / 2 && !withheldCredits.isEmpty() && !closed) {
+            released = new ArrayList<Packet>(withheldCredits);
+            withheldCredits.clear();
+            pendingPackets += released.size();
+         }
+
+         notifyAll();
+      }
+
+      if (released != null) {
+         for (Packet packet : released) {
+            pipeline(packet);
+         }
+      }
+   }
+
+   /**
+    * Drops the pipelined packets not handled yet, after waiting for the one being handled
+    */
+   private void stopPipeline() {
+      if (pipelineExecutor == null) {
+         return;
+      }
+
+      synchronized (handlingLock) {
+         closed = true;
+      }
+
+      synchronized (this) {
+         withheldCredits.clear();
+      }
+   }
+
+   /**
+    * Waits for the pipelined packets to be handled, so they are confirmed before the connection is transferred
+    */
+   private synchronized void waitPendingPackets() {
+      while (pendingPackets > 0) {
+         try {
+            wait();
+         }
+         catch (InterruptedException e) {
+            throw new ActiveMQInterruptedException(e);
+         }
+      }
+   }
+
+   private void handlePacket(final Packet packet, final boolean pipelined, final long received) {
       byte type = packet.getType();
 
       storageManager.setContext(session.getSessionContext());
@@ -194,6 +338,9 @@ public class ServerSessionPacketHandler implements ChannelHandler {
       boolean flush = false;
       boolean closeChannel = false;
       boolean requiresResponse = false;
+      // set once a message was routed, to measure how long it takes to be persisted
+      boolean routedSend = false;
+      long routed = 0;
 
       if (isTrace) {
          ActiveMQServerLogger.LOGGER.trace("ServerSessionPacketHandler::handlePacket," + packet);
@@ -426,7 +573,19 @@ public class ServerSessionPacketHandler implements ChannelHandler {
                case SESS_SEND: {
                   SessionSendMessage message = (SessionSendMessage) packet;
                   requiresResponse = message.isRequiresResponse();
-                  session.send((ServerMessage) message.getMessage(), direct);
+                  if (sendStageMetrics == null) {
+                     session.send((ServerMessage) message.getMessage(), direct);
+                  }
+                  else {
+                     long routing = System.nanoTime();
+                     if (pipelined) {
+                        sendStageMetrics.getQueued().record(routing - received);
+                     }
+                     session.send((ServerMessage) message.getMessage(), direct);
+                     routed = System.nanoTime();
+                     routedSend = true;
+                     sendStageMetrics.getRouting().record(routed - routing);
+                  }
                   if (requiresResponse) {
                      response = new NullResponseMessage();
                   }
@@ -517,7 +676,7 @@ public class ServerSessionPacketHandler implements ChannelHandler {
             }
          }
 
-         sendResponse(packet, response, flush, closeChannel);
+         sendResponse(packet, response, flush, closeChannel, routedSend, routed);
       }
       finally {
          storageManager.clearContext();
@@ -527,7 +686,9 @@ public class ServerSessionPacketHandler implements ChannelHandler {
    private void sendResponse(final Packet confirmPacket,
                              final Packet response,
                              final boolean flush,
-                             final boolean closeChannel) {
+                             final boolean closeChannel,
+                             final boolean routedSend,
+                             final long routed) {
       if (isTrace) {
          ActiveMQServerLogger.LOGGER.trace("ServerSessionPacketHandler::scheduling response::" + response);
       }
@@ -547,6 +708,10 @@ public class ServerSessionPacketHandler implements ChannelHandler {
          }
 
          public void done() {
+            if (routedSend) {
+               sendStageMetrics.getPersistence().record(System.nanoTime() - routed);
+            }
+
             doConfirmAndResponse(confirmPacket, response, flush, closeChannel);
          }
       });
@@ -594,6 +759,11 @@ public class ServerSessionPacketHandler implements ChannelHandler {
       // before we have transferred the connection, leaving it in a started state
       session.setTransferring(true);
 
+      // Packets the client sent before failing over must be confirmed, or they would be replayed and handled twice
+      if (pipelineExecutor != null) {
+         waitPendingPackets();
+      }
+
       List<CloseListener> closeListeners = remotingConnection.removeCloseListeners();
       List<FailureListener> failureListeners = remotingConnection.removeFailureListeners();
 
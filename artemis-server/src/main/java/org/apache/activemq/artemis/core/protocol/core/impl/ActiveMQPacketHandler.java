@@ -38,6 +38,7 @@ import org.apache.activemq.artemis.core.server.ActiveMQMessageBundle;
 import org.apache.activemq.artemis.core.server.ActiveMQServer;
 import org.apache.activemq.artemis.core.server.ActiveMQServerLogger;
 import org.apache.activemq.artemis.core.server.ServerSession;
+import org.apache.activemq.artemis.core.server.impl.SendStageMetrics;
 import org.apache.activemq.artemis.core.version.Version;
 
 /**
@@ -149,7 +150,11 @@ public class ActiveMQPacketHandler implements ChannelHandler {
 
          ServerSession session = server.createSession(request.getName(), activeMQPrincipal == null ? request.getUsername() : activeMQPrincipal.getUserName(), activeMQPrincipal == null ? request.getPassword() : activeMQPrincipal.getPassword(), request.getMinLargeMessageSize(), connection, request.isAutoCommitSends(), request.isAutoCommitAcks(), request.isPreAcknowledge(), request.isXA(), request.getDefaultAddress(), new CoreSessionCallback(request.getName(), protocolManager, channel), null, true);
 
-         ServerSessionPacketHandler handler = new ServerSessionPacketHandler(session, server.getStorageManager(), channel);
+         int pipelineSize = server.getConfiguration().getSessionPipelineSize();
+
+         SendStageMetrics sendStageMetrics = server.getConfiguration().isLatencyMetricsEnabled() ? server.getSendStageMetrics() : null;
+
+         ServerSessionPacketHandler handler = new ServerSessionPacketHandler(session, server.getStorageManager(), channel, sendStageMetrics, pipelineSize > 0 ? server.getExecutorFactory().getExecutor() : null, pipelineSize);
          channel.setHandler(handler);
 
          // TODO - where is this removed?
@@ -16,12 +16,16 @@
  */
 package org.apache.activemq.artemis.core.protocol.core.impl;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.activemq.artemis.api.core.SimpleString;
 import org.apache.activemq.artemis.core.protocol.core.Channel;
 import org.apache.activemq.artemis.core.protocol.core.Packet;
 import org.apache.activemq.artemis.core.protocol.core.impl.wireformat.DisconnectConsumerMessage;
 import org.apache.activemq.artemis.core.protocol.core.impl.wireformat.SessionProducerCreditsFailMessage;
 import org.apache.activemq.artemis.core.protocol.core.impl.wireformat.SessionProducerCreditsMessage;
+import org.apache.activemq.artemis.core.protocol.core.impl.wireformat.SessionReceiveBatchMessage;
 import org.apache.activemq.artemis.core.protocol.core.impl.wireformat.SessionReceiveContinuationMessage;
 import org.apache.activemq.artemis.core.protocol.core.impl.wireformat.SessionReceiveLargeMessage;
 import org.apache.activemq.artemis.core.protocol.core.impl.wireformat.SessionReceiveMessage;
@@ -34,8 +38,15 @@ import org.apache.activemq.artemis.spi.core.remoting.ReadyListener;
 
 public final class CoreSessionCallback implements SessionCallback {
 
+   // The size of the deliveries held back from which they are sent without waiting for the end of the deliveries
+   private static final int MAX_BATCH_SIZE = 64 * 1024;
+
    private final Channel channel;
 
+   private List<SessionReceiveMessage> pendingDeliveries = new ArrayList<SessionReceiveMessage>();
+
+   private int pendingSize;
+
    private ProtocolManager protocolManager;
 
    private String name;
@@ -47,6 +58,9 @@ public final class CoreSessionCallback implements SessionCallback {
    }
 
    public int sendLargeMessage(ServerMessage message, ServerConsumer consumer, long bodySize, int deliveryCount) {
+      // the deliveries held back go first to keep the order of the consumer
+      afterDelivery();
+
       Packet packet = new SessionReceiveLargeMessage(consumer.getID(), message, bodySize, deliveryCount);
 
       channel.send(packet);
@@ -60,6 +74,8 @@ public final class CoreSessionCallback implements SessionCallback {
                                            byte[] body,
                                            boolean continues,
                                            boolean requiresResponse) {
+      afterDelivery();
+
       Packet packet = new SessionReceiveContinuationMessage(consumer.getID(), body, continues, requiresResponse);
 
       channel.send(packet);
@@ -68,7 +84,24 @@ public final class CoreSessionCallback implements SessionCallback {
    }
 
    public int sendMessage(ServerMessage message, ServerConsumer consumer, int deliveryCount) {
-      Packet packet = new SessionReceiveMessage(consumer.getID(), message, deliveryCount);
+      SessionReceiveMessage packet = new SessionReceiveMessage(consumer.getID(), message, deliveryCount);
+
+      if (channel.supports(PacketImpl.SESS_RECEIVE_BATCH)) {
+         // held back until the end of the deliveries and sent with the other ones in a single packet
+         int size = packet.getExpectedPacketSize(channel.getConnection());
+
+         synchronized (this) {
+            pendingDeliveries.add(packet);
+
+            pendingSize += size;
+
+            if (pendingSize >= MAX_BATCH_SIZE) {
+               sendPendingDeliveries();
+            }
+         }
+
+         return size;
+      }
 
       int size = 0;
 
@@ -79,6 +112,32 @@ public final class CoreSessionCallback implements SessionCallback {
       return size;
    }
 
+   public synchronized void afterDelivery() {
+      sendPendingDeliveries();
+   }
+
+   // Called holding the lock on the callback so that the deliveries are sent in order
+   private void sendPendingDeliveries() {
+      if (pendingDeliveries.isEmpty()) {
+         return;
+      }
+
+      Packet packet;
+
+      if (pendingDeliveries.size() == 1) {
+         packet = pendingDeliveries.get(0);
+      }
+      else {
+         packet = new SessionReceiveBatchMessage(pendingDeliveries);
+      }
+
+      pendingDeliveries = new ArrayList<SessionReceiveMessage>();
+
+      pendingSize = 0;
+
+      channel.sendBatched(packet);
+   }
+
    public void sendProducerCreditsMessage(int credits, SimpleString address) {
       Packet packet = new SessionProducerCreditsMessage(credits, address);
 
@@ -107,6 +166,8 @@ public final class CoreSessionCallback implements SessionCallback {
    @Override
    public void disconnect(ServerConsumer consumerId, String queueName) {
       if (channel.supports(PacketImpl.DISCONNECT_CONSUMER)) {
+         afterDelivery();
+
          channel.send(new DisconnectConsumerMessage(consumerId.getID()));
       }
       else {
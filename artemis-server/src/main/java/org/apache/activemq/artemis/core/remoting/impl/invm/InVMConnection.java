@@ -151,6 +151,9 @@ public class InVMConnection implements Connection {
 
       copied.setIndex(buffer.readerIndex(), buffer.writerIndex());
 
+      // the copy is delivered instead, e.g. a message delivery holding a pooled buffer is done with it
+      buffer.byteBuf().release();
+
       try {
          executor.execute(new Runnable() {
             public void run() {
@@ -30,7 +30,6 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -41,6 +40,10 @@ import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollMode;
+import io.netty.channel.epoll.EpollServerSocketChannel;
 import io.netty.channel.ServerChannel;
 import io.netty.channel.group.ChannelGroup;
 import io.netty.channel.group.ChannelGroupFuture;
@@ -145,6 +148,15 @@ public class NettyAcceptor implements Acceptor {
 
    private final int tcpReceiveBufferSize;
 
+   private final boolean tcpCork;
+
+   private final boolean reusePort;
+
+   private final boolean useEpoll;
+
+   // whether the epoll transport is actually used, set on start
+   private boolean epoll;
+
    private final int nioRemotingThreads;
 
    private final ConcurrentMap<Object, NettyServerConnection> connections = new ConcurrentHashMap<Object, NettyServerConnection>();
@@ -157,12 +169,6 @@ public class NettyAcceptor implements Acceptor {
 
    private boolean paused;
 
-   private BatchFlusher flusher;
-
-   private ScheduledFuture<?> batchFlusherFuture;
-
-   private final long batchDelay;
-
    private final boolean directDeliver;
 
    private final boolean httpUpgradeEnabled;
@@ -191,6 +197,7 @@ public class NettyAcceptor implements Acceptor {
       nioRemotingThreads = ConfigurationHelper.getIntProperty(TransportConstants.NIO_REMOTING_THREADS_PROPNAME, -1, configuration);
       backlog = ConfigurationHelper.getIntProperty(TransportConstants.BACKLOG_PROP_NAME, -1, configuration);
       useInvm = ConfigurationHelper.getBooleanProperty(TransportConstants.USE_INVM_PROP_NAME, TransportConstants.DEFAULT_USE_INVM, configuration);
+      useEpoll = ConfigurationHelper.getBooleanProperty(TransportConstants.USE_EPOLL_PROP_NAME, TransportConstants.DEFAULT_USE_EPOLL, configuration);
 
       this.protocolHandler = new ProtocolHandler(protocolMap, this, configuration, scheduledThreadPool);
 
@@ -232,11 +239,11 @@ public class NettyAcceptor implements Acceptor {
       tcpNoDelay = ConfigurationHelper.getBooleanProperty(TransportConstants.TCP_NODELAY_PROPNAME, TransportConstants.DEFAULT_TCP_NODELAY, configuration);
       tcpSendBufferSize = ConfigurationHelper.getIntProperty(TransportConstants.TCP_SENDBUFFER_SIZE_PROPNAME, TransportConstants.DEFAULT_TCP_SENDBUFFER_SIZE, configuration);
       tcpReceiveBufferSize = ConfigurationHelper.getIntProperty(TransportConstants.TCP_RECEIVEBUFFER_SIZE_PROPNAME, TransportConstants.DEFAULT_TCP_RECEIVEBUFFER_SIZE, configuration);
+      tcpCork = ConfigurationHelper.getBooleanProperty(TransportConstants.TCP_CORK_PROPNAME, TransportConstants.DEFAULT_TCP_CORK, configuration);
+      reusePort = ConfigurationHelper.getBooleanProperty(TransportConstants.REUSE_PORT_PROPNAME, TransportConstants.DEFAULT_REUSE_PORT, configuration);
 
       this.scheduledThreadPool = scheduledThreadPool;
 
-      batchDelay = ConfigurationHelper.getLongProperty(TransportConstants.BATCH_DELAY, TransportConstants.DEFAULT_BATCH_DELAY, configuration);
-
       directDeliver = ConfigurationHelper.getBooleanProperty(TransportConstants.DIRECT_DELIVER, TransportConstants.DEFAULT_DIRECT_DELIVER, configuration);
 
       httpUpgradeEnabled = ConfigurationHelper.getBooleanProperty(TransportConstants.HTTP_UPGRADE_ENABLED_PROP_NAME, TransportConstants.DEFAULT_HTTP_UPGRADE_ENABLED, configuration);
@@ -265,13 +272,23 @@ public class NettyAcceptor implements Acceptor {
          else {
             threadsToUse = this.nioRemotingThreads;
          }
-         channelClazz = NioServerSocketChannel.class;
-         eventLoopGroup = new NioEventLoopGroup(threadsToUse, AccessController.doPrivileged(new PrivilegedAction<ActiveMQThreadFactory>() {
+         ActiveMQThreadFactory threadFactory = AccessController.doPrivileged(new PrivilegedAction<ActiveMQThreadFactory>() {
             @Override
             public ActiveMQThreadFactory run() {
                return new ActiveMQThreadFactory("activemq-netty-threads", true, ClientSessionFactoryImpl.class.getClassLoader());
             }
-         }));
+         });
+
+         epoll = EpollSupport.isEnabled(useEpoll);
+
+         if (epoll) {
+            channelClazz = EpollServerSocketChannel.class;
+            eventLoopGroup = new EpollEventLoopGroup(threadsToUse, threadFactory);
+         }
+         else {
+            channelClazz = NioServerSocketChannel.class;
+            eventLoopGroup = new NioEventLoopGroup(threadsToUse, threadFactory);
+         }
       }
 
       bootstrap = new ServerBootstrap();
@@ -379,6 +396,12 @@ public class NettyAcceptor implements Acceptor {
       bootstrap.childOption(ChannelOption.SO_REUSEADDR, true);
       bootstrap.childOption(ChannelOption.SO_KEEPALIVE, true);
       bootstrap.childOption(ChannelOption.ALLOCATOR, PartialPooledByteBufAllocator.INSTANCE);
+      if (epoll) {
+         bootstrap.option(EpollChannelOption.EPOLL_MODE, EpollMode.EDGE_TRIGGERED);
+         bootstrap.option(EpollChannelOption.SO_REUSEPORT, reusePort);
+         bootstrap.childOption(EpollChannelOption.EPOLL_MODE, EpollMode.EDGE_TRIGGERED);
+         bootstrap.childOption(EpollChannelOption.TCP_CORK, tcpCork);
+      }
       channelGroup = new DefaultChannelGroup("activemq-accepted-channels", GlobalEventExecutor.INSTANCE);
 
       serverChannelGroup = new DefaultChannelGroup("activemq-acceptor-channels", GlobalEventExecutor.INSTANCE);
@@ -401,12 +424,6 @@ public class NettyAcceptor implements Acceptor {
             notificationService.sendNotification(notification);
          }
 
-         if (batchDelay > 0) {
-            flusher = new BatchFlusher();
-
-            batchFlusherFuture = scheduledThreadPool.scheduleWithFixedDelay(flusher, batchDelay, batchDelay, TimeUnit.MILLISECONDS);
-         }
-
          ActiveMQServerLogger.LOGGER.startedAcceptor(host, port, protocolsString);
       }
    }
@@ -435,8 +452,12 @@ public class NettyAcceptor implements Acceptor {
          else {
             address = new InetSocketAddress(h, port);
          }
-         Channel serverChannel = bootstrap.bind(address).syncUninterruptibly().channel();
-         serverChannelGroup.add(serverChannel);
+         // with SO_REUSEPORT the kernel spreads the new connections over as many sockets bound to the same port
+         int sockets = epoll && reusePort ? Runtime.getRuntime().availableProcessors() : 1;
+         for (int i = 0; i < sockets; i++) {
+            Channel serverChannel = bootstrap.bind(address).syncUninterruptibly().channel();
+            serverChannelGroup.add(serverChannel);
+         }
       }
    }
 
@@ -453,16 +474,6 @@ public class NettyAcceptor implements Acceptor {
          protocolHandler.close();
       }
 
-      if (batchFlusherFuture != null) {
-         batchFlusherFuture.cancel(false);
-
-         flusher.cancel();
-
-         flusher = null;
-
-         batchFlusherFuture = null;
-      }
-
       // serverChannelGroup has been unbound in pause()
       if (serverChannelGroup != null) {
          serverChannelGroup.close().awaitUninterruptibly();
@@ -606,7 +617,7 @@ public class NettyAcceptor implements Acceptor {
             super.channelActive(ctx);
             Listener connectionListener = new Listener();
 
-            NettyServerConnection nc = new NettyServerConnection(configuration, ctx.channel(), connectionListener, !httpEnabled && batchDelay > 0, directDeliver);
+            NettyServerConnection nc = new NettyServerConnection(configuration, ctx.channel(), connectionListener, directDeliver);
 
             connectionListener.connectionCreated(NettyAcceptor.this, nc, protocol);
 
@@ -674,21 +685,4 @@ public class NettyAcceptor implements Acceptor {
          }
       }
    }
-
-   private class BatchFlusher implements Runnable {
-
-      private boolean cancelled;
-
-      public synchronized void run() {
-         if (!cancelled) {
-            for (Connection connection : connections.values()) {
-               connection.checkFlushBatchBuffer();
-            }
-         }
-      }
-
-      public synchronized void cancel() {
-         cancelled = true;
-      }
-   }
 }
@@ -28,9 +28,8 @@ public class NettyServerConnection extends NettyConnection {
    public NettyServerConnection(Map<String, Object> configuration,
                                 Channel channel,
                                 ConnectionLifeCycleListener listener,
-                                boolean batchingEnabled,
                                 boolean directDeliver) {
-      super(configuration, channel, listener, batchingEnabled, directDeliver);
+      super(configuration, channel, listener, directDeliver);
    }
 
    @Override
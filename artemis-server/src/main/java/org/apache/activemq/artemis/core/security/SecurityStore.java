@@ -29,4 +29,12 @@ public interface SecurityStore {
    boolean isSecurityEnabled();
 
    void stop();
+
+   long getAuthorizationCacheHitCount();
+
+   long getAuthorizationCacheMissCount();
+
+   long getAuthenticationCacheHitCount();
+
+   long getAuthenticationCacheMissCount();
 }
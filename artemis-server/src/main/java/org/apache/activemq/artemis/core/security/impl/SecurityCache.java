@@ -0,0 +1,392 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.core.security.impl;
+
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.security.CheckType;
+import org.apache.activemq.artemis.core.security.Role;
+import org.apache.activemq.artemis.core.settings.HierarchicalRepository;
+import org.apache.activemq.artemis.utils.StripedCounter;
+
+/**
+ * The security checks and authentications of a {@link SecurityStoreImpl}, each one kept until it expires.
+ * <p>
+ * A check is found by its address, its user and its type. A security manager authorizing each connection on its own
+ * has its checks found by the connection instead, for the last user checked on it. Denied checks are kept as well,
+ * for their own interval, but failed authentications are not so that guessing a password always reaches the security
+ * manager. An entry is only used for the password it was made with, of which it only keeps a salted digest. The
+ * password instance last matched is remembered weakly, so the sessions checking again with the same one don't
+ * digest it on every hit.
+ * <p>
+ * When the cache is full the expired entries are evicted, then arbitrary ones if there are still too many.
+ */
+final class SecurityCache {
+
+   // the key of the checks and authentications without a user
+   private static final Object NO_USER = new Object();
+
+   private static final int CHECK_TYPES = CheckType.values().length;
+
+   private final int maxSize;
+
+   private final long grantTimeout;
+
+   private final long denialTimeout;
+
+   private final byte[] salt = new byte[16];
+
+   // the checks of an address by user, the checks of a user by check type ordinal
+   private final ConcurrentMap<SimpleString, ConcurrentMap<Object, AtomicReferenceArray<Decision>>> decisions = new ConcurrentHashMap<SimpleString, ConcurrentMap<Object, AtomicReferenceArray<Decision>>>();
+
+   // the users with checks, it is only an estimate between evictions
+   private final AtomicInteger decisionsSize = new AtomicInteger();
+
+   private final ConcurrentMap<Object, Authentication> authentications = new ConcurrentHashMap<Object, Authentication>();
+
+   private final StripedCounter authorizationHits = new StripedCounter();
+
+   private final StripedCounter authorizationMisses = new StripedCounter();
+
+   private final StripedCounter authenticationHits = new StripedCounter();
+
+   private final StripedCounter authenticationMisses = new StripedCounter();
+
+   SecurityCache(final int maxSize, final long grantTimeout, final long denialTimeout) {
+      this.maxSize = maxSize;
+      this.grantTimeout = grantTimeout;
+      this.denialTimeout = denialTimeout;
+
+      new SecureRandom().nextBytes(salt);
+   }
+
+   /**
+    * @param connectionID the connection the check is made for, null if the decision doesn't depend on it
+    * @return whether the check was granted or denied, null if it isn't cached
+    */
+   Boolean getDecision(final SimpleString address,
+                       final String user,
+                       final String password,
+                       final Object connectionID,
+                       final CheckType checkType,
+                       final long now) {
+      ConcurrentMap<Object, AtomicReferenceArray<Decision>> users = decisions.get(address);
+
+      AtomicReferenceArray<Decision> checks = users != null ? users.get(key(user, connectionID)) : null;
+
+      Decision decision = checks != null ? checks.get(checkType.ordinal()) : null;
+
+      if (decision != null && decision.expiration > now && decision.matches(user, password)) {
+         authorizationHits.increment();
+         return decision.granted;
+      }
+
+      authorizationMisses.increment();
+      return null;
+   }
+
+   void putDecision(final SimpleString address,
+                    final String user,
+                    final String password,
+                    final Object connectionID,
+                    final CheckType checkType,
+                    final Set<Role> roles,
+                    final boolean granted,
+                    final long now) {
+      long timeout = granted ? grantTimeout : denialTimeout;
+
+      if (timeout <= 0) {
+         return;
+      }
+
+      ConcurrentMap<Object, AtomicReferenceArray<Decision>> users = decisions.get(address);
+
+      if (users == null) {
+         users = new ConcurrentHashMap<Object, AtomicReferenceArray<Decision>>(4);
+
+         ConcurrentMap<Object, AtomicReferenceArray<Decision>> existing = decisions.putIfAbsent(address, users);
+         if (existing != null) {
+            users = existing;
+         }
+      }
+
+      Object key = key(user, connectionID);
+
+      AtomicReferenceArray<Decision> checks = users.get(key);
+
+      if (checks == null) {
+         if (decisionsSize.get() >= maxSize) {
+            evictDecisions(now);
+         }
+
+         checks = new AtomicReferenceArray<Decision>(CHECK_TYPES);
+
+         AtomicReferenceArray<Decision> existing = users.putIfAbsent(key, checks);
+         if (existing != null) {
+            checks = existing;
+         }
+         else {
+            decisionsSize.incrementAndGet();
+         }
+      }
+
+      checks.set(checkType.ordinal(), new Decision(granted, now + timeout, user, password, roles));
+   }
+
+   boolean isAuthenticated(final String user, final String password, final long now) {
+      Authentication authentication = authentications.get(key(user, null));
+
+      if (authentication != null && authentication.expiration > now && authentication.matches(user, password)) {
+         authenticationHits.increment();
+         return true;
+      }
+
+      authenticationMisses.increment();
+      return false;
+   }
+
+   void putAuthenticated(final String user, final String password, final long now) {
+      if (grantTimeout <= 0) {
+         return;
+      }
+
+      if (authentications.size() >= maxSize) {
+         evictAuthentications(now);
+      }
+
+      authentications.put(key(user, null), new Authentication(now + grantTimeout, user, password));
+   }
+
+   /**
+    * Removes the checks made with other roles than the ones the security repository now has for their address
+    */
+   void invalidate(final HierarchicalRepository<Set<Role>> securityRepository) {
+      for (Map.Entry<SimpleString, ConcurrentMap<Object, AtomicReferenceArray<Decision>>> entry : decisions.entrySet()) {
+         Set<Role> roles = securityRepository.getMatch(entry.getKey().toString());
+
+         for (AtomicReferenceArray<Decision> checks : entry.getValue().values()) {
+            for (int i = 0; i < CHECK_TYPES; i++) {
+               Decision decision = checks.get(i);
+
+               if (decision != null && decision.roles != roles && !equals(decision.roles, roles)) {
+                  checks.compareAndSet(i, decision, null);
+               }
+            }
+         }
+      }
+   }
+
+   void clear() {
+      decisions.clear();
+      decisionsSize.set(0);
+      authentications.clear();
+   }
+
+   long getAuthorizationHits() {
+      return authorizationHits.get();
+   }
+
+   long getAuthorizationMisses() {
+      return authorizationMisses.get();
+   }
+
+   long getAuthenticationHits() {
+      return authenticationHits.get();
+   }
+
+   long getAuthenticationMisses() {
+      return authenticationMisses.get();
+   }
+
+   private synchronized void evictDecisions(final long now) {
+      // another thread may have evicted already
+      if (decisionsSize.get() < maxSize) {
+         return;
+      }
+
+      // evicting down to a fraction of the size leaves room for a while
+      int target = maxSize - maxSize / 4;
+
+      int size = 0;
+
+      for (Iterator<ConcurrentMap<Object, AtomicReferenceArray<Decision>>> addresses = decisions.values().iterator(); addresses.hasNext(); ) {
+         ConcurrentMap<Object, AtomicReferenceArray<Decision>> users = addresses.next();
+
+         for (Iterator<AtomicReferenceArray<Decision>> iterator = users.values().iterator(); iterator.hasNext(); ) {
+            if (isExpired(iterator.next(), now)) {
+               iterator.remove();
+            }
+            else {
+               size++;
+            }
+         }
+
+         if (users.isEmpty()) {
+            addresses.remove();
+         }
+      }
+
+      for (Iterator<ConcurrentMap<Object, AtomicReferenceArray<Decision>>> addresses = decisions.values().iterator(); size > target && addresses.hasNext(); ) {
+         size -= addresses.next().size();
+         addresses.remove();
+      }
+
+      // a put racing with the eviction may be counted or not, the count is corrected here
+      decisionsSize.set(Math.max(0, size));
+   }
+
+   private synchronized void evictAuthentications(final long now) {
+      if (authentications.size() < maxSize) {
+         return;
+      }
+
+      for (Iterator<Authentication> iterator = authentications.values().iterator(); iterator.hasNext(); ) {
+         if (iterator.next().expiration <= now) {
+            iterator.remove();
+         }
+      }
+
+      int target = maxSize - maxSize / 4;
+
+      for (Iterator<Authentication> iterator = authentications.values().iterator(); authentications.size() > target && iterator.hasNext(); ) {
+         iterator.next();
+         iterator.remove();
+      }
+   }
+
+   private static boolean isExpired(final AtomicReferenceArray<Decision> checks, final long now) {
+      for (int i = 0; i < CHECK_TYPES; i++) {
+         Decision decision = checks.get(i);
+
+         if (decision != null && decision.expiration > now) {
+            return false;
+         }
+      }
+
+      return true;
+   }
+
+   // the entries keep their user, so a connection needs no key of its own
+   private static Object key(final String user, final Object connectionID) {
+      if (connectionID != null) {
+         return connectionID;
+      }
+
+      return user != null ? user : NO_USER;
+   }
+
+   private byte[] digest(final String password) {
+      if (password == null) {
+         return null;
+      }
+
+      try {
+         MessageDigest digest = MessageDigest.getInstance("SHA-256");
+         digest.update(salt);
+         return digest.digest(password.getBytes(StandardCharsets.UTF_8));
+      }
+      catch (NoSuchAlgorithmException e) {
+         // every Java platform has SHA-256
+         throw new IllegalStateException(e);
+      }
+   }
+
+   private static boolean equals(final Object a, final Object b) {
+      return a == b || a != null && a.equals(b);
+   }
+
+   /**
+    * The credentials a decision or an authentication was made with
+    */
+   private class Entry {
+
+      final long expiration;
+
+      private final String user;
+
+      private final byte[] password;
+
+      // the password instance last found to match the digest
+      private volatile WeakReference<String> matched;
+
+      Entry(final long expiration, final String user, final String password) {
+         this.expiration = expiration;
+         this.user = user;
+         this.password = digest(password);
+         this.matched = password == null ? null : new WeakReference<String>(password);
+      }
+
+      boolean matches(final String user, final String password) {
+         if (!SecurityCache.equals(this.user, user)) {
+            return false;
+         }
+
+         if (this.password == null || password == null) {
+            return this.password == null && password == null;
+         }
+
+         WeakReference<String> last = matched;
+
+         if (last != null && last.get() == password) {
+            return true;
+         }
+
+         if (MessageDigest.isEqual(this.password, digest(password))) {
+            matched = new WeakReference<String>(password);
+            return true;
+         }
+
+         return false;
+      }
+   }
+
+   private final class Decision extends Entry {
+
+      private final boolean granted;
+
+      private final Set<Role> roles;
+
+      Decision(final boolean granted,
+               final long expiration,
+               final String user,
+               final String password,
+               final Set<Role> roles) {
+         super(expiration, user, password);
+         this.granted = granted;
+         this.roles = roles;
+      }
+   }
+
+   private final class Authentication extends Entry {
+
+      Authentication(final long expiration, final String user, final String password) {
+         super(expiration, user, password);
+      }
+   }
+}
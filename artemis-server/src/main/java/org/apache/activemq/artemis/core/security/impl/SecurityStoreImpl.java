@@ -18,8 +18,6 @@ package org.apache.activemq.artemis.core.security.impl;
 
 import javax.security.cert.X509Certificate;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 
 import org.apache.activemq.artemis.api.core.SimpleString;
 import org.apache.activemq.artemis.api.core.management.CoreNotificationType;
@@ -36,7 +34,6 @@ import org.apache.activemq.artemis.core.settings.HierarchicalRepository;
 import org.apache.activemq.artemis.core.settings.HierarchicalRepositoryChangeListener;
 import org.apache.activemq.artemis.spi.core.security.ActiveMQSecurityManager;
 import org.apache.activemq.artemis.spi.core.security.ActiveMQSecurityManager2;
-import org.apache.activemq.artemis.utils.ConcurrentHashSet;
 import org.apache.activemq.artemis.utils.TypedProperties;
 
 /**
@@ -55,11 +52,7 @@ public class SecurityStoreImpl implements SecurityStore, HierarchicalRepositoryC
 
    private final ActiveMQSecurityManager securityManager;
 
-   private final ConcurrentMap<String, ConcurrentHashSet<SimpleString>> cache = new ConcurrentHashMap<String, ConcurrentHashSet<SimpleString>>();
-
-   private final long invalidationInterval;
-
-   private volatile long lastCheck;
+   private final SecurityCache cache;
 
    private final boolean securityEnabled;
 
@@ -72,18 +65,23 @@ public class SecurityStoreImpl implements SecurityStore, HierarchicalRepositoryC
    // Constructors --------------------------------------------------
 
    /**
-    * @param notificationService can be <code>null</code>
+    * @param invalidationInterval       how long (in ms) granted checks and authentications are cached
+    * @param denialInvalidationInterval how long (in ms) denied checks are cached, 0 meaning they are not
+    * @param cacheMaxSize               the maximum number of checks and of authentications cached
+    * @param notificationService        can be <code>null</code>
     */
    public SecurityStoreImpl(final HierarchicalRepository<Set<Role>> securityRepository,
                             final ActiveMQSecurityManager securityManager,
                             final long invalidationInterval,
+                            final long denialInvalidationInterval,
+                            final int cacheMaxSize,
                             final boolean securityEnabled,
                             final String managementClusterUser,
                             final String managementClusterPassword,
                             final NotificationService notificationService) {
       this.securityRepository = securityRepository;
       this.securityManager = securityManager;
-      this.invalidationInterval = invalidationInterval;
+      this.cache = new SecurityCache(cacheMaxSize, invalidationInterval, denialInvalidationInterval);
       this.securityEnabled = securityEnabled;
       this.managementClusterUser = managementClusterUser;
       this.managementClusterPassword = managementClusterPassword;
@@ -100,6 +98,27 @@ public class SecurityStoreImpl implements SecurityStore, HierarchicalRepositoryC
 
    public void stop() {
       securityRepository.unRegisterListener(this);
+      cache.clear();
+   }
+
+   @Override
+   public long getAuthorizationCacheHitCount() {
+      return cache.getAuthorizationHits();
+   }
+
+   @Override
+   public long getAuthorizationCacheMissCount() {
+      return cache.getAuthorizationMisses();
+   }
+
+   @Override
+   public long getAuthenticationCacheHitCount() {
+      return cache.getAuthenticationHits();
+   }
+
+   @Override
+   public long getAuthenticationCacheMissCount() {
+      return cache.getAuthenticationMisses();
    }
 
    public void authenticate(final String user, final String password, X509Certificate[] certificates) throws Exception {
@@ -122,6 +141,15 @@ public class SecurityStoreImpl implements SecurityStore, HierarchicalRepositoryC
             }
          }
 
+         // a certificate may not be valid anymore, only the authentications without one are cached
+         boolean cacheable = certificates == null;
+
+         long now = System.currentTimeMillis();
+
+         if (cacheable && cache.isAuthenticated(user, password, now)) {
+            return;
+         }
+
          boolean userIsValid = false;
 
          if (securityManager instanceof ActiveMQSecurityManager2) {
@@ -142,6 +170,10 @@ public class SecurityStoreImpl implements SecurityStore, HierarchicalRepositoryC
 
             throw ActiveMQMessageBundle.BUNDLE.unableToValidateUser();
          }
+
+         if (cacheable) {
+            cache.putAuthenticated(user, password, now);
+         }
       }
    }
 
@@ -154,27 +186,45 @@ public class SecurityStoreImpl implements SecurityStore, HierarchicalRepositoryC
          }
 
          String user = session.getUsername();
-         if (checkCached(address, user, checkType)) {
+         String password = session.getPassword();
+         long now = System.currentTimeMillis();
+
+         // the security manager may authorize each connection of a user differently
+         Object connectionID = null;
+         if (securityManager instanceof ActiveMQSecurityManager2 && session.getRemotingConnection() != null) {
+            connectionID = session.getRemotingConnection().getID();
+         }
+
+         Boolean cached = cache.getDecision(address, user, password, connectionID, checkType, now);
+         if (cached == Boolean.TRUE) {
             // OK
             return;
          }
 
          String saddress = address.toString();
 
-         Set<Role> roles = securityRepository.getMatch(saddress);
-
          // bypass permission checks for management cluster user
-         if (managementClusterUser.equals(user) && session.getPassword().equals(managementClusterPassword)) {
+         if (managementClusterUser.equals(user) && password.equals(managementClusterPassword)) {
             return;
          }
 
          final boolean validated;
-         if (securityManager instanceof ActiveMQSecurityManager2) {
-            final ActiveMQSecurityManager2 securityManager2 = (ActiveMQSecurityManager2) securityManager;
-            validated = securityManager2.validateUserAndRole(user, session.getPassword(), roles, checkType, saddress, session.getRemotingConnection());
+         if (cached != null) {
+            // a cached denial, it is still notified
+            validated = false;
          }
          else {
-            validated = securityManager.validateUserAndRole(user, session.getPassword(), roles, checkType);
+            Set<Role> roles = securityRepository.getMatch(saddress);
+
+            if (securityManager instanceof ActiveMQSecurityManager2) {
+               final ActiveMQSecurityManager2 securityManager2 = (ActiveMQSecurityManager2) securityManager;
+               validated = securityManager2.validateUserAndRole(user, password, roles, checkType, saddress, session.getRemotingConnection());
+            }
+            else {
+               validated = securityManager.validateUserAndRole(user, password, roles, checkType);
+            }
+
+            cache.putDecision(address, user, password, connectionID, checkType, roles, validated, now);
          }
 
          if (!validated) {
@@ -192,19 +242,12 @@ public class SecurityStoreImpl implements SecurityStore, HierarchicalRepositoryC
 
             throw ActiveMQMessageBundle.BUNDLE.userNoPermissions(session.getUsername(), checkType, saddress);
          }
-         // if we get here we're granted, add to the cache
-         ConcurrentHashSet<SimpleString> set = new ConcurrentHashSet<SimpleString>();
-         ConcurrentHashSet<SimpleString> act = cache.putIfAbsent(user + "." + checkType.name(), set);
-         if (act != null) {
-            set = act;
-         }
-         set.add(address);
-
       }
    }
 
    public void onChange() {
-      invalidateCache();
+      // only the checks of the addresses whose roles changed are invalidated
+      cache.invalidate(securityRepository);
    }
 
    // Public --------------------------------------------------------
@@ -214,29 +257,6 @@ public class SecurityStoreImpl implements SecurityStore, HierarchicalRepositoryC
    // Package Private -----------------------------------------------
 
    // Private -------------------------------------------------------
-   private void invalidateCache() {
-      cache.clear();
-   }
-
-   private boolean checkCached(final SimpleString dest, final String user, final CheckType checkType) {
-      long now = System.currentTimeMillis();
-
-      boolean granted = false;
-
-      if (now - lastCheck > invalidationInterval) {
-         invalidateCache();
-
-         lastCheck = now;
-      }
-      else {
-         ConcurrentHashSet<SimpleString> act = cache.get(user + "." + checkType.name());
-         if (act != null) {
-            granted = act.contains(dest);
-         }
-      }
-
-      return granted;
-   }
 
    // Inner class ---------------------------------------------------
 
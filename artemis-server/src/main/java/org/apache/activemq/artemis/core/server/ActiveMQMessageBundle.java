@@ -362,4 +362,7 @@ public interface ActiveMQMessageBundle {
 
    @Message(id = 119114, value = "Replication synchronization process timed out after waiting {0} milliseconds", format = Message.Format.MESSAGE_FORMAT)
    IllegalStateException replicationSynchronizationTimeout(long timeout);
+
+   @Message(id = 119115, value = "{0} must be greater or equals to 0 and lower than 1 (actual value: {1})", format = Message.Format.MESSAGE_FORMAT)
+   IllegalArgumentException notARate(String name, Number val);
 }
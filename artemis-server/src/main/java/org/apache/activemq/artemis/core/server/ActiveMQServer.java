@@ -40,6 +40,8 @@ import org.apache.activemq.artemis.core.server.cluster.ha.HAPolicy;
 import org.apache.activemq.artemis.core.server.group.GroupingHandler;
 import org.apache.activemq.artemis.core.server.impl.Activation;
 import org.apache.activemq.artemis.core.server.impl.ConnectorsService;
+import org.apache.activemq.artemis.core.server.impl.LatencyMetrics;
+import org.apache.activemq.artemis.core.server.impl.SendStageMetrics;
 import org.apache.activemq.artemis.core.server.management.ManagementService;
 import org.apache.activemq.artemis.core.settings.HierarchicalRepository;
 import org.apache.activemq.artemis.core.settings.impl.AddressSettings;
@@ -123,6 +125,10 @@ public interface ActiveMQServer extends ActiveMQComponent {
 
    SecurityStore getSecurityStore();
 
+   SendStageMetrics getSendStageMetrics();
+
+   LatencyMetrics getLatencyMetrics();
+
    void removeSession(String name) throws Exception;
 
    Set<ServerSession> getSessions();
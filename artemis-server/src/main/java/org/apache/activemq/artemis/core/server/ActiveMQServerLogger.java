@@ -1195,6 +1195,18 @@ public interface ActiveMQServerLogger extends BasicLogger {
    @Message(id = 222204, value = "Duplicated Acceptor {0} with parameters {1} classFactory={2} duplicated on the configuration", format = Message.Format.MESSAGE_FORMAT)
    void duplicatedAcceptor(String name, String parameters, String classFactory);
 
+   @LogMessage(level = Logger.Level.WARN)
+   @Message(id = 222205, value = "Error spilling scheduled message {0} to disk, keeping it in memory", format = Message.Format.MESSAGE_FORMAT)
+   void errorSpillingScheduledMessage(@Cause Throwable e, Long messageID);
+
+   @LogMessage(level = Logger.Level.WARN)
+   @Message(id = 222206, value = "Error reloading spilled scheduled messages from {0}", format = Message.Format.MESSAGE_FORMAT)
+   void errorReloadingScheduledMessages(@Cause Throwable e, String fileName);
+
+   @LogMessage(level = Logger.Level.WARN)
+   @Message(id = 222207, value = "Error writing spilled scheduled messages to {0}, keeping them in memory", format = Message.Format.MESSAGE_FORMAT)
+   void errorWritingScheduledMessages(@Cause Throwable e, String fileName);
+
    @LogMessage(level = Logger.Level.ERROR)
    @Message(id = 224000, value = "Failure in initialisation", format = Message.Format.MESSAGE_FORMAT)
    void initializationError(@Cause Throwable e);
@@ -47,6 +47,12 @@ public interface Consumer {
     */
    void proceedDeliver(MessageReference reference) throws Exception;
 
+   /**
+    * Called once a run of deliveries to this consumer is over, so that it sends what it may have held back
+    * during {@link #proceedDeliver(MessageReference)}.
+    */
+   void afterDeliver();
+
    Filter getFilter();
 
    /**
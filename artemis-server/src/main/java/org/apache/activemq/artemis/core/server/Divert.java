@@ -30,5 +30,7 @@ public interface Divert extends Bindable {
 
    SimpleString getRoutingName();
 
+   SimpleString getForwardAddress();
+
    Transformer getTransformer();
 }
@@ -16,6 +16,8 @@
  */
 package org.apache.activemq.artemis.core.server;
 
+import org.apache.activemq.artemis.api.core.SimpleString;
+
 /**
  * A reference to a message.
  *
@@ -35,6 +37,12 @@ public interface MessageReference {
     */
    int getMessageMemoryEstimate();
 
+   /**
+    * @return the {@link org.apache.activemq.artemis.api.core.Message#HDR_GROUP_ID} of the message,
+    * read from the message properties only once per reference
+    */
+   SimpleString getGroupID();
+
    MessageReference copy(Queue queue);
 
    /**
@@ -70,4 +78,12 @@ public interface MessageReference {
    void setAlreadyAcked();
 
    boolean isAlreadyAcked();
+
+   /**
+    * Returns the {@link System#nanoTime()} the latencies of this reference are measured from: when it was added to
+    * its queue, then when it was delivered. 0 if it isn't measured.
+    */
+   long getLatencyTime();
+
+   void setLatencyTime(long nanoTime);
 }
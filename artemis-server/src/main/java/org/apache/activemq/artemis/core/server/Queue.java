@@ -25,6 +25,7 @@ import org.apache.activemq.artemis.api.core.SimpleString;
 import org.apache.activemq.artemis.core.filter.Filter;
 import org.apache.activemq.artemis.core.paging.cursor.PageSubscription;
 import org.apache.activemq.artemis.core.transaction.Transaction;
+import org.apache.activemq.artemis.utils.LatencyHistogram;
 import org.apache.activemq.artemis.utils.LinkedListIterator;
 import org.apache.activemq.artemis.utils.ReferenceCounter;
 
@@ -246,4 +247,21 @@ public interface Queue extends Bindable {
     * @return the user who created this queue
     */
    SimpleString getUser();
+
+   /**
+    * @return the latencies of messages from being added to this queue to being delivered, measured from the first time
+    * the latencies of this queue are asked for, null if not measured
+    */
+   LatencyHistogram getDwellLatency();
+
+   /**
+    * @return the latencies of messages from being delivered by this queue to being acknowledged, measured from the
+    * first time the latencies of this queue are asked for, null if not measured
+    */
+   LatencyHistogram getAckLatency();
+
+   /**
+    * Records the time a message took to be acknowledged once delivered by this queue, if the latencies are measured.
+    */
+   void recordAckLatency(long nanos);
 }
@@ -45,4 +45,12 @@ public interface RoutingContext {
    void addQueueWithAck(SimpleString address, Queue queue);
 
    boolean isAlreadyAcked(SimpleString address, Queue queue);
+
+   /**
+    * Returns the copy of a message the diverts without transformer copy from instead of the message, so the
+    * message is copied and its original headers are set once for all of them, or null if there isn't one.
+    */
+   ServerMessage getDivertTemplate(ServerMessage message);
+
+   void setDivertTemplate(ServerMessage message, ServerMessage template);
 }
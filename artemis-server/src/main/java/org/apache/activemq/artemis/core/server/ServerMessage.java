@@ -56,6 +56,17 @@ public interface ServerMessage extends MessageInternal, EncodingSupport {
 
    int getRefCount();
 
+   /**
+    * Moves the encoding of the message to a pooled direct buffer, written from there to the journal and the network
+    * until the last reference to the message is gone, see {@link #decrementRefCount()}.
+    */
+   void usePooledBuffer();
+
+   /**
+    * Moves the message back to the heap and gives its pooled buffer back, e.g. when no reference to it was created.
+    */
+   void releasePooledBuffer();
+
    ServerMessage makeCopyForExpiryOrDLA(long newID,
                                         MessageReference originalReference,
                                         boolean expiry,
@@ -77,4 +88,18 @@ public interface ServerMessage extends MessageInternal, EncodingSupport {
    byte[] getDuplicateIDBytes();
 
    Object getDuplicateProperty();
+
+   /**
+    * Returns the conversion of this message to another protocol for a delivery count, as cached by
+    * {@link #setProtocolEncoding(Object, int, Object)}, or null if none was cached since the message last changed.
+    *
+    * @param protocol the key of the conversion, compared by identity
+    */
+   Object getProtocolEncoding(Object protocol, int deliveryCount);
+
+   /**
+    * Caches the conversion of this message to another protocol so it is shared by all the consumers of that
+    * protocol. The conversion must not be changed afterwards, it is dropped when the message changes.
+    */
+   void setProtocolEncoding(Object protocol, int deliveryCount, Object encoding);
 }
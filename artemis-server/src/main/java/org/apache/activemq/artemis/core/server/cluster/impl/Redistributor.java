@@ -191,6 +191,10 @@ public class Redistributor implements Consumer {
       // no op
    }
 
+   public void afterDeliver() {
+      // no op
+   }
+
    private void internalExecute(final Runnable runnable) {
       pendingRuns.countUp();
       executor.execute(new Runnable() {
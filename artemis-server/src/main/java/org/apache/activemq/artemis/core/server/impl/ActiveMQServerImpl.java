@@ -55,7 +55,9 @@ import org.apache.activemq.artemis.core.filter.Filter;
 import org.apache.activemq.artemis.core.filter.impl.FilterImpl;
 import org.apache.activemq.artemis.core.io.IOCriticalErrorListener;
 import org.apache.activemq.artemis.core.io.SequentialFile;
+import org.apache.activemq.artemis.core.io.SequentialFileFactory;
 import org.apache.activemq.artemis.core.io.aio.AIOSequentialFileFactory;
+import org.apache.activemq.artemis.core.io.nio.NIOSequentialFileFactory;
 import org.apache.activemq.artemis.core.journal.JournalLoadInformation;
 import org.apache.activemq.artemis.core.management.impl.ActiveMQServerControlImpl;
 import org.apache.activemq.artemis.core.paging.PagingManager;
@@ -189,6 +191,8 @@ public class ActiveMQServerImpl implements ActiveMQServer {
 
    private volatile SecurityStore securityStore;
 
+   private final LatencyMetrics latencyMetrics = new LatencyMetrics();
+
    private final HierarchicalRepository<AddressSettings> addressSettingsRepository;
 
    private volatile QueueFactory queueFactory;
@@ -1082,6 +1086,14 @@ public class ActiveMQServerImpl implements ActiveMQServer {
       return securityStore;
    }
 
+   public SendStageMetrics getSendStageMetrics() {
+      return latencyMetrics.getSendStages();
+   }
+
+   public LatencyMetrics getLatencyMetrics() {
+      return latencyMetrics;
+   }
+
    public void removeSession(final String name) throws Exception {
       sessions.remove(name);
    }
@@ -1408,6 +1420,17 @@ public class ActiveMQServerImpl implements ActiveMQServer {
       this.queueFactory = factory;
    }
 
+   private SequentialFileFactory createScheduledSpillFactory() throws Exception {
+      SequentialFileFactory factory = new NIOSequentialFileFactory(new File(configuration.getPagingLocation(), ScheduledDeliverySpillStore.DIRECTORY), false, shutdownOnCriticalIO, 1);
+
+      factory.createDirs();
+
+      // Spilled scheduled messages are only a cache of the journal, which will route them again while loading
+      ScheduledDeliverySpillStore.deleteAll(factory);
+
+      return factory;
+   }
+
    private PagingManager createPagingManager() {
 
       return new PagingManagerImpl(new PagingStoreFactoryNIO(storageManager, configuration.getPagingLocation(), configuration.getJournalBufferTimeout_NIO(), scheduledPool, executorFactory, configuration.isJournalSyncNonTransactional(), shutdownOnCriticalIO), addressSettingsRepository);
@@ -1418,7 +1441,13 @@ public class ActiveMQServerImpl implements ActiveMQServer {
     */
    private StorageManager createStorageManager() {
       if (configuration.isPersistenceEnabled()) {
-         return new JournalStorageManager(configuration, executorFactory, shutdownOnCriticalIO);
+         JournalStorageManager journalStorageManager = new JournalStorageManager(configuration, executorFactory, shutdownOnCriticalIO);
+
+         if (configuration.isLatencyMetricsEnabled()) {
+            journalStorageManager.setDurableLatency(latencyMetrics.getDurable());
+         }
+
+         return journalStorageManager;
       }
       return new NullStorageManager();
    }
@@ -1544,14 +1573,34 @@ public class ActiveMQServerImpl implements ActiveMQServer {
          ActiveMQServerLogger.LOGGER.clusterSecurityRisk();
       }
 
-      securityStore = new SecurityStoreImpl(securityRepository, securityManager, configuration.getSecurityInvalidationInterval(), configuration.isSecurityEnabled(), configuration.getClusterUser(), configuration.getClusterPassword(), managementService);
+      securityStore = new SecurityStoreImpl(securityRepository, securityManager, configuration.getSecurityInvalidationInterval(), configuration.getSecurityDenialInvalidationInterval(), configuration.getSecurityCacheMaxSize(), configuration.isSecurityEnabled(), configuration.getClusterUser(), configuration.getClusterPassword(), managementService);
+
+      QueueFactoryImpl queueFactoryImpl = new QueueFactoryImpl(executorFactory, scheduledPool, addressSettingsRepository, storageManager);
+
+      if (configuration.getScheduledSpillHorizon() > 0) {
+         queueFactoryImpl.setScheduledSpill(createScheduledSpillFactory(), configuration.getScheduledSpillHorizon());
+      }
+
+      queueFactoryImpl.setMessageGroupSettings(configuration.getMessageGroupMaxSize(), configuration.getMessageGroupIdleTimeout(), configuration.isMessageGroupRebalance());
 
-      queueFactory = new QueueFactoryImpl(executorFactory, scheduledPool, addressSettingsRepository, storageManager);
+      queueFactoryImpl.setLastValueWriteBehind(configuration.getLastValueWriteBehindWindow(), configuration.getLastValueWriteBehindBatchSize());
+
+      if (configuration.isLatencyMetricsEnabled()) {
+         queueFactoryImpl.setLatencyMetrics(latencyMetrics);
+      }
+
+      queueFactory = queueFactoryImpl;
 
       pagingManager = createPagingManager();
 
       resourceManager = new ResourceManagerImpl((int) (configuration.getTransactionTimeout() / 1000), configuration.getTransactionTimeoutScanPeriod(), scheduledPool);
-      postOffice = new PostOfficeImpl(this, storageManager, pagingManager, queueFactory, managementService, configuration.getMessageExpiryScanPeriod(), configuration.getMessageExpiryThreadPriority(), configuration.isWildcardRoutingEnabled(), configuration.getIDCacheSize(), configuration.isPersistIDCache(), addressSettingsRepository);
+      PostOfficeImpl postOfficeImpl = new PostOfficeImpl(this, storageManager, pagingManager, queueFactory, managementService, configuration.getMessageExpiryScanPeriod(), configuration.getMessageExpiryThreadPriority(), configuration.isWildcardRoutingEnabled(), configuration.getIDCacheSize(), configuration.isPersistIDCache(), configuration.getIDCacheFilterFalsePositiveRate(), addressSettingsRepository);
+
+      if (configuration.isLatencyMetricsEnabled()) {
+         postOfficeImpl.setLatencyMetrics(latencyMetrics);
+      }
+
+      postOffice = postOfficeImpl;
 
       // This can't be created until node id is set
       clusterManager = new ClusterManager(executorFactory, this, postOffice, scheduledPool, managementService, configuration, nodeManager, haPolicy.isBackup());
@@ -86,18 +86,22 @@ public class DivertImpl implements Divert {
 
       // Shouldn't copy if it's not routed anywhere else
       if (!forwardAddress.equals(message.getAddress())) {
-         copy = message.copy(id);
-         copy.finishCopy();
+         ServerMessage template = transformer == null ? context.getDivertTemplate(message) : null;
 
-         // This will set the original MessageId, and the original address
-         copy.setOriginalHeaders(message, null, false);
+         if (template != null) {
+            copy = template.copy(id);
 
-         copy.setAddress(forwardAddress);
+            copy.setAddress(forwardAddress);
 
-         copy.setExpiration(message.getExpiration());
+            // the copy keeps the encoding of the template when it has the same address, only the id changes
+            copy.encodeMessageIDToBuffer();
+         }
+         else {
+            copy = copy(message, id, forwardAddress);
 
-         if (transformer != null) {
-            copy = transformer.transform(copy);
+            if (transformer != null) {
+               copy = transformer.transform(copy);
+            }
          }
       }
       else {
@@ -107,6 +111,38 @@ public class DivertImpl implements Divert {
       postOffice.route(copy, null, context.getTransaction(), false);
    }
 
+   /**
+    * Makes the template the diverts without transformer of a route copy a message from, see
+    * {@link RoutingContext#getDivertTemplate(ServerMessage)}.
+    *
+    * @param forwardAddress the forward address of one of the diverts, its copies don't have to be encoded again
+    */
+   public static ServerMessage createTemplate(final ServerMessage message,
+                                              final SimpleString forwardAddress) throws Exception {
+      ServerMessage template = copy(message, message.getMessageID(), forwardAddress);
+
+      // encoded once for all the copies
+      template.getSharedEncodedBuffer();
+
+      return template;
+   }
+
+   private static ServerMessage copy(final ServerMessage message,
+                                     final long id,
+                                     final SimpleString forwardAddress) throws Exception {
+      ServerMessage copy = message.copy(id);
+      copy.finishCopy();
+
+      // This will set the original MessageId, and the original address
+      copy.setOriginalHeaders(message, null, false);
+
+      copy.setAddress(forwardAddress);
+
+      copy.setExpiration(message.getExpiration());
+
+      return copy;
+   }
+
    @Override
    public void routeWithAck(ServerMessage message, RoutingContext context) throws Exception {
       route(message, context);
@@ -116,6 +152,10 @@ public class DivertImpl implements Divert {
       return routingName;
    }
 
+   public SimpleString getForwardAddress() {
+      return forwardAddress;
+   }
+
    public SimpleString getUniqueName() {
       return uniqueName;
    }
@@ -16,11 +16,17 @@
  */
 package org.apache.activemq.artemis.core.server.impl;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.activemq.artemis.api.config.ActiveMQDefaultConfiguration;
 import org.apache.activemq.artemis.api.core.Message;
 import org.apache.activemq.artemis.api.core.SimpleString;
 import org.apache.activemq.artemis.core.filter.Filter;
@@ -33,6 +39,8 @@ import org.apache.activemq.artemis.core.server.Queue;
 import org.apache.activemq.artemis.core.server.ServerMessage;
 import org.apache.activemq.artemis.core.settings.HierarchicalRepository;
 import org.apache.activemq.artemis.core.settings.impl.AddressSettings;
+import org.apache.activemq.artemis.core.transaction.Transaction;
+import org.apache.activemq.artemis.core.transaction.impl.TransactionImpl;
 
 /**
  * A queue that will discard messages if a newer message with the same
@@ -41,11 +49,38 @@ import org.apache.activemq.artemis.core.settings.impl.AddressSettings;
  * <p>
  * This is useful for example, for stock prices, where you're only interested in the latest value
  * for a particular stock
+ * <p>
+ * With a write-behind window the replaced messages are acknowledged as a batch once the window elapses or the batch
+ * is full. Until then they are counted as being delivered. Values are still replaced under the queue lock, so a
+ * holder is never swapped while it is being handed to a consumer.
  */
 public class LastValueQueue extends QueueImpl {
 
    private final Map<SimpleString, HolderReference> map = new ConcurrentHashMap<SimpleString, HolderReference>();
 
+   private final ScheduledExecutorService scheduledExecutor;
+
+   private final StorageManager storageManager;
+
+   // guarded by the queue lock
+   private List<MessageReference> replacedReferences = new ArrayList<MessageReference>();
+
+   private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+   private final AtomicLong lastValueMessages = new AtomicLong();
+
+   private final AtomicLong messagesReplaced = new AtomicLong();
+
+   private volatile long writeBehindWindow = -1;
+
+   private volatile int writeBehindBatchSize = ActiveMQDefaultConfiguration.getDefaultLastValueWriteBehindBatchSize();
+
+   private final Runnable flushRunnable = new Runnable() {
+      public void run() {
+         flushReplaced();
+      }
+   };
+
    public LastValueQueue(final long persistenceID,
                          final SimpleString address,
                          final SimpleString name,
@@ -61,14 +96,56 @@ public class LastValueQueue extends QueueImpl {
                          final HierarchicalRepository<AddressSettings> addressSettingsRepository,
                          final Executor executor) {
       super(persistenceID, address, name, filter, pageSubscription, user, durable, temporary, autoCreated, scheduledExecutor, postOffice, storageManager, addressSettingsRepository, executor);
+      this.scheduledExecutor = scheduledExecutor;
+      this.storageManager = storageManager;
       new Exception("LastValueQeue " + this).toString();
    }
 
+   /**
+    * Holds the replaced messages up to {@code window} milliseconds, or until {@code batchSize} of them are pending,
+    * before acknowledging them together. A window of -1 acknowledges each replaced message straight away.
+    */
+   public void setWriteBehind(final long window, final int batchSize) {
+      this.writeBehindBatchSize = batchSize;
+      this.writeBehindWindow = window;
+
+      if (window <= 0) {
+         flushReplaced();
+      }
+   }
+
+   /**
+    * The number of messages discarded because a newer message with the same last-value name arrived
+    */
+   public long getMessagesReplaced() {
+      return messagesReplaced.get();
+   }
+
+   /**
+    * The fraction of the messages with a last-value name that were replaced before being delivered
+    */
+   public double getReplacedRatio() {
+      long total = lastValueMessages.get();
+
+      return total == 0 ? 0 : (double) messagesReplaced.get() / total;
+   }
+
    @Override
-   public synchronized void addTail(final MessageReference ref, final boolean direct) {
+   public void addTail(final MessageReference ref, final boolean direct) {
+      if (addTailReplacing(ref, direct)) {
+         flushReplaced();
+      }
+   }
+
+   /**
+    * @return true if the batch of replaced messages is full
+    */
+   private synchronized boolean addTailReplacing(final MessageReference ref, final boolean direct) {
       SimpleString prop = ref.getMessage().getSimpleStringProperty(Message.HDR_LAST_VALUE_NAME);
 
       if (prop != null) {
+         lastValueMessages.incrementAndGet();
+
          HolderReference hr = map.get(prop);
 
          if (hr != null) {
@@ -78,15 +155,30 @@ public class LastValueQueue extends QueueImpl {
 
             referenceHandled();
 
+            hr.setReference(ref);
+
+            messagesReplaced.incrementAndGet();
+
+            if (writeBehindWindow > 0) {
+               replacedReferences.add(oldRef);
+
+               if (replacedReferences.size() >= writeBehindBatchSize) {
+                  return true;
+               }
+
+               if (flushScheduled.compareAndSet(false, true)) {
+                  scheduledExecutor.schedule(flushRunnable, writeBehindWindow, TimeUnit.MILLISECONDS);
+               }
+
+               return false;
+            }
+
             try {
                oldRef.acknowledge();
             }
             catch (Exception e) {
                ActiveMQServerLogger.LOGGER.errorAckingOldReference(e);
             }
-
-            hr.setReference(ref);
-
          }
          else {
             hr = new HolderReference(prop, ref);
@@ -99,6 +191,8 @@ public class LastValueQueue extends QueueImpl {
       else {
          super.addTail(ref, direct);
       }
+
+      return false;
    }
 
    @Override
@@ -137,13 +231,65 @@ public class LastValueQueue extends QueueImpl {
          SimpleString prop = ref.getMessage().getSimpleStringProperty(Message.HDR_LAST_VALUE_NAME);
 
          if (prop != null) {
-            map.remove(prop);
+            // a newer holder may already be in the map if this one was handed to a consumer
+            map.remove(prop, ref);
          }
       }
 
       super.refRemoved(ref);
    }
 
+   @Override
+   public void close() throws Exception {
+      flushReplaced();
+
+      super.close();
+   }
+
+   /**
+    * Acknowledges the replaced messages pending, in a single transaction for those shared with other queues.
+    * The messages only held by this queue are simply deleted. Only the commit runs outside the queue lock.
+    */
+   private void flushReplaced() {
+      flushScheduled.set(false);
+
+      Transaction tx = null;
+
+      synchronized (this) {
+         if (replacedReferences.isEmpty()) {
+            return;
+         }
+
+         List<MessageReference> refs = replacedReferences;
+
+         replacedReferences = new ArrayList<MessageReference>();
+
+         for (MessageReference oldRef : refs) {
+            try {
+               if (!acknowledgeLastReference(oldRef)) {
+                  if (tx == null) {
+                     tx = new TransactionImpl(storageManager);
+                  }
+
+                  acknowledge(tx, oldRef);
+               }
+            }
+            catch (Exception e) {
+               ActiveMQServerLogger.LOGGER.errorAckingOldReference(e);
+            }
+         }
+      }
+
+      if (tx != null) {
+         try {
+            tx.commit();
+         }
+         catch (Exception e) {
+            ActiveMQServerLogger.LOGGER.errorAckingOldReference(e);
+         }
+      }
+   }
+
    private class HolderReference implements MessageReference {
 
       private final SimpleString prop;
@@ -178,6 +324,16 @@ public class LastValueQueue extends QueueImpl {
          return ref.isAlreadyAcked();
       }
 
+      @Override
+      public long getLatencyTime() {
+         return ref.getLatencyTime();
+      }
+
+      @Override
+      public void setLatencyTime(final long nanoTime) {
+         ref.setLatencyTime(nanoTime);
+      }
+
       void setReference(final MessageReference ref) {
          this.ref = ref;
       }
@@ -245,6 +401,10 @@ public class LastValueQueue extends QueueImpl {
          return ref.getMessage().getMemoryEstimate();
       }
 
+      public SimpleString getGroupID() {
+         return ref.getGroupID();
+      }
+
       /* (non-Javadoc)
        * @see org.apache.activemq.artemis.core.server.MessageReference#setConsumerId(java.lang.Long)
        */
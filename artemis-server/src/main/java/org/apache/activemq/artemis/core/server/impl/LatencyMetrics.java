@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.core.server.impl;
+
+import org.apache.activemq.artemis.utils.LatencyHistogram;
+
+/**
+ * The latencies of the messages of a server: how long they take to be routed, to be persisted once routed, to be
+ * delivered once in a queue and to be acknowledged once delivered.
+ * <p>
+ * The histograms of the addresses and queues record to these, see {@link #newAddressRoute()} and
+ * {@link #newQueueDwell()}.
+ */
+public final class LatencyMetrics {
+
+   private final LatencyHistogram route = new LatencyHistogram(LatencyHistogram.defaultStripes(), null);
+
+   private final LatencyHistogram durable = new LatencyHistogram(LatencyHistogram.defaultStripes(), null);
+
+   private final LatencyHistogram dwell = new LatencyHistogram(LatencyHistogram.defaultStripes(), null);
+
+   private final LatencyHistogram ack = new LatencyHistogram(LatencyHistogram.defaultStripes(), null);
+
+   private final SendStageMetrics sendStages = new SendStageMetrics();
+
+   /**
+    * From a message starting to be routed to its references being added to its queues.
+    */
+   public LatencyHistogram getRoute() {
+      return route;
+   }
+
+   /**
+    * From a message being routed to what was stored for it being on disk.
+    */
+   public LatencyHistogram getDurable() {
+      return durable;
+   }
+
+   /**
+    * From a message being added to a queue, or back to it, to being delivered.
+    */
+   public LatencyHistogram getDwell() {
+      return dwell;
+   }
+
+   /**
+    * From a message being delivered to being acknowledged.
+    */
+   public LatencyHistogram getAck() {
+      return ack;
+   }
+
+   /**
+    * The stages of the core sends, from being read to being persisted.
+    */
+   public SendStageMetrics getSendStages() {
+      return sendStages;
+   }
+
+   public LatencyHistogram newAddressRoute() {
+      return new LatencyHistogram(1, route);
+   }
+
+   public LatencyHistogram newQueueDwell() {
+      return new LatencyHistogram(1, dwell);
+   }
+
+   public LatencyHistogram newQueueAck() {
+      return new LatencyHistogram(1, ack);
+   }
+
+   public void reset() {
+      route.reset();
+      durable.reset();
+      dwell.reset();
+      ack.reset();
+      sendStages.reset();
+   }
+}
@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.core.server.impl;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.filter.Filter;
+import org.apache.activemq.artemis.core.server.Consumer;
+import org.apache.activemq.artemis.core.server.ServerMessage;
+
+/**
+ * The consumers owning the message groups of a queue.
+ * <p>
+ * Groups unused for longer than the idle timeout are forgotten, as is the least recently used group once the
+ * table is full, so their next message is assigned to a consumer again.
+ * <p>
+ * When rebalancing, new groups are assigned through a consistent hash ring of the consumers, and adding a consumer
+ * only releases the groups the ring now gives to it, leaving every other group where it is.
+ * <p>
+ * This class is not thread safe, the queue owning it must hold its lock.
+ */
+public class MessageGroupTable {
+
+   // points each consumer is given on the hash ring, so groups spread evenly between few consumers
+   private static final int VIRTUAL_NODES = 100;
+
+   private final int maxSize;
+
+   private final long idleTimeout;
+
+   private final boolean rebalance;
+
+   // access ordered, the eldest entry is always the least recently used group
+   private final LinkedHashMap<SimpleString, GroupEntry> groups = new LinkedHashMap<SimpleString, GroupEntry>(16, 0.75f, true);
+
+   private final TreeMap<Integer, Consumer> ring = new TreeMap<Integer, Consumer>();
+
+   public MessageGroupTable() {
+      this(-1, -1, false);
+   }
+
+   public MessageGroupTable(final int maxSize, final long idleTimeout, final boolean rebalance) {
+      this.maxSize = maxSize;
+      this.idleTimeout = idleTimeout;
+      this.rebalance = rebalance;
+   }
+
+   public Consumer get(final SimpleString groupID) {
+      GroupEntry entry = groups.get(groupID);
+
+      if (entry == null) {
+         return null;
+      }
+
+      if (idleTimeout > 0) {
+         long now = System.currentTimeMillis();
+
+         if (now - entry.lastUsed > idleTimeout) {
+            groups.remove(groupID);
+            return null;
+         }
+
+         entry.lastUsed = now;
+      }
+
+      return entry.consumer;
+   }
+
+   public void put(final SimpleString groupID, final Consumer consumer) {
+      long now = idleTimeout > 0 ? System.currentTimeMillis() : 0;
+
+      groups.put(groupID, new GroupEntry(consumer, now));
+
+      evict(now);
+   }
+
+   public boolean remove(final SimpleString groupID) {
+      return groups.remove(groupID) != null;
+   }
+
+   /**
+    * The consumer a group without owner should go to, or null to use the consumer chosen round-robin
+    */
+   public Consumer select(final SimpleString groupID, final ServerMessage message) {
+      if (!rebalance || ring.isEmpty()) {
+         return null;
+      }
+
+      Consumer consumer = owner(groupID);
+
+      Filter filter = consumer.getFilter();
+
+      if (filter != null && !filter.match(message)) {
+         return null;
+      }
+
+      return consumer;
+   }
+
+   public void addConsumer(final Consumer consumer) {
+      if (!rebalance) {
+         return;
+      }
+
+      int base = System.identityHashCode(consumer);
+
+      for (int i = 0; i < VIRTUAL_NODES; i++) {
+         ring.put(mix(base * 31 + i), consumer);
+      }
+
+      // only the groups the ring gives to the new consumer move, the next message will assign them again
+      Iterator<Map.Entry<SimpleString, GroupEntry>> iter = groups.entrySet().iterator();
+      while (iter.hasNext()) {
+         if (owner(iter.next().getKey()) == consumer) {
+            iter.remove();
+         }
+      }
+   }
+
+   public void removeConsumer(final Consumer consumer) {
+      if (rebalance) {
+         Iterator<Consumer> ringIter = ring.values().iterator();
+         while (ringIter.hasNext()) {
+            if (ringIter.next() == consumer) {
+               ringIter.remove();
+            }
+         }
+      }
+
+      Iterator<GroupEntry> iter = groups.values().iterator();
+      while (iter.hasNext()) {
+         if (iter.next().consumer == consumer) {
+            iter.remove();
+         }
+      }
+   }
+
+   public List<SimpleString> getGroupIDs() {
+      return new ArrayList<SimpleString>(groups.keySet());
+   }
+
+   public int size() {
+      return groups.size();
+   }
+
+   private Consumer owner(final SimpleString groupID) {
+      Map.Entry<Integer, Consumer> entry = ring.ceilingEntry(mix(groupID.hashCode()));
+
+      if (entry == null) {
+         entry = ring.firstEntry();
+      }
+
+      return entry.getValue();
+   }
+
+   private void evict(final long now) {
+      Iterator<GroupEntry> iter = groups.values().iterator();
+
+      while (iter.hasNext()) {
+         GroupEntry eldest = iter.next();
+
+         if (maxSize > 0 && groups.size() > maxSize || idleTimeout > 0 && now - eldest.lastUsed > idleTimeout) {
+            iter.remove();
+         }
+         else {
+            break;
+         }
+      }
+   }
+
+   // SimpleString and identity hash codes are poorly distributed for a ring, this spreads them (murmur3 finalizer)
+   private static int mix(int h) {
+      h ^= h >>> 16;
+      h *= 0x85ebca6b;
+      h ^= h >>> 13;
+      h *= 0xc2b2ae35;
+      h ^= h >>> 16;
+      return h;
+   }
+
+   private static final class GroupEntry {
+
+      private final Consumer consumer;
+
+      private long lastUsed;
+
+      GroupEntry(final Consumer consumer, final long lastUsed) {
+         this.consumer = consumer;
+         this.lastUsed = lastUsed;
+      }
+   }
+}
@@ -18,6 +18,8 @@ package org.apache.activemq.artemis.core.server.impl;
 
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.activemq.artemis.api.core.Message;
+import org.apache.activemq.artemis.api.core.SimpleString;
 import org.apache.activemq.artemis.core.server.MessageReference;
 import org.apache.activemq.artemis.core.server.Queue;
 import org.apache.activemq.artemis.core.server.ServerMessage;
@@ -42,6 +44,12 @@ public class MessageReferenceImpl implements MessageReference {
 
    private boolean alreadyAcked;
 
+   private SimpleString groupID;
+
+   private volatile boolean groupIDParsed;
+
+   private long latencyTime;
+
    // Static --------------------------------------------------------
 
    private static final int memoryOffset;
@@ -53,10 +61,10 @@ public class MessageReferenceImpl implements MessageReference {
       // The value is somewhat higher on 64 bit architectures, probably due to different alignment
 
       if (MemorySize.is64bitArch()) {
-         memoryOffset = 48;
+         memoryOffset = 56;
       }
       else {
-         memoryOffset = 32;
+         memoryOffset = 40;
       }
    }
 
@@ -155,6 +163,16 @@ public class MessageReferenceImpl implements MessageReference {
       return alreadyAcked;
    }
 
+   @Override
+   public long getLatencyTime() {
+      return latencyTime;
+   }
+
+   @Override
+   public void setLatencyTime(final long nanoTime) {
+      latencyTime = nanoTime;
+   }
+
    public boolean isPaged() {
       return false;
    }
@@ -177,6 +195,14 @@ public class MessageReferenceImpl implements MessageReference {
       return message.getMemoryEstimate();
    }
 
+   public SimpleString getGroupID() {
+      if (!groupIDParsed) {
+         groupID = message.getSimpleStringProperty(Message.HDR_GROUP_ID);
+         groupIDParsed = true;
+      }
+      return groupID;
+   }
+
    @Override
    public String toString() {
       return "Reference[" + getMessage().getMessageID() +
@@ -20,6 +20,7 @@ import java.util.concurrent.ScheduledExecutorService;
 
 import org.apache.activemq.artemis.api.core.SimpleString;
 import org.apache.activemq.artemis.core.filter.Filter;
+import org.apache.activemq.artemis.core.io.SequentialFileFactory;
 import org.apache.activemq.artemis.core.paging.cursor.PageSubscription;
 import org.apache.activemq.artemis.core.persistence.StorageManager;
 import org.apache.activemq.artemis.core.postoffice.PostOffice;
@@ -47,6 +48,22 @@ public class QueueFactoryImpl implements QueueFactory {
 
    protected final ExecutorFactory executorFactory;
 
+   private SequentialFileFactory scheduledSpillFactory;
+
+   private long scheduledSpillHorizon = -1;
+
+   private int messageGroupMaxSize = -1;
+
+   private long messageGroupIdleTimeout = -1;
+
+   private boolean messageGroupRebalance = false;
+
+   private long lastValueWriteBehindWindow = -1;
+
+   private int lastValueWriteBehindBatchSize;
+
+   private LatencyMetrics latencyMetrics;
+
    public QueueFactoryImpl(final ExecutorFactory executorFactory,
                            final ScheduledExecutorService scheduledExecutor,
                            final HierarchicalRepository<AddressSettings> addressSettingsRepository,
@@ -64,6 +81,40 @@ public class QueueFactoryImpl implements QueueFactory {
       this.postOffice = postOffice;
    }
 
+   /**
+    * Makes the queues created from now on spill scheduled messages due after the horizon to the file factory
+    */
+   public void setScheduledSpill(final SequentialFileFactory scheduledSpillFactory, final long scheduledSpillHorizon) {
+      this.scheduledSpillFactory = scheduledSpillFactory;
+      this.scheduledSpillHorizon = scheduledSpillHorizon;
+   }
+
+   /**
+    * Bounds the message groups of the queues created from now on, and enables rebalancing them
+    */
+   public void setMessageGroupSettings(final int messageGroupMaxSize,
+                                       final long messageGroupIdleTimeout,
+                                       final boolean messageGroupRebalance) {
+      this.messageGroupMaxSize = messageGroupMaxSize;
+      this.messageGroupIdleTimeout = messageGroupIdleTimeout;
+      this.messageGroupRebalance = messageGroupRebalance;
+   }
+
+   /**
+    * Makes the last-value queues created from now on acknowledge the messages they replace in batches
+    */
+   public void setLastValueWriteBehind(final long lastValueWriteBehindWindow, final int lastValueWriteBehindBatchSize) {
+      this.lastValueWriteBehindWindow = lastValueWriteBehindWindow;
+      this.lastValueWriteBehindBatchSize = lastValueWriteBehindBatchSize;
+   }
+
+   /**
+    * Makes the queues created from now on measure their latencies, recording them to the latencies of the server too
+    */
+   public void setLatencyMetrics(final LatencyMetrics latencyMetrics) {
+      this.latencyMetrics = latencyMetrics;
+   }
+
    public Queue createQueue(final long persistenceID,
                             final SimpleString address,
                             final SimpleString name,
@@ -77,12 +128,28 @@ public class QueueFactoryImpl implements QueueFactory {
 
       Queue queue;
       if (addressSettings.isLastValueQueue()) {
-         queue = new LastValueQueue(persistenceID, address, name, filter, pageSubscription, user, durable, temporary, autoCreated, scheduledExecutor, postOffice, storageManager, addressSettingsRepository, executorFactory.getExecutor());
+         LastValueQueue lastValueQueue = new LastValueQueue(persistenceID, address, name, filter, pageSubscription, user, durable, temporary, autoCreated, scheduledExecutor, postOffice, storageManager, addressSettingsRepository, executorFactory.getExecutor());
+         if (lastValueWriteBehindWindow > 0) {
+            lastValueQueue.setWriteBehind(lastValueWriteBehindWindow, lastValueWriteBehindBatchSize);
+         }
+         queue = lastValueQueue;
       }
       else {
          queue = new QueueImpl(persistenceID, address, name, filter, pageSubscription, user, durable, temporary, autoCreated, scheduledExecutor, postOffice, storageManager, addressSettingsRepository, executorFactory.getExecutor());
       }
 
+      if (scheduledSpillFactory != null && scheduledSpillHorizon > 0) {
+         ((QueueImpl) queue).setScheduledSpill(scheduledSpillFactory, scheduledSpillHorizon, executorFactory.getExecutor());
+      }
+
+      if (messageGroupMaxSize > 0 || messageGroupIdleTimeout > 0 || messageGroupRebalance) {
+         ((QueueImpl) queue).setMessageGroupSettings(messageGroupMaxSize, messageGroupIdleTimeout, messageGroupRebalance);
+      }
+
+      if (latencyMetrics != null) {
+         ((QueueImpl) queue).setLatencyMetrics(latencyMetrics);
+      }
+
       return queue;
    }
 }
@@ -40,12 +40,12 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
-import org.apache.activemq.artemis.api.core.Message;
 import org.apache.activemq.artemis.api.core.Pair;
 import org.apache.activemq.artemis.api.core.SimpleString;
 import org.apache.activemq.artemis.api.core.management.CoreNotificationType;
 import org.apache.activemq.artemis.api.core.management.ManagementHelper;
 import org.apache.activemq.artemis.core.io.IOCallback;
+import org.apache.activemq.artemis.core.io.SequentialFileFactory;
 import org.apache.activemq.artemis.core.filter.Filter;
 import org.apache.activemq.artemis.core.message.impl.MessageImpl;
 import org.apache.activemq.artemis.core.paging.cursor.PageSubscription;
@@ -65,7 +65,6 @@ import org.apache.activemq.artemis.core.server.ActiveMQMessageBundle;
 import org.apache.activemq.artemis.core.server.MessageReference;
 import org.apache.activemq.artemis.core.server.Queue;
 import org.apache.activemq.artemis.core.server.RoutingContext;
-import org.apache.activemq.artemis.core.server.ScheduledDeliveryHandler;
 import org.apache.activemq.artemis.core.server.ServerMessage;
 import org.apache.activemq.artemis.core.server.cluster.RemoteQueueBinding;
 import org.apache.activemq.artemis.core.server.cluster.impl.Redistributor;
@@ -82,6 +81,7 @@ import org.apache.activemq.artemis.core.transaction.impl.TransactionImpl;
 import org.apache.activemq.artemis.spi.core.protocol.RemotingConnection;
 import org.apache.activemq.artemis.utils.ConcurrentHashSet;
 import org.apache.activemq.artemis.utils.FutureLatch;
+import org.apache.activemq.artemis.utils.LatencyHistogram;
 import org.apache.activemq.artemis.utils.LinkedListIterator;
 import org.apache.activemq.artemis.utils.PriorityLinkedList;
 import org.apache.activemq.artemis.utils.PriorityLinkedListImpl;
@@ -159,7 +159,7 @@ public class QueueImpl implements Queue {
 
    private final List<ConsumerHolder> consumerList = new CopyOnWriteArrayList<ConsumerHolder>();
 
-   private final ScheduledDeliveryHandler scheduledDeliveryHandler;
+   private final ScheduledDeliveryHandlerImpl scheduledDeliveryHandler;
 
    private long messagesAdded;
 
@@ -200,7 +200,10 @@ public class QueueImpl implements Queue {
 
    private final Set<Consumer> consumerSet = new HashSet<Consumer>();
 
-   private final Map<SimpleString, Consumer> groups = new HashMap<SimpleString, Consumer>();
+   // The consumers given messages by the current run of deliver(), guarded by the deliverRunner
+   private final Set<Consumer> deliveredConsumers = new HashSet<Consumer>();
+
+   private MessageGroupTable groups = new MessageGroupTable();
 
    private volatile SimpleString expiryAddress;
 
@@ -234,6 +237,16 @@ public class QueueImpl implements Queue {
     */
    private final Object directDeliveryGuard = new Object();
 
+   // the histograms recorded to, null unless the latencies are measured: the ones of the server until the ones of
+   // the queue are asked for
+   private volatile LatencyHistogram dwellLatency;
+
+   private volatile LatencyHistogram ackLatency;
+
+   private LatencyMetrics latencyMetrics;
+
+   private boolean queueLatencies;
+
    /**
     * For testing only
     */
@@ -251,9 +264,7 @@ public class QueueImpl implements Queue {
       }
 
       synchronized (this) {
-         ArrayList<SimpleString> groupsUsed = new ArrayList<SimpleString>();
-         groupsUsed.addAll(groups.keySet());
-         return groupsUsed;
+         return groups.getGroupIDs();
       }
    }
 
@@ -409,6 +420,67 @@ public class QueueImpl implements Queue {
       return refCountForConsumers;
    }
 
+   /**
+    * Bounds the message groups kept by this queue, and enables rebalancing them when consumers are added
+    */
+   public synchronized void setMessageGroupSettings(final int maxSize, final long idleTimeout, final boolean rebalance) {
+      groups = new MessageGroupTable(maxSize, idleTimeout, rebalance);
+
+      for (Consumer consumer : consumerSet) {
+         groups.addConsumer(consumer);
+      }
+   }
+
+   /**
+    * Scheduled messages due after the horizon will be kept on files created by the factory instead of in memory,
+    * the files being written on the executor
+    */
+   public void setScheduledSpill(final SequentialFileFactory fileFactory, final long horizon, final Executor spillExecutor) {
+      scheduledDeliveryHandler.setSpillStore(new ScheduledDeliverySpillStore(fileFactory, this, horizon, spillExecutor));
+   }
+
+   /**
+    * Measures how long messages wait in this queue and how long they take to be acknowledged once delivered
+    */
+   public synchronized void setLatencyMetrics(final LatencyMetrics latencyMetrics) {
+      this.latencyMetrics = latencyMetrics;
+
+      dwellLatency = latencyMetrics.getDwell();
+      ackLatency = latencyMetrics.getAck();
+   }
+
+   public LatencyHistogram getDwellLatency() {
+      return measureQueueLatencies() ? dwellLatency : null;
+   }
+
+   public LatencyHistogram getAckLatency() {
+      return measureQueueLatencies() ? ackLatency : null;
+   }
+
+   public void recordAckLatency(final long nanos) {
+      LatencyHistogram ack = ackLatency;
+
+      if (ack != null) {
+         ack.record(nanos);
+      }
+   }
+
+   // the histograms of a queue take a few KB, only the queues whose latencies are asked for have their own
+   private synchronized boolean measureQueueLatencies() {
+      if (latencyMetrics == null) {
+         return false;
+      }
+
+      if (!queueLatencies) {
+         dwellLatency = latencyMetrics.newQueueDwell();
+         ackLatency = latencyMetrics.newQueueAck();
+
+         queueLatencies = true;
+      }
+
+      return true;
+   }
+
    public boolean isDurable() {
       return durable;
    }
@@ -453,7 +525,7 @@ public class QueueImpl implements Queue {
          getExecutor().execute(new Runnable() {
             public void run() {
                synchronized (QueueImpl.this) {
-                  if (groups.remove(groupIDToRemove) != null) {
+                  if (groups.remove(groupIDToRemove)) {
                      ActiveMQServerLogger.LOGGER.debug("Removing group after unproposal " + groupID + " from queue " + QueueImpl.this);
                   }
                   else {
@@ -472,6 +544,10 @@ public class QueueImpl implements Queue {
          return;
       }
 
+      if (dwellLatency != null) {
+         ref.setLatencyTime(System.nanoTime());
+      }
+
       internalAddHead(ref);
 
       directDeliver = false;
@@ -513,6 +589,10 @@ public class QueueImpl implements Queue {
          return;
       }
 
+      if (dwellLatency != null) {
+         ref.setLatencyTime(System.nanoTime());
+      }
+
       synchronized (directDeliveryGuard) {
          // The checkDirect flag is periodically set to true, if the delivery is specified as direct then this causes the
          // directDeliver flag to be re-computed resulting in direct delivery if the queue is empty
@@ -680,6 +760,8 @@ public class QueueImpl implements Queue {
 
          consumerSet.add(consumer);
 
+         groups.addConsumer(consumer);
+
          if (refCountForConsumers != null) {
             refCountForConsumers.increment();
          }
@@ -707,25 +789,7 @@ public class QueueImpl implements Queue {
 
          consumerSet.remove(consumer);
 
-         LinkedList<SimpleString> groupsToRemove = null;
-
-         for (SimpleString groupID : groups.keySet()) {
-            if (consumer == groups.get(groupID)) {
-               if (groupsToRemove == null) {
-                  groupsToRemove = new LinkedList<SimpleString>();
-               }
-               groupsToRemove.add(groupID);
-            }
-         }
-
-         // We use an auxiliary List here to avoid concurrent modification exceptions on the keySet
-         // while the iteration is being done.
-         // Since that's a simple HashMap there's no Iterator's support with a remove operation
-         if (groupsToRemove != null) {
-            for (SimpleString groupID : groupsToRemove) {
-               groups.remove(groupID);
-            }
-         }
+         groups.removeConsumer(consumer);
 
          if (refCountForConsumers != null) {
             refCountForConsumers.decrement();
@@ -962,6 +1026,24 @@ public class QueueImpl implements Queue {
       messagesAcknowledged++;
    }
 
+   /**
+    * Acknowledges a reference no other queue holds without storing the acknowledgement,
+    * as deleting the message is then enough to remove it from the journal
+    *
+    * @return false if the reference is paged or shared with other queues, in which case it was not acknowledged
+    */
+   protected boolean acknowledgeLastReference(final MessageReference ref) {
+      if (ref.isPaged() || ref.getMessage().getRefCount() != 1) {
+         return false;
+      }
+
+      postAcknowledge(ref);
+
+      messagesAcknowledged++;
+
+      return true;
+   }
+
    public void reacknowledge(final Transaction tx, final MessageReference ref) throws Exception {
       ServerMessage message = ref.getMessage();
 
@@ -1839,6 +1921,9 @@ public class QueueImpl implements Queue {
                   if (groupConsumer != null) {
                      consumer = groupConsumer;
                   }
+                  else {
+                     consumer = selectGroupConsumer(groupID, ref, consumer);
+                  }
                }
 
                HandleStatus status = handle(ref, consumer);
@@ -1902,6 +1987,8 @@ public class QueueImpl implements Queue {
 
          if (handledconsumer != null) {
             proceedDeliver(handledconsumer, ref);
+
+            deliveredConsumers.add(handledconsumer);
          }
       }
 
@@ -1932,10 +2019,21 @@ public class QueueImpl implements Queue {
       }
       else {
          // But we don't use the groupID on internal queues (clustered queues) otherwise the group map would leak forever
-         return ref.getMessage().getSimpleStringProperty(Message.HDR_GROUP_ID);
+         return ref.getGroupID();
       }
    }
 
+   /**
+    * A group without owner goes to the consumer the group table picks when rebalancing, or else to the round-robin one
+    */
+   private Consumer selectGroupConsumer(final SimpleString groupID,
+                                        final MessageReference ref,
+                                        final Consumer roundRobinConsumer) {
+      Consumer selected = groups.select(groupID, ref.getMessage());
+
+      return selected != null ? selected : roundRobinConsumer;
+   }
+
    /**
     * @param ref
     */
@@ -2356,6 +2454,9 @@ public class QueueImpl implements Queue {
                if (groupConsumer != null) {
                   consumer = groupConsumer;
                }
+               else {
+                  consumer = selectGroupConsumer(groupID, ref, consumer);
+               }
             }
 
             // Only move onto the next position if the consumer on the current position was used.
@@ -2378,6 +2479,7 @@ public class QueueImpl implements Queue {
 
                deliveriesInTransit.countUp();
                proceedDeliver(consumer, ref);
+               afterDeliver(consumer);
                return true;
             }
 
@@ -2391,6 +2493,19 @@ public class QueueImpl implements Queue {
    }
 
    private void proceedDeliver(Consumer consumer, MessageReference reference) {
+      LatencyHistogram dwell = dwellLatency;
+
+      if (dwell != null) {
+         long now = System.nanoTime();
+
+         // paged references are not measured until they are delivered
+         if (reference.getLatencyTime() != 0) {
+            dwell.record(now - reference.getLatencyTime());
+         }
+
+         reference.setLatencyTime(now);
+      }
+
       try {
          consumer.proceedDeliver(reference);
       }
@@ -2415,6 +2530,15 @@ public class QueueImpl implements Queue {
       }
    }
 
+   private void afterDeliver(final Consumer consumer) {
+      try {
+         consumer.afterDeliver();
+      }
+      catch (Exception e) {
+         ActiveMQServerLogger.LOGGER.errorDelivering(e);
+      }
+   }
+
    private boolean checkExpired(final MessageReference reference) {
       if (reference.getMessage().isExpired()) {
          if (isTrace) {
@@ -2602,7 +2726,16 @@ public class QueueImpl implements Queue {
             // We will be using the deliverRunner instance as the guard object to avoid multiple threads executing
             // an asynchronous delivery
             synchronized (QueueImpl.this.deliverRunner) {
-               deliver();
+               try {
+                  deliver();
+               }
+               finally {
+                  for (Consumer consumer : deliveredConsumers) {
+                     afterDeliver(consumer);
+                  }
+
+                  deliveredConsumers.clear();
+               }
             }
          }
          catch (Exception e) {
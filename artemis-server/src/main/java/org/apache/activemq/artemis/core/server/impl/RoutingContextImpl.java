@@ -25,6 +25,7 @@ import org.apache.activemq.artemis.api.core.SimpleString;
 import org.apache.activemq.artemis.core.server.Queue;
 import org.apache.activemq.artemis.core.server.RouteContextList;
 import org.apache.activemq.artemis.core.server.RoutingContext;
+import org.apache.activemq.artemis.core.server.ServerMessage;
 import org.apache.activemq.artemis.core.transaction.Transaction;
 
 public final class RoutingContextImpl implements RoutingContext {
@@ -32,10 +33,17 @@ public final class RoutingContextImpl implements RoutingContext {
    // The pair here is Durable and NonDurable
    private final Map<SimpleString, RouteContextList> map = new HashMap<SimpleString, RouteContextList>();
 
+   // listings of previous routes, kept on clear() so a reused context doesn't allocate them again
+   private final List<ContextListing> spareListings = new ArrayList<ContextListing>(1);
+
    private Transaction transaction;
 
    private int queueCount;
 
+   private ServerMessage divertedMessage;
+
+   private ServerMessage divertTemplate;
+
    public RoutingContextImpl(final Transaction transaction) {
       this.transaction = transaction;
    }
@@ -43,9 +51,20 @@ public final class RoutingContextImpl implements RoutingContext {
    public void clear() {
       transaction = null;
 
-      map.clear();
+      if (!map.isEmpty()) {
+         for (RouteContextList listing : map.values()) {
+            ContextListing contextListing = (ContextListing) listing;
+            contextListing.clear();
+            spareListings.add(contextListing);
+         }
+
+         map.clear();
+      }
 
       queueCount = 0;
+
+      divertedMessage = null;
+      divertTemplate = null;
    }
 
    public void addQueue(final SimpleString address, final Queue queue) {
@@ -78,7 +97,7 @@ public final class RoutingContextImpl implements RoutingContext {
    public RouteContextList getContextListing(SimpleString address) {
       RouteContextList listing = map.get(address);
       if (listing == null) {
-         listing = new ContextListing();
+         listing = spareListings.isEmpty() ? new ContextListing() : spareListings.remove(spareListings.size() - 1);
          map.put(address, listing);
       }
       return listing;
@@ -104,6 +123,15 @@ public final class RoutingContextImpl implements RoutingContext {
       return queueCount;
    }
 
+   public ServerMessage getDivertTemplate(final ServerMessage message) {
+      return divertedMessage == message ? divertTemplate : null;
+   }
+
+   public void setDivertTemplate(final ServerMessage message, final ServerMessage template) {
+      divertedMessage = message;
+      divertTemplate = template;
+   }
+
    public Map<SimpleString, RouteContextList> getContexListing() {
       return this.map;
    }
@@ -116,6 +144,12 @@ public final class RoutingContextImpl implements RoutingContext {
 
       private final List<Queue> ackedQueues = new ArrayList<>();
 
+      void clear() {
+         durableQueue.clear();
+         nonDurableQueue.clear();
+         ackedQueues.clear();
+      }
+
       public int getNumberOfDurableQueues() {
          return durableQueue.size();
       }
@@ -17,6 +17,7 @@
 package org.apache.activemq.artemis.core.server.impl;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -29,10 +30,13 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.activemq.artemis.core.filter.Filter;
+import org.apache.activemq.artemis.core.paging.PagingStore;
 import org.apache.activemq.artemis.core.server.ActiveMQServerLogger;
 import org.apache.activemq.artemis.core.server.MessageReference;
 import org.apache.activemq.artemis.core.server.Queue;
 import org.apache.activemq.artemis.core.server.ScheduledDeliveryHandler;
+import org.apache.activemq.artemis.core.server.ServerMessage;
+import org.apache.activemq.artemis.core.server.impl.ScheduledDeliverySpillStore.SpilledReference;
 
 /**
  * Handles scheduling deliveries to a queue at the correct time.
@@ -49,10 +53,17 @@ public class ScheduledDeliveryHandlerImpl implements ScheduledDeliveryHandler {
    // just adding some information to keep it in order accordingly to the initial operations
    private final TreeSet<RefScheduled> scheduledReferences = new TreeSet<>(new MessageReferenceComparator());
 
+   // References due beyond the horizon of the spill store are kept on disk instead of scheduledReferences
+   private volatile ScheduledDeliverySpillStore spillStore;
+
    public ScheduledDeliveryHandlerImpl(final ScheduledExecutorService scheduledExecutor) {
       this.scheduledExecutor = scheduledExecutor;
    }
 
+   public void setSpillStore(final ScheduledDeliverySpillStore spillStore) {
+      this.spillStore = spillStore;
+   }
+
    public boolean checkAndSchedule(final MessageReference ref, final boolean tail) {
       long deliveryTime = ref.getScheduledDeliveryTime();
 
@@ -61,9 +72,11 @@ public class ScheduledDeliveryHandlerImpl implements ScheduledDeliveryHandler {
             ActiveMQServerLogger.LOGGER.trace("Scheduling delivery for " + ref + " to occur at " + deliveryTime);
          }
 
-         addInPlace(deliveryTime, ref, tail);
+         if (!spill(deliveryTime, ref, tail)) {
+            addInPlace(deliveryTime, ref, tail);
 
-         scheduleDelivery(deliveryTime);
+            scheduleDelivery(deliveryTime);
+         }
 
          return true;
       }
@@ -77,8 +90,10 @@ public class ScheduledDeliveryHandlerImpl implements ScheduledDeliveryHandler {
    }
 
    public int getScheduledCount() {
+      int spilled = spillStore == null ? 0 : spillStore.getSpilledCount();
+
       synchronized (scheduledReferences) {
-         return scheduledReferences.size();
+         return scheduledReferences.size() + spilled;
       }
    }
 
@@ -90,12 +105,37 @@ public class ScheduledDeliveryHandlerImpl implements ScheduledDeliveryHandler {
             refs.add(ref.getRef());
          }
       }
+
+      if (spillStore != null && !spillStore.isEmpty()) {
+         // Browsing only, these references are not attached to the queue
+         for (SpilledReference spilled : spillStore.peekAll()) {
+            refs.add(spilled.createReference(spillStore.getQueue()));
+         }
+      }
       return refs;
    }
 
    public List<MessageReference> cancel(final Filter filter) {
       List<MessageReference> refs = new ArrayList<MessageReference>();
 
+      if (spillStore != null && !spillStore.isEmpty()) {
+         // Only the matching references are brought back, the others are written again to their bucket
+         for (Long bucket : spillStore.getBuckets()) {
+            List<SpilledReference> matched = new ArrayList<SpilledReference>();
+
+            for (SpilledReference spilled : spillStore.reloadBucket(bucket)) {
+               if (filter == null || filter.match(spilled.getMessage())) {
+                  matched.add(spilled);
+               }
+               else {
+                  respill(bucket, spilled);
+               }
+            }
+
+            restore(matched);
+         }
+      }
+
       synchronized (scheduledReferences) {
          Iterator<RefScheduled> iter = scheduledReferences.iterator();
 
@@ -111,6 +151,29 @@ public class ScheduledDeliveryHandlerImpl implements ScheduledDeliveryHandler {
    }
 
    public MessageReference removeReferenceWithID(final long id) {
+      MessageReference ref = removeInMemoryReferenceWithID(id);
+
+      if (ref == null && spillStore != null) {
+         Long bucket = spillStore.getBucketOf(id);
+
+         if (bucket != null) {
+            for (SpilledReference spilled : spillStore.reloadBucket(bucket)) {
+               if (spilled.getMessage().getMessageID() == id) {
+                  restore(Collections.singletonList(spilled));
+               }
+               else {
+                  respill(bucket, spilled);
+               }
+            }
+         }
+
+         ref = removeInMemoryReferenceWithID(id);
+      }
+
+      return ref;
+   }
+
+   private MessageReference removeInMemoryReferenceWithID(final long id) {
       synchronized (scheduledReferences) {
          Iterator<RefScheduled> iter = scheduledReferences.iterator();
          while (iter.hasNext()) {
@@ -125,6 +188,98 @@ public class ScheduledDeliveryHandlerImpl implements ScheduledDeliveryHandler {
       return null;
    }
 
+   /**
+    * Writes the reference to the spill store when it is due after the horizon.
+    * Only plain messages referenced by this queue alone are spilled, as the message instance is dropped from memory.
+    */
+   private boolean spill(final long deliveryTime, final MessageReference ref, final boolean tail) {
+      if (spillStore == null || ref.isPaged()) {
+         return false;
+      }
+
+      ServerMessage message = ref.getMessage();
+
+      if (message.isLargeMessage() || message.getRefCount() != 1) {
+         return false;
+      }
+
+      final long bucket = spillStore.getBucket(deliveryTime);
+
+      final long delay = spillStore.getLoadTime(bucket) - System.currentTimeMillis();
+
+      if (delay <= 0) {
+         return false;
+      }
+
+      try {
+         if (spillStore.spill(bucket, ref, tail)) {
+            scheduledExecutor.schedule(new ReloadRunnable(bucket), delay, TimeUnit.MILLISECONDS);
+         }
+      }
+      catch (Exception e) {
+         ActiveMQServerLogger.LOGGER.errorSpillingScheduledMessage(e, message.getMessageID());
+         return false;
+      }
+
+      // The dropped instance keeps its reference count, so a journal reload won't see it as unreferenced.
+      // Only the memory accounted on the address is given back here
+      PagingStore store = message.getPagingStore();
+      if (store != null) {
+         store.addSize(-message.getMemoryEstimate() - MessageReferenceImpl.getMemoryEstimate());
+      }
+
+      return true;
+   }
+
+   /**
+    * Writes back a reference read from its bucket, or keeps it in memory if the bucket is due to be reloaded already
+    */
+   private void respill(final long bucket, final SpilledReference spilled) {
+      final long delay = spillStore.getLoadTime(bucket) - System.currentTimeMillis();
+
+      if (delay > 0) {
+         if (spillStore.spill(bucket, spilled)) {
+            scheduledExecutor.schedule(new ReloadRunnable(bucket), delay, TimeUnit.MILLISECONDS);
+         }
+      }
+      else {
+         restore(Collections.singletonList(spilled));
+      }
+   }
+
+   private void restore(final List<SpilledReference> spilledReferences) {
+      Queue queue = spillStore.getQueue();
+
+      PagingStore store = spillStore.getPagingStore();
+
+      for (SpilledReference spilled : spilledReferences) {
+         ServerMessage message = spilled.getMessage();
+
+         message.setPagingStore(store);
+
+         try {
+            message.incrementRefCount();
+         }
+         catch (Exception e) {
+            ActiveMQServerLogger.LOGGER.warn(e.getMessage(), e);
+         }
+
+         if (message.isDurable() && queue.isDurable()) {
+            message.incrementDurableRefCount();
+         }
+
+         MessageReference ref = spilled.createReference(queue);
+
+         if (ScheduledDeliveryHandlerImpl.trace) {
+            ActiveMQServerLogger.LOGGER.trace("Reloaded spilled " + ref + " to occur at " + spilled.getScheduledDeliveryTime());
+         }
+
+         addInPlace(spilled.getScheduledDeliveryTime(), ref, spilled.isTail());
+
+         scheduleDelivery(spilled.getScheduledDeliveryTime());
+      }
+   }
+
    private void scheduleDelivery(final long deliveryTime) {
       final long now = System.currentTimeMillis();
 
@@ -155,6 +310,19 @@ public class ScheduledDeliveryHandlerImpl implements ScheduledDeliveryHandler {
       }
    }
 
+   private class ReloadRunnable implements Runnable {
+
+      private final long bucket;
+
+      ReloadRunnable(final long bucket) {
+         this.bucket = bucket;
+      }
+
+      public void run() {
+         restore(spillStore.reload(bucket));
+      }
+   }
+
    private class ScheduledDeliveryRunnable implements Runnable {
 
       long deliveryTime;
@@ -0,0 +1,537 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.core.server.impl;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
+import org.apache.activemq.artemis.api.core.ActiveMQBuffers;
+import org.apache.activemq.artemis.core.io.SequentialFile;
+import org.apache.activemq.artemis.core.io.SequentialFileFactory;
+import org.apache.activemq.artemis.core.paging.PagingStore;
+import org.apache.activemq.artemis.core.server.ActiveMQServerLogger;
+import org.apache.activemq.artemis.core.server.MessageReference;
+import org.apache.activemq.artemis.core.server.Queue;
+import org.apache.activemq.artemis.core.server.ServerMessage;
+import org.apache.activemq.artemis.utils.DataConstants;
+
+/**
+ * Keeps the scheduled references of a single queue on disk, in files grouped by delivery time.
+ * <p>
+ * Each bucket covers {@code horizon} milliseconds of delivery time and is appended to a single file, using the same
+ * record framing as paging. A spilled reference is only encoded by the caller; the file is opened once per bucket and
+ * written on the executor, so no I/O happens under the lock of the queue. A bucket is read back (and its file deleted)
+ * as a whole when the {@link ScheduledDeliveryHandlerImpl} brings it back into memory, along with the records not
+ * written yet.
+ * <p>
+ * The bucket of each spilled message is kept in memory, so that one reference is found by reading its bucket only.
+ * <p>
+ * The files are a cache only: durable messages are still on the journal and are reloaded from there,
+ * so leftovers from a previous run are removed by {@link #deleteAll(SequentialFileFactory)}.
+ */
+public class ScheduledDeliverySpillStore {
+
+   private static final boolean isTrace = ActiveMQServerLogger.LOGGER.isTraceEnabled();
+
+   public static final String DIRECTORY = "scheduled";
+
+   public static final String FILE_EXTENSION = "sched";
+
+   private static final int SIZE_RECORD = DataConstants.SIZE_BYTE + DataConstants.SIZE_INT + DataConstants.SIZE_BYTE;
+
+   private static final int SIZE_REFERENCE = DataConstants.SIZE_LONG + DataConstants.SIZE_INT + DataConstants.SIZE_INT + DataConstants.SIZE_BOOLEAN;
+
+   private static final byte START_BYTE = (byte) '{';
+
+   private static final byte END_BYTE = (byte) '}';
+
+   private final SequentialFileFactory fileFactory;
+
+   private final Queue queue;
+
+   private final long horizon;
+
+   private final Executor executor;
+
+   // bucketID -> bucket, the buckets not reloaded yet
+   private final TreeMap<Long, Bucket> buckets = new TreeMap<Long, Bucket>();
+
+   // messageID -> bucketID of the spilled references
+   private final Map<Long, Long> messageBuckets = new HashMap<Long, Long>();
+
+   private int spilledCount;
+
+   // a bucket spilled again after it was reloaded gets a new file
+   private long fileSequence;
+
+   // The paging store of the queue's address, taken from the spilled messages so it can be restored on reload
+   private volatile PagingStore pagingStore;
+
+   /**
+    * @param executor where the files are written, an ordered executor so that the records of a bucket stay in order
+    */
+   public ScheduledDeliverySpillStore(final SequentialFileFactory fileFactory,
+                                      final Queue queue,
+                                      final long horizon,
+                                      final Executor executor) {
+      this.fileFactory = fileFactory;
+      this.queue = queue;
+      this.horizon = horizon;
+      this.executor = executor;
+   }
+
+   public static void deleteAll(final SequentialFileFactory fileFactory) throws Exception {
+      for (String fileName : fileFactory.listFiles(FILE_EXTENSION)) {
+         fileFactory.createSequentialFile(fileName).delete();
+      }
+   }
+
+   public Queue getQueue() {
+      return queue;
+   }
+
+   public long getHorizon() {
+      return horizon;
+   }
+
+   public long getBucket(final long deliveryTime) {
+      return deliveryTime / horizon;
+   }
+
+   /**
+    * The time at which the references of the bucket must be back in memory, one horizon before the bucket starts.
+    */
+   public long getLoadTime(final long bucket) {
+      return (bucket - 1) * horizon;
+   }
+
+   public synchronized int getSpilledCount() {
+      return spilledCount;
+   }
+
+   public synchronized boolean isEmpty() {
+      return spilledCount == 0;
+   }
+
+   /**
+    * @return the buckets holding spilled references
+    */
+   public synchronized List<Long> getBuckets() {
+      return new ArrayList<Long>(buckets.keySet());
+   }
+
+   /**
+    * @return the bucket holding the spilled reference to the message, null if it isn't spilled
+    */
+   public synchronized Long getBucketOf(final long messageID) {
+      return messageBuckets.get(messageID);
+   }
+
+   /**
+    * @return true if this is the first reference written to the bucket, so the caller needs to schedule its reload
+    */
+   public boolean spill(final long bucket, final MessageReference ref, final boolean tail) {
+      ServerMessage message = ref.getMessage();
+
+      ByteBuffer record = encode(message, ref.getScheduledDeliveryTime(), ref.getDeliveryCount(), ref.getPersistedCount(), tail);
+
+      if (message.getPagingStore() != null) {
+         pagingStore = message.getPagingStore();
+      }
+
+      if (isTrace) {
+         ActiveMQServerLogger.LOGGER.trace("Spilling " + ref + " to bucket " + bucket + " on queue " + queue.getName());
+      }
+
+      return append(bucket, message.getMessageID(), record);
+   }
+
+   /**
+    * Writes back a reference read from the store, as when it was first spilled
+    *
+    * @return true if this is the first reference written to the bucket, so the caller needs to schedule its reload
+    */
+   public boolean spill(final long bucket, final SpilledReference spilled) {
+      ServerMessage message = spilled.getMessage();
+
+      ByteBuffer record = encode(message, spilled.scheduledDeliveryTime, spilled.deliveryCount, spilled.persistedCount, spilled.tail);
+
+      return append(bucket, message.getMessageID(), record);
+   }
+
+   /**
+    * Reads and removes every bucket up to (and including) the one given
+    */
+   public List<SpilledReference> reload(final long upToBucket) {
+      List<Bucket> taken = new ArrayList<Bucket>();
+
+      synchronized (this) {
+         while (!buckets.isEmpty() && buckets.firstKey() <= upToBucket) {
+            taken.add(buckets.pollFirstEntry().getValue());
+         }
+      }
+
+      List<SpilledReference> refs = new ArrayList<SpilledReference>();
+
+      for (Bucket bucket : taken) {
+         take(bucket, refs);
+      }
+
+      return refs;
+   }
+
+   /**
+    * Reads and removes a single bucket
+    */
+   public List<SpilledReference> reloadBucket(final long bucketID) {
+      Bucket bucket;
+
+      synchronized (this) {
+         bucket = buckets.remove(bucketID);
+      }
+
+      if (bucket == null) {
+         return Collections.emptyList();
+      }
+
+      List<SpilledReference> refs = new ArrayList<SpilledReference>();
+
+      take(bucket, refs);
+
+      return refs;
+   }
+
+   /**
+    * Reads every bucket without removing anything, used to browse the scheduled messages. The spills and reloads
+    * of other buckets are not blocked meanwhile.
+    */
+   public List<SpilledReference> peekAll() {
+      List<Bucket> snapshot;
+
+      synchronized (this) {
+         snapshot = new ArrayList<Bucket>(buckets.values());
+      }
+
+      List<SpilledReference> refs = new ArrayList<SpilledReference>();
+
+      for (Bucket bucket : snapshot) {
+         synchronized (bucket) {
+            List<ByteBuffer> pending;
+
+            synchronized (this) {
+               if (bucket.taken) {
+                  continue;
+               }
+
+               pending = new ArrayList<ByteBuffer>(bucket.pending);
+            }
+
+            if (bucket.file != null) {
+               readFile(bucket.file, refs);
+            }
+
+            for (ByteBuffer record : pending) {
+               decode(ActiveMQBuffers.wrappedBuffer(record.duplicate()), refs);
+            }
+         }
+      }
+
+      return refs;
+   }
+
+   public PagingStore getPagingStore() {
+      return pagingStore;
+   }
+
+   private ByteBuffer encode(final ServerMessage message,
+                             final long deliveryTime,
+                             final int deliveryCount,
+                             final int persistedCount,
+                             final boolean tail) {
+      int encodeSize = SIZE_REFERENCE + message.getEncodeSize();
+
+      ByteBuffer buffer = fileFactory.newBuffer(encodeSize + SIZE_RECORD);
+
+      ActiveMQBuffer wrap = ActiveMQBuffers.wrappedBuffer(buffer);
+      wrap.clear();
+
+      wrap.writeByte(START_BYTE);
+      wrap.writeInt(encodeSize);
+      wrap.writeLong(deliveryTime);
+      wrap.writeInt(deliveryCount);
+      wrap.writeInt(persistedCount);
+      wrap.writeBoolean(tail);
+      message.encode(wrap);
+      wrap.writeByte(END_BYTE);
+
+      buffer.rewind();
+
+      return buffer;
+   }
+
+   private synchronized boolean append(final long bucketID, final long messageID, final ByteBuffer record) {
+      Bucket bucket = buckets.get(bucketID);
+
+      boolean created = bucket == null;
+
+      if (created) {
+         bucket = new Bucket(createFileName(bucketID, fileSequence++));
+         buckets.put(bucketID, bucket);
+      }
+
+      bucket.pending.add(record);
+      bucket.count++;
+
+      messageBuckets.put(messageID, bucketID);
+      spilledCount++;
+
+      if (!bucket.flushing) {
+         bucket.flushing = true;
+
+         try {
+            executor.execute(new FlushRunnable(bucket));
+         }
+         catch (RejectedExecutionException e) {
+            // the server is stopping, the records stay in memory until the bucket is reloaded
+            bucket.flushing = false;
+         }
+      }
+
+      return created;
+   }
+
+   private void flush(final Bucket bucket) {
+      synchronized (bucket) {
+         List<ByteBuffer> records;
+
+         synchronized (this) {
+            bucket.flushing = false;
+
+            if (bucket.taken) {
+               // the records were read back already
+               return;
+            }
+
+            records = bucket.pending;
+            bucket.pending = new ArrayList<ByteBuffer>();
+         }
+
+         int written = 0;
+
+         try {
+            if (bucket.file == null) {
+               SequentialFile file = fileFactory.createSequentialFile(bucket.fileName);
+               file.open();
+               bucket.file = file;
+            }
+
+            for (ByteBuffer record : records) {
+               bucket.file.writeDirect(record, false);
+               written++;
+            }
+         }
+         catch (Exception e) {
+            ActiveMQServerLogger.LOGGER.errorWritingScheduledMessages(e, bucket.fileName);
+
+            // the records not written are kept in memory until the bucket is reloaded
+            synchronized (this) {
+               bucket.pending.addAll(0, records.subList(written, records.size()));
+            }
+         }
+      }
+   }
+
+   private void take(final Bucket bucket, final List<SpilledReference> refs) {
+      int first = refs.size();
+
+      synchronized (bucket) {
+         List<ByteBuffer> pending;
+
+         synchronized (this) {
+            bucket.taken = true;
+
+            pending = bucket.pending;
+            bucket.pending = new ArrayList<ByteBuffer>();
+
+            spilledCount -= bucket.count;
+         }
+
+         if (bucket.file != null) {
+            readFile(bucket.file, refs);
+
+            try {
+               bucket.file.close();
+               bucket.file.delete();
+            }
+            catch (Exception e) {
+               ActiveMQServerLogger.LOGGER.errorReloadingScheduledMessages(e, bucket.fileName);
+            }
+         }
+
+         for (ByteBuffer record : pending) {
+            decode(ActiveMQBuffers.wrappedBuffer(record), refs);
+         }
+      }
+
+      synchronized (this) {
+         for (int i = first; i < refs.size(); i++) {
+            messageBuckets.remove(refs.get(i).getMessage().getMessageID());
+         }
+      }
+   }
+
+   private void readFile(final SequentialFile file, final List<SpilledReference> refs) {
+      try {
+         ByteBuffer buffer = fileFactory.newBuffer((int) file.size());
+
+         file.position(0);
+         file.read(buffer);
+         buffer.rewind();
+
+         ActiveMQBuffer fileBuffer = ActiveMQBuffers.wrappedBuffer(buffer);
+         fileBuffer.writerIndex(fileBuffer.capacity());
+
+         decode(fileBuffer, refs);
+
+         // appending again from the end
+         file.position(file.size());
+      }
+      catch (Exception e) {
+         ActiveMQServerLogger.LOGGER.errorReloadingScheduledMessages(e, file.getFileName());
+      }
+   }
+
+   private static void decode(final ActiveMQBuffer buffer, final List<SpilledReference> refs) {
+      while (buffer.readableBytes() >= SIZE_RECORD && buffer.readByte() == START_BYTE) {
+         int encodeSize = buffer.readInt();
+         if (buffer.readableBytes() < encodeSize + DataConstants.SIZE_BYTE) {
+            break;
+         }
+
+         long deliveryTime = buffer.readLong();
+         int deliveryCount = buffer.readInt();
+         int persistedCount = buffer.readInt();
+         boolean tail = buffer.readBoolean();
+
+         ServerMessage message = new ServerMessageImpl(-1, 50);
+         message.decode(buffer);
+
+         if (buffer.readByte() != END_BYTE) {
+            throw new IllegalStateException("Internal error, it wasn't possible to locate END_BYTE on a spilled scheduled reference");
+         }
+
+         refs.add(new SpilledReference(message, deliveryTime, deliveryCount, persistedCount, tail));
+      }
+   }
+
+   private String createFileName(final long bucket, final long sequence) {
+      return queue.getID() + "-" + bucket + "-" + sequence + "." + FILE_EXTENSION;
+   }
+
+   /**
+    * The references spilled to a bucket: the records not written yet are guarded by the store, the file by the bucket
+    */
+   private static final class Bucket {
+
+      private final String fileName;
+
+      private int count;
+
+      private List<ByteBuffer> pending = new ArrayList<ByteBuffer>();
+
+      // a flush is queued on the executor
+      private boolean flushing;
+
+      // read back, nothing is written to its file anymore
+      private boolean taken;
+
+      private SequentialFile file;
+
+      Bucket(final String fileName) {
+         this.fileName = fileName;
+      }
+   }
+
+   private final class FlushRunnable implements Runnable {
+
+      private final Bucket bucket;
+
+      FlushRunnable(final Bucket bucket) {
+         this.bucket = bucket;
+      }
+
+      public void run() {
+         flush(bucket);
+      }
+   }
+
+   /**
+    * A reference read back from disk, still to be attached to its queue
+    */
+   public static final class SpilledReference {
+
+      private final ServerMessage message;
+
+      private final long scheduledDeliveryTime;
+
+      private final int deliveryCount;
+
+      private final int persistedCount;
+
+      private final boolean tail;
+
+      SpilledReference(final ServerMessage message,
+                       final long scheduledDeliveryTime,
+                       final int deliveryCount,
+                       final int persistedCount,
+                       final boolean tail) {
+         this.message = message;
+         this.scheduledDeliveryTime = scheduledDeliveryTime;
+         this.deliveryCount = deliveryCount;
+         this.persistedCount = persistedCount;
+         this.tail = tail;
+      }
+
+      public ServerMessage getMessage() {
+         return message;
+      }
+
+      public long getScheduledDeliveryTime() {
+         return scheduledDeliveryTime;
+      }
+
+      public boolean isTail() {
+         return tail;
+      }
+
+      public MessageReference createReference(final Queue queue) {
+         MessageReference ref = message.createReference(queue);
+         ref.setScheduledDeliveryTime(scheduledDeliveryTime);
+         ref.setDeliveryCount(deliveryCount);
+         ref.setPersistedCount(persistedCount);
+         return ref;
+      }
+   }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.core.server.impl;
+
+import org.apache.activemq.artemis.utils.LatencyHistogram;
+
+/**
+ * The time the core sends of a server spend in each stage: waiting to be handled after they were read, being routed,
+ * and waiting to be persisted after they were routed.
+ * <p>
+ * Part of the {@link LatencyMetrics} of the server, only recorded when they are enabled.
+ */
+public final class SendStageMetrics {
+
+   private final LatencyHistogram queued = new LatencyHistogram(LatencyHistogram.defaultStripes(), null);
+
+   private final LatencyHistogram routing = new LatencyHistogram(LatencyHistogram.defaultStripes(), null);
+
+   private final LatencyHistogram persistence = new LatencyHistogram(LatencyHistogram.defaultStripes(), null);
+
+   /**
+    * The time between a send being read and being handled, only measured when the packets of sessions are
+    * pipelined.
+    */
+   public LatencyHistogram getQueued() {
+      return queued;
+   }
+
+   public LatencyHistogram getRouting() {
+      return routing;
+   }
+
+   public LatencyHistogram getPersistence() {
+      return persistence;
+   }
+
+   public void reset() {
+      queued.reset();
+      routing.reset();
+      persistence.reset();
+   }
+}
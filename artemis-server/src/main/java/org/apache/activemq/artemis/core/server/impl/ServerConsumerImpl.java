@@ -373,6 +373,10 @@ public class ServerConsumerImpl implements ServerConsumer, ReadyListener {
       }
    }
 
+   public void afterDeliver() {
+      callback.afterDelivery();
+   }
+
    public Filter getFilter() {
       return filter;
    }
@@ -485,6 +489,8 @@ public class ServerConsumerImpl implements ServerConsumer, ReadyListener {
                      forcedDeliveryMessage.setAddress(messageQueue.getName());
 
                      callback.sendMessage(forcedDeliveryMessage, ServerConsumerImpl.this, 0);
+
+                     callback.afterDelivery();
                   }
                }
             }
@@ -703,6 +709,11 @@ public class ServerConsumerImpl implements ServerConsumer, ReadyListener {
    }
 
    private void ackReference(Transaction tx, MessageReference ref) throws Exception {
+      // only set when the latencies are measured
+      if (ref.getLatencyTime() != 0) {
+         messageQueue.recordAckLatency(System.nanoTime() - ref.getLatencyTime());
+      }
+
       if (tx == null) {
          ref.getQueue().acknowledge(ref);
       }
@@ -1053,6 +1064,15 @@ public class ServerConsumerImpl implements ServerConsumer, ReadyListener {
       }
 
       public synchronized void run() {
+         try {
+            browse();
+         }
+         finally {
+            afterDeliver();
+         }
+      }
+
+      private void browse() {
          // if the reference was busy during the previous iteration, handle it now
          if (current != null) {
             try {
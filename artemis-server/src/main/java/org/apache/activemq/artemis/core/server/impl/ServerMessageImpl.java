@@ -17,12 +17,17 @@
 package org.apache.activemq.artemis.core.server.impl;
 
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import io.netty.buffer.ByteBuf;
+import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
 import org.apache.activemq.artemis.api.core.Message;
 import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.buffers.impl.ChannelBufferWrapper;
 import org.apache.activemq.artemis.core.message.impl.MessageImpl;
 import org.apache.activemq.artemis.core.paging.PagingStore;
+import org.apache.activemq.artemis.core.remoting.impl.netty.PartialPooledByteBufAllocator;
 import org.apache.activemq.artemis.core.server.MessageReference;
 import org.apache.activemq.artemis.core.server.Queue;
 import org.apache.activemq.artemis.core.server.ServerMessage;
@@ -42,6 +47,12 @@ public class ServerMessageImpl extends MessageImpl implements ServerMessage {
 
    private boolean persisted = false;
 
+   // the conversions of this message to other protocols, replaced as a whole on each change
+   private volatile ProtocolEncoding[] protocolEncodings;
+
+   // the pooled direct buffer the message is encoded in until its last reference is gone, null if none
+   private ByteBuf pooledBuffer;
+
    static {
       // This is an estimate of how much memory a ServerMessageImpl takes up, exclusing body and properties
       // Note, it is only an estimate, it's not possible to be entirely sure with Java
@@ -122,6 +133,15 @@ public class ServerMessageImpl extends MessageImpl implements ServerMessage {
    public int decrementRefCount() throws Exception {
       int count = refCount.decrementAndGet();
 
+      if (count == 0) {
+         // no consumer will need the conversions anymore
+         protocolEncodings = null;
+
+         // the deliveries still being written hold the pooled buffer on their own, the message goes back to the heap
+         // as it can still be read, by a copy or a log
+         releasePooledBuffer();
+      }
+
       if (pagingStore != null) {
          if (count == 0) {
             pagingStore.addSize(-getMemoryEstimate() - MessageReferenceImpl.getMemoryEstimate());
@@ -155,6 +175,68 @@ public class ServerMessageImpl extends MessageImpl implements ServerMessage {
       return false;
    }
 
+   public synchronized void usePooledBuffer() {
+      // the body buffer could outlive the pooled buffer
+      if (pooledBuffer != null || bodyBuffer != null || !bufferValid || isLargeMessage()) {
+         return;
+      }
+
+      int length = getEndOfMessagePosition();
+
+      pooledBuffer = PartialPooledByteBufAllocator.INSTANCE.directBuffer(length);
+      pooledBuffer.writeBytes(buffer.byteBuf(), 0, length);
+
+      // not releasable, only the message and the slices it gives away release it
+      buffer = new ChannelBufferWrapper(pooledBuffer);
+      buffer.setIndex(length, length);
+   }
+
+   public synchronized void releasePooledBuffer() {
+      if (isInPooledBuffer()) {
+         ActiveMQBuffer heapBuffer = copyBuffer(buffer, buffer.writerIndex());
+
+         heapBuffer.setIndex(buffer.readerIndex(), buffer.writerIndex());
+
+         buffer = heapBuffer;
+      }
+
+      if (pooledBuffer != null) {
+         pooledBuffer.release();
+
+         pooledBuffer = null;
+      }
+   }
+
+   private boolean isInPooledBuffer() {
+      // a change of the message copies it to the heap first when it was given away
+      return pooledBuffer != null && buffer.byteBuf().unwrap() == pooledBuffer;
+   }
+
+   @Override
+   public ActiveMQBuffer getBodyBuffer() {
+      // reading or writing the body on the server is rare enough for the message to go back to the heap
+      releasePooledBuffer();
+
+      return super.getBodyBuffer();
+   }
+
+   @Override
+   public synchronized ActiveMQBuffer getSharedEncodedBuffer() {
+      ActiveMQBuffer encoded = super.getSharedEncodedBuffer();
+
+      if (!isInPooledBuffer()) {
+         return encoded;
+      }
+
+      // a slice of its own reference count as the last reference to the message may be gone before it is written,
+      // released by whoever writes it
+      ByteBuf slice = pooledBuffer.slice(MessageImpl.BUFFER_HEADER_SPACE, getEndOfMessagePosition() - MessageImpl.BUFFER_HEADER_SPACE);
+
+      slice.retain();
+
+      return new ChannelBufferWrapper(slice, true);
+   }
+
    private volatile int memoryEstimate = -1;
 
    public int getMemoryEstimate() {
@@ -165,6 +247,47 @@ public class ServerMessageImpl extends MessageImpl implements ServerMessage {
       return memoryEstimate;
    }
 
+   public Object getProtocolEncoding(final Object protocol, final int deliveryCount) {
+      ProtocolEncoding[] encodings = protocolEncodings;
+
+      if (encodings == null || !bufferValid) {
+         return null;
+      }
+
+      int version = getEncodeVersion();
+
+      for (ProtocolEncoding encoding : encodings) {
+         if (encoding.protocol == protocol && encoding.deliveryCount == deliveryCount && encoding.version == version) {
+            return encoding.encoding;
+         }
+      }
+
+      return null;
+   }
+
+   public synchronized void setProtocolEncoding(final Object protocol, final int deliveryCount, final Object encoding) {
+      // the encode version only tells the message changed once it is encoded
+      int version = encodeIfChanged();
+
+      ProtocolEncoding[] encodings = protocolEncodings;
+
+      // one conversion per protocol, the ones made before the last change are dropped
+      int kept = 0;
+      ProtocolEncoding[] newEncodings = new ProtocolEncoding[encodings == null ? 1 : encodings.length + 1];
+
+      if (encodings != null) {
+         for (ProtocolEncoding other : encodings) {
+            if (other.protocol != protocol && other.version == version) {
+               newEncodings[kept++] = other;
+            }
+         }
+      }
+
+      newEncodings[kept++] = new ProtocolEncoding(protocol, deliveryCount, version, encoding);
+
+      protocolEncodings = kept == newEncodings.length ? newEncodings : Arrays.copyOf(newEncodings, kept);
+   }
+
    public ServerMessage copy(final long newID) {
       ServerMessage m = new ServerMessageImpl(this);
 
@@ -295,10 +418,15 @@ public class ServerMessageImpl extends MessageImpl implements ServerMessage {
 
    // Encoding stuff
 
-   public void encodeMessageIDToBuffer() {
+   public synchronized void encodeMessageIDToBuffer() {
       // We first set the message id - this needs to be set on the buffer since this buffer will be re-used
+      // unless the headers are to be encoded again anyway
 
-      buffer.setLong(buffer.getInt(MessageImpl.BUFFER_HEADER_SPACE) + DataConstants.SIZE_INT, messageID);
+      if (bufferValid) {
+         ActiveMQBuffer writableBuffer = getWritableBuffer();
+
+         writableBuffer.setLong(writableBuffer.getInt(MessageImpl.BUFFER_HEADER_SPACE) + DataConstants.SIZE_INT, messageID);
+      }
    }
 
    @Override
@@ -321,4 +449,22 @@ public class ServerMessageImpl extends MessageImpl implements ServerMessage {
    public Object getDuplicateProperty() {
       return getObjectProperty(Message.HDR_DUPLICATE_DETECTION_ID);
    }
+
+   private static final class ProtocolEncoding {
+
+      private final Object protocol;
+
+      private final int deliveryCount;
+
+      private final int version;
+
+      private final Object encoding;
+
+      ProtocolEncoding(final Object protocol, final int deliveryCount, final int version, final Object encoding) {
+         this.protocol = protocol;
+         this.deliveryCount = deliveryCount;
+         this.version = version;
+         this.encoding = encoding;
+      }
+   }
 }
@@ -80,6 +80,7 @@ import org.apache.activemq.artemis.core.transaction.TransactionPropertyIndexes;
 import org.apache.activemq.artemis.core.transaction.impl.TransactionImpl;
 import org.apache.activemq.artemis.spi.core.protocol.RemotingConnection;
 import org.apache.activemq.artemis.spi.core.protocol.SessionCallback;
+import org.apache.activemq.artemis.utils.IDGenerator;
 import org.apache.activemq.artemis.utils.TypedProperties;
 import org.apache.activemq.artemis.utils.UUID;
 import org.apache.activemq.artemis.utils.json.JSONArray;
@@ -121,6 +122,9 @@ public class ServerSessionImpl implements ServerSession, FailureListener {
 
    protected final StorageManager storageManager;
 
+   // the IDs of the messages sent by the session, reserved in bulk from the storage manager
+   private final IDGenerator messageIDs;
+
    private final ResourceManager resourceManager;
 
    public final PostOffice postOffice;
@@ -233,6 +237,8 @@ public class ServerSessionImpl implements ServerSession, FailureListener {
 
       this.storageManager = storageManager;
 
+      this.messageIDs = storageManager.newIDSequence();
+
       this.postOffice = postOffice;
 
       this.resourceManager = resourceManager;
@@ -1193,7 +1199,7 @@ public class ServerSessionImpl implements ServerSession, FailureListener {
 
    public void sendLarge(final MessageInternal message) throws Exception {
       // need to create the LargeMessage before continue
-      long id = storageManager.generateID();
+      long id = messageIDs.generateID();
 
       LargeServerMessage largeMsg = storageManager.createLargeMessage(id, message);
 
@@ -1212,7 +1218,7 @@ public class ServerSessionImpl implements ServerSession, FailureListener {
       //large message may come from StompSession directly, in which
       //case the id header already generated.
       if (!message.isLargeMessage()) {
-         long id = storageManager.generateID();
+         long id = messageIDs.generateID();
 
          message.setMessageID(id);
          message.encodeMessageIDToBuffer();
@@ -1537,6 +1543,12 @@ public class ServerSessionImpl implements ServerSession, FailureListener {
          routingContext.setTransaction(tx);
       }
 
+      boolean pooled = server.getConfiguration().isPooledMessageBuffers();
+
+      if (pooled) {
+         msg.usePooledBuffer();
+      }
+
       try {
          postOffice.route(msg, queueCreator, routingContext, direct);
 
@@ -1552,6 +1564,11 @@ public class ServerSessionImpl implements ServerSession, FailureListener {
       }
       finally {
          routingContext.clear();
+
+         // a message that was paged or routed nowhere has no reference to give its pooled buffer back
+         if (pooled && msg.getRefCount() <= 0) {
+            msg.releasePooledBuffer();
+         }
       }
    }
 
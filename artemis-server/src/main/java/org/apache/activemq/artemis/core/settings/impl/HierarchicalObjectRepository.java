@@ -23,9 +23,9 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -51,6 +51,11 @@ public class HierarchicalObjectRepository<T> implements HierarchicalRepository<T
     */
    private final Map<String, Match<T>> matches = new HashMap<String, Match<T>>();
 
+   /**
+    * the matches indexed by their words
+    */
+   private final MatchTrie<T> trie = new MatchTrie<T>();
+
    /**
     * Certain values cannot be removed after installed.
     * This is because we read a few records from the main config.
@@ -83,6 +88,9 @@ public class HierarchicalObjectRepository<T> implements HierarchicalRepository<T
     * lock.
     * <p>
     * The lock is required for the 'add match to cache' part.
+    * <p>
+    * A change only evicts the cached addresses matched by the changed match, these are the only ones whose
+    * result may change.
     */
    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(false);
 
@@ -143,15 +151,17 @@ public class HierarchicalObjectRepository<T> implements HierarchicalRepository<T
    public void addMatch(final String match, final T value, final boolean immutableMatch) {
       lock.writeLock().lock();
       try {
-         clearCache();
+         Match.verify(match);
+         Match<T> match1 = new Match<T>(match);
+         match1.setValue(value);
+
+         evictCache(match1);
 
          if (immutableMatch) {
             immutables.add(match);
          }
-         Match.verify(match);
-         Match<T> match1 = new Match<T>(match);
-         match1.setValue(value);
          matches.put(match, match1);
+         trie.put(match1);
       }
       finally {
          lock.writeLock().unlock();
@@ -246,11 +256,14 @@ public class HierarchicalObjectRepository<T> implements HierarchicalRepository<T
          }
          else {
             /**
-             * clear the cache before removing the match. This will force any thread at
+             * evict the matched addresses from the cache before removing the match. This will force any thread at
              * {@link #getMatch(String)} to get the lock to recompute.
              */
-            clearCache();
-            matches.remove(match);
+            Match<T> removed = matches.remove(match);
+            if (removed != null) {
+               evictCache(removed);
+               trie.remove(match);
+            }
             onChange();
          }
       }
@@ -298,6 +311,7 @@ public class HierarchicalObjectRepository<T> implements HierarchicalRepository<T
          clearCache();
          listeners.clear();
          matches.clear();
+         trie.clear();
       }
       finally {
          lock.writeLock().unlock();
@@ -312,6 +326,14 @@ public class HierarchicalObjectRepository<T> implements HierarchicalRepository<T
       cache.clear();
    }
 
+   private void evictCache(final Match<T> match) {
+      for (Iterator<String> iterator = cache.keySet().iterator(); iterator.hasNext(); ) {
+         if (match.getPattern().matcher(iterator.next()).matches()) {
+            iterator.remove();
+         }
+      }
+   }
+
    private void onChange() {
       lock.readLock().lock();
       try {
@@ -340,12 +362,8 @@ public class HierarchicalObjectRepository<T> implements HierarchicalRepository<T
    private Map<String, Match<T>> getPossibleMatches(final String match) {
       HashMap<String, Match<T>> possibleMatches = new HashMap<String, Match<T>>();
 
-      for (Entry<String, Match<T>> entry : matches.entrySet()) {
-         Match<T> entryMatch = entry.getValue();
-         if (entryMatch.getPattern().matcher(match).matches()) {
-            possibleMatches.put(entry.getKey(), entryMatch);
-         }
-      }
+      trie.getMatches(match, possibleMatches);
+
       return possibleMatches;
    }
 
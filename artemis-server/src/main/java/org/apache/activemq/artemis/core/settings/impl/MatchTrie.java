@@ -0,0 +1,334 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.core.settings.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Indexes {@link Match}es by their words, so the matches of an address are found walking down the words of the
+ * address instead of trying the pattern of every match.
+ * <p>
+ * It finds exactly the matches whose pattern matches the address:
+ * <ul>
+ * <li>a literal word only matches the same word, a {@code *} word any non empty word</li>
+ * <li>a match ending with {@code #} matches any address starting with what comes before it, so {@code a.b.#} matches
+ * {@code a.b}, {@code a.b.c} and also {@code a.bc}, as its pattern does</li>
+ * <li>a match the words can't express, like {@code a*} or {@code #} alone, is kept aside and its pattern is tried
+ * on every lookup</li>
+ * </ul>
+ * This class is not thread safe.
+ */
+final class MatchTrie<T> {
+
+   private static final String REGEX_CHARACTERS = "\\^$|?+()[]{}";
+
+   private final Node<T> root = new Node<T>();
+
+   private final Map<String, Match<T>> others = new HashMap<String, Match<T>>();
+
+   private int size;
+
+   int size() {
+      return size;
+   }
+
+   void put(final Match<T> match) {
+      String[] words = indexedWords(match.getMatch());
+
+      if (words == null) {
+         if (others.put(match.getMatch(), match) == null) {
+            size++;
+         }
+         return;
+      }
+
+      boolean prefix = isPrefix(match.getMatch());
+
+      Node<T> parent = null;
+      Node<T> node = root;
+      String word = null;
+
+      for (String w : words) {
+         parent = node;
+         word = w;
+         node = node.child(w, true);
+      }
+
+      if (prefix) {
+         if (node.prefixes == null) {
+            node.prefixes = new ArrayList<Match<T>>(2);
+         }
+         else {
+            for (int i = 0; i < node.prefixes.size(); i++) {
+               if (node.prefixes.get(i).getMatch().equals(match.getMatch())) {
+                  node.prefixes.set(i, match);
+                  return;
+               }
+            }
+         }
+
+         node.prefixes.add(match);
+
+         if (!Match.WORD_WILDCARD.equals(word)) {
+            if (parent.prefixChildren == null) {
+               parent.prefixChildren = new HashMap<String, Node<T>>();
+            }
+            parent.prefixChildren.put(word, node);
+         }
+      }
+      else {
+         if (node.exact != null) {
+            node.exact = match;
+            return;
+         }
+         node.exact = match;
+      }
+
+      size++;
+   }
+
+   boolean remove(final String match) {
+      String[] words = indexedWords(match);
+
+      if (words == null) {
+         if (others.remove(match) != null) {
+            size--;
+            return true;
+         }
+         return false;
+      }
+
+      // the nodes down the words, to prune the ones left empty
+      List<Node<T>> path = new ArrayList<Node<T>>(words.length + 1);
+      path.add(root);
+
+      Node<T> node = root;
+
+      for (String word : words) {
+         node = node.child(word, false);
+         if (node == null) {
+            return false;
+         }
+         path.add(node);
+      }
+
+      boolean removed = false;
+
+      if (isPrefix(match)) {
+         if (node.prefixes != null) {
+            for (int i = 0; i < node.prefixes.size(); i++) {
+               if (node.prefixes.get(i).getMatch().equals(match)) {
+                  node.prefixes.remove(i);
+                  removed = true;
+                  break;
+               }
+            }
+
+            if (node.prefixes.isEmpty()) {
+               node.prefixes = null;
+
+               Node<T> parent = path.get(path.size() - 2);
+               if (parent.prefixChildren != null) {
+                  parent.prefixChildren.remove(words[words.length - 1]);
+                  if (parent.prefixChildren.isEmpty()) {
+                     parent.prefixChildren = null;
+                  }
+               }
+            }
+         }
+      }
+      else if (node.exact != null) {
+         node.exact = null;
+         removed = true;
+      }
+
+      if (!removed) {
+         return false;
+      }
+
+      size--;
+
+      for (int i = words.length; i > 0 && path.get(i).isEmpty(); i--) {
+         path.get(i - 1).removeChild(words[i - 1]);
+      }
+
+      return true;
+   }
+
+   void clear() {
+      root.children.clear();
+      root.anyWord = null;
+      root.prefixChildren = null;
+      others.clear();
+      size = 0;
+   }
+
+   /**
+    * Adds the matches of an address to the map, by their match string
+    */
+   void getMatches(final String address, final Map<String, Match<T>> result) {
+      collect(root, split(address), 0, result);
+
+      for (Map.Entry<String, Match<T>> entry : others.entrySet()) {
+         if (entry.getValue().getPattern().matcher(address).matches()) {
+            result.put(entry.getKey(), entry.getValue());
+         }
+      }
+   }
+
+   private void collect(final Node<T> node, final String[] words, final int depth, final Map<String, Match<T>> result) {
+      if (depth == words.length) {
+         if (node.exact != null) {
+            result.put(node.exact.getMatch(), node.exact);
+         }
+         return;
+      }
+
+      String word = words[depth];
+
+      // the last word of a match ending with # only has to start the word of the address
+      if (node.prefixChildren != null) {
+         if (node.prefixChildren.size() <= word.length() + 1) {
+            for (Map.Entry<String, Node<T>> entry : node.prefixChildren.entrySet()) {
+               if (word.startsWith(entry.getKey())) {
+                  addAll(entry.getValue().prefixes, result);
+               }
+            }
+         }
+         else {
+            for (int i = 0; i <= word.length(); i++) {
+               Node<T> child = node.prefixChildren.get(word.substring(0, i));
+               if (child != null) {
+                  addAll(child.prefixes, result);
+               }
+            }
+         }
+      }
+
+      Node<T> child = node.children.get(word);
+      if (child != null) {
+         collect(child, words, depth + 1, result);
+      }
+
+      if (node.anyWord != null && !word.isEmpty()) {
+         addAll(node.anyWord.prefixes, result);
+         collect(node.anyWord, words, depth + 1, result);
+      }
+   }
+
+   private static <T> void addAll(final List<Match<T>> matches, final Map<String, Match<T>> result) {
+      if (matches != null) {
+         for (Match<T> match : matches) {
+            result.put(match.getMatch(), match);
+         }
+      }
+   }
+
+   private static boolean isPrefix(final String match) {
+      return match.endsWith(Match.WILDCARD);
+   }
+
+   /**
+    * The words a match is indexed by, without its trailing #, or null if it has to be kept aside
+    */
+   private static String[] indexedWords(final String match) {
+      String words = match;
+
+      if (isPrefix(words)) {
+         words = words.substring(0, words.length() - 1);
+
+         // like its pattern, a.b.# is the same as a.b#
+         if (words.endsWith(".")) {
+            words = words.substring(0, words.length() - 1);
+         }
+
+         if (words.isEmpty()) {
+            return null;
+         }
+      }
+
+      String[] split = split(words);
+
+      for (String word : split) {
+         if (Match.WORD_WILDCARD.equals(word)) {
+            continue;
+         }
+
+         for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+
+            if (c == '*' || c == '#' || REGEX_CHARACTERS.indexOf(c) >= 0) {
+               return null;
+            }
+         }
+      }
+
+      return split;
+   }
+
+   // unlike String.split, it keeps the trailing empty words
+   private static String[] split(final String address) {
+      return address.split("\\.", -1);
+   }
+
+   private static final class Node<T> {
+
+      private final Map<String, Node<T>> children = new HashMap<String, Node<T>>(2);
+
+      private Node<T> anyWord;
+
+      // the literal children holding matches ending with #
+      private Map<String, Node<T>> prefixChildren;
+
+      private Match<T> exact;
+
+      private List<Match<T>> prefixes;
+
+      Node<T> child(final String word, final boolean create) {
+         Node<T> child = Match.WORD_WILDCARD.equals(word) ? anyWord : children.get(word);
+
+         if (child == null && create) {
+            child = new Node<T>();
+
+            if (Match.WORD_WILDCARD.equals(word)) {
+               anyWord = child;
+            }
+            else {
+               children.put(word, child);
+            }
+         }
+
+         return child;
+      }
+
+      void removeChild(final String word) {
+         if (Match.WORD_WILDCARD.equals(word)) {
+            anyWord = null;
+         }
+         else {
+            children.remove(word);
+         }
+      }
+
+      boolean isEmpty() {
+         return exact == null && prefixes == null && anyWord == null && children.isEmpty();
+      }
+   }
+}
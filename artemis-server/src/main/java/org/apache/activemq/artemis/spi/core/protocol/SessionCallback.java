@@ -34,6 +34,12 @@ public interface SessionCallback {
 
    int sendMessage(ServerMessage message, ServerConsumer consumerID, int deliveryCount);
 
+   /**
+    * Called once a run of deliveries is over, the messages given to {@link #sendMessage} may be held back until then
+    * to be sent together.
+    */
+   void afterDelivery();
+
    int sendLargeMessage(ServerMessage message, ServerConsumer consumerID, long bodySize, int deliveryCount);
 
    int sendLargeMessageContinuation(ServerConsumer consumerID,
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.core.filter.impl;
+
+import java.util.Random;
+
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.filter.Filter;
+import org.apache.activemq.artemis.core.server.ServerMessage;
+import org.apache.activemq.artemis.core.server.impl.ServerMessageImpl;
+import org.apache.activemq.artemis.tests.util.SilentTestCase;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FilterSetTest extends SilentTestCase {
+
+   private static final String[] COLORS = {"red", "blue", "green"};
+
+   @Test
+   public void testAgreesWithFilters() throws Exception {
+      Filter[] filters = {FilterImpl.createFilter("color = 'red'"), null, FilterImpl.createFilter("color = 'red'"), FilterImpl.createFilter("color = 'blue' AND weight > 5"), FilterImpl.createFilter("weight > 5"), FilterImpl.createFilter("missing IS NULL")};
+
+      FilterSet set = new FilterSet(filters);
+
+      // the same filter string is evaluated once
+      Assert.assertEquals(4, set.getDistinctCount());
+
+      Random random = new Random(1);
+
+      for (int i = 0; i < 1000; i++) {
+         ServerMessage message = new ServerMessageImpl(i, 100);
+         message.putStringProperty("color", COLORS[random.nextInt(COLORS.length)]);
+         message.putIntProperty("weight", random.nextInt(10));
+
+         FilterSet.Evaluation evaluation = set.evaluate(message);
+
+         // in a random order, as bindings are matched
+         for (int j = filters.length - 1; j >= 0; j--) {
+            Assert.assertEquals(filters[j] == null || filters[j].match(message), evaluation.match(j));
+         }
+      }
+   }
+
+   @Test
+   public void testEvaluatesEachFilterOnce() throws Exception {
+      CountingFilter counting = new CountingFilter();
+
+      FilterSet set = new FilterSet(new Filter[]{counting, counting, null});
+
+      FilterSet.Evaluation evaluation = set.evaluate(new ServerMessageImpl(1, 100));
+
+      Assert.assertTrue(evaluation.match(0));
+      Assert.assertTrue(evaluation.match(1));
+      Assert.assertTrue(evaluation.match(2));
+      Assert.assertEquals(1, counting.count);
+
+      set.evaluate(new ServerMessageImpl(2, 100)).match(1);
+      Assert.assertEquals(2, counting.count);
+   }
+
+   private static final class CountingFilter implements Filter {
+
+      private int count;
+
+      public boolean match(final ServerMessage message) {
+         count++;
+         return true;
+      }
+
+      public SimpleString getFilterString() {
+         return new SimpleString("counting");
+      }
+   }
+}
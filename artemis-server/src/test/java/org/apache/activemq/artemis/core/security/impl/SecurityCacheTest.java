@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.core.security.impl;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.security.CheckType;
+import org.apache.activemq.artemis.core.security.Role;
+import org.apache.activemq.artemis.core.settings.impl.HierarchicalObjectRepository;
+import org.apache.activemq.artemis.tests.util.ActiveMQTestBase;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SecurityCacheTest extends ActiveMQTestBase {
+
+   private static final SimpleString ADDRESS = new SimpleString("orders");
+
+   @Test
+   public void testDecisions() {
+      SecurityCache cache = new SecurityCache(100, 1000, 500);
+
+      Assert.assertNull(cache.getDecision(ADDRESS, "user", "password", null, CheckType.SEND, 0));
+
+      cache.putDecision(ADDRESS, "user", "password", null, CheckType.SEND, null, true, 0);
+      cache.putDecision(ADDRESS, null, null, null, CheckType.SEND, null, false, 0);
+
+      Assert.assertEquals(Boolean.TRUE, cache.getDecision(ADDRESS, "user", "password", null, CheckType.SEND, 999));
+      Assert.assertNull(cache.getDecision(ADDRESS, "user", "password", null, CheckType.SEND, 1000));
+      Assert.assertNull(cache.getDecision(ADDRESS, "user", "other", null, CheckType.SEND, 0));
+      Assert.assertNull(cache.getDecision(ADDRESS, "user", "password", null, CheckType.CONSUME, 0));
+
+      Assert.assertEquals(Boolean.FALSE, cache.getDecision(ADDRESS, null, null, null, CheckType.SEND, 499));
+      Assert.assertNull(cache.getDecision(ADDRESS, null, null, null, CheckType.SEND, 500));
+
+      Assert.assertEquals(2, cache.getAuthorizationHits());
+      Assert.assertEquals(5, cache.getAuthorizationMisses());
+   }
+
+   @Test
+   public void testDecisionsByConnection() {
+      SecurityCache cache = new SecurityCache(100, 1000, 1000);
+
+      cache.putDecision(ADDRESS, "user", "password", "connection1", CheckType.SEND, null, true, 0);
+
+      Assert.assertEquals(Boolean.TRUE, cache.getDecision(ADDRESS, "user", "password", "connection1", CheckType.SEND, 0));
+      Assert.assertNull(cache.getDecision(ADDRESS, "user", "password", "connection2", CheckType.SEND, 0));
+      Assert.assertNull(cache.getDecision(ADDRESS, "user", "password", null, CheckType.SEND, 0));
+      Assert.assertNull(cache.getDecision(ADDRESS, "other", "password", "connection1", CheckType.SEND, 0));
+   }
+
+   @Test
+   public void testEqualPasswordInstances() {
+      SecurityCache cache = new SecurityCache(100, 1000, 1000);
+
+      cache.putDecision(ADDRESS, "user", new String("password"), "connection1", CheckType.SEND, null, true, 0);
+      cache.putAuthenticated("user", new String("password"), 0);
+
+      // another instance of the same password is checked against the digest
+      Assert.assertEquals(Boolean.TRUE, cache.getDecision(ADDRESS, "user", "password", "connection1", CheckType.SEND, 0));
+      Assert.assertEquals(Boolean.TRUE, cache.getDecision(ADDRESS, "user", "password", "connection1", CheckType.SEND, 0));
+      Assert.assertNull(cache.getDecision(ADDRESS, "user", new String("other"), "connection1", CheckType.SEND, 0));
+      Assert.assertTrue(cache.isAuthenticated("user", new String("password"), 0));
+      Assert.assertFalse(cache.isAuthenticated("user", new String("other"), 0));
+   }
+
+   @Test
+   public void testDenialsNotCached() {
+      SecurityCache cache = new SecurityCache(100, 1000, 0);
+
+      cache.putDecision(ADDRESS, "user", "password", null, CheckType.SEND, null, false, 0);
+
+      Assert.assertNull(cache.getDecision(ADDRESS, "user", "password", null, CheckType.SEND, 0));
+   }
+
+   @Test
+   public void testAuthentications() {
+      SecurityCache cache = new SecurityCache(100, 1000, 1000);
+
+      Assert.assertFalse(cache.isAuthenticated("user", "password", 0));
+
+      cache.putAuthenticated("user", "password", 0);
+
+      Assert.assertTrue(cache.isAuthenticated("user", "password", 999));
+      Assert.assertFalse(cache.isAuthenticated("user", "other", 0));
+      Assert.assertFalse(cache.isAuthenticated("user", "password", 1000));
+
+      Assert.assertEquals(1, cache.getAuthenticationHits());
+      Assert.assertEquals(3, cache.getAuthenticationMisses());
+   }
+
+   @Test
+   public void testInvalidatesChangedRolesOnly() {
+      HierarchicalObjectRepository<Set<Role>> repository = new HierarchicalObjectRepository<Set<Role>>();
+      repository.addMatch("orders", roles("a"));
+      repository.addMatch("invoices", roles("b"));
+
+      SimpleString invoices = new SimpleString("invoices");
+
+      SecurityCache cache = new SecurityCache(100, 1000, 1000);
+      cache.putDecision(ADDRESS, "user", "password", null, CheckType.SEND, repository.getMatch("orders"), true, 0);
+      cache.putDecision(invoices, "user", "password", null, CheckType.SEND, repository.getMatch("invoices"), true, 0);
+
+      repository.addMatch("orders", roles("c"));
+      repository.addMatch("invoices", roles("b"));
+      cache.invalidate(repository);
+
+      Assert.assertNull(cache.getDecision(ADDRESS, "user", "password", null, CheckType.SEND, 0));
+      Assert.assertEquals(Boolean.TRUE, cache.getDecision(invoices, "user", "password", null, CheckType.SEND, 0));
+   }
+
+   @Test
+   public void testBounded() {
+      SecurityCache cache = new SecurityCache(100, 1000, 1000);
+
+      for (int i = 0; i < 1000; i++) {
+         cache.putDecision(new SimpleString("address" + i), "user", "password", null, CheckType.SEND, null, true, 0);
+         cache.putAuthenticated("user" + i, "password", 0);
+      }
+
+      int decisions = 0;
+      int authentications = 0;
+
+      for (int i = 0; i < 1000; i++) {
+         if (cache.getDecision(new SimpleString("address" + i), "user", "password", null, CheckType.SEND, 0) != null) {
+            decisions++;
+         }
+         if (cache.isAuthenticated("user" + i, "password", 0)) {
+            authentications++;
+         }
+      }
+
+      Assert.assertTrue("decisions " + decisions, decisions > 0 && decisions <= 100);
+      Assert.assertTrue("authentications " + authentications, authentications > 0 && authentications <= 100);
+
+      // the last one added is always kept
+      Assert.assertNotNull(cache.getDecision(new SimpleString("address999"), "user", "password", null, CheckType.SEND, 0));
+   }
+
+   private static Set<Role> roles(final String name) {
+      Set<Role> roles = new HashSet<Role>();
+      roles.add(new Role(name, true, true, true, true, true, true, true));
+      return roles;
+   }
+}
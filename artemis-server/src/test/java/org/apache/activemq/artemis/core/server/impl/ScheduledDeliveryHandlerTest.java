@@ -37,6 +37,8 @@ import org.apache.activemq.artemis.api.core.ActiveMQPropertyConversionException;
 import org.apache.activemq.artemis.api.core.Message;
 import org.apache.activemq.artemis.api.core.SimpleString;
 import org.apache.activemq.artemis.core.filter.Filter;
+import org.apache.activemq.artemis.core.filter.impl.FilterImpl;
+import org.apache.activemq.artemis.core.io.nio.NIOSequentialFileFactory;
 import org.apache.activemq.artemis.core.message.BodyEncoder;
 import org.apache.activemq.artemis.core.paging.PagingStore;
 import org.apache.activemq.artemis.core.paging.cursor.PageSubscription;
@@ -47,15 +49,22 @@ import org.apache.activemq.artemis.core.server.RoutingContext;
 import org.apache.activemq.artemis.core.server.ServerMessage;
 import org.apache.activemq.artemis.core.transaction.Transaction;
 import org.apache.activemq.artemis.tests.util.RandomUtil;
+import org.apache.activemq.artemis.utils.LatencyHistogram;
+import org.apache.activemq.artemis.utils.KeyDictionary;
 import org.apache.activemq.artemis.utils.LinkedListIterator;
 import org.apache.activemq.artemis.utils.ReferenceCounter;
 import org.apache.activemq.artemis.utils.TypedProperties;
 import org.apache.activemq.artemis.utils.UUID;
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class ScheduledDeliveryHandlerTest extends Assert {
 
+   @Rule
+   public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
    @Test
    public void testScheduleRandom() throws Exception {
       ScheduledDeliveryHandlerImpl handler = new ScheduledDeliveryHandlerImpl(null);
@@ -184,6 +193,152 @@ public class ScheduledDeliveryHandlerTest extends Assert {
       }
    }
 
+   @Test
+   public void testSpillAndReload() throws Exception {
+      final int NUMBER_OF_MESSAGES = 100;
+      ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1);
+      ExecutorService writer = Executors.newSingleThreadExecutor();
+      try {
+         NIOSequentialFileFactory fileFactory = new NIOSequentialFileFactory(temporaryFolder.getRoot(), 1);
+         FakeQueueForScheduleUnitTest fakeQueue = new FakeQueueForScheduleUnitTest(NUMBER_OF_MESSAGES);
+
+         ScheduledDeliveryHandlerImpl handler = new ScheduledDeliveryHandlerImpl(scheduler);
+         handler.setSpillStore(new ScheduledDeliverySpillStore(fileFactory, fakeQueue, 100, writer));
+
+         long deliveryTime = System.currentTimeMillis() + 1000;
+
+         for (int i = 0; i < NUMBER_OF_MESSAGES; i++) {
+            ServerMessage message = new ServerMessageImpl(i, 50);
+            message.getBodyBuffer().writeInt(i);
+            message.incrementRefCount();
+            MessageReference ref = message.createReference(fakeQueue);
+            ref.setScheduledDeliveryTime(deliveryTime);
+            assertTrue(handler.checkAndSchedule(ref, true));
+         }
+
+         assertEquals(NUMBER_OF_MESSAGES, handler.getScheduledCount());
+
+         // every reference goes to the same bucket, appended to a single file
+         waitWrites(writer);
+         assertEquals(1, fileFactory.listFiles(ScheduledDeliverySpillStore.FILE_EXTENSION).size());
+
+         // browsing reads the spilled references without removing them
+         assertEquals(NUMBER_OF_MESSAGES, handler.getScheduledReferences().size());
+
+         assertTrue(fakeQueue.waitCompletion(10, TimeUnit.SECONDS));
+         assertEquals(0, handler.getScheduledCount());
+         assertTrue(fileFactory.listFiles(ScheduledDeliverySpillStore.FILE_EXTENSION).isEmpty());
+
+         for (MessageReference ref : fakeQueue.messages) {
+            assertEquals(1, ref.getMessage().getRefCount());
+            assertEquals(0, ref.getScheduledDeliveryTime());
+         }
+      }
+      finally {
+         scheduler.shutdownNow();
+         writer.shutdownNow();
+      }
+   }
+
+   @Test
+   public void testSpilledReferencesAreCancelled() throws Exception {
+      NIOSequentialFileFactory fileFactory = new NIOSequentialFileFactory(temporaryFolder.getRoot(), 1);
+      ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1);
+      ExecutorService writer = Executors.newSingleThreadExecutor();
+      try {
+         FakeQueueForScheduleUnitTest fakeQueue = new FakeQueueForScheduleUnitTest(0);
+
+         ScheduledDeliveryHandlerImpl handler = new ScheduledDeliveryHandlerImpl(scheduler);
+         handler.setSpillStore(new ScheduledDeliverySpillStore(fileFactory, fakeQueue, 1000, writer));
+
+         long deliveryTime = System.currentTimeMillis() + 60000;
+
+         for (int i = 0; i < 10; i++) {
+            ServerMessage message = new ServerMessageImpl(i, 50);
+            message.incrementRefCount();
+            MessageReference ref = message.createReference(fakeQueue);
+            ref.setScheduledDeliveryTime(deliveryTime + i);
+            handler.checkAndSchedule(ref, true);
+         }
+
+         assertEquals(10, handler.getScheduledCount());
+         assertEquals(5, handler.removeReferenceWithID(5).getMessage().getMessageID());
+         assertEquals(9, handler.cancel(null).size());
+         assertEquals(0, handler.getScheduledCount());
+         waitWrites(writer);
+         assertTrue(fileFactory.listFiles(ScheduledDeliverySpillStore.FILE_EXTENSION).isEmpty());
+      }
+      finally {
+         scheduler.shutdownNow();
+         writer.shutdownNow();
+      }
+   }
+
+   @Test
+   public void testCancelKeepsOtherReferencesSpilled() throws Exception {
+      NIOSequentialFileFactory fileFactory = new NIOSequentialFileFactory(temporaryFolder.getRoot(), 1);
+      ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1);
+      ExecutorService writer = Executors.newSingleThreadExecutor();
+      try {
+         FakeQueueForScheduleUnitTest fakeQueue = new FakeQueueForScheduleUnitTest(0);
+
+         ScheduledDeliveryHandlerImpl handler = new ScheduledDeliveryHandlerImpl(scheduler);
+         ScheduledDeliverySpillStore spillStore = new ScheduledDeliverySpillStore(fileFactory, fakeQueue, 1000, writer);
+         handler.setSpillStore(spillStore);
+
+         long deliveryTime = System.currentTimeMillis() + 60000;
+
+         for (int i = 0; i < 10; i++) {
+            ServerMessage message = new ServerMessageImpl(i, 50);
+            message.putIntProperty("i", i);
+            message.incrementRefCount();
+            MessageReference ref = message.createReference(fakeQueue);
+            // two references on each bucket
+            ref.setScheduledDeliveryTime(deliveryTime + (i / 2) * 1000);
+            handler.checkAndSchedule(ref, true);
+         }
+
+         assertEquals(10, spillStore.getSpilledCount());
+         assertEquals(5, spillStore.getBuckets().size());
+
+         // only the bucket of the reference is read
+         assertEquals(3, handler.removeReferenceWithID(3).getMessage().getMessageID());
+         assertEquals(9, spillStore.getSpilledCount());
+         assertNull(spillStore.getBucketOf(3));
+         assertEquals(spillStore.getBucket(deliveryTime + 1000), (long) spillStore.getBucketOf(2));
+
+         List<MessageReference> cancelled = handler.cancel(FilterImpl.createFilter("i < 5"));
+         assertEquals(4, cancelled.size());
+         for (MessageReference ref : cancelled) {
+            assertTrue(ref.getMessage().getMessageID() < 5);
+         }
+
+         assertEquals(5, handler.getScheduledCount());
+         assertEquals(5, spillStore.getSpilledCount());
+
+         waitWrites(writer);
+         assertEquals(3, fileFactory.listFiles(ScheduledDeliverySpillStore.FILE_EXTENSION).size());
+
+         List<MessageReference> refs = handler.getScheduledReferences();
+         assertEquals(5, refs.size());
+         for (MessageReference ref : refs) {
+            assertTrue(ref.getMessage().getMessageID() >= 5);
+         }
+      }
+      finally {
+         scheduler.shutdownNow();
+         writer.shutdownNow();
+      }
+   }
+
+   // The writes run in order on the executor, so they are done once a task queued after them has run
+   private void waitWrites(ExecutorService writer) throws Exception {
+      writer.submit(new Runnable() {
+         public void run() {
+         }
+      }).get(10, TimeUnit.SECONDS);
+   }
+
    private void internalSchedule(ExecutorService executor, ScheduledThreadPoolExecutor scheduler) throws Exception {
       final int NUMBER_OF_MESSAGES = 200;
       int NUMBER_OF_THREADS = 20;
@@ -355,6 +510,14 @@ public class ScheduledDeliveryHandlerTest extends Assert {
          return 0;
       }
 
+      @Override
+      public void usePooledBuffer() {
+      }
+
+      @Override
+      public void releasePooledBuffer() {
+      }
+
       @Override
       public ServerMessage makeCopyForExpiryOrDLA(long newID,
                                                   MessageReference originalReference,
@@ -403,6 +566,15 @@ public class ScheduledDeliveryHandlerTest extends Assert {
          return null;
       }
 
+      @Override
+      public Object getProtocolEncoding(Object protocol, int deliveryCount) {
+         return null;
+      }
+
+      @Override
+      public void setProtocolEncoding(Object protocol, int deliveryCount, Object encoding) {
+      }
+
       @Override
       public void encode(ActiveMQBuffer buffer) {
 
@@ -453,6 +625,43 @@ public class ScheduledDeliveryHandlerTest extends Assert {
          return null;
       }
 
+      @Override
+      public ActiveMQBuffer getSharedEncodedBuffer() {
+         return null;
+      }
+
+      @Override
+      public int getSharedEncodeSize() {
+         return 0;
+      }
+
+      @Override
+      public ActiveMQBuffer getStandardEncodedBuffer() {
+         return null;
+      }
+
+      @Override
+      public boolean isCompactHeaders() {
+         return false;
+      }
+
+      @Override
+      public void setCompactHeaders(boolean compactHeaders) {
+      }
+
+      @Override
+      public int getEncodeSize(KeyDictionary keys) {
+         return 0;
+      }
+
+      @Override
+      public void encode(ActiveMQBuffer buffer, KeyDictionary keys) {
+      }
+
+      @Override
+      public void decode(ActiveMQBuffer buffer, KeyDictionary keys) {
+      }
+
       @Override
       public int getHeadersAndPropertiesEncodeSize() {
          return 0;
@@ -1293,5 +1502,19 @@ public class ScheduledDeliveryHandlerTest extends Assert {
       public SimpleString getUser() {
          return null;
       }
+
+      @Override
+      public LatencyHistogram getDwellLatency() {
+         return null;
+      }
+
+      @Override
+      public LatencyHistogram getAckLatency() {
+         return null;
+      }
+
+      @Override
+      public void recordAckLatency(final long nanos) {
+      }
    }
 }
@@ -230,6 +230,28 @@ public class RepositoryTest extends ActiveMQTestBase {
       }
    }
 
+   @Test
+   public void testChangeEvictsMatchedAddressesOnly() {
+      HierarchicalObjectRepository<String> repository = new HierarchicalObjectRepository<String>();
+      repository.addMatch("#", "root");
+      repository.addMatch("a.#", "a");
+
+      Assert.assertEquals("a", repository.getMatch("a.b"));
+      Assert.assertEquals("a", repository.getMatch("a.c"));
+      Assert.assertEquals("root", repository.getMatch("b.c"));
+      Assert.assertEquals(3, repository.getCacheSize());
+
+      repository.addMatch("a.b", "ab");
+      Assert.assertEquals(2, repository.getCacheSize());
+      Assert.assertEquals("ab", repository.getMatch("a.b"));
+      Assert.assertEquals("a", repository.getMatch("a.c"));
+
+      repository.removeMatch("a.#");
+      Assert.assertEquals(1, repository.getCacheSize());
+      Assert.assertEquals("ab", repository.getMatch("a.b"));
+      Assert.assertEquals("root", repository.getMatch("a.c"));
+   }
+
    static class DummyMergeable implements Mergeable {
 
       static int timesMerged = 0;
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.core.settings.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.activemq.artemis.tests.util.ActiveMQTestBase;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MatchTrieTest extends ActiveMQTestBase {
+
+   private static final String[] WORDS = {"a", "b", "ab", "", "*", "a*", "x$"};
+
+   @Test
+   public void testPrefixMatchesWithinWord() {
+      MatchTrie<String> trie = new MatchTrie<String>();
+
+      trie.put(new Match<String>("a.b.#"));
+      trie.put(new Match<String>("a.*.#"));
+
+      Assert.assertEquals(2, matches(trie, "a.b").size());
+      Assert.assertEquals(2, matches(trie, "a.bc.d").size());
+      Assert.assertEquals(1, matches(trie, "a.c").size());
+      Assert.assertEquals(0, matches(trie, "a.").size());
+      Assert.assertEquals(0, matches(trie, "a").size());
+   }
+
+   @Test
+   public void testAgreesWithPatterns() {
+      Random random = new Random(1);
+
+      MatchTrie<String> trie = new MatchTrie<String>();
+      List<Match<String>> all = new ArrayList<Match<String>>();
+
+      for (int i = 0; i < 500; i++) {
+         String match = randomWords(random);
+
+         switch (random.nextInt(4)) {
+            case 0:
+               match += ".#";
+               break;
+            case 1:
+               match += "#";
+               break;
+            default:
+         }
+
+         Match<String> m = new Match<String>(i == 0 ? "#" : match);
+
+         if (!all.contains(m)) {
+            all.add(m);
+            trie.put(m);
+         }
+      }
+
+      // removing a few checks the pruning keeps the others
+      for (int i = 0; i < 100; i++) {
+         Match<String> removed = all.remove(random.nextInt(all.size()));
+         Assert.assertTrue(trie.remove(removed.getMatch()));
+      }
+
+      Assert.assertEquals(all.size(), trie.size());
+
+      for (int i = 0; i < 5000; i++) {
+         String address = randomWords(random).replace("*", "c");
+
+         Map<String, Match<String>> expected = new HashMap<String, Match<String>>();
+         for (Match<String> m : all) {
+            if (m.getPattern().matcher(address).matches()) {
+               expected.put(m.getMatch(), m);
+            }
+         }
+
+         Assert.assertEquals(address, expected, matches(trie, address));
+      }
+   }
+
+   private static String randomWords(final Random random) {
+      StringBuilder builder = new StringBuilder(WORDS[random.nextInt(WORDS.length)]);
+
+      for (int i = random.nextInt(4); i > 0; i--) {
+         builder.append('.').append(WORDS[random.nextInt(WORDS.length)]);
+      }
+
+      return builder.toString();
+   }
+
+   private static Map<String, Match<String>> matches(final MatchTrie<String> trie, final String address) {
+      Map<String, Match<String>> result = new HashMap<String, Match<String>>();
+      trie.getMatches(address, result);
+      return result;
+   }
+}
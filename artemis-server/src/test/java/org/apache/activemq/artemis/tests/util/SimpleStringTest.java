@@ -22,6 +22,8 @@ import java.util.concurrent.CountDownLatch;
 
 import org.junit.Assert;
 
+import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
+import org.apache.activemq.artemis.api.core.ActiveMQBuffers;
 import org.apache.activemq.artemis.api.core.SimpleString;
 import org.apache.activemq.artemis.utils.DataConstants;
 
@@ -405,4 +407,62 @@ public class SimpleStringTest extends Assert {
       }
    }
 
+
+   @Test
+   public void testPool() {
+      SimpleString.Pool pool = new SimpleString.Pool(16, 32);
+
+      ActiveMQBuffer buffer = ActiveMQBuffers.dynamicBuffer(256);
+      buffer.writeSimpleString(new SimpleString("address"));
+      buffer.writeSimpleString(new SimpleString("address"));
+      buffer.writeNullableSimpleString(null);
+      buffer.writeNullableSimpleString(new SimpleString("address"));
+      buffer.writeSimpleString(new SimpleString("an address too long to be kept in the pool"));
+      buffer.writeSimpleString(new SimpleString("an address too long to be kept in the pool"));
+      buffer.writeInt(123);
+
+      SimpleString address = pool.readSimpleString(buffer);
+      assertEquals(new SimpleString("address"), address);
+      assertEquals(new SimpleString("address").hashCode(), address.hashCode());
+      assertSame(address, pool.readSimpleString(buffer));
+      assertNull(pool.readNullableSimpleString(buffer));
+      assertSame(address, pool.readNullableSimpleString(buffer));
+
+      // not kept
+      SimpleString longAddress = pool.readSimpleString(buffer);
+      SimpleString sameLongAddress = pool.readSimpleString(buffer);
+      assertEquals(longAddress, sameLongAddress);
+      assertNotSame(longAddress, sameLongAddress);
+
+      assertEquals(123, buffer.readInt());
+   }
+
+   @Test
+   public void testPoolIntern() {
+      SimpleString.Pool pool = new SimpleString.Pool(16, 32);
+
+      SimpleString address = new SimpleString("address");
+      assertSame(address, pool.intern(address));
+      assertSame(address, pool.intern(new SimpleString("address")));
+      assertNull(pool.intern(null));
+
+      ActiveMQBuffer buffer = ActiveMQBuffers.dynamicBuffer(256);
+      buffer.writeSimpleString(new SimpleString("address"));
+      assertSame(address, pool.readSimpleString(buffer));
+   }
+
+   @Test
+   public void testPoolCollisions() {
+      SimpleString.Pool pool = new SimpleString.Pool(1, 32);
+
+      ActiveMQBuffer buffer = ActiveMQBuffers.dynamicBuffer(256);
+      for (int i = 0; i < 10; i++) {
+         buffer.writeSimpleString(new SimpleString("address" + i % 2));
+      }
+
+      // a single entry replaced at every string
+      for (int i = 0; i < 10; i++) {
+         assertEquals(new SimpleString("address" + i % 2), pool.readSimpleString(buffer));
+      }
+   }
 }
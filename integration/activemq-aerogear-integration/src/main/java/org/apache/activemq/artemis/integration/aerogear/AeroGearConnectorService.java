@@ -351,6 +351,11 @@ public class AeroGearConnectorService implements ConnectorService, Consumer, Mes
       //noop
    }
 
+   @Override
+   public void afterDeliver() {
+      //noop
+   }
+
    @Override
    public Filter getFilter() {
       return filter;
@@ -271,6 +271,11 @@ public class OutgoingVertxEventHandler implements Consumer, ConnectorService {
       // no op
    }
 
+   @Override
+   public void afterDeliver() {
+      // no op
+   }
+
    @Override
    public Filter getFilter() {
       return this.filter;
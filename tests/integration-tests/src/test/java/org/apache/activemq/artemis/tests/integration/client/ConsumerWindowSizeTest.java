@@ -85,6 +85,45 @@ public class ConsumerWindowSizeTest extends ActiveMQTestBase {
       return encodeSize;
    }
 
+   // The credits taken for each delivery must match what the client gives back, also with compact headers
+   @Test
+   public void testCompactHeadersDoNotLeakCredits() throws Exception {
+      ActiveMQServer server = createServer(false, isNetty());
+
+      server.start();
+
+      // a window of a few messages, consumed many times over
+      locator.setConsumerWindowSize(1024);
+
+      ClientSessionFactory sf = createSessionFactory(locator);
+
+      ClientSession session = addClientSession(sf.createSession(false, true, true));
+      session.createQueue(addressA, queueA, false);
+
+      ClientProducer producer = session.createProducer(addressA);
+
+      final int numMessages = 2000;
+
+      ClientConsumer consumer = session.createConsumer(queueA);
+      session.start();
+
+      for (int i = 0; i < numMessages; i++) {
+         ClientMessage message = session.createMessage(false);
+         // properties keep the compact headers well under the standard ones
+         message.putStringProperty("property1", "value1");
+         message.putStringProperty("property2", "value2");
+         message.putIntProperty("count", i);
+         producer.send(message);
+
+         ClientMessage received = consumer.receive(TIMEOUT * 1000);
+         Assert.assertNotNull("stalled after " + i + " messages", received);
+         Assert.assertEquals(i, received.getIntProperty("count").intValue());
+         received.acknowledge();
+      }
+
+      Assert.assertNull(consumer.receiveImmediate());
+   }
+
    // https://jira.jboss.org/jira/browse/HORNETQ-385
    @Test
    public void testReceiveImmediateWithZeroWindow() throws Exception {
@@ -510,6 +510,11 @@ public class HangConsumerTest extends ActiveMQTestBase {
          }
       }
 
+      @Override
+      public void afterDelivery() {
+         targetCallback.afterDelivery();
+      }
+
       /* (non-Javadoc)
        * @see SessionCallback#sendLargeMessage(org.apache.activemq.artemis.core.server.ServerMessage, long, long, int)
        */
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.tests.integration.client;
+
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.api.core.client.ClientConsumer;
+import org.apache.activemq.artemis.api.core.client.ClientMessage;
+import org.apache.activemq.artemis.api.core.client.ClientProducer;
+import org.apache.activemq.artemis.api.core.client.ClientSession;
+import org.apache.activemq.artemis.api.core.client.ClientSessionFactory;
+import org.apache.activemq.artemis.api.core.client.ServerLocator;
+import org.apache.activemq.artemis.core.server.ActiveMQServer;
+import org.apache.activemq.artemis.core.server.impl.SendStageMetrics;
+import org.apache.activemq.artemis.tests.util.ActiveMQTestBase;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SessionPipelineTest extends ActiveMQTestBase {
+
+   private static final SimpleString QUEUE = new SimpleString("SessionPipelineTestQueue");
+
+   private ActiveMQServer server;
+
+   @Override
+   @Before
+   public void setUp() throws Exception {
+      super.setUp();
+
+      // a small pipeline so reading from the connection is paused and resumed many times
+      server = createServer(true, createDefaultNettyConfig().setSessionPipelineSize(4));
+
+      server.start();
+
+      server.createQueue(QUEUE, QUEUE, null, true, false);
+   }
+
+   @Test
+   public void testPipelinedSendsKeepTheirOrder() throws Exception {
+      final int messages = 1000;
+
+      ServerLocator locator = createNettyNonHALocator().setBlockOnDurableSend(false).setConfirmationWindowSize(1024 * 1024);
+      ClientSessionFactory sf = createSessionFactory(locator);
+      ClientSession session = addClientSession(sf.createSession(false, true, true));
+
+      ClientProducer producer = session.createProducer(QUEUE);
+
+      for (int i = 0; i < messages; i++) {
+         ClientMessage message = session.createMessage(true);
+         message.putIntProperty("count", i);
+         producer.send(message);
+      }
+
+      // a blocking send is answered once the sends before it are persisted
+      ClientMessage last = session.createMessage(true);
+      last.putIntProperty("count", messages);
+      session.close();
+
+      session = addClientSession(sf.createSession(false, true, true));
+      session.createProducer(QUEUE).send(last);
+
+      ClientConsumer consumer = session.createConsumer(QUEUE);
+      session.start();
+
+      for (int i = 0; i <= messages; i++) {
+         ClientMessage message = consumer.receive(5000);
+         Assert.assertNotNull(message);
+         Assert.assertEquals(i, message.getIntProperty("count").intValue());
+         message.acknowledge();
+      }
+
+      Assert.assertNull(consumer.receiveImmediate());
+
+      SendStageMetrics metrics = server.getSendStageMetrics();
+      Assert.assertEquals(messages + 1, metrics.getQueued().snapshot().getCount());
+      Assert.assertEquals(messages + 1, metrics.getRouting().snapshot().getCount());
+      Assert.assertEquals(messages + 1, metrics.getPersistence().snapshot().getCount());
+      Assert.assertTrue(metrics.getPersistence().snapshot().getMax() >= metrics.getPersistence().snapshot().getMean());
+   }
+
+   @Test
+   public void testPipelineIsBoundedByProducerCreditsInVM() throws Exception {
+      server.stop();
+
+      server = createServer(true, createDefaultInVMConfig().setSessionPipelineSize(4));
+
+      server.start();
+
+      server.createQueue(QUEUE, QUEUE, null, true, false);
+
+      final int messages = 1000;
+
+      // a window of a few messages, so the credits are held back and released many times
+      ServerLocator locator = createInVMNonHALocator().setBlockOnDurableSend(false).setProducerWindowSize(1024);
+      ClientSessionFactory sf = createSessionFactory(locator);
+      ClientSession session = addClientSession(sf.createSession(false, true, true));
+
+      ClientProducer producer = session.createProducer(QUEUE);
+
+      for (int i = 0; i < messages; i++) {
+         ClientMessage message = session.createMessage(true);
+         message.putIntProperty("count", i);
+         producer.send(message);
+      }
+
+      ClientConsumer consumer = session.createConsumer(QUEUE);
+      session.start();
+
+      for (int i = 0; i < messages; i++) {
+         ClientMessage message = consumer.receive(5000);
+         Assert.assertNotNull(message);
+         Assert.assertEquals(i, message.getIntProperty("count").intValue());
+         message.acknowledge();
+      }
+
+      Assert.assertNull(consumer.receiveImmediate());
+   }
+}
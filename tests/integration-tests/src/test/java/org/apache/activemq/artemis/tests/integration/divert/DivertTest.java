@@ -41,6 +41,8 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 public class DivertTest extends ActiveMQTestBase {
@@ -581,6 +583,83 @@ public class DivertTest extends ActiveMQTestBase {
       Assert.assertNull(consumer4.receiveImmediate());
    }
 
+   @Test
+   public void testMultipleNonExclusiveDivertsToTheSameAddress() throws Exception {
+      final String testAddress = "testAddress";
+
+      final String forwardAddress = "forwardAddress";
+
+      final String filter = "color = 'red'";
+
+      // two of the diverts have the same filter, which is evaluated once per message
+      DivertConfiguration divertConf1 = new DivertConfiguration().setName("divert1").setRoutingName("divert1").setAddress(testAddress).setForwardingAddress(forwardAddress).setFilterString(filter);
+
+      DivertConfiguration divertConf2 = new DivertConfiguration().setName("divert2").setRoutingName("divert2").setAddress(testAddress).setForwardingAddress(forwardAddress).setFilterString(filter);
+
+      DivertConfiguration divertConf3 = new DivertConfiguration().setName("divert3").setRoutingName("divert3").setAddress(testAddress).setForwardingAddress(forwardAddress);
+
+      Configuration config = createDefaultInVMConfig().addDivertConfiguration(divertConf1).addDivertConfiguration(divertConf2).addDivertConfiguration(divertConf3);
+
+      ActiveMQServer server = addServer(ActiveMQServers.newActiveMQServer(config, true));
+
+      server.start();
+
+      ServerLocator locator = createInVMNonHALocator();
+
+      ClientSessionFactory sf = createSessionFactory(locator);
+
+      ClientSession session = sf.createSession(false, true, true);
+
+      final SimpleString queueName1 = new SimpleString("queue1");
+
+      session.createQueue(new SimpleString(forwardAddress), queueName1, null, true);
+
+      session.start();
+
+      ClientProducer producer = session.createProducer(new SimpleString(testAddress));
+
+      ClientConsumer consumer1 = session.createConsumer(queueName1);
+
+      final int numMessages = 10;
+
+      final SimpleString propKey = new SimpleString("testkey");
+
+      for (int i = 0; i < numMessages; i++) {
+         ClientMessage message = session.createMessage(true);
+
+         message.putIntProperty(propKey, i);
+
+         message.putStringProperty("color", i % 2 == 0 ? "red" : "blue");
+
+         producer.send(message);
+      }
+
+      Set<Long> messageIDs = new HashSet<Long>();
+
+      for (int i = 0; i < numMessages; i++) {
+         // the red messages are diverted three times, the blue ones once
+         int copies = i % 2 == 0 ? 3 : 1;
+
+         for (int j = 0; j < copies; j++) {
+            ClientMessage message = consumer1.receive(DivertTest.TIMEOUT);
+
+            Assert.assertNotNull(message);
+
+            Assert.assertEquals(i, message.getObjectProperty(propKey));
+
+            Assert.assertEquals(new SimpleString(forwardAddress), message.getAddress());
+
+            Assert.assertEquals(new SimpleString(testAddress), message.getSimpleStringProperty(MessageImpl.HDR_ORIGINAL_ADDRESS));
+
+            Assert.assertTrue(messageIDs.add(message.getMessageID()));
+
+            message.acknowledge();
+         }
+      }
+
+      Assert.assertNull(consumer1.receiveImmediate());
+   }
+
    @Test
    public void testMultipleExclusiveDivert() throws Exception {
       final String testAddress = "testAddress";
@@ -262,6 +262,46 @@ public class ActiveMQServerControlUsingCoreTest extends ActiveMQServerControlTes
             return (Long) proxy.retrieveAttributeValue("securityInvalidationInterval", Long.class);
          }
 
+         public long getAuthorizationCacheHitCount() {
+            return (Long) proxy.retrieveAttributeValue("authorizationCacheHitCount", Long.class);
+         }
+
+         public long getAuthorizationCacheMissCount() {
+            return (Long) proxy.retrieveAttributeValue("authorizationCacheMissCount", Long.class);
+         }
+
+         public long getAuthenticationCacheHitCount() {
+            return (Long) proxy.retrieveAttributeValue("authenticationCacheHitCount", Long.class);
+         }
+
+         public long getAuthenticationCacheMissCount() {
+            return (Long) proxy.retrieveAttributeValue("authenticationCacheMissCount", Long.class);
+         }
+
+         public long getSendQueuedAverageTime() {
+            return (Long) proxy.retrieveAttributeValue("sendQueuedAverageTime", Long.class);
+         }
+
+         public long getSendQueuedMaxTime() {
+            return (Long) proxy.retrieveAttributeValue("sendQueuedMaxTime", Long.class);
+         }
+
+         public long getSendRoutingAverageTime() {
+            return (Long) proxy.retrieveAttributeValue("sendRoutingAverageTime", Long.class);
+         }
+
+         public long getSendRoutingMaxTime() {
+            return (Long) proxy.retrieveAttributeValue("sendRoutingMaxTime", Long.class);
+         }
+
+         public long getSendPersistenceAverageTime() {
+            return (Long) proxy.retrieveAttributeValue("sendPersistenceAverageTime", Long.class);
+         }
+
+         public long getSendPersistenceMaxTime() {
+            return (Long) proxy.retrieveAttributeValue("sendPersistenceMaxTime", Long.class);
+         }
+
          public long getTransactionTimeout() {
             return (Long) proxy.retrieveAttributeValue("transactionTimeout", Long.class);
          }
@@ -382,6 +422,14 @@ public class ActiveMQServerControlUsingCoreTest extends ActiveMQServerControlTes
             proxy.invokeOperation("resetAllMessageCounterHistories");
          }
 
+         public String listLatencies() throws Exception {
+            return (String) proxy.invokeOperation("listLatencies");
+         }
+
+         public void resetLatencies() throws Exception {
+            proxy.invokeOperation("resetLatencies");
+         }
+
          public void resetAllMessageCounters() throws Exception {
             proxy.invokeOperation("resetAllMessageCounters");
          }
@@ -34,7 +34,9 @@ import org.apache.activemq.artemis.api.core.client.MessageHandler;
 import org.apache.activemq.artemis.api.core.client.ServerLocator;
 import org.apache.activemq.artemis.api.core.management.ActiveMQServerControl;
 import org.apache.activemq.artemis.api.core.management.CoreNotificationType;
+import org.apache.activemq.artemis.api.core.management.AddressControl;
 import org.apache.activemq.artemis.api.core.management.DayCounterInfo;
+import org.apache.activemq.artemis.api.core.management.LatencyInfo;
 import org.apache.activemq.artemis.api.core.management.MessageCounterInfo;
 import org.apache.activemq.artemis.api.core.management.ObjectNameBuilder;
 import org.apache.activemq.artemis.api.core.management.QueueControl;
@@ -1713,6 +1715,51 @@ public class QueueControlTest extends ManagementTestBase {
       session.deleteQueue(queue);
    }
 
+   @Test
+   public void testListLatencies() throws Exception {
+      SimpleString address = RandomUtil.randomSimpleString();
+      SimpleString queue = RandomUtil.randomSimpleString();
+
+      session.createQueue(address, queue, null, false);
+      QueueControl queueControl = createManagementControl(address, queue);
+      AddressControl addressControl = ManagementControlHelper.createAddressControl(address, mbeanServer);
+      ActiveMQServerControl serverControl = ManagementControlHelper.createActiveMQServerControl(mbeanServer);
+
+      // the latencies of a queue or an address are measured from the first time they are listed
+      Map<String, LatencyInfo> latencies = LatencyInfo.fromJSON(queueControl.listLatencies());
+      Assert.assertEquals(0, latencies.get("dwell").getCount());
+      Assert.assertEquals(0, latencies.get("ack").getCount());
+      Assert.assertEquals(0, LatencyInfo.fromJSON(addressControl.listLatencies()).get("route").getCount());
+
+      ClientProducer producer = session.createProducer(address);
+      producer.send(session.createMessage(false));
+      producer.send(session.createMessage(false));
+
+      consumeMessages(2, session, queue);
+
+      latencies = LatencyInfo.fromJSON(queueControl.listLatencies());
+      Assert.assertEquals(2, latencies.get("dwell").getCount());
+      Assert.assertEquals(2, latencies.get("ack").getCount());
+      Assert.assertTrue(latencies.get("ack").getP50() <= latencies.get("ack").getMax());
+
+      Assert.assertEquals(2, LatencyInfo.fromJSON(addressControl.listLatencies()).get("route").getCount());
+
+      // the queues and addresses also record to the latencies of the server
+      latencies = LatencyInfo.fromJSON(serverControl.listLatencies());
+      Assert.assertTrue(latencies.get("route").getCount() >= 2);
+      Assert.assertTrue(latencies.get("dwell").getCount() >= 2);
+      Assert.assertTrue(latencies.get("ack").getCount() >= 2);
+
+      queueControl.resetLatencies();
+
+      latencies = LatencyInfo.fromJSON(queueControl.listLatencies());
+      Assert.assertEquals(0, latencies.get("dwell").getCount());
+      Assert.assertEquals(0, latencies.get("ack").getCount());
+      Assert.assertTrue(LatencyInfo.fromJSON(serverControl.listLatencies()).get("dwell").getCount() >= 2);
+
+      session.deleteQueue(queue);
+   }
+
    @Test
    public void testListMessageCounterAsHTML() throws Exception {
       SimpleString address = RandomUtil.randomSimpleString();
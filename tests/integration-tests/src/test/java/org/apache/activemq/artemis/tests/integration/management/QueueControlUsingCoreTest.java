@@ -104,6 +104,14 @@ public class QueueControlUsingCoreTest extends QueueControlTest {
             return (Integer) proxy.retrieveAttributeValue("messagesAcknowledged");
          }
 
+         public long getMessagesReplaced() {
+            return ((Number) proxy.retrieveAttributeValue("messagesReplaced")).longValue();
+         }
+
+         public double getMessagesReplacedRatio() {
+            return ((Number) proxy.retrieveAttributeValue("messagesReplacedRatio")).doubleValue();
+         }
+
          public void resetMessagesAdded() throws Exception {
             proxy.invokeOperation("resetMessagesAdded");
          }
@@ -175,6 +183,14 @@ public class QueueControlUsingCoreTest extends QueueControlTest {
             return (String) proxy.invokeOperation("listMessageCounterHistoryAsHTML");
          }
 
+         public String listLatencies() throws Exception {
+            return (String) proxy.invokeOperation("listLatencies");
+         }
+
+         public void resetLatencies() throws Exception {
+            proxy.invokeOperation("resetLatencies");
+         }
+
          public Map<String, Object>[] listMessages(final String filter) throws Exception {
             Object[] res = (Object[]) proxy.invokeOperation("listMessages", filter);
             Map<String, Object>[] results = new Map[res.length];
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.tests.integration.persistence;
+
+import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
+import org.apache.activemq.artemis.api.core.ActiveMQBuffers;
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.config.Configuration;
+import org.apache.activemq.artemis.core.persistence.impl.journal.JournalStorageManager;
+import org.apache.activemq.artemis.core.persistence.impl.journal.JournalStorageManager.DictionaryMessageEncoding;
+import org.apache.activemq.artemis.core.persistence.impl.journal.PropertyKeyDictionary;
+import org.apache.activemq.artemis.core.server.impl.ServerMessageImpl;
+import org.junit.Test;
+
+public class PropertyKeyDictionaryStorageTest extends StorageManagerTestBase {
+
+   private static final SimpleString KEY = new SimpleString("orderID");
+
+   @Test
+   public void testKeysStoredAndReloaded() throws Exception {
+      createStorage();
+
+      ServerMessageImpl message = null;
+
+      for (int i = 0; i < PropertyKeyDictionary.DEFAULT_MISSES_THRESHOLD; i++) {
+         message = newMessage(i);
+
+         journal.storeMessage(message);
+      }
+
+      int reference = journal.getPropertyKeys().getKeyReference(KEY);
+
+      assertTrue(reference != 0);
+
+      DictionaryMessageEncoding encoding = new DictionaryMessageEncoding(message, journal.getPropertyKeys().snapshot());
+
+      assertTrue(encoding.getEncodeSize() < message.getEncodeSize());
+
+      ActiveMQBuffer record = ActiveMQBuffers.fixedBuffer(encoding.getEncodeSize());
+      encoding.encode(record);
+
+      assertEquals(encoding.getEncodeSize(), record.writerIndex());
+
+      journal.stop();
+
+      createStorage();
+
+      assertEquals(reference, journal.getPropertyKeys().getKeyReference(KEY));
+
+      ServerMessageImpl decoded = new ServerMessageImpl(0, 50);
+      new DictionaryMessageEncoding(decoded, journal.getPropertyKeys()).decode(record);
+
+      assertEquals(message.getMessageID(), decoded.getMessageID());
+      assertEquals(message.getAddress(), decoded.getAddress());
+      assertEquals(message.getIntProperty(KEY), decoded.getIntProperty(KEY));
+      assertEquals("body", decoded.getBodyBuffer().readString());
+
+      // the references to the dictionary are not delivered
+      ServerMessageImpl delivered = new ServerMessageImpl(0, 50);
+      delivered.decode(decoded.getSharedEncodedBuffer());
+
+      assertEquals(message.getIntProperty(KEY), delivered.getIntProperty(KEY));
+   }
+
+   @Override
+   protected JournalStorageManager createJournalStorageManager(final Configuration configuration) {
+      return super.createJournalStorageManager(configuration.setPersistCompactMessageHeaders(true));
+   }
+
+   private ServerMessageImpl newMessage(final int order) throws Exception {
+      ServerMessageImpl message = new ServerMessageImpl(journal.generateID(), 1024);
+      message.setAddress(new SimpleString("orders"));
+      message.putIntProperty(KEY, order);
+      message.getBodyBuffer().writeString("body");
+
+      return message;
+   }
+}
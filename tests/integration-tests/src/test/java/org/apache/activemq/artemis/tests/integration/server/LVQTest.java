@@ -27,6 +27,7 @@ import org.apache.activemq.artemis.api.core.client.ServerLocator;
 import org.apache.activemq.artemis.core.server.ActiveMQServer;
 import org.apache.activemq.artemis.core.server.ActiveMQServers;
 import org.apache.activemq.artemis.core.server.Queue;
+import org.apache.activemq.artemis.core.server.impl.LastValueQueue;
 import org.apache.activemq.artemis.core.settings.impl.AddressSettings;
 import org.apache.activemq.artemis.tests.util.ActiveMQTestBase;
 import org.junit.Assert;
@@ -589,6 +590,43 @@ public class LVQTest extends ActiveMQTestBase {
       clientSessionTxReceives.commit();
    }
 
+   @Test
+   public void testWriteBehindReplacements() throws Exception {
+      LastValueQueue queue = (LastValueQueue) server.locateQueue(qName1);
+      // a window long enough for only the batch size to trigger the acknowledgements
+      queue.setWriteBehind(60000, 10);
+
+      ClientProducer producer = clientSession.createProducer(address);
+      ClientConsumer consumer = clientSession.createConsumer(qName1);
+      SimpleString rh = new SimpleString("SMID1");
+      for (int i = 0; i < 25; i++) {
+         ClientMessage m = createTextMessage(clientSession, "m" + i);
+         m.putStringProperty(Message.HDR_LAST_VALUE_NAME, rh);
+         m.setDurable(true);
+         producer.send(m);
+      }
+      Assert.assertEquals(1, getMessageCount(queue));
+      Assert.assertEquals(24, queue.getMessagesReplaced());
+      Assert.assertEquals(24.0 / 25, queue.getReplacedRatio(), 0.0001);
+
+      // two full batches were acknowledged, the last 4 replaced messages are still pending
+      Assert.assertEquals(20, queue.getMessagesAcknowledged());
+      Assert.assertEquals(4, queue.getDeliveringCount());
+
+      // leaving write-behind mode acknowledges what is pending
+      queue.setWriteBehind(-1, 10);
+      Assert.assertEquals(24, queue.getMessagesAcknowledged());
+      Assert.assertEquals(0, queue.getDeliveringCount());
+
+      clientSession.start();
+      ClientMessage m = consumer.receive(1000);
+      Assert.assertNotNull(m);
+      m.acknowledge();
+      Assert.assertEquals("m24", m.getBodyBuffer().readString());
+      Assert.assertNull(consumer.receiveImmediate());
+      Assert.assertEquals(25, queue.getMessagesAcknowledged());
+   }
+
    @Override
    @Before
    public void setUp() throws Exception {
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.tests.performance.journal;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.activemq.artemis.core.persistence.impl.journal.BatchingIDGenerator;
+import org.apache.activemq.artemis.core.persistence.impl.nullpm.NullStorageManager;
+import org.apache.activemq.artemis.tests.util.ActiveMQTestBase;
+import org.apache.activemq.artemis.utils.IDGenerator;
+import org.junit.Test;
+
+/**
+ * Measures the throughput of 64 and 128 threads generating IDs concurrently, as many producers sending at once would,
+ * with each ID taken from the shared counter and with the IDs taken from a sequence of each thread, as each session
+ * has, the checkpoints of the batches being recorded in a millisecond as a synchronous write on the journal would.
+ */
+public class BatchingIDGeneratorPerfTest extends ActiveMQTestBase {
+
+   private static final int IDS_PER_THREAD = 200000;
+
+   private static final long CHECKPOINT_SIZE = 10000;
+
+   @Test
+   public void test64Threads() throws Exception {
+      measure(64);
+   }
+
+   @Test
+   public void test128Threads() throws Exception {
+      measure(128);
+   }
+
+   private static void measure(final int threads) throws Exception {
+      for (int i = 0; i < 2; i++) {
+         measure(threads, "shared counter", 1, false);
+         measure(threads, "sequences", BatchingIDGenerator.DEFAULT_RANGE_SIZE, true);
+      }
+   }
+
+   private static void measure(final int threadCount,
+                               final String mode,
+                               final int rangeSize,
+                               final boolean sequences) throws Exception {
+      final AtomicInteger checkpoints = new AtomicInteger();
+
+      NullStorageManager storageManager = new NullStorageManager() {
+         @Override
+         public void storeID(final long journalID, final long id) throws Exception {
+            checkpoints.incrementAndGet();
+            Thread.sleep(1);
+         }
+      };
+      storageManager.start();
+
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+
+      final BatchingIDGenerator generator = new BatchingIDGenerator(0, CHECKPOINT_SIZE, rangeSize, storageManager, sequences ? executor : null);
+
+      final CountDownLatch start = new CountDownLatch(1);
+
+      Thread[] threads = new Thread[threadCount];
+      for (int t = 0; t < threadCount; t++) {
+         final IDGenerator ids = sequences ? generator.newSequence() : generator;
+         threads[t] = new Thread() {
+            @Override
+            public void run() {
+               try {
+                  start.await();
+               }
+               catch (InterruptedException e) {
+                  return;
+               }
+
+               for (int i = 0; i < IDS_PER_THREAD; i++) {
+                  ids.generateID();
+               }
+            }
+         };
+         threads[t].start();
+      }
+
+      long begin = System.nanoTime();
+
+      start.countDown();
+
+      for (Thread thread : threads) {
+         thread.join();
+      }
+
+      long elapsed = System.nanoTime() - begin;
+
+      executor.shutdown();
+      executor.awaitTermination(10, TimeUnit.SECONDS);
+      storageManager.stop();
+
+      long total = (long) threadCount * IDS_PER_THREAD;
+
+      System.out.println(threadCount + " threads generating " + total + " IDs from " + mode + " took " +
+                            (elapsed / 1000000) + " ms, " + (elapsed / total) + " ns per ID, " +
+                            (total * 1000000000L / elapsed) + " IDs per second, " + checkpoints.get() + " checkpoints");
+   }
+}
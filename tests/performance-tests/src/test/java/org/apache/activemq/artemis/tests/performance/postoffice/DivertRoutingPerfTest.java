@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.tests.performance.postoffice;
+
+import java.lang.management.ManagementFactory;
+
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.filter.impl.FilterImpl;
+import org.apache.activemq.artemis.core.persistence.impl.nullpm.NullStorageManager;
+import org.apache.activemq.artemis.core.postoffice.QueueCreator;
+import org.apache.activemq.artemis.core.postoffice.impl.BindingsImpl;
+import org.apache.activemq.artemis.core.postoffice.impl.DivertBinding;
+import org.apache.activemq.artemis.core.server.ServerMessage;
+import org.apache.activemq.artemis.core.server.cluster.Transformer;
+import org.apache.activemq.artemis.core.server.impl.DivertImpl;
+import org.apache.activemq.artemis.core.server.impl.RoutingContextImpl;
+import org.apache.activemq.artemis.core.server.impl.ServerMessageImpl;
+import org.apache.activemq.artemis.core.transaction.Transaction;
+import org.apache.activemq.artemis.tests.unit.core.server.impl.fakes.FakePostOffice;
+import org.apache.activemq.artemis.tests.util.ActiveMQTestBase;
+import org.junit.Test;
+
+/**
+ * Measures the time and the heap allocated per message when routing to an address with 1, 10 and 100 non exclusive
+ * diverts sharing 5 selectors, with the diverts copying the message each and sharing a copy of it.
+ */
+public class DivertRoutingPerfTest extends ActiveMQTestBase {
+
+   private static final int WARMUP = 20000;
+
+   private static final int MESSAGES = 100000;
+
+   private static final int SELECTORS = 5;
+
+   private static final SimpleString ADDRESS = new SimpleString("divert.address");
+
+   @Test
+   public void testOneDivert() throws Exception {
+      measure(1);
+   }
+
+   @Test
+   public void testTenDiverts() throws Exception {
+      measure(10);
+   }
+
+   @Test
+   public void testHundredDiverts() throws Exception {
+      measure(100);
+   }
+
+   private void measure(final int diverts) throws Exception {
+      // a transformer keeps the diverts from sharing a copy, as before they were routed together
+      report("copied", diverts, new Transformer() {
+         public ServerMessage transform(final ServerMessage message) {
+            return message;
+         }
+      });
+
+      report("shared", diverts, null);
+   }
+
+   private static void report(final String mode, final int diverts, final Transformer transformer) throws Exception {
+      CountingPostOffice postOffice = new CountingPostOffice();
+      NullStorageManager storageManager = new NullStorageManager();
+
+      BindingsImpl bindings = new BindingsImpl(ADDRESS, null, null);
+
+      for (int i = 0; i < diverts; i++) {
+         SimpleString name = new SimpleString("divert" + i);
+         DivertImpl divert = new DivertImpl(new SimpleString("forward" + i), name, name, false, FilterImpl.createFilter("sequence % " + SELECTORS + " <> " + (i % SELECTORS)), transformer, postOffice, storageManager);
+
+         bindings.addBinding(new DivertBinding(i, ADDRESS, divert));
+      }
+
+      ServerMessage message = new ServerMessageImpl(1, 1024);
+      message.setAddress(ADDRESS);
+      message.getBodyBuffer().writeBytes(new byte[512]);
+
+      route(bindings, message, postOffice, WARMUP, diverts);
+
+      long allocated = allocatedBytes();
+      long start = System.nanoTime();
+
+      route(bindings, message, postOffice, MESSAGES, diverts);
+
+      long elapsed = System.nanoTime() - start;
+      allocated = allocatedBytes() - allocated;
+
+      System.out.println("routing " + MESSAGES + " messages to " + diverts + " diverts with the copies " + mode +
+                            " took " + (elapsed / 1000000) + " ms, " + (elapsed / MESSAGES) + " ns and " +
+                            (allocated / MESSAGES) + " bytes allocated per message");
+   }
+
+   private static void route(final BindingsImpl bindings,
+                             final ServerMessage message,
+                             final CountingPostOffice postOffice,
+                             final int messages,
+                             final int diverts) throws Exception {
+      RoutingContextImpl context = new RoutingContextImpl(null);
+
+      for (int i = 0; i < messages; i++) {
+         message.putIntProperty("sequence", i);
+
+         postOffice.routed = 0;
+
+         bindings.route(message, context);
+
+         // every divert but one of each selector matches
+         int expected = diverts - (diverts / SELECTORS + (i % SELECTORS < diverts % SELECTORS ? 1 : 0));
+
+         if (postOffice.routed != expected) {
+            throw new IllegalStateException("diverted " + postOffice.routed + " copies instead of " + expected);
+         }
+
+         context.clear();
+      }
+   }
+
+   private static long allocatedBytes() {
+      com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+      return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+   }
+
+   private static final class CountingPostOffice extends FakePostOffice {
+
+      private int routed;
+
+      @Override
+      public void route(final ServerMessage message,
+                        final QueueCreator creator,
+                        final Transaction tx,
+                        final boolean direct) throws Exception {
+         routed++;
+      }
+   }
+}
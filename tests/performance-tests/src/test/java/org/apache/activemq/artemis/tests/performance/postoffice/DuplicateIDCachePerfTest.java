@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.tests.performance.postoffice;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.persistence.impl.nullpm.NullStorageManager;
+import org.apache.activemq.artemis.core.postoffice.impl.DuplicateIDCacheImpl;
+import org.apache.activemq.artemis.core.postoffice.impl.DuplicateIDTable;
+import org.apache.activemq.artemis.tests.util.ActiveMQTestBase;
+import org.junit.Test;
+
+/**
+ * Measures the throughput of duplicate id caches of 100k and 1M ids and the memory they take per id,
+ * with ids shaped like the UUID based ones of JMS messages, with and without a filter.
+ */
+public class DuplicateIDCachePerfTest extends ActiveMQTestBase {
+
+   private static final double FILTER_FALSE_POSITIVE_RATE = 0.01;
+
+   @Test
+   public void testHundredThousandIDs() throws Exception {
+      measure(100000);
+   }
+
+   @Test
+   public void testMillionIDs() throws Exception {
+      measure(1000000);
+   }
+
+   private void measure(final int cacheSize) throws Exception {
+      measure(cacheSize, 0);
+      measure(cacheSize, FILTER_FALSE_POSITIVE_RATE);
+   }
+
+   private void measure(final int cacheSize, final double falsePositiveRate) throws Exception {
+      System.out.println(falsePositiveRate > 0 ? "filter false positive rate " + falsePositiveRate : "no filter");
+
+      final byte[][] ids = new byte[cacheSize * 2][];
+      for (int i = 0; i < ids.length; i++) {
+         ids[i] = ("ID:" + UUID.randomUUID()).getBytes(StandardCharsets.US_ASCII);
+      }
+
+      final DuplicateIDCacheImpl cache = new DuplicateIDCacheImpl(new SimpleString("address"), cacheSize, new NullStorageManager(), true, falsePositiveRate);
+
+      // the second half evicts the first one
+      long start = System.nanoTime();
+      for (byte[] id : ids) {
+         cache.addToCache(id, null);
+      }
+      report("add", cacheSize, ids.length, start);
+
+      start = System.nanoTime();
+      for (int i = cacheSize; i < ids.length; i++) {
+         assertTrue(cache.contains(ids[i]));
+      }
+      report("lookup of cached ids", cacheSize, cacheSize, start);
+
+      start = System.nanoTime();
+      for (int i = 0; i < cacheSize; i++) {
+         assertFalse(cache.contains(ids[i]));
+      }
+      report("lookup of evicted ids", cacheSize, cacheSize, start);
+
+      // contended lookups of new ids, as many producers to the same address would do
+      final int threads = 4;
+      Thread[] lookups = new Thread[threads];
+      for (int t = 0; t < threads; t++) {
+         lookups[t] = new Thread() {
+            @Override
+            public void run() {
+               for (int i = 0; i < cacheSize; i++) {
+                  cache.contains(ids[i]);
+               }
+            }
+         };
+      }
+
+      start = System.nanoTime();
+      for (Thread thread : lookups) {
+         thread.start();
+      }
+      for (Thread thread : lookups) {
+         thread.join();
+      }
+      report("concurrent lookup of evicted ids", cacheSize, cacheSize * threads, start);
+
+      if (falsePositiveRate > 0) {
+         System.out.println("filter hit ratio " + cache.getFilterHitRatio() + ", false positive ratio " +
+                               cache.getFilterFalsePositiveRatio());
+      }
+
+      DuplicateIDTable table = new DuplicateIDTable(cacheSize, falsePositiveRate);
+      for (int i = 0; i < cacheSize; i++) {
+         table.add(ids[i], i);
+      }
+
+      System.out.println(cacheSize + " ids of " + ids[0].length + " bytes take " + table.getMemorySize() / cacheSize +
+                            " bytes each in direct memory");
+   }
+
+   private static void report(final String operation, final int cacheSize, final int count, final long start) {
+      long elapsed = System.nanoTime() - start;
+      System.out.println(operation + " with a cache of " + cacheSize + " ids: " + count + " in " + (elapsed / 1000000) +
+                            " ms, " + (elapsed / count) + " ns each");
+   }
+}
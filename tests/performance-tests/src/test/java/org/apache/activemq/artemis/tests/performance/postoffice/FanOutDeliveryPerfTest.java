@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.tests.performance.postoffice;
+
+import java.lang.management.ManagementFactory;
+
+import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.protocol.core.impl.wireformat.SessionReceiveMessage;
+import org.apache.activemq.artemis.core.server.impl.ServerMessageImpl;
+import org.apache.activemq.artemis.tests.util.ActiveMQTestBase;
+import org.junit.Test;
+
+/**
+ * Measures the time and the heap allocated to encode the deliveries of a 10k message to 10, 100 and 500 core
+ * consumers, copying the encoded message for each delivery and sharing it across the deliveries.
+ */
+public class FanOutDeliveryPerfTest extends ActiveMQTestBase {
+
+   private static final int BODY_SIZE = 10 * 1024;
+
+   private static final int MESSAGES = 1000;
+
+   @Test
+   public void testTenConsumers() throws Exception {
+      measure(10);
+   }
+
+   @Test
+   public void testHundredConsumers() throws Exception {
+      measure(100);
+   }
+
+   @Test
+   public void testFiveHundredConsumers() throws Exception {
+      measure(500);
+   }
+
+   private void measure(final int consumers) throws Exception {
+      ServerMessageImpl message = new ServerMessageImpl(1, BODY_SIZE + 100);
+      message.setAddress(new SimpleString("fanout.address"));
+      message.getBodyBuffer().writeBytes(new byte[BODY_SIZE]);
+
+      deliver(message, consumers, false);
+      report("copied", message, consumers, false);
+
+      deliver(message, consumers, true);
+      report("shared", message, consumers, true);
+   }
+
+   private static void report(final String mode,
+                              final ServerMessageImpl message,
+                              final int consumers,
+                              final boolean shared) throws Exception {
+      long allocated = allocatedBytes();
+      long start = System.nanoTime();
+
+      deliver(message, consumers, shared);
+
+      long elapsed = System.nanoTime() - start;
+      allocated = allocatedBytes() - allocated;
+
+      System.out.println("delivering " + MESSAGES + " messages of " + BODY_SIZE + " bytes to " + consumers +
+                            " consumers with the encoded message " + mode + " took " + (elapsed / 1000000) + " ms, " +
+                            (elapsed / MESSAGES) + " ns and " + (allocated / MESSAGES) + " bytes allocated per message");
+   }
+
+   private static void deliver(final ServerMessageImpl message,
+                               final int consumers,
+                               final boolean shared) throws Exception {
+      for (int i = 0; i < MESSAGES; i++) {
+         // a change makes the message encode again, as a new message would
+         message.putIntProperty("sequence", i);
+
+         for (int consumer = 0; consumer < consumers; consumer++) {
+            ActiveMQBuffer buffer;
+
+            if (shared) {
+               buffer = new SessionReceiveMessage(consumer, message, 0).encode(null);
+            }
+            else {
+               // what a delivery took before the encoded message was shared
+               buffer = message.getEncodedBuffer();
+               buffer.writeLong(consumer);
+               buffer.writeInt(0);
+            }
+
+            if (buffer.readableBytes() < BODY_SIZE) {
+               throw new IllegalStateException("encoded " + buffer.readableBytes() + " bytes");
+            }
+         }
+      }
+   }
+
+   private static long allocatedBytes() {
+      com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+      return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+   }
+}
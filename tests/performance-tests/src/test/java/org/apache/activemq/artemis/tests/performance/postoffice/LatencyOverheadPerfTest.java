@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.tests.performance.postoffice;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.filter.impl.FilterImpl;
+import org.apache.activemq.artemis.core.persistence.impl.nullpm.NullStorageManager;
+import org.apache.activemq.artemis.core.postoffice.QueueCreator;
+import org.apache.activemq.artemis.core.postoffice.impl.BindingsImpl;
+import org.apache.activemq.artemis.core.postoffice.impl.DivertBinding;
+import org.apache.activemq.artemis.core.server.ServerMessage;
+import org.apache.activemq.artemis.core.server.impl.DivertImpl;
+import org.apache.activemq.artemis.core.server.impl.LatencyMetrics;
+import org.apache.activemq.artemis.core.server.impl.RoutingContextImpl;
+import org.apache.activemq.artemis.core.server.impl.ServerMessageImpl;
+import org.apache.activemq.artemis.core.transaction.Transaction;
+import org.apache.activemq.artemis.tests.unit.core.server.impl.fakes.FakePostOffice;
+import org.apache.activemq.artemis.tests.util.ActiveMQTestBase;
+import org.apache.activemq.artemis.utils.LatencyHistogram;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Measures what measuring the route latency of every message costs when routing to an address with a few diverts,
+ * failing over the budget of 2% of the routing time, and the time of recording a latency from many threads.
+ */
+public class LatencyOverheadPerfTest extends ActiveMQTestBase {
+
+   private static final int WARMUP = 50000;
+
+   private static final int MESSAGES = 500000;
+
+   private static final int DIVERTS = 5;
+
+   // the best of a few rounds is kept, so that a pause of the JVM doesn't count as overhead
+   private static final int ROUNDS = 5;
+
+   private static final double BUDGET = 2;
+
+   private static final SimpleString ADDRESS = new SimpleString("latency.address");
+
+   @Test
+   public void testRouteOverhead() throws Exception {
+      BindingsImpl bindings = new BindingsImpl(ADDRESS, null, null);
+      FakePostOffice postOffice = new FakePostOffice() {
+         @Override
+         public void route(final ServerMessage message,
+                           final QueueCreator creator,
+                           final Transaction tx,
+                           final boolean direct) throws Exception {
+         }
+      };
+
+      for (int i = 0; i < DIVERTS; i++) {
+         SimpleString name = new SimpleString("divert" + i);
+         DivertImpl divert = new DivertImpl(new SimpleString("forward" + i), name, name, false, FilterImpl.createFilter("sequence % " + DIVERTS + " = " + i), null, postOffice, new NullStorageManager());
+
+         bindings.addBinding(new DivertBinding(i, ADDRESS, divert));
+      }
+
+      ServerMessage message = new ServerMessageImpl(1, 1024);
+      message.setAddress(ADDRESS);
+
+      // an address records to the histogram of the server until its own latencies are asked for
+      LatencyHistogram latency = new LatencyMetrics().getRoute();
+
+      route(bindings, message, null, WARMUP);
+      route(bindings, message, latency, WARMUP);
+
+      long without = Long.MAX_VALUE;
+      long with = Long.MAX_VALUE;
+
+      for (int i = 0; i < ROUNDS; i++) {
+         without = Math.min(without, route(bindings, message, null, MESSAGES));
+         with = Math.min(with, route(bindings, message, latency, MESSAGES));
+      }
+
+      double overhead = (with - without) * 100.0 / without;
+
+      System.out.println("routing " + MESSAGES + " messages took " + (without / MESSAGES) + " ns per message, " +
+                            (with / MESSAGES) + " ns measuring their latency: " +
+                            String.format("%.2f", overhead) + "% overhead, budget " + BUDGET + "%");
+
+      Assert.assertTrue(String.format("%.2f", overhead) + "% overhead over the budget of " + BUDGET + "%", overhead <= BUDGET);
+   }
+
+   @Test
+   public void testContendedRecord() throws Exception {
+      for (int threads = 1; threads <= 8; threads *= 2) {
+         recordConcurrently(threads, 1);
+         recordConcurrently(threads, LatencyHistogram.defaultStripes());
+      }
+   }
+
+   private static long route(final BindingsImpl bindings,
+                             final ServerMessage message,
+                             final LatencyHistogram latency,
+                             final int messages) throws Exception {
+      RoutingContextImpl context = new RoutingContextImpl(null);
+
+      long start = System.nanoTime();
+
+      for (int i = 0; i < messages; i++) {
+         message.putIntProperty("sequence", i);
+
+         // as PostOfficeImpl::route does
+         long routeStart = latency == null ? 0 : System.nanoTime();
+
+         bindings.route(message, context);
+
+         if (latency != null) {
+            latency.record(System.nanoTime() - routeStart);
+         }
+
+         context.clear();
+      }
+
+      return System.nanoTime() - start;
+   }
+
+   private static void recordConcurrently(final int threads, final int stripes) throws Exception {
+      final LatencyHistogram histogram = new LatencyHistogram(stripes, null);
+      final CountDownLatch ready = new CountDownLatch(threads);
+      final CountDownLatch go = new CountDownLatch(1);
+      final CountDownLatch done = new CountDownLatch(threads);
+
+      for (int i = 0; i < threads; i++) {
+         new Thread() {
+            @Override
+            public void run() {
+               ready.countDown();
+               try {
+                  go.await();
+               }
+               catch (InterruptedException e) {
+                  return;
+               }
+
+               for (int j = 0; j < MESSAGES; j++) {
+                  histogram.record(j & 0xFFFF);
+               }
+
+               done.countDown();
+            }
+         }.start();
+      }
+
+      ready.await();
+      long start = System.nanoTime();
+      go.countDown();
+      done.await();
+      long elapsed = System.nanoTime() - start;
+
+      System.out.println("recording " + MESSAGES + " latencies from each of " + threads + " threads on " + stripes +
+                            " stripes took " + (elapsed / MESSAGES) + " ns per latency");
+   }
+}
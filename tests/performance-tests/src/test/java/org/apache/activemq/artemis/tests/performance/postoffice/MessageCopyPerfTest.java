@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.tests.performance.postoffice;
+
+import java.lang.management.ManagementFactory;
+
+import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
+import org.apache.activemq.artemis.api.core.ActiveMQBuffers;
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.server.ServerMessage;
+import org.apache.activemq.artemis.core.server.impl.ServerMessageImpl;
+import org.apache.activemq.artemis.tests.util.ActiveMQTestBase;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Measures the time and the heap allocated, mostly buffers copied, per copy of a message with a 10KB body when
+ * diverting it to 10 addresses, with or without a template, and when sending it to a dead letter address, the copies
+ * being encoded as for the journal. The copies share the body, so that less than the body is allocated per copy.
+ */
+public class MessageCopyPerfTest extends ActiveMQTestBase {
+
+   private static final int WARMUP = 5000;
+
+   private static final int MESSAGES = 50000;
+
+   private static final int DIVERTS = 10;
+
+   private static final int BODY_SIZE = 10 * 1024;
+
+   @Test
+   public void testDivertCopies() throws Exception {
+      report("divert", new Copier() {
+         public ServerMessage copy(final ServerMessage message, final int i) throws Exception {
+            ServerMessage copy = message.copy(i);
+            copy.setOriginalHeaders(message, null, false);
+            copy.setAddress(new SimpleString("divert" + i % DIVERTS));
+            return copy;
+         }
+      }, DIVERTS);
+   }
+
+   @Test
+   public void testDivertTemplateCopies() throws Exception {
+      report("divert template", new Copier() {
+         public ServerMessage copy(final ServerMessage message, final int i) throws Exception {
+            // as the diverts of a message to the same address, only the id of the copies changes in place
+            ServerMessage copy = message.copy(i);
+            copy.encodeMessageIDToBuffer();
+            return copy;
+         }
+      }, DIVERTS);
+   }
+
+   @Test
+   public void testDeadLetterCopies() throws Exception {
+      report("dead letter", new Copier() {
+         public ServerMessage copy(final ServerMessage message, final int i) throws Exception {
+            ServerMessage copy = message.makeCopyForExpiryOrDLA(i, null, false);
+            copy.setAddress(new SimpleString("DLA"));
+            return copy;
+         }
+      }, 1);
+   }
+
+   private static void report(final String scenario, final Copier copier, final int copies) throws Exception {
+      ServerMessage message = new ServerMessageImpl(1, BODY_SIZE + 1024);
+      message.setAddress(new SimpleString("copy.address"));
+      message.putStringProperty("property", "value");
+      message.getBodyBuffer().writeBytes(new byte[BODY_SIZE]);
+
+      ActiveMQBuffer journal = ActiveMQBuffers.dynamicBuffer(2 * BODY_SIZE);
+
+      // encoded as when it was received
+      message.encode(journal);
+
+      copy(message, copier, copies, journal, WARMUP);
+
+      long allocated = allocatedBytes();
+      long start = System.nanoTime();
+
+      copy(message, copier, copies, journal, MESSAGES);
+
+      long elapsed = System.nanoTime() - start;
+      allocated = allocatedBytes() - allocated;
+
+      int total = MESSAGES * copies;
+
+      System.out.println(scenario + ": " + total + " copies of a " + BODY_SIZE + " bytes message took " +
+                            (elapsed / 1000000) + " ms, " + (elapsed / total) + " ns and " + (allocated / total) +
+                            " bytes allocated per copy (" + (total * 1000000000L / elapsed) + " copies/s)");
+
+      Assert.assertTrue(scenario + " copies the body: " + (allocated / total) + " bytes allocated per copy", allocated / total < BODY_SIZE / 2);
+   }
+
+   private static void copy(final ServerMessage message,
+                            final Copier copier,
+                            final int copies,
+                            final ActiveMQBuffer journal,
+                            final int messages) throws Exception {
+      for (int i = 0; i < messages; i++) {
+         for (int j = 0; j < copies; j++) {
+            ServerMessage copy = copier.copy(message, i * copies + j);
+
+            journal.clear();
+            copy.encode(journal);
+         }
+      }
+   }
+
+   private static long allocatedBytes() {
+      com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+      return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+   }
+
+   private interface Copier {
+
+      ServerMessage copy(ServerMessage message, int i) throws Exception;
+   }
+}
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.tests.performance.postoffice;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
+import org.apache.activemq.artemis.api.core.ActiveMQBuffers;
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.protocol.core.impl.wireformat.SessionReceiveMessage;
+import org.apache.activemq.artemis.core.server.impl.ServerMessageImpl;
+import org.apache.activemq.artemis.tests.util.ActiveMQTestBase;
+import org.junit.Test;
+
+/**
+ * Measures the time, the heap allocated and the garbage collections per message with a 4KB body, received, written
+ * to the journal and delivered to 4 consumers that acknowledge it 10000 messages later, with the messages on the heap
+ * and in pooled direct buffers. The deliveries are copied to a direct buffer as the network does.
+ */
+public class PooledMessageBufferPerfTest extends ActiveMQTestBase {
+
+   private static final int WARMUP = 20000;
+
+   private static final int MESSAGES = 200000;
+
+   private static final int CONSUMERS = 4;
+
+   private static final int IN_FLIGHT = 10000;
+
+   private static final int BODY_SIZE = 4 * 1024;
+
+   @Test
+   public void testHeapAndPooledBuffers() throws Exception {
+      ServerMessageImpl template = new ServerMessageImpl(1, BODY_SIZE + 1024);
+      template.setAddress(new SimpleString("pooled.address"));
+      template.putStringProperty("property", "value");
+      template.getBodyBuffer().writeBytes(new byte[BODY_SIZE]);
+
+      ActiveMQBuffer encoded = template.getEncodedBuffer();
+      byte[] frame = new byte[encoded.writerIndex()];
+      encoded.getBytes(0, frame);
+
+      report("heap", frame, false);
+      report("pooled", frame, true);
+      report("heap", frame, false);
+      report("pooled", frame, true);
+   }
+
+   private static void report(final String mode, final byte[] frame, final boolean pooled) throws Exception {
+      ActiveMQBuffer journal = ActiveMQBuffers.wrappedBuffer(ByteBuffer.allocateDirect(2 * frame.length));
+      ByteBuf network = Unpooled.directBuffer(4 * frame.length);
+
+      run(frame, pooled, journal, network, WARMUP);
+
+      long collections = collections();
+      long collectionTime = collectionTime();
+      long allocated = allocatedBytes();
+      long start = System.nanoTime();
+
+      run(frame, pooled, journal, network, MESSAGES);
+
+      long elapsed = System.nanoTime() - start;
+      allocated = allocatedBytes() - allocated;
+      collectionTime = collectionTime() - collectionTime;
+      collections = collections() - collections;
+
+      network.release();
+
+      System.out.println(MESSAGES + " messages on the " + mode + " took " + (elapsed / 1000000) + " ms, " +
+                            (elapsed / MESSAGES) + " ns and " + (allocated / MESSAGES) + " bytes allocated per message, " +
+                            collections + " collections taking " + collectionTime + " ms");
+   }
+
+   private static void run(final byte[] frame,
+                           final boolean pooled,
+                           final ActiveMQBuffer journal,
+                           final ByteBuf network,
+                           final int messages) throws Exception {
+      ArrayDeque<ServerMessageImpl> inFlight = new ArrayDeque<ServerMessageImpl>(IN_FLIGHT);
+
+      for (int i = 0; i < messages; i++) {
+         // a new frame each time as the network decoder reads one
+         ServerMessageImpl message = new ServerMessageImpl();
+         message.decodeFromBuffer(ActiveMQBuffers.wrappedBuffer(frame.clone()));
+
+         if (pooled) {
+            message.usePooledBuffer();
+         }
+
+         for (int j = 0; j < CONSUMERS; j++) {
+            message.incrementRefCount();
+         }
+
+         journal.clear();
+         message.encode(journal);
+
+         for (int j = 0; j < CONSUMERS; j++) {
+            ByteBuf delivery = new SessionReceiveMessage(j, message, 0).encode(null).byteBuf();
+
+            network.clear();
+            network.writeBytes(delivery);
+
+            delivery.release();
+         }
+
+         inFlight.add(message);
+
+         if (inFlight.size() == IN_FLIGHT) {
+            acknowledge(inFlight.poll());
+         }
+      }
+
+      while (!inFlight.isEmpty()) {
+         acknowledge(inFlight.poll());
+      }
+   }
+
+   private static void acknowledge(final ServerMessageImpl message) throws Exception {
+      for (int j = 0; j < CONSUMERS; j++) {
+         message.decrementRefCount();
+      }
+   }
+
+   private static long collections() {
+      long count = 0;
+
+      for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+         count += collector.getCollectionCount();
+      }
+
+      return count;
+   }
+
+   private static long collectionTime() {
+      long time = 0;
+
+      for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+         time += collector.getCollectionTime();
+      }
+
+      return time;
+   }
+
+   private static long allocatedBytes() {
+      com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+      return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+   }
+}
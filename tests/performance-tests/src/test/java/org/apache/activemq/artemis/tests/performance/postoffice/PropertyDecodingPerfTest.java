@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.tests.performance.postoffice;
+
+import java.lang.management.ManagementFactory;
+
+import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
+import org.apache.activemq.artemis.api.core.ActiveMQBuffers;
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.filter.Filter;
+import org.apache.activemq.artemis.core.filter.impl.FilterImpl;
+import org.apache.activemq.artemis.core.server.ServerMessage;
+import org.apache.activemq.artemis.core.server.impl.ServerMessageImpl;
+import org.apache.activemq.artemis.tests.util.ActiveMQTestBase;
+import org.junit.Test;
+
+/**
+ * Measures the time and the heap allocated per message when decoding messages with 20 properties and reading what
+ * routing needs of them: a single property selector and the duplicate id. The properties are either left encoded
+ * until needed or all decoded, as they used to be.
+ */
+public class PropertyDecodingPerfTest extends ActiveMQTestBase {
+
+   private static final int WARMUP = 50000;
+
+   private static final int MESSAGES = 500000;
+
+   private static final int PROPERTIES = 20;
+
+   @Test
+   public void testDecodeAndRoute() throws Exception {
+      ServerMessage message = new ServerMessageImpl(1, 1024);
+      message.setAddress(new SimpleString("property.address"));
+      message.getBodyBuffer().writeBytes(new byte[256]);
+
+      for (int i = 0; i < PROPERTIES; i++) {
+         if (i % 2 == 0) {
+            message.putStringProperty("property" + i, "value" + i);
+         }
+         else {
+            message.putLongProperty("property" + i, i);
+         }
+      }
+      message.putStringProperty("color", "red");
+
+      ActiveMQBuffer encoded = ActiveMQBuffers.fixedBuffer(message.getEncodeSize());
+      message.encode(encoded);
+
+      Filter filter = FilterImpl.createFilter("color = 'red'");
+
+      report("left encoded", encoded, filter, false);
+      report("all decoded", encoded, filter, true);
+   }
+
+   private static void report(final String mode,
+                              final ActiveMQBuffer encoded,
+                              final Filter filter,
+                              final boolean decodeAll) throws Exception {
+      decodeAndRoute(encoded, filter, decodeAll, WARMUP);
+
+      long allocated = allocatedBytes();
+      long start = System.nanoTime();
+
+      decodeAndRoute(encoded, filter, decodeAll, MESSAGES);
+
+      long elapsed = System.nanoTime() - start;
+      allocated = allocatedBytes() - allocated;
+
+      System.out.println("decoding and routing " + MESSAGES + " messages with the properties " + mode + " took " +
+                            (elapsed / 1000000) + " ms, " + (elapsed / MESSAGES) + " ns and " +
+                            (allocated / MESSAGES) + " bytes allocated per message");
+   }
+
+   private static void decodeAndRoute(final ActiveMQBuffer encoded,
+                                      final Filter filter,
+                                      final boolean decodeAll,
+                                      final int messages) throws Exception {
+      for (int i = 0; i < messages; i++) {
+         ServerMessage message = new ServerMessageImpl(1, encoded.writerIndex());
+
+         encoded.readerIndex(0);
+         message.decode(encoded);
+
+         if (decodeAll) {
+            message.getTypedProperties().getPropertyNames();
+         }
+
+         if (!filter.match(message) || message.getDuplicateProperty() != null) {
+            throw new IllegalStateException("unexpected routing of " + message);
+         }
+      }
+   }
+
+   private static long allocatedBytes() {
+      com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+      return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+   }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.tests.performance.postoffice;
+
+import java.lang.management.ManagementFactory;
+
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.postoffice.impl.BindingsImpl;
+import org.apache.activemq.artemis.core.postoffice.impl.LocalQueueBinding;
+import org.apache.activemq.artemis.core.server.RoutingContext;
+import org.apache.activemq.artemis.core.server.ServerMessage;
+import org.apache.activemq.artemis.core.server.impl.RoutingContextImpl;
+import org.apache.activemq.artemis.core.server.impl.ServerMessageImpl;
+import org.apache.activemq.artemis.tests.unit.core.postoffice.impl.FakeQueue;
+import org.apache.activemq.artemis.tests.util.ActiveMQTestBase;
+import org.junit.Test;
+
+/**
+ * Measures the time and the heap allocated per message when routing to an address with 1, 10 and 100 local queues,
+ * with a routing context created per message and with one reused across messages.
+ */
+public class RoutingAllocationPerfTest extends ActiveMQTestBase {
+
+   private static final int WARMUP = 100000;
+
+   private static final int MESSAGES = 1000000;
+
+   private static final SimpleString ADDRESS = new SimpleString("routing.address");
+
+   @Test
+   public void testOneBinding() throws Exception {
+      measure(1);
+   }
+
+   @Test
+   public void testTenBindings() throws Exception {
+      measure(10);
+   }
+
+   @Test
+   public void testHundredBindings() throws Exception {
+      measure(100);
+   }
+
+   private void measure(final int numberOfBindings) throws Exception {
+      BindingsImpl bindings = new BindingsImpl(ADDRESS, null, null);
+
+      for (int i = 0; i < numberOfBindings; i++) {
+         bindings.addBinding(new LocalQueueBinding(ADDRESS, new RoutingQueue(new SimpleString("queue" + i), i), new SimpleString("node")));
+      }
+
+      ServerMessage message = new ServerMessageImpl(1, 100);
+      message.setAddress(ADDRESS);
+
+      route(bindings, message, null, WARMUP, numberOfBindings);
+      report("new context", bindings, message, null, numberOfBindings);
+
+      RoutingContextImpl context = new RoutingContextImpl(null);
+      route(bindings, message, context, WARMUP, numberOfBindings);
+      report("reused context", bindings, message, context, numberOfBindings);
+   }
+
+   private static void report(final String mode,
+                              final BindingsImpl bindings,
+                              final ServerMessage message,
+                              final RoutingContextImpl context,
+                              final int numberOfBindings) throws Exception {
+      long allocated = allocatedBytes();
+      long start = System.nanoTime();
+
+      route(bindings, message, context, MESSAGES, numberOfBindings);
+
+      long elapsed = System.nanoTime() - start;
+      allocated = allocatedBytes() - allocated;
+
+      System.out.println("routing " + MESSAGES + " messages to " + numberOfBindings + " bindings with " + mode + " took " +
+                            (elapsed / 1000000) + " ms, " + (elapsed / MESSAGES) + " ns and " + (allocated / MESSAGES) +
+                            " bytes allocated per message");
+   }
+
+   private static void route(final BindingsImpl bindings,
+                             final ServerMessage message,
+                             final RoutingContextImpl reusedContext,
+                             final int messages,
+                             final int numberOfBindings) throws Exception {
+      for (int i = 0; i < messages; i++) {
+         RoutingContextImpl context = reusedContext == null ? new RoutingContextImpl(null) : reusedContext;
+
+         bindings.route(message, context);
+
+         if (context.getQueueCount() != numberOfBindings) {
+            throw new IllegalStateException("routed to " + context.getQueueCount() + " queues");
+         }
+
+         context.clear();
+      }
+   }
+
+   private static long allocatedBytes() {
+      com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+      return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+   }
+
+   private static final class RoutingQueue extends FakeQueue {
+
+      RoutingQueue(final SimpleString name, final long id) {
+         super(name, id);
+      }
+
+      @Override
+      public void route(final ServerMessage message, final RoutingContext context) throws Exception {
+         context.addQueue(ADDRESS, this);
+      }
+   }
+}
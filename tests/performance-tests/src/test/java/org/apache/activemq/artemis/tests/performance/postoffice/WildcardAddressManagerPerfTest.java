@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.tests.performance.postoffice;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.filter.Filter;
+import org.apache.activemq.artemis.core.postoffice.Binding;
+import org.apache.activemq.artemis.core.postoffice.BindingType;
+import org.apache.activemq.artemis.core.postoffice.Bindings;
+import org.apache.activemq.artemis.core.postoffice.BindingsFactory;
+import org.apache.activemq.artemis.core.postoffice.impl.WildcardAddressManager;
+import org.apache.activemq.artemis.core.server.Bindable;
+import org.apache.activemq.artemis.core.server.Queue;
+import org.apache.activemq.artemis.core.server.RoutingContext;
+import org.apache.activemq.artemis.core.server.ServerMessage;
+import org.apache.activemq.artemis.core.server.cluster.impl.MessageLoadBalancingType;
+import org.apache.activemq.artemis.tests.util.ActiveMQTestBase;
+import org.apache.activemq.artemis.utils.LatencyHistogram;
+import org.junit.Test;
+
+/**
+ * Measures adding, routing to and removing device addresses in the presence of many wildcard subscriptions,
+ * as an IoT / MQTT workload would do.
+ */
+public class WildcardAddressManagerPerfTest extends ActiveMQTestBase {
+
+   private static final int WILDCARDS = 10000;
+
+   private static final int GROUPS = 1000;
+
+   @Test
+   public void testTenThousandAddresses() throws Exception {
+      measure(10000);
+   }
+
+   @Test
+   public void testHundredThousandAddresses() throws Exception {
+      measure(100000);
+   }
+
+   @Test
+   public void testMillionAddresses() throws Exception {
+      measure(1000000);
+   }
+
+   private void measure(final int numberOfAddresses) throws Exception {
+      WildcardAddressManager manager = new WildcardAddressManager(new FakeBindingsFactory());
+
+      // each group of devices has several subscriptions, a few global ones match everything
+      for (int i = 0; i < WILDCARDS; i++) {
+         String pattern;
+         switch (i % 4) {
+            case 0:
+               pattern = "devices." + (i % GROUPS) + ".*";
+               break;
+            case 1:
+               pattern = "devices." + (i % GROUPS) + ".#";
+               break;
+            case 2:
+               pattern = "devices.*." + i;
+               break;
+            default:
+               pattern = "alerts." + (i % GROUPS) + ".#";
+         }
+         manager.addBinding(new FakeBinding(pattern, "wildcard" + i));
+      }
+
+      SimpleString[] addresses = new SimpleString[numberOfAddresses];
+      SimpleString[] unbound = new SimpleString[numberOfAddresses];
+      for (int i = 0; i < numberOfAddresses; i++) {
+         addresses[i] = new SimpleString("devices." + (i % GROUPS) + "." + i);
+         unbound[i] = new SimpleString("telemetry." + (i % GROUPS) + "." + i);
+      }
+
+      long start = System.nanoTime();
+      for (int i = 0; i < numberOfAddresses; i++) {
+         manager.addBinding(new FakeBinding(addresses[i], new SimpleString("device" + i)));
+      }
+      report("add", numberOfAddresses, start);
+
+      start = System.nanoTime();
+      for (int i = 0; i < numberOfAddresses; i++) {
+         assertNotNull(manager.getBindingsForRoutingAddress(addresses[i]));
+      }
+      report("route", numberOfAddresses, start);
+
+      start = System.nanoTime();
+      for (int i = 0; i < numberOfAddresses; i++) {
+         assertNull(manager.getBindingsForRoutingAddress(unbound[i]));
+      }
+      report("route without bindings", numberOfAddresses, start);
+
+      start = System.nanoTime();
+      for (int i = 0; i < numberOfAddresses; i++) {
+         manager.removeBinding(new SimpleString("device" + i), null);
+      }
+      report("remove", numberOfAddresses, start);
+   }
+
+   private static void report(final String operation, final int count, final long start) {
+      long elapsed = System.nanoTime() - start;
+      System.out.println(operation + " of " + count + " addresses with " + WILDCARDS + " wildcards took " +
+                            (elapsed / 1000000) + " ms, " + (elapsed / count) + " ns each");
+   }
+
+   private static final class FakeBindingsFactory implements BindingsFactory {
+
+      public Bindings createBindings(final SimpleString address) throws Exception {
+         return new FakeBindings();
+      }
+   }
+
+   private static final class FakeBindings implements Bindings {
+
+      private final Collection<Binding> bindings = new ArrayList<Binding>();
+
+      public Collection<Binding> getBindings() {
+         return bindings;
+      }
+
+      public void addBinding(final Binding binding) {
+         bindings.add(binding);
+      }
+
+      public void removeBinding(final Binding binding) {
+         bindings.remove(binding);
+      }
+
+      public void setMessageLoadBalancingType(final MessageLoadBalancingType messageLoadBalancingType) {
+      }
+
+      public void unproposed(final SimpleString groupID) {
+      }
+
+      public boolean redistribute(final ServerMessage message,
+                                  final Queue originatingQueue,
+                                  final RoutingContext context) throws Exception {
+         return false;
+      }
+
+      public void route(final ServerMessage message, final RoutingContext context) throws Exception {
+      }
+
+      public LatencyHistogram getRouteLatency() {
+         return null;
+      }
+
+      public void recordRouteLatency(final long nanos) {
+      }
+   }
+
+   private static final class FakeBinding implements Binding {
+
+      private final SimpleString address;
+
+      private final SimpleString name;
+
+      FakeBinding(final String address, final String name) {
+         this(new SimpleString(address), new SimpleString(name));
+      }
+
+      FakeBinding(final SimpleString address, final SimpleString name) {
+         this.address = address;
+         this.name = name;
+      }
+
+      public void unproposed(final SimpleString groupID) {
+      }
+
+      public SimpleString getAddress() {
+         return address;
+      }
+
+      public Bindable getBindable() {
+         return null;
+      }
+
+      public BindingType getType() {
+         return BindingType.LOCAL_QUEUE;
+      }
+
+      public SimpleString getUniqueName() {
+         return name;
+      }
+
+      public SimpleString getRoutingName() {
+         return name;
+      }
+
+      public SimpleString getClusterName() {
+         return name;
+      }
+
+      public Filter getFilter() {
+         return null;
+      }
+
+      public boolean isHighAcceptPriority(final ServerMessage message) {
+         return false;
+      }
+
+      public boolean isExclusive() {
+         return false;
+      }
+
+      public long getID() {
+         return 0;
+      }
+
+      public int getDistance() {
+         return 0;
+      }
+
+      public void route(final ServerMessage message, final RoutingContext context) throws Exception {
+      }
+
+      public void routeWithAck(final ServerMessage message, final RoutingContext context) throws Exception {
+      }
+
+      public void close() throws Exception {
+      }
+
+      public String toManagementString() {
+         return "FakeBinding address=" + address;
+      }
+
+      public boolean isConnected() {
+         return true;
+      }
+   }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.tests.performance.sends;
+
+import org.apache.activemq.artemis.api.core.Interceptor;
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.api.core.client.ClientConsumer;
+import org.apache.activemq.artemis.api.core.client.ClientMessage;
+import org.apache.activemq.artemis.api.core.client.ClientProducer;
+import org.apache.activemq.artemis.api.core.client.ClientSession;
+import org.apache.activemq.artemis.api.core.client.ClientSessionFactory;
+import org.apache.activemq.artemis.api.core.client.ServerLocator;
+import org.apache.activemq.artemis.core.protocol.core.Packet;
+import org.apache.activemq.artemis.core.server.ActiveMQServer;
+import org.apache.activemq.artemis.spi.core.protocol.RemotingConnection;
+import org.apache.activemq.artemis.tests.util.ActiveMQTestBase;
+import org.junit.Test;
+
+/**
+ * Measures the throughput of a consumer receiving small messages over netty from a queue filled beforehand, with its
+ * deliveries batched in packets and with one delivery per packet, as when the server has an outgoing interceptor.
+ */
+public class BatchedDeliveryPerfTest extends ActiveMQTestBase {
+
+   private static final SimpleString QUEUE = new SimpleString("batched.queue");
+
+   private static final int WARMUP = 20000;
+
+   private static final int MESSAGES = 200000;
+
+   @Test
+   public void testSmallMessages() throws Exception {
+      ActiveMQServer server = createServer(false, createDefaultNettyConfig());
+      server.start();
+
+      ServerLocator locator = createNettyNonHALocator().setBlockOnNonDurableSend(false).setBlockOnAcknowledge(false);
+      ClientSessionFactory sf = createSessionFactory(locator);
+      ClientSession session = addClientSession(sf.createSession(false, true, true));
+
+      session.createQueue(QUEUE, QUEUE, false);
+
+      report(server, session, "one per packet", true);
+      report(server, session, "batched", false);
+      report(server, session, "one per packet", true);
+      report(server, session, "batched", false);
+   }
+
+   private static void report(final ActiveMQServer server,
+                              final ClientSession session,
+                              final String mode,
+                              final boolean intercepted) throws Exception {
+      // any outgoing interceptor turns the batching off, this one lets everything through
+      Interceptor passThrough = new Interceptor() {
+         @Override
+         public boolean intercept(final Packet packet, final RemotingConnection connection) {
+            return true;
+         }
+      };
+
+      if (intercepted) {
+         server.getRemotingService().addOutgoingInterceptor(passThrough);
+      }
+
+      try {
+         send(session, WARMUP);
+         receive(session, WARMUP);
+
+         send(session, MESSAGES);
+
+         long start = System.nanoTime();
+
+         receive(session, MESSAGES);
+
+         long elapsed = System.nanoTime() - start;
+
+         System.out.println(MESSAGES + " messages received " + mode + " took " + (elapsed / 1000000) + " ms, " +
+                               (elapsed / MESSAGES) + " ns per message, " +
+                               (MESSAGES * 1000000000L / elapsed) + " messages per second");
+      }
+      finally {
+         if (intercepted) {
+            server.getRemotingService().removeOutgoingInterceptor(passThrough);
+         }
+      }
+   }
+
+   private static void send(final ClientSession session, final int messages) throws Exception {
+      ClientProducer producer = session.createProducer(QUEUE);
+
+      for (int i = 0; i < messages; i++) {
+         ClientMessage message = session.createMessage(false);
+         message.getBodyBuffer().writeInt(i);
+
+         producer.send(message);
+      }
+
+      producer.close();
+   }
+
+   private static void receive(final ClientSession session, final int messages) throws Exception {
+      ClientConsumer consumer = session.createConsumer(QUEUE);
+
+      session.start();
+
+      for (int i = 0; i < messages; i++) {
+         ClientMessage message = consumer.receive(5000);
+
+         assertNotNull(message);
+         assertEquals(i, message.getBodyBuffer().readInt());
+
+         message.acknowledge();
+      }
+
+      consumer.close();
+
+      session.stop();
+   }
+}
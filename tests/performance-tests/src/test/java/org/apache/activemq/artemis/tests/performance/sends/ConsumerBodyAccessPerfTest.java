@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.tests.performance.sends;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.client.impl.ClientMessageImpl;
+import org.apache.activemq.artemis.core.protocol.core.impl.wireformat.SessionReceiveMessage;
+import org.apache.activemq.artemis.jms.client.ActiveMQTextMessage;
+import org.apache.activemq.artemis.reader.TextMessageUtil;
+import org.apache.activemq.artemis.tests.util.ActiveMQTestBase;
+import org.junit.Test;
+
+/**
+ * Measures the time, the heap allocated and the collections per message on the consumer side for deliveries of 4KB
+ * text messages which are decoded and then either read as text, only routed on a property, or hashed through the
+ * read-only view of their body.
+ */
+public class ConsumerBodyAccessPerfTest extends ActiveMQTestBase {
+
+   private static final int WARMUP = 20000;
+
+   private static final int MESSAGES = 200000;
+
+   private static final SimpleString ROUTE = new SimpleString("route");
+
+   @Test
+   public void testTextMessages() throws Exception {
+      StringBuilder text = new StringBuilder();
+      while (text.length() < 4096) {
+         text.append("message body ");
+      }
+
+      ActiveMQBuffer delivery = delivery(text.toString());
+
+      for (int i = 0; i < 2; i++) {
+         run(delivery, "text", WARMUP);
+         run(delivery, "property", WARMUP);
+         run(delivery, "view", WARMUP);
+
+         measure(delivery, "text");
+         measure(delivery, "property");
+         measure(delivery, "view");
+      }
+   }
+
+   private static void measure(final ActiveMQBuffer delivery, final String mode) throws Exception {
+      long collections = collections();
+      long allocated = allocatedBytes();
+      long start = System.nanoTime();
+
+      long result = run(delivery, mode, MESSAGES);
+
+      long elapsed = System.nanoTime() - start;
+      allocated = allocatedBytes() - allocated;
+      collections = collections() - collections;
+
+      System.out.println(MESSAGES + " messages consumed by " + mode + " took " + (elapsed / MESSAGES) + " ns and " +
+                            (allocated / MESSAGES) + " bytes allocated per message, " + collections +
+                            " collections (" + result + ")");
+   }
+
+   private static long run(final ActiveMQBuffer delivery, final String mode, final int messages) throws Exception {
+      long result = 0;
+
+      for (int i = 0; i < messages; i++) {
+         ClientMessageImpl received = receive(delivery);
+
+         ActiveMQTextMessage message = new ActiveMQTextMessage(received, null);
+         message.doBeforeReceive();
+
+         if ("text".equals(mode)) {
+            result += message.getText().length();
+         }
+         else if ("property".equals(mode)) {
+            result += message.getIntProperty(ROUTE.toString());
+         }
+         else {
+            ActiveMQBuffer body = received.getReadOnlyBodyBuffer();
+
+            int hash = 0;
+            while (body.readable()) {
+               hash = 31 * hash + body.readByte();
+            }
+
+            result += hash;
+         }
+      }
+
+      return result;
+   }
+
+   private static ClientMessageImpl receive(final ActiveMQBuffer delivery) {
+      // every delivery comes in a frame of its own, as read from the network
+      ActiveMQBuffer frame = delivery.copy();
+      frame.readInt();
+      frame.readByte();
+
+      SessionReceiveMessage packet = new SessionReceiveMessage(new ClientMessageImpl());
+      packet.decode(frame);
+
+      return (ClientMessageImpl) packet.getMessage();
+   }
+
+   private static ActiveMQBuffer delivery(final String text) {
+      ClientMessageImpl message = new ClientMessageImpl(ActiveMQTextMessage.TYPE, false, 0, System.currentTimeMillis(), (byte) 4, 8192);
+      message.putIntProperty(ROUTE, 1);
+      TextMessageUtil.writeBodyText(message.getBodyBuffer(), new SimpleString(text));
+
+      return new SessionReceiveMessage(1, message, 0).encode(null);
+   }
+
+   private static long collections() {
+      long collections = 0;
+
+      for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+         collections += gc.getCollectionCount();
+      }
+
+      return collections;
+   }
+
+   private static long allocatedBytes() {
+      com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+      return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+   }
+}
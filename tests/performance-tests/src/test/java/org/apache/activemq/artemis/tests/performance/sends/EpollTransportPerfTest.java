@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.tests.performance.sends;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.netty.channel.epoll.Epoll;
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.api.core.TransportConfiguration;
+import org.apache.activemq.artemis.api.core.client.ActiveMQClient;
+import org.apache.activemq.artemis.api.core.client.ClientConsumer;
+import org.apache.activemq.artemis.api.core.client.ClientMessage;
+import org.apache.activemq.artemis.api.core.client.ClientProducer;
+import org.apache.activemq.artemis.api.core.client.ClientSession;
+import org.apache.activemq.artemis.api.core.client.ClientSessionFactory;
+import org.apache.activemq.artemis.api.core.client.ServerLocator;
+import org.apache.activemq.artemis.core.remoting.impl.netty.TransportConstants;
+import org.apache.activemq.artemis.core.server.ActiveMQServer;
+import org.apache.activemq.artemis.tests.util.ActiveMQTestBase;
+import org.junit.Test;
+
+/**
+ * Measures, with the NIO and the native epoll transports, the time to open many connections and then the latency of
+ * round trips of small messages through a queue while those connections stay open.
+ */
+public class EpollTransportPerfTest extends ActiveMQTestBase {
+
+   private static final SimpleString QUEUE = new SimpleString("transport.queue");
+
+   // each connection takes two file descriptors in this JVM, raise the limit of the process before raising this
+   private static final int CONNECTIONS = 400;
+
+   private static final int WARMUP = 5000;
+
+   private static final int ROUND_TRIPS = 50000;
+
+   @Test
+   public void testNioAndEpoll() throws Exception {
+      measure(false);
+
+      if (Epoll.isAvailable()) {
+         measure(true);
+      }
+      else {
+         System.out.println("epoll is not available: " + Epoll.unavailabilityCause());
+      }
+   }
+
+   private void measure(final boolean epoll) throws Exception {
+      String transport = epoll ? "epoll" : "NIO";
+
+      Map<String, Object> params = new HashMap<String, Object>();
+      params.put(TransportConstants.USE_EPOLL_PROP_NAME, epoll);
+
+      ActiveMQServer server = createServer(false, createDefaultInVMConfig().addAcceptorConfiguration(new TransportConfiguration(NETTY_ACCEPTOR_FACTORY, params)));
+      server.start();
+
+      ServerLocator locator = addServerLocator(ActiveMQClient.createServerLocatorWithoutHA(new TransportConfiguration(NETTY_CONNECTOR_FACTORY, params)));
+      locator.setBlockOnNonDurableSend(true).setBlockOnAcknowledge(false);
+
+      List<ClientSessionFactory> factories = new ArrayList<ClientSessionFactory>();
+
+      long start = System.nanoTime();
+
+      for (int i = 0; i < CONNECTIONS; i++) {
+         factories.add(createSessionFactory(locator));
+      }
+
+      long elapsed = System.nanoTime() - start;
+
+      System.out.println(CONNECTIONS + " connections with " + transport + " opened in " + (elapsed / 1000000) +
+                            " ms, " + (elapsed / CONNECTIONS / 1000) + " us per connection");
+
+      ClientSession session = addClientSession(factories.get(0).createSession(false, true, true));
+      session.createQueue(QUEUE, QUEUE, false);
+
+      ClientProducer producer = session.createProducer(QUEUE);
+      ClientConsumer consumer = session.createConsumer(QUEUE);
+
+      session.start();
+
+      roundTrips(session, producer, consumer, WARMUP);
+
+      long[] latencies = roundTrips(session, producer, consumer, ROUND_TRIPS);
+
+      Arrays.sort(latencies);
+
+      System.out.println(ROUND_TRIPS + " round trips with " + transport + ": median " +
+                            latencies[ROUND_TRIPS / 2] / 1000 + " us, 99% " +
+                            latencies[ROUND_TRIPS * 99 / 100] / 1000 + " us, 99.9% " +
+                            latencies[ROUND_TRIPS * 999 / 1000] / 1000 + " us, max " +
+                            latencies[ROUND_TRIPS - 1] / 1000 + " us");
+
+      session.close();
+
+      for (ClientSessionFactory factory : factories) {
+         factory.close();
+      }
+
+      locator.close();
+
+      server.stop();
+   }
+
+   private static long[] roundTrips(final ClientSession session,
+                                    final ClientProducer producer,
+                                    final ClientConsumer consumer,
+                                    final int count) throws Exception {
+      long[] latencies = new long[count];
+
+      for (int i = 0; i < count; i++) {
+         ClientMessage message = session.createMessage(false);
+         message.getBodyBuffer().writeInt(i);
+
+         long start = System.nanoTime();
+
+         producer.send(message);
+
+         ClientMessage received = consumer.receive(5000);
+
+         latencies[i] = System.nanoTime() - start;
+
+         assertNotNull(received);
+         assertEquals(i, received.getBodyBuffer().readInt());
+
+         received.acknowledge();
+      }
+
+      return latencies;
+   }
+}
@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.tests.performance.sends;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.api.core.client.ClientConsumer;
+import org.apache.activemq.artemis.api.core.client.ClientMessage;
+import org.apache.activemq.artemis.api.core.client.ClientProducer;
+import org.apache.activemq.artemis.api.core.client.ClientSession;
+import org.apache.activemq.artemis.api.core.client.ClientSessionFactory;
+import org.apache.activemq.artemis.api.core.client.MessageHandler;
+import org.apache.activemq.artemis.api.core.client.ServerLocator;
+import org.apache.activemq.artemis.core.server.ActiveMQServer;
+import org.apache.activemq.artemis.tests.unit.UnitTestLogger;
+import org.apache.activemq.artemis.tests.util.ActiveMQTestBase;
+import org.junit.Test;
+
+/**
+ * Measures over netty on localhost the latency of blocking sends, and the throughput of 1 and 8 producers sharing a
+ * connection sending small messages without blocking to a consumer on another connection.
+ */
+public class WriteCoalescingPerfTest extends ActiveMQTestBase {
+
+   private static final UnitTestLogger log = UnitTestLogger.LOGGER;
+
+   private static final SimpleString QUEUE = new SimpleString("coalescing.queue");
+
+   private static final int WARMUP = 10000;
+
+   private static final int ROUND_TRIPS = 50000;
+
+   private static final int MESSAGES = 400000;
+
+   @Test
+   public void testLatencyAndThroughput() throws Exception {
+      ActiveMQServer server = createServer(false, createDefaultNettyConfig());
+      server.start();
+
+      ServerLocator blockingLocator = createNettyNonHALocator().setBlockOnNonDurableSend(true);
+      ClientSessionFactory blockingFactory = createSessionFactory(blockingLocator);
+      ClientSession session = addClientSession(blockingFactory.createSession(false, true, true));
+
+      session.createQueue(QUEUE, QUEUE, false);
+
+      latency(session, WARMUP);
+      latency(session, ROUND_TRIPS);
+
+      ServerLocator locator = createNettyNonHALocator().setBlockOnNonDurableSend(false).setBlockOnAcknowledge(false);
+      ClientSessionFactory producerFactory = createSessionFactory(locator);
+      ClientSessionFactory consumerFactory = createSessionFactory(locator);
+
+      throughput(producerFactory, consumerFactory, 1, WARMUP);
+      throughput(producerFactory, consumerFactory, 1, MESSAGES);
+      throughput(producerFactory, consumerFactory, 8, MESSAGES);
+   }
+
+   private static void latency(final ClientSession session, final int count) throws Exception {
+      ClientProducer producer = session.createProducer(QUEUE);
+      ClientConsumer consumer = session.createConsumer(QUEUE);
+
+      session.start();
+
+      long[] latencies = new long[count];
+
+      for (int i = 0; i < count; i++) {
+         ClientMessage message = session.createMessage(false);
+         message.getBodyBuffer().writeInt(i);
+
+         long start = System.nanoTime();
+
+         producer.send(message);
+
+         ClientMessage received = consumer.receive(5000);
+
+         latencies[i] = System.nanoTime() - start;
+
+         assertNotNull(received);
+         received.acknowledge();
+      }
+
+      session.stop();
+
+      consumer.close();
+      producer.close();
+
+      Arrays.sort(latencies);
+
+      log.info(count + " round trips: median " + latencies[count / 2] / 1000 + " us, 99% " +
+                            latencies[count * 99 / 100] / 1000 + " us, 99.9% " +
+                            latencies[count * 999 / 1000] / 1000 + " us");
+   }
+
+   private static void throughput(final ClientSessionFactory producerFactory,
+                                  final ClientSessionFactory consumerFactory,
+                                  final int producers,
+                                  final int messages) throws Exception {
+      final CountDownLatch received = new CountDownLatch(messages);
+      final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+      ClientSession consumerSession = consumerFactory.createSession(false, true, true);
+      ClientConsumer consumer = consumerSession.createConsumer(QUEUE);
+      consumer.setMessageHandler(new MessageHandler() {
+         @Override
+         public void onMessage(final ClientMessage message) {
+            try {
+               message.acknowledge();
+            }
+            catch (Exception e) {
+               log.warn("failed to acknowledge", e);
+               failure.compareAndSet(null, e);
+            }
+
+            received.countDown();
+         }
+      });
+      consumerSession.start();
+
+      // all the producers share the connection of their factory
+      final ClientSession[] sessions = new ClientSession[producers];
+      for (int i = 0; i < producers; i++) {
+         sessions[i] = producerFactory.createSession(false, true, true);
+      }
+
+      Thread[] threads = new Thread[producers];
+      for (int t = 0; t < producers; t++) {
+         final ClientSession session = sessions[t];
+         threads[t] = new Thread() {
+            @Override
+            public void run() {
+               try {
+                  ClientProducer producer = session.createProducer(QUEUE);
+
+                  for (int i = 0; i < messages / producers; i++) {
+                     ClientMessage message = session.createMessage(false);
+                     message.getBodyBuffer().writeInt(i);
+
+                     producer.send(message);
+                  }
+               }
+               catch (Throwable e) {
+                  log.warn("failed to send", e);
+                  failure.compareAndSet(null, e);
+               }
+            }
+         };
+      }
+
+      long start = System.nanoTime();
+
+      for (Thread thread : threads) {
+         thread.start();
+      }
+      for (Thread thread : threads) {
+         thread.join();
+      }
+
+      assertNull(failure.get());
+      assertTrue(received.await(60, TimeUnit.SECONDS));
+      assertNull(failure.get());
+
+      long elapsed = System.nanoTime() - start;
+
+      log.info(messages + " messages from " + producers + " producers on a connection took " +
+                            (elapsed / 1000000) + " ms, " + (messages * 1000000000L / elapsed) + " messages per second");
+
+      for (ClientSession session : sessions) {
+         session.close();
+      }
+
+      consumerSession.close();
+   }
+}
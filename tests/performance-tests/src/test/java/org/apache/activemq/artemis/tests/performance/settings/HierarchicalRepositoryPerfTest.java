@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.tests.performance.settings;
+
+import org.apache.activemq.artemis.core.settings.impl.AddressSettings;
+import org.apache.activemq.artemis.core.settings.impl.HierarchicalObjectRepository;
+import org.apache.activemq.artemis.tests.util.ActiveMQTestBase;
+import org.junit.Test;
+
+/**
+ * Measures the address settings lookups of new addresses with 10k matches in the repository, and how many of the
+ * cached addresses a settings change costs.
+ */
+public class HierarchicalRepositoryPerfTest extends ActiveMQTestBase {
+
+   private static final int MATCHES = 10000;
+
+   private static final int ADDRESSES = 100000;
+
+   @Test
+   public void testTenThousandMatches() throws Exception {
+      HierarchicalObjectRepository<AddressSettings> repository = new HierarchicalObjectRepository<AddressSettings>();
+      repository.setDefault(new AddressSettings());
+
+      long start = System.nanoTime();
+      repository.addMatch("#", new AddressSettings());
+      for (int i = 0; i < MATCHES; i++) {
+         // a mix of the shapes found in configurations, one application per match
+         switch (i % 4) {
+            case 0:
+               repository.addMatch("app" + i + ".#", new AddressSettings());
+               break;
+            case 1:
+               repository.addMatch("app" + i + ".*.orders", new AddressSettings());
+               break;
+            case 2:
+               repository.addMatch("app" + i + ".queue.orders", new AddressSettings());
+               break;
+            default:
+               repository.addMatch("*.app" + i, new AddressSettings());
+         }
+      }
+      report("add of a match", MATCHES, start);
+
+      // every lookup is a miss, as for addresses created on the fly
+      start = System.nanoTime();
+      for (int i = 0; i < ADDRESSES; i++) {
+         repository.getMatch("app" + (i % MATCHES) + ".queue.orders." + i);
+      }
+      report("lookup of a new address", ADDRESSES, start);
+
+      start = System.nanoTime();
+      for (int i = 0; i < ADDRESSES; i++) {
+         repository.getMatch("app" + (i % MATCHES) + ".queue.orders." + i);
+      }
+      report("lookup of a cached address", ADDRESSES, start);
+
+      // changing the settings of one application only evicts its addresses
+      int cached = repository.getCacheSize();
+      start = System.nanoTime();
+      repository.addMatch("app0.queue.#", new AddressSettings());
+      report("change of a match", 1, start);
+
+      System.out.println("the change evicted " + (cached - repository.getCacheSize()) + " of " + cached +
+                            " cached addresses");
+   }
+
+   private static void report(final String operation, final int count, final long start) {
+      long elapsed = System.nanoTime() - start;
+      System.out.println(operation + " with " + MATCHES + " matches: " + count + " in " + (elapsed / 1000000) +
+                            " ms, " + (elapsed / count) + " ns each");
+   }
+}
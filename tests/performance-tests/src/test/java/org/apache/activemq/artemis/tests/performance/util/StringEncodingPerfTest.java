@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.tests.performance.util;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+
+import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
+import org.apache.activemq.artemis.api.core.ActiveMQBuffers;
+import org.apache.activemq.artemis.tests.util.ActiveMQTestBase;
+import org.junit.Test;
+
+/**
+ * Measures the time and the heap allocated to write and read a short property key, a 1KB JSON document and a 1MB
+ * body as UTF-8 and as strings, on heap and direct buffers.
+ */
+public class StringEncodingPerfTest extends ActiveMQTestBase {
+
+   private static final int WARMUP = 5;
+
+   private static final int ITERATIONS = 50;
+
+   @Test
+   public void testEncodeDecode() throws Exception {
+      StringBuilder json = new StringBuilder("{");
+      while (json.length() < 1024) {
+         json.append("\"key").append(json.length()).append("\":\"value\",");
+      }
+      json.setCharAt(json.length() - 1, '}');
+
+      StringBuilder body = new StringBuilder();
+      while (body.length() < 1024 * 1024) {
+         body.append("message body \u00e9\u20ac ");
+      }
+
+      report("short key", "JMSCorrelationID", 1000000);
+      report("1KB JSON", json.toString(), 100000);
+      report("1MB body", body.toString(), 100);
+   }
+
+   private static void report(final String name, final String value, final int operations) {
+      int size = 4 + 3 * value.length() + 2 * value.length();
+
+      ActiveMQBuffer heap = ActiveMQBuffers.fixedBuffer(size);
+      ActiveMQBuffer direct = ActiveMQBuffers.wrappedBuffer(ByteBuffer.allocateDirect(size));
+
+      for (int i = 0; i < WARMUP; i++) {
+         run(heap, value, operations);
+         run(direct, value, operations);
+      }
+
+      measure(name, "heap", heap, value, operations);
+      measure(name, "direct", direct, value, operations);
+   }
+
+   private static void measure(final String name,
+                               final String mode,
+                               final ActiveMQBuffer buffer,
+                               final String value,
+                               final int operations) {
+      long allocated = allocatedBytes();
+      long start = System.nanoTime();
+
+      for (int i = 0; i < ITERATIONS; i++) {
+         run(buffer, value, operations);
+      }
+
+      long elapsed = System.nanoTime() - start;
+      allocated = allocatedBytes() - allocated;
+
+      long total = (long) ITERATIONS * operations;
+
+      System.out.println(name + " on " + mode + " buffer took " + (elapsed / total) + " ns and " +
+                            (allocated / total) + " bytes allocated per write and read");
+   }
+
+   private static void run(final ActiveMQBuffer buffer, final String value, final int operations) {
+      boolean utf = value.length() <= 0xffff;
+
+      for (int i = 0; i < operations; i++) {
+         buffer.clear();
+
+         if (utf) {
+            buffer.writeUTF(value);
+         }
+         buffer.writeString(value);
+
+         if (utf) {
+            buffer.readUTF();
+         }
+         buffer.readString();
+      }
+   }
+
+   private static long allocatedBytes() {
+      com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+      return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+   }
+}
@@ -47,6 +47,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -753,6 +754,10 @@ public class LargeMessageBufferTest extends ActiveMQTestBase {
       public void handleMessage(ClientMessageInternal message) throws Exception {
       }
 
+      @Override
+      public void handleMessages(List<ClientMessageInternal> messages) throws Exception {
+      }
+
       @Override
       public void handleLargeMessage(ClientLargeMessageInternal clientLargeMessage,
                                      long largeMessageSize) throws Exception {
@@ -16,18 +16,29 @@
  */
 package org.apache.activemq.artemis.tests.unit.core.message.impl;
 
+import java.nio.ReadOnlyBufferException;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.util.ResourceLeakDetector;
 import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
+import org.apache.activemq.artemis.api.core.ActiveMQBuffers;
 import org.apache.activemq.artemis.api.core.Message;
 import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.buffers.impl.ChannelBufferWrapper;
 import org.apache.activemq.artemis.tests.util.ActiveMQTestBase;
 import org.apache.activemq.artemis.core.client.impl.ClientMessageImpl;
+import org.apache.activemq.artemis.core.protocol.core.impl.PacketImpl;
+import org.apache.activemq.artemis.core.protocol.core.impl.wireformat.SessionReceiveBatchMessage;
+import org.apache.activemq.artemis.core.protocol.core.impl.wireformat.SessionReceiveMessage;
 import org.apache.activemq.artemis.core.protocol.core.impl.wireformat.SessionSendMessage;
 import org.apache.activemq.artemis.core.server.impl.ServerMessageImpl;
 import org.apache.activemq.artemis.tests.util.RandomUtil;
+import org.apache.activemq.artemis.utils.DataConstants;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -327,6 +338,357 @@ public class MessageImplTest extends ActiveMQTestBase {
       Assert.assertEquals(0, errors.get());
    }
 
+   @Test
+   public void testSharedEncodedDeliveries() throws Exception {
+      ServerMessageImpl msg = new ServerMessageImpl(RandomUtil.randomLong(), 1024);
+      msg.setAddress(new SimpleString("address"));
+      msg.putStringProperty("key", "value");
+      msg.getBodyBuffer().writeString("body");
+
+      ActiveMQBuffer first = new SessionReceiveMessage(1, msg, 0).encode(null);
+      ActiveMQBuffer second = new SessionReceiveMessage(2, msg, 3).encode(null);
+
+      // changing the message after it was delivered doesn't change the deliveries waiting to be written
+      msg.putStringProperty("key", "changed");
+      ActiveMQBuffer third = new SessionReceiveMessage(3, msg, 0).encode(null);
+
+      assertDelivery(first, 1, 0, "value");
+      assertDelivery(second, 2, 3, "value");
+      assertDelivery(third, 3, 0, "changed");
+   }
+
+   @Test
+   public void testProtocolEncodingDroppedOnChange() throws Exception {
+      ServerMessageImpl msg = new ServerMessageImpl(RandomUtil.randomLong(), 1024);
+      msg.setAddress(new SimpleString("address"));
+
+      Object protocol = new Object();
+      Object otherProtocol = new Object();
+
+      msg.setProtocolEncoding(protocol, 0, "encoding");
+      msg.setProtocolEncoding(otherProtocol, 0, "other encoding");
+
+      Assert.assertEquals("encoding", msg.getProtocolEncoding(protocol, 0));
+      Assert.assertEquals("other encoding", msg.getProtocolEncoding(otherProtocol, 0));
+      Assert.assertNull(msg.getProtocolEncoding(protocol, 1));
+
+      msg.putStringProperty("key", "value");
+
+      Assert.assertNull(msg.getProtocolEncoding(protocol, 0));
+
+      msg.setProtocolEncoding(protocol, 0, "new encoding");
+
+      Assert.assertEquals("new encoding", msg.getProtocolEncoding(protocol, 0));
+      Assert.assertNull(msg.getProtocolEncoding(otherProtocol, 0));
+   }
+
+   @Test
+   public void testCopiesShareBufferUntilChanged() throws Exception {
+      ServerMessageImpl msg = new ServerMessageImpl(1, 1024);
+      msg.setAddress(new SimpleString("address"));
+      msg.putStringProperty("key", "value");
+      msg.getBodyBuffer().writeString("body");
+
+      // encoded before being copied, as when it was received
+      msg.encode(ActiveMQBuffers.dynamicBuffer(msg.getEncodeSize()));
+
+      ServerMessageImpl sameCopy = (ServerMessageImpl) msg.copy(2);
+      sameCopy.encodeMessageIDToBuffer();
+
+      ServerMessageImpl propertyCopy = (ServerMessageImpl) msg.copy(3);
+      propertyCopy.putStringProperty("key", "changed");
+
+      ServerMessageImpl bodyCopy = (ServerMessageImpl) msg.copy(4);
+      bodyCopy.getBodyBuffer().clear();
+      bodyCopy.getBodyBuffer().writeString("other body");
+
+      msg.putStringProperty("key", "original");
+
+      // the copies changed after being encoded share the body with copies of their own
+      propertyCopy.getSharedEncodedBuffer();
+
+      ServerMessageImpl copyOfCopy = (ServerMessageImpl) propertyCopy.copy(5);
+      copyOfCopy.putStringProperty("key", "copied again");
+
+      ServerMessageImpl bodyCopyOfCopy = (ServerMessageImpl) propertyCopy.copy(6);
+      bodyCopyOfCopy.getBodyBuffer().clear();
+      bodyCopyOfCopy.getBodyBuffer().writeString("last body");
+
+      assertEncoding(msg, 1, "original", "body");
+      assertEncoding(sameCopy, 2, "value", "body");
+      assertEncoding(propertyCopy, 3, "changed", "body");
+      assertEncoding(bodyCopy, 4, "value", "other body");
+      assertEncoding(copyOfCopy, 5, "copied again", "body");
+      assertEncoding(bodyCopyOfCopy, 6, "changed", "last body");
+
+      Assert.assertTrue(ChannelBufferWrapper.unwrap(sameCopy.getSharedEncodedBuffer().byteBuf()) instanceof CompositeByteBuf);
+      Assert.assertTrue(ChannelBufferWrapper.unwrap(propertyCopy.getSharedEncodedBuffer().byteBuf()) instanceof CompositeByteBuf);
+      Assert.assertTrue(ChannelBufferWrapper.unwrap(copyOfCopy.getSharedEncodedBuffer().byteBuf()) instanceof CompositeByteBuf);
+   }
+
+   @Test
+   public void testPooledBufferReleasedWithLastReference() throws Exception {
+      ResourceLeakDetector.Level level = ResourceLeakDetector.getLevel();
+
+      // any pooled buffer collected before being released is reported
+      ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.PARANOID);
+
+      try {
+         ServerMessageImpl msg = receivedMessage();
+         msg.usePooledBuffer();
+
+         msg.incrementRefCount();
+         msg.incrementRefCount();
+
+         ActiveMQBuffer delivery = new SessionReceiveMessage(1, msg, 0).encode(null);
+
+         ActiveMQBuffer shared = msg.getSharedEncodedBuffer();
+         ByteBuf pooled = ChannelBufferWrapper.unwrap(shared.byteBuf());
+
+         Assert.assertTrue(pooled.isDirect());
+         // the message, the delivery and the shared buffer
+         Assert.assertEquals(3, pooled.refCnt());
+
+         // the copies are on the heap
+         ServerMessageImpl copy = (ServerMessageImpl) msg.copy();
+         Assert.assertFalse(ChannelBufferWrapper.unwrap(copy.getSharedEncodedBuffer().byteBuf()).isDirect());
+
+         msg.decrementRefCount();
+         Assert.assertEquals(3, pooled.refCnt());
+
+         msg.decrementRefCount();
+         Assert.assertEquals(2, pooled.refCnt());
+
+         // the message is still read, on the heap, once its last reference is gone
+         Assert.assertNotNull(msg.toString());
+         Assert.assertFalse(ChannelBufferWrapper.unwrap(msg.getSharedEncodedBuffer().byteBuf()).isDirect());
+         assertEncoding((ServerMessageImpl) msg.copy(), 1, "value", "body");
+         Assert.assertEquals(2, pooled.refCnt());
+
+         // the delivery is written after the last reference is gone, and released once written
+         assertDelivery(delivery, 1, 0, "value");
+         delivery.byteBuf().release();
+
+         shared.byteBuf().release();
+
+         Assert.assertEquals(0, pooled.refCnt());
+
+         assertEncoding(copy, 1, "value", "body");
+         assertEncoding(msg, 1, "value", "body");
+         Assert.assertEquals("body", msg.getBodyBuffer().readString());
+      }
+      finally {
+         ResourceLeakDetector.setLevel(level);
+      }
+   }
+
+   @Test
+   public void testPooledBufferReleasedWithoutReference() throws Exception {
+      ServerMessageImpl msg = receivedMessage();
+      msg.usePooledBuffer();
+
+      ActiveMQBuffer shared = msg.getSharedEncodedBuffer();
+      ByteBuf pooled = ChannelBufferWrapper.unwrap(shared.byteBuf());
+      shared.byteBuf().release();
+
+      // as when it was paged
+      msg.releasePooledBuffer();
+
+      Assert.assertEquals(0, pooled.refCnt());
+      assertEncoding(msg, 1, "value", "body");
+
+      // the body is read on the heap
+      ServerMessageImpl other = receivedMessage();
+      other.usePooledBuffer();
+
+      pooled = ChannelBufferWrapper.unwrap(other.getSharedEncodedBuffer().byteBuf());
+      pooled.release();
+
+      Assert.assertEquals("body", other.getBodyBuffer().readString());
+      Assert.assertEquals(0, pooled.refCnt());
+
+      // changed after being given away, the message doesn't keep the pooled body once encoded again
+      ServerMessageImpl changed = receivedMessage();
+      changed.usePooledBuffer();
+
+      ActiveMQBuffer given = changed.getSharedEncodedBuffer();
+      pooled = ChannelBufferWrapper.unwrap(given.byteBuf());
+
+      changed.putStringProperty("key", "changed");
+      changed.getSharedEncodedBuffer();
+      changed.releasePooledBuffer();
+      given.byteBuf().release();
+
+      Assert.assertEquals(0, pooled.refCnt());
+      assertEncoding(changed, 1, "changed", "body");
+   }
+
+   @Test
+   public void testCompactHeaders() throws Exception {
+      ServerMessageImpl msg = new ServerMessageImpl(1, 1024);
+      msg.setAddress(new SimpleString("address"));
+      msg.setDurable(true);
+      msg.putStringProperty("key", "value");
+      msg.putStringProperty(Message.HDR_DUPLICATE_DETECTION_ID, new SimpleString("duplicate"));
+      msg.getBodyBuffer().writeString("body");
+
+      int standardSize = msg.getEncodeSize();
+
+      msg.setCompactHeaders(true);
+
+      Assert.assertTrue(msg.getSharedEncodedBuffer().readableBytes() < standardSize);
+      // what the consumer credits are taken for when it is delivered to a peer decoding the compact headers
+      Assert.assertEquals(msg.getSharedEncodedBuffer().readableBytes(), msg.getSharedEncodeSize());
+
+      // as in the journal, where it keeps the standard encoding
+      Assert.assertEquals(standardSize, msg.getEncodeSize());
+      assertEncoding(msg, 1, "value", "body");
+
+      // as when it was sent to the server
+      ServerMessageImpl received = new ServerMessageImpl();
+      received.decodeFromBuffer(msg.getEncodedBuffer());
+
+      Assert.assertTrue(received.isCompactHeaders());
+      Assert.assertTrue(received.isDurable());
+      Assert.assertEquals(msg.getPriority(), received.getPriority());
+      Assert.assertEquals(new SimpleString("duplicate"), received.getSimpleStringProperty(Message.HDR_DUPLICATE_DETECTION_ID));
+
+      // the message ID is still set in place on the copies
+      ServerMessageImpl copy = (ServerMessageImpl) received.copy(2);
+      copy.encodeMessageIDToBuffer();
+
+      assertEncoding(copy, 2, "value", "body");
+
+      // delivered in the standard encoding to the consumers that don't decode the compact one
+      ServerMessageImpl decoded = new ServerMessageImpl(0, 1024);
+      decoded.decode(received.getStandardEncodedBuffer());
+
+      Assert.assertFalse(decoded.isCompactHeaders());
+      Assert.assertEquals(standardSize, decoded.getEncodeSize());
+      Assert.assertEquals("value", decoded.getStringProperty("key"));
+
+      assertDelivery(new SessionReceiveMessage(1, received, 0).encode(null), 1, 0, "value");
+   }
+
+   @Test
+   public void testBatchedDelivery() throws Exception {
+      List<SessionReceiveMessage> deliveries = new ArrayList<SessionReceiveMessage>();
+
+      int expectedSize = PacketImpl.PACKET_HEADERS_SIZE + DataConstants.SIZE_INT;
+
+      for (int i = 0; i < 3; i++) {
+         SessionReceiveMessage delivery = new SessionReceiveMessage(i, receivedMessage(), i + 1);
+
+         expectedSize += delivery.getExpectedPacketSize(null);
+
+         deliveries.add(delivery);
+      }
+
+      SessionReceiveBatchMessage batch = new SessionReceiveBatchMessage(deliveries);
+      batch.setChannelID(10);
+
+      ActiveMQBuffer buffer = batch.encode(null);
+
+      Assert.assertEquals(expectedSize, batch.getPacketSize());
+      Assert.assertEquals(buffer.readableBytes() - 4, buffer.readInt());
+      Assert.assertEquals(PacketImpl.SESS_RECEIVE_BATCH, buffer.readByte());
+
+      SessionReceiveBatchMessage decoded = new SessionReceiveBatchMessage();
+      decoded.decode(buffer);
+
+      Assert.assertEquals(10, decoded.getChannelID());
+      Assert.assertEquals(expectedSize, decoded.getPacketSize());
+      Assert.assertEquals(3, decoded.getDeliveries().size());
+
+      for (int i = 0; i < 3; i++) {
+         SessionReceiveMessage delivery = decoded.getDeliveries().get(i);
+
+         // each delivery keeps the size it would have on its own for the flow control
+         Assert.assertEquals(deliveries.get(i).getPacketSize(), delivery.getPacketSize());
+         Assert.assertEquals(i, delivery.getConsumerID());
+         Assert.assertEquals(i + 1, delivery.getDeliveryCount());
+         Assert.assertEquals("value", delivery.getMessage().getStringProperty("key"));
+         Assert.assertEquals("body", delivery.getMessage().getBodyBuffer().readString());
+      }
+   }
+
+   @Test
+   public void testReadOnlyBodyBuffer() throws Exception {
+      ActiveMQBuffer buffer = new SessionReceiveMessage(1, receivedMessage(), 0).encode(null);
+      buffer.readInt();
+      buffer.readByte();
+
+      SessionReceiveMessage packet = new SessionReceiveMessage(new ClientMessageImpl());
+      packet.decode(buffer);
+
+      ClientMessageImpl received = (ClientMessageImpl) packet.getMessage();
+
+      ActiveMQBuffer view = received.getReadOnlyBodyBuffer();
+
+      Assert.assertEquals(received.getBodySize(), view.readableBytes());
+      Assert.assertTrue(view.toByteBuffer().isReadOnly());
+      Assert.assertEquals("body", view.readString());
+
+      // the body buffer is left as it was
+      Assert.assertEquals("body", received.getBodyBuffer().readString());
+
+      try {
+         view.setByte(0, (byte) 0);
+         Assert.fail("the view should be read-only");
+      }
+      catch (ReadOnlyBufferException expected) {
+      }
+   }
+
+   private ServerMessageImpl receivedMessage() {
+      ServerMessageImpl msg = new ServerMessageImpl(1, 1024);
+      msg.setAddress(new SimpleString("address"));
+      msg.putStringProperty("key", "value");
+      msg.getBodyBuffer().writeString("body");
+
+      // decoded without its body being read, as when it was sent to the server
+      ServerMessageImpl received = new ServerMessageImpl();
+      received.decodeFromBuffer(msg.getEncodedBuffer());
+
+      return received;
+   }
+
+   private void assertEncoding(final ServerMessageImpl message,
+                               final long messageID,
+                               final String property,
+                               final String body) {
+      ActiveMQBuffer buffer = ActiveMQBuffers.dynamicBuffer(message.getEncodeSize());
+      message.encode(buffer);
+
+      Assert.assertEquals(message.getEncodeSize(), buffer.writerIndex());
+
+      ServerMessageImpl decoded = new ServerMessageImpl(0, 1024);
+      decoded.decode(buffer);
+
+      Assert.assertFalse(decoded.isCompactHeaders());
+      Assert.assertEquals(messageID, decoded.getMessageID());
+      Assert.assertEquals(new SimpleString("address"), decoded.getAddress());
+      Assert.assertEquals(property, decoded.getStringProperty("key"));
+      Assert.assertEquals(body, decoded.getBodyBuffer().readString());
+   }
+
+   private void assertDelivery(final ActiveMQBuffer buffer,
+                               final long consumerID,
+                               final int deliveryCount,
+                               final String property) {
+      Assert.assertEquals(buffer.readableBytes() - 4, buffer.readInt());
+      Assert.assertEquals(SessionReceiveMessage.SESS_RECEIVE_MSG, buffer.readByte());
+
+      SessionReceiveMessage packet = new SessionReceiveMessage(new ClientMessageImpl());
+      packet.decode(buffer);
+
+      Assert.assertEquals(consumerID, packet.getConsumerID());
+      Assert.assertEquals(deliveryCount, packet.getDeliveryCount());
+      Assert.assertEquals(new SimpleString("address"), packet.getMessage().getAddress());
+      Assert.assertEquals(property, packet.getMessage().getStringProperty("key"));
+      Assert.assertEquals("body", packet.getMessage().getBodyBuffer().readString());
+   }
+
    private void simulateRead(ActiveMQBuffer buf) {
       buf.setIndex(buf.capacity() / 2, buf.capacity() / 2);
 
@@ -18,6 +18,11 @@ package org.apache.activemq.artemis.tests.unit.core.persistence.impl;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
 import org.apache.activemq.artemis.api.core.ActiveMQBuffers;
@@ -31,6 +36,7 @@ import org.apache.activemq.artemis.core.persistence.StorageManager;
 import org.apache.activemq.artemis.core.persistence.impl.journal.BatchingIDGenerator;
 import org.apache.activemq.artemis.core.persistence.impl.journal.JournalRecordIds;
 import org.apache.activemq.artemis.core.persistence.impl.nullpm.NullStorageManager;
+import org.apache.activemq.artemis.utils.IDGenerator;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -113,6 +119,69 @@ public class BatchIDGeneratorUnitTest extends ActiveMQTestBase {
 
    }
 
+   @Test
+   public void testConcurrentSequences() throws Exception {
+      NIOSequentialFileFactory factory = new NIOSequentialFileFactory(new File(getTestDir()), 1);
+      Journal journal = new JournalImpl(10 * 1024, 2, 0, 0, factory, "activemq-bindings", "bindings", 1);
+
+      journal.start();
+
+      journal.load(new ArrayList<RecordInfo>(), new ArrayList<PreparedTransactionInfo>(), null);
+
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+
+      final BatchingIDGenerator batch = new BatchingIDGenerator(0, 1000, 10, getJournalStorageManager(journal), executor);
+
+      final int threadCount = 16;
+      final long[][] ids = new long[threadCount][10000];
+
+      Thread[] threads = new Thread[threadCount];
+      for (int t = 0; t < threadCount; t++) {
+         final long[] threadIDs = ids[t];
+         // every other thread takes its IDs from the shared counter
+         final IDGenerator generator = t % 2 == 0 ? batch.newSequence() : batch;
+         threads[t] = new Thread() {
+            @Override
+            public void run() {
+               for (int i = 0; i < threadIDs.length; i++) {
+                  threadIDs[i] = generator.generateID();
+               }
+            }
+         };
+      }
+
+      for (Thread thread : threads) {
+         thread.start();
+      }
+      for (Thread thread : threads) {
+         thread.join();
+      }
+
+      executor.shutdown();
+      Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+      Set<Long> generated = new HashSet<Long>();
+      long maxID = 0;
+      for (long[] threadIDs : ids) {
+         for (int i = 0; i < threadIDs.length; i++) {
+            long id = threadIDs[i];
+            Assert.assertTrue("Duplicated ID " + id, generated.add(id));
+            // the IDs of each caller are increasing
+            Assert.assertTrue(i == 0 || id > threadIDs[i - 1]);
+            maxID = Math.max(maxID, id);
+         }
+      }
+
+      // simulating a crash, the checkpoints have to cover all the IDs given
+      journal.stop();
+      BatchingIDGenerator reloaded = new BatchingIDGenerator(0, 1000, getJournalStorageManager(journal));
+      loadIDs(journal, reloaded);
+
+      Assert.assertTrue(reloaded.generateID() > maxID);
+
+      journal.stop();
+   }
+
    protected void loadIDs(final Journal journal, final BatchingIDGenerator batch) throws Exception {
       ArrayList<RecordInfo> records = new ArrayList<RecordInfo>();
       ArrayList<PreparedTransactionInfo> tx = new ArrayList<PreparedTransactionInfo>();
@@ -24,6 +24,7 @@ import org.junit.Assert;
 import org.apache.activemq.artemis.api.core.SimpleString;
 import org.apache.activemq.artemis.core.postoffice.Address;
 import org.apache.activemq.artemis.core.postoffice.impl.AddressImpl;
+import org.apache.activemq.artemis.core.postoffice.impl.AddressTree;
 
 public class AddressImplTest extends ActiveMQTestBase {
 
@@ -276,4 +277,30 @@ public class AddressImplTest extends ActiveMQTestBase {
       Assert.assertFalse(a1.matches(w));
    }
 
+   @Test
+   public void testAnyWordsMidPattern() {
+      Address w = new AddressImpl(new SimpleString("a.#.c"));
+      Assert.assertTrue(new AddressImpl(new SimpleString("a.c")).matches(w));
+      Assert.assertTrue(new AddressImpl(new SimpleString("a.b.c")).matches(w));
+      Assert.assertTrue(new AddressImpl(new SimpleString("a.b.c.c")).matches(w));
+      Assert.assertTrue(new AddressImpl(new SimpleString("a.b.x.c")).matches(w));
+      Assert.assertFalse(new AddressImpl(new SimpleString("a.b")).matches(w));
+      Assert.assertFalse(new AddressImpl(new SimpleString("a.c.d")).matches(w));
+      Assert.assertFalse(new AddressImpl(new SimpleString("b.a.c")).matches(w));
+   }
+
+   @Test
+   public void testAnyWordsMidPatternMatchesAsTree() {
+      Address w = new AddressImpl(new SimpleString("a.#.*.c.#"));
+      AddressTree tree = new AddressTree();
+      tree.put(w);
+
+      String[] addresses = {"a.c", "a.b.c", "a.b.c.d", "a.x.y.c", "a.c.c", "b.c", "a.b.d"};
+
+      for (String address : addresses) {
+         Address a = new AddressImpl(new SimpleString(address));
+         Assert.assertEquals(address, tree.getWildcardsMatching(a).contains(w), a.matches(w));
+      }
+   }
+
 }
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.tests.unit.core.postoffice.impl;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.postoffice.Address;
+import org.apache.activemq.artemis.core.postoffice.impl.AddressImpl;
+import org.apache.activemq.artemis.core.postoffice.impl.AddressTree;
+import org.apache.activemq.artemis.tests.util.ActiveMQTestBase;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AddressTreeTest extends ActiveMQTestBase {
+
+   @Test
+   public void testWildcardsMatchingAddress() {
+      AddressTree tree = tree("a.*", "a.#", "#", "a.*.c", "*.b.#", "x.y", "a.b.c.*");
+
+      Assert.assertEquals(addresses("a.#", "#", "a.*.c", "*.b.#"), tree.getWildcardsMatching(address("a.b.c")));
+      Assert.assertEquals(addresses("a.*", "a.#", "#", "*.b.#"), tree.getWildcardsMatching(address("a.b")));
+      Assert.assertEquals(addresses("a.#", "#"), tree.getWildcardsMatching(address("a")));
+      Assert.assertEquals(addresses("#"), tree.getWildcardsMatching(address("z")));
+   }
+
+   @Test
+   public void testAddressesMatchingWildcard() {
+      AddressTree tree = tree("a", "a.b", "a.c", "a.b.c", "b.a", "a.b.c.d");
+
+      Assert.assertEquals(addresses("a.b", "a.c"), tree.getAddressesMatching(address("a.*")));
+      Assert.assertEquals(addresses("a", "a.b", "a.c", "a.b.c", "a.b.c.d"), tree.getAddressesMatching(address("a.#")));
+      Assert.assertEquals(addresses("a.c", "a.b.c", "a.b.c.d"), tree.getAddressesMatching(address("a.#.c.#")));
+      Assert.assertEquals(addresses("a.b", "a.c", "b.a"), tree.getAddressesMatching(address("*.*")));
+      Assert.assertEquals(addresses("a.b.c.d"), tree.getAddressesMatching(address("#.d")));
+      Assert.assertEquals(addresses(), tree.getAddressesMatching(address("c.*")));
+   }
+
+   @Test
+   public void testRemove() {
+      AddressTree tree = tree("a.b", "a.b.c");
+      Assert.assertEquals(2, tree.size());
+
+      tree.remove(address("a.b"));
+      Assert.assertEquals(1, tree.size());
+      Assert.assertEquals(addresses("a.b.c"), tree.getAddressesMatching(address("a.#")));
+
+      tree.remove(address("a.b.c"));
+      Assert.assertTrue(tree.isEmpty());
+      Assert.assertEquals(addresses(), tree.getAddressesMatching(address("#")));
+
+      tree.put(address("a.b"));
+      Assert.assertEquals(addresses("a.b"), tree.getAddressesMatching(address("#")));
+   }
+
+   @Test
+   public void testAgreesWithAddressImpl() {
+      String[] plain = {"a", "a.b", "a.b.c", "b.c", "a.c.b", "x.y.z"};
+      String[] wildcards = {"*", "#", "a.*", "a.#", "*.c", "#.c", "a.*.c", "*.*.*", "b.#", "x.#.z"};
+
+      AddressTree plainTree = tree(plain);
+      AddressTree wildcardTree = tree(wildcards);
+
+      for (String w : wildcards) {
+         Set<Address> expected = new HashSet<Address>();
+         for (String p : plain) {
+            if (address(p).matches(address(w))) {
+               expected.add(address(p));
+            }
+         }
+         Assert.assertEquals(w, expected, plainTree.getAddressesMatching(address(w)));
+      }
+
+      for (String p : plain) {
+         Set<Address> expected = new HashSet<Address>();
+         for (String w : wildcards) {
+            if (address(p).matches(address(w))) {
+               expected.add(address(w));
+            }
+         }
+         Assert.assertEquals(p, expected, wildcardTree.getWildcardsMatching(address(p)));
+      }
+   }
+
+   private static AddressTree tree(final String... addresses) {
+      AddressTree tree = new AddressTree();
+      for (String address : addresses) {
+         tree.put(address(address));
+      }
+      return tree;
+   }
+
+   private static Set<Address> addresses(final String... addresses) {
+      Set<Address> set = new HashSet<Address>();
+      for (String address : addresses) {
+         set.add(address(address));
+      }
+      return set;
+   }
+
+   private static Address address(final String address) {
+      return new AddressImpl(new SimpleString(address));
+   }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.tests.unit.core.postoffice.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.activemq.artemis.api.core.Pair;
+import org.apache.activemq.artemis.core.postoffice.impl.DuplicateIDTable;
+import org.apache.activemq.artemis.tests.util.ActiveMQTestBase;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DuplicateIDTableTest extends ActiveMQTestBase {
+
+   @Test
+   public void testEvictsOldest() {
+      DuplicateIDTable table = new DuplicateIDTable(3);
+
+      Assert.assertEquals(-1, table.add(id(1), 10));
+      Assert.assertEquals(-1, table.add(id(2), 20));
+      Assert.assertEquals(-1, table.add(id(3), 30));
+      Assert.assertEquals(10, table.add(id(4), 40));
+
+      Assert.assertFalse(table.contains(id(1)));
+      Assert.assertTrue(table.contains(id(2)));
+      Assert.assertTrue(table.contains(id(4)));
+      Assert.assertEquals(3, table.size());
+
+      List<Pair<byte[], Long>> entries = table.getEntries();
+      Assert.assertEquals(3, entries.size());
+      Assert.assertArrayEquals(id(2), entries.get(0).getA());
+      Assert.assertEquals(Long.valueOf(20), entries.get(0).getB());
+      Assert.assertArrayEquals(id(4), entries.get(2).getA());
+   }
+
+   @Test
+   public void testRemove() {
+      DuplicateIDTable table = new DuplicateIDTable(3);
+
+      table.add(id(1), 10);
+      table.add(id(2), 20);
+
+      Assert.assertEquals(10, table.remove(id(1)));
+      Assert.assertEquals(-1, table.remove(id(1)));
+      Assert.assertFalse(table.contains(id(1)));
+      Assert.assertTrue(table.contains(id(2)));
+
+      table.add(id(3), 30);
+
+      // the removed slot is the oldest one, nothing to evict
+      Assert.assertEquals(-1, table.add(id(4), 40));
+      Assert.assertEquals(20, table.add(id(5), 50));
+      Assert.assertEquals(3, table.size());
+   }
+
+   @Test
+   public void testAgreesWithRing() {
+      final int capacity = 5000;
+
+      DuplicateIDTable table = new DuplicateIDTable(capacity);
+
+      Random random = new Random(1);
+
+      List<byte[]> added = new ArrayList<byte[]>();
+
+      for (int i = 0; i < capacity * 5; i++) {
+         // ids of varied length make the log wrap at different offsets
+         byte[] id = new byte[8 + random.nextInt(80)];
+         random.nextBytes(id);
+
+         long evicted = table.add(id, i);
+         added.add(id);
+
+         Assert.assertEquals(i < capacity ? -1 : i - capacity, evicted);
+      }
+
+      Assert.assertEquals(capacity, table.size());
+
+      for (int i = 0; i < added.size(); i++) {
+         Assert.assertEquals(i >= added.size() - capacity, table.contains(added.get(i)));
+      }
+
+      Assert.assertTrue(table.getMemorySize() > 0);
+   }
+
+   @Test
+   public void testFilter() {
+      final int capacity = 10000;
+
+      DuplicateIDTable table = new DuplicateIDTable(capacity, 0.01);
+
+      for (int i = 0; i < capacity * 2; i++) {
+         table.add(id(i), i);
+      }
+
+      table.remove(id(capacity * 2 - 1));
+
+      int falsePositives = 0;
+
+      for (int i = 0; i < capacity * 2; i++) {
+         if (i >= capacity && i < capacity * 2 - 1) {
+            Assert.assertTrue(table.mightContain(id(i)));
+         }
+         else if (table.mightContain(id(i))) {
+            falsePositives++;
+         }
+      }
+
+      // the evicted and removed ids are let through close to the configured rate
+      Assert.assertTrue("false positives " + falsePositives, falsePositives < capacity / 20);
+   }
+
+   private static byte[] id(final int i) {
+      return ("id-" + i).getBytes();
+   }
+}
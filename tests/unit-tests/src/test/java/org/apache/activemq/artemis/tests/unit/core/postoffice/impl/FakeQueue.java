@@ -30,6 +30,7 @@ import org.apache.activemq.artemis.core.server.Queue;
 import org.apache.activemq.artemis.core.server.RoutingContext;
 import org.apache.activemq.artemis.core.server.ServerMessage;
 import org.apache.activemq.artemis.core.transaction.Transaction;
+import org.apache.activemq.artemis.utils.LatencyHistogram;
 import org.apache.activemq.artemis.utils.LinkedListIterator;
 import org.apache.activemq.artemis.utils.ReferenceCounter;
 
@@ -545,4 +546,18 @@ public class FakeQueue implements Queue {
    public SimpleString getUser() {
       return null;
    }
+
+   @Override
+   public LatencyHistogram getDwellLatency() {
+      return null;
+   }
+
+   @Override
+   public LatencyHistogram getAckLatency() {
+      return null;
+   }
+
+   @Override
+   public void recordAckLatency(final long nanos) {
+   }
 }
\ No newline at end of file
@@ -32,6 +32,7 @@ import org.apache.activemq.artemis.core.server.Bindable;
 import org.apache.activemq.artemis.core.server.Queue;
 import org.apache.activemq.artemis.core.server.RoutingContext;
 import org.apache.activemq.artemis.core.server.ServerMessage;
+import org.apache.activemq.artemis.utils.LatencyHistogram;
 import org.junit.Test;
 
 /**
@@ -215,6 +216,15 @@ public class WildcardAddressManagerUnitTest extends ActiveMQTestBase {
       public void route(ServerMessage message, RoutingContext context) throws Exception {
          System.out.println("routing message: " + message);
       }
+
+      @Override
+      public LatencyHistogram getRouteLatency() {
+         return null;
+      }
+
+      @Override
+      public void recordRouteLatency(final long nanos) {
+      }
    }
 
 }
@@ -108,4 +108,47 @@ public class NettyAcceptorTest extends ActiveMQTestBase {
       pool2.awaitTermination(1, TimeUnit.SECONDS);
    }
 
+   @Test
+   public void testStartStopWithEpoll() throws Exception {
+      BufferHandler handler = new BufferHandler() {
+
+         public void bufferReceived(final Object connectionID, final ActiveMQBuffer buffer) {
+         }
+      };
+
+      Map<String, Object> params = new HashMap<String, Object>();
+      // falls back to NIO where epoll isn't available
+      params.put(TransportConstants.USE_EPOLL_PROP_NAME, true);
+      params.put(TransportConstants.REUSE_PORT_PROPNAME, true);
+      ConnectionLifeCycleListener listener = new ConnectionLifeCycleListener() {
+
+         public void connectionException(final Object connectionID, final ActiveMQException me) {
+         }
+
+         public void connectionDestroyed(final Object connectionID) {
+         }
+
+         public void connectionCreated(final ActiveMQComponent component,
+                                       final Connection connection,
+                                       final String protocol) {
+         }
+
+         public void connectionReadyForWrites(Object connectionID, boolean ready) {
+         }
+      };
+      pool2 = Executors.newScheduledThreadPool(ActiveMQDefaultConfiguration.getDefaultScheduledThreadPoolMaxSize());
+      NettyAcceptor acceptor = new NettyAcceptor("netty", null, params, handler, listener, pool2, null);
+
+      addActiveMQComponent(acceptor);
+      acceptor.start();
+      Assert.assertTrue(acceptor.isStarted());
+      acceptor.stop();
+      Assert.assertFalse(acceptor.isStarted());
+      ActiveMQTestBase.checkFreePort(TransportConstants.DEFAULT_PORT);
+
+      pool2.shutdown();
+
+      pool2.awaitTermination(1, TimeUnit.SECONDS);
+   }
+
 }
@@ -19,9 +19,13 @@ package org.apache.activemq.artemis.tests.unit.core.remoting.impl.netty;
 import java.nio.ByteBuffer;
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
 import io.netty.channel.embedded.EmbeddedChannel;
 import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
 import org.apache.activemq.artemis.api.core.ActiveMQBuffers;
@@ -41,7 +45,7 @@ public class NettyConnectionTest extends ActiveMQTestBase {
    @Test
    public void testGetID() throws Exception {
       Channel channel = createChannel();
-      NettyConnection conn = new NettyConnection(emptyMap, channel, new MyListener(), false, false);
+      NettyConnection conn = new NettyConnection(emptyMap, channel, new MyListener(), false);
 
       Assert.assertEquals(channel.hashCode(), conn.getID());
    }
@@ -53,16 +57,74 @@ public class NettyConnectionTest extends ActiveMQTestBase {
 
       Assert.assertEquals(0, channel.outboundMessages().size());
 
-      NettyConnection conn = new NettyConnection(emptyMap, channel, new MyListener(), false, false);
+      NettyConnection conn = new NettyConnection(emptyMap, channel, new MyListener(), false);
       conn.write(buff);
       channel.runPendingTasks();
       Assert.assertEquals(1, channel.outboundMessages().size());
    }
 
+   @Test
+   public void testWritesFlushedTogether() throws Exception {
+      final AtomicInteger flushes = new AtomicInteger();
+      EmbeddedChannel channel = new EmbeddedChannel(new ChannelOutboundHandlerAdapter() {
+         @Override
+         public void flush(final ChannelHandlerContext ctx) throws Exception {
+            flushes.incrementAndGet();
+            super.flush(ctx);
+         }
+      });
+      channel.runPendingTasks();
+      int initialFlushes = flushes.get();
+
+      NettyConnection conn = new NettyConnection(emptyMap, channel, new MyListener(), false);
+
+      for (int i = 0; i < 3; i++) {
+         ActiveMQBuffer buff = ActiveMQBuffers.fixedBuffer(4);
+         buff.writeInt(i);
+         conn.write(buff);
+      }
+
+      // nothing is written before the event loop runs
+      Assert.assertEquals(0, channel.outboundMessages().size());
+
+      channel.runPendingTasks();
+
+      Assert.assertEquals(initialFlushes + 1, flushes.get());
+      Assert.assertEquals(3, channel.outboundMessages().size());
+      for (int i = 0; i < 3; i++) {
+         Assert.assertEquals(i, ((ByteBuf) channel.readOutbound()).readInt());
+      }
+
+      // a write once the event loop is done is flushed on its own
+      conn.write(ActiveMQBuffers.wrappedBuffer(ByteBuffer.allocate(128)));
+      channel.runPendingTasks();
+
+      Assert.assertEquals(initialFlushes + 2, flushes.get());
+      Assert.assertEquals(1, channel.outboundMessages().size());
+   }
+
+   @Test
+   public void testWriteBeforeClose() throws Exception {
+      EmbeddedChannel channel = createChannel();
+
+      NettyConnection conn = new NettyConnection(emptyMap, channel, new MyListener(), false);
+
+      ActiveMQBuffer buff = ActiveMQBuffers.fixedBuffer(4);
+      buff.writeInt(10);
+      conn.write(buff);
+      conn.close();
+
+      channel.runPendingTasks();
+
+      Assert.assertFalse(channel.isOpen());
+      Assert.assertEquals(1, channel.outboundMessages().size());
+      Assert.assertEquals(10, ((ByteBuf) channel.readOutbound()).readInt());
+   }
+
    @Test
    public void testCreateBuffer() throws Exception {
       EmbeddedChannel channel = createChannel();
-      NettyConnection conn = new NettyConnection(emptyMap, channel, new MyListener(), false, false);
+      NettyConnection conn = new NettyConnection(emptyMap, channel, new MyListener(), false);
 
       final int size = 1234;
 
@@ -67,6 +67,44 @@ public class NettyConnectorTest extends ActiveMQTestBase {
       Assert.assertFalse(connector.isStarted());
    }
 
+   @Test
+   public void testStartStopWithEpoll() throws Exception {
+      BufferHandler handler = new BufferHandler() {
+         public void bufferReceived(final Object connectionID, final ActiveMQBuffer buffer) {
+         }
+      };
+      Map<String, Object> params = new HashMap<String, Object>();
+      // falls back to NIO where epoll isn't available
+      params.put(TransportConstants.USE_EPOLL_PROP_NAME, true);
+      params.put(TransportConstants.TCP_CORK_PROPNAME, true);
+      ConnectionLifeCycleListener listener = new ConnectionLifeCycleListener() {
+         public void connectionException(final Object connectionID, final ActiveMQException me) {
+         }
+
+         public void connectionDestroyed(final Object connectionID) {
+         }
+
+         public void connectionCreated(final ActiveMQComponent component,
+                                       final Connection connection,
+                                       final String protocol) {
+         }
+
+         public void connectionReadyForWrites(Object connectionID, boolean ready) {
+         }
+      };
+
+      for (boolean globalPool : new boolean[]{true, false}) {
+         params.put(TransportConstants.USE_NIO_GLOBAL_WORKER_POOL_PROP_NAME, globalPool);
+
+         NettyConnector connector = new NettyConnector(params, handler, listener, Executors.newCachedThreadPool(), Executors.newCachedThreadPool(), Executors.newScheduledThreadPool(5));
+
+         connector.start();
+         Assert.assertTrue(connector.isStarted());
+         connector.close();
+         Assert.assertFalse(connector.isStarted());
+      }
+   }
+
    @Test
    public void testNullParams() throws Exception {
       BufferHandler handler = new BufferHandler() {
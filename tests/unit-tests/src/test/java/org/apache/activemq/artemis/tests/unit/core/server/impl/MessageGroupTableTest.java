@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.tests.unit.core.server.impl;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.server.Consumer;
+import org.apache.activemq.artemis.core.server.impl.MessageGroupTable;
+import org.apache.activemq.artemis.core.server.impl.ServerMessageImpl;
+import org.apache.activemq.artemis.tests.unit.core.server.impl.fakes.FakeConsumer;
+import org.apache.activemq.artemis.tests.util.ActiveMQTestBase;
+import org.junit.Test;
+
+public class MessageGroupTableTest extends ActiveMQTestBase {
+
+   @Test
+   public void testMaxSizeEvictsLeastRecentlyUsed() {
+      MessageGroupTable table = new MessageGroupTable(2, -1, false);
+      Consumer consumer = new FakeConsumer();
+
+      table.put(new SimpleString("g1"), consumer);
+      table.put(new SimpleString("g2"), consumer);
+      assertEquals(consumer, table.get(new SimpleString("g1")));
+      table.put(new SimpleString("g3"), consumer);
+
+      assertEquals(2, table.size());
+      assertEquals(consumer, table.get(new SimpleString("g1")));
+      assertNull(table.get(new SimpleString("g2")));
+      assertEquals(consumer, table.get(new SimpleString("g3")));
+   }
+
+   @Test
+   public void testIdleGroupsExpire() throws Exception {
+      MessageGroupTable table = new MessageGroupTable(-1, 100, false);
+      Consumer consumer = new FakeConsumer();
+
+      table.put(new SimpleString("g1"), consumer);
+      assertEquals(consumer, table.get(new SimpleString("g1")));
+
+      Thread.sleep(200);
+
+      assertNull(table.get(new SimpleString("g1")));
+      assertEquals(0, table.size());
+   }
+
+   @Test
+   public void testRemoveConsumerReleasesItsGroups() {
+      MessageGroupTable table = new MessageGroupTable();
+      Consumer consumer1 = new FakeConsumer();
+      Consumer consumer2 = new FakeConsumer();
+
+      table.put(new SimpleString("g1"), consumer1);
+      table.put(new SimpleString("g2"), consumer2);
+      table.removeConsumer(consumer1);
+
+      assertNull(table.get(new SimpleString("g1")));
+      assertEquals(consumer2, table.get(new SimpleString("g2")));
+   }
+
+   @Test
+   public void testRebalanceOnlyMovesGroupsOfNewConsumer() {
+      final int groupCount = 10000;
+      MessageGroupTable table = new MessageGroupTable(-1, -1, true);
+      ServerMessageImpl message = new ServerMessageImpl(1, 50);
+
+      Consumer[] consumers = new Consumer[]{new FakeConsumer(), new FakeConsumer(), new FakeConsumer()};
+      for (Consumer consumer : consumers) {
+         table.addConsumer(consumer);
+      }
+
+      Map<SimpleString, Consumer> assigned = new HashMap<SimpleString, Consumer>();
+      for (int i = 0; i < groupCount; i++) {
+         SimpleString groupID = new SimpleString("group-" + i);
+         Consumer consumer = table.select(groupID, message);
+         assertNotNull(consumer);
+         table.put(groupID, consumer);
+         assigned.put(groupID, consumer);
+      }
+
+      Consumer newConsumer = new FakeConsumer();
+      table.addConsumer(newConsumer);
+
+      int moved = 0;
+      for (Map.Entry<SimpleString, Consumer> entry : assigned.entrySet()) {
+         Consumer current = table.get(entry.getKey());
+         if (current == null) {
+            moved++;
+            assertEquals(newConsumer, table.select(entry.getKey(), message));
+         }
+         else {
+            assertEquals(entry.getValue(), current);
+         }
+      }
+
+      // a quarter of the groups is expected to move, allow for the hashing spread
+      assertTrue("moved " + moved, moved > groupCount / 8 && moved < groupCount / 2);
+   }
+}
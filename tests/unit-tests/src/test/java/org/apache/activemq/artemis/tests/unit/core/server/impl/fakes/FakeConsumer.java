@@ -132,6 +132,11 @@ public class FakeConsumer implements Consumer {
       // no op
    }
 
+   @Override
+   public void afterDeliver() {
+      // no op
+   }
+
    @Override
    public String toManagementString() {
       return toString();
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.tests.unit.jms.client;
+
+import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.client.impl.ClientMessageImpl;
+import org.apache.activemq.artemis.core.protocol.core.impl.wireformat.SessionReceiveMessage;
+import org.apache.activemq.artemis.jms.client.ActiveMQTextMessage;
+import org.apache.activemq.artemis.reader.TextMessageUtil;
+import org.apache.activemq.artemis.tests.util.ActiveMQTestBase;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ActiveMQTextMessageTest extends ActiveMQTestBase {
+
+   @Test
+   public void testReceivedText() throws Exception {
+      ActiveMQTextMessage message = new ActiveMQTextMessage(receivedMessage("text é€"), null);
+      message.doBeforeReceive();
+
+      Assert.assertTrue(message.isBodyAssignableTo(String.class));
+      Assert.assertFalse(message.isBodyAssignableTo(Integer.class));
+      Assert.assertEquals("text é€", message.getText());
+      Assert.assertEquals("text é€", message.getBody(String.class));
+   }
+
+   @Test
+   public void testReceivedNullText() throws Exception {
+      ActiveMQTextMessage message = new ActiveMQTextMessage(receivedMessage(null), null);
+      message.doBeforeReceive();
+
+      Assert.assertTrue(message.isBodyAssignableTo(Integer.class));
+      Assert.assertNull(message.getText());
+   }
+
+   @Test
+   public void testClearBodyOfReceivedText() throws Exception {
+      ActiveMQTextMessage message = new ActiveMQTextMessage(receivedMessage("text"), null);
+      message.doBeforeReceive();
+
+      message.clearBody();
+
+      Assert.assertNull(message.getText());
+
+      message.setText("other");
+
+      Assert.assertEquals("other", message.getText());
+   }
+
+   private static ClientMessageImpl receivedMessage(final String text) {
+      ClientMessageImpl sent = new ClientMessageImpl(ActiveMQTextMessage.TYPE, false, 0, System.currentTimeMillis(), (byte) 4, 1024);
+      TextMessageUtil.writeBodyText(sent.getBodyBuffer(), text == null ? null : new SimpleString(text));
+
+      ActiveMQBuffer buffer = new SessionReceiveMessage(1, sent, 0).encode(null);
+      buffer.readInt();
+      buffer.readByte();
+
+      SessionReceiveMessage packet = new SessionReceiveMessage(new ClientMessageImpl());
+      packet.decode(buffer);
+
+      return (ClientMessageImpl) packet.getMessage();
+   }
+}
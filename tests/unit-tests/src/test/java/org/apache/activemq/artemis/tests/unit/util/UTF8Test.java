@@ -18,6 +18,7 @@ package org.apache.activemq.artemis.tests.unit.util;
 
 import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
 import org.apache.activemq.artemis.api.core.ActiveMQBuffers;
+import org.apache.activemq.artemis.api.core.SimpleString;
 import org.apache.activemq.artemis.tests.util.ActiveMQTestBase;
 import org.junit.After;
 
@@ -98,6 +99,59 @@ public class UTF8Test extends ActiveMQTestBase {
       Assert.assertEquals(str, newStr);
    }
 
+   @Test
+   public void testHeapAndDirectBuffers() throws Exception {
+      StringBuilder json = new StringBuilder("{");
+      while (json.length() < 1024) {
+         json.append("\"key").append(json.length()).append("\":\"value\",");
+      }
+
+      Random random = new Random();
+      char[] chars = new char[1024 * 1024];
+      for (int i = 0; i < chars.length; i++) {
+         chars[i] = (char) random.getRandom().nextInt(0x10000);
+      }
+
+      String[] strings = new String[]{"JMSCorrelationID", json.toString(), "ascii \u0000 \u007f \u0080 \u07ff \u0800 \uffff \ud800", new String(chars)};
+
+      for (String str : strings) {
+         ActiveMQBuffer expected = ActiveMQBuffers.dynamicBuffer(1024);
+
+         if (str.length() <= 0xffff) {
+            UTF8Util.saveUTF(expected, str);
+         }
+         expected.writeSimpleString(new SimpleString(str));
+
+         ActiveMQBuffer heap = ActiveMQBuffers.dynamicBuffer(16);
+         ActiveMQBuffer direct = ActiveMQBuffers.wrappedBuffer(ByteBuffer.allocateDirect(expected.writerIndex() + 16));
+
+         for (ActiveMQBuffer buffer : new ActiveMQBuffer[]{heap, direct}) {
+            if (str.length() <= 0xffff) {
+               buffer.writeUTF(str);
+            }
+            SimpleString.writeSimpleString(buffer.byteBuf(), str);
+
+            Assert.assertEquals(expected.writerIndex(), buffer.writerIndex());
+            for (int i = 0; i < expected.writerIndex(); i++) {
+               Assert.assertEquals(expected.getByte(i), buffer.getByte(i));
+            }
+
+            if (str.length() <= 0xffff) {
+               Assert.assertEquals(str, buffer.readUTF());
+            }
+            Assert.assertEquals(str, SimpleString.readString(buffer.byteBuf()));
+            Assert.assertEquals(0, buffer.readableBytes());
+
+            buffer.clear();
+            buffer.writeString(str);
+            buffer.writeInt(-1);
+
+            Assert.assertEquals(str, buffer.readString());
+            Assert.assertEquals(-1, buffer.readInt());
+         }
+      }
+   }
+
    @Test
    public void testBigSize() throws Exception {
 